@@ -1,21 +1,73 @@
 package com.wss.bronze.gateway.core;
 
+import com.wss.bronze.gateway.core.accesslog.AccessLogger;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.cache.LastKnownGoodStore;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
+import com.wss.bronze.gateway.core.filter.ResponseFilterChain;
+import com.wss.bronze.gateway.core.metrics.RouteMetrics;
+import com.wss.bronze.gateway.core.metrics.UpstreamMetrics;
+import com.wss.bronze.gateway.core.resilience.AdaptiveConcurrencyLimiter;
+import com.wss.bronze.gateway.core.resilience.AdaptiveThrottle;
+import com.wss.bronze.gateway.core.resilience.Bulkhead;
+import com.wss.bronze.gateway.core.resilience.ResilienceException;
+import com.wss.bronze.gateway.core.tracing.RequestTrace;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.ReferenceCountUtil;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 /**
  * @author wss
  */
+@Slf4j
 @Data
 public class GatewayContext {
+
+    private static final AtomicIntegerFieldUpdater<GatewayContext> RESPONDED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(GatewayContext.class, "responded");
+    private static final AtomicReferenceFieldUpdater<GatewayContext, CircuitBreaker> CIRCUIT_BREAKER_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewayContext.class, CircuitBreaker.class, "circuitBreaker");
+    private static final AtomicReferenceFieldUpdater<GatewayContext, Bulkhead> BULKHEAD_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewayContext.class, Bulkhead.class, "bulkhead");
+    private static final AtomicReferenceFieldUpdater<GatewayContext, AdaptiveConcurrencyLimiter> CONCURRENCY_LIMITER_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewayContext.class, AdaptiveConcurrencyLimiter.class, "concurrencyLimiter");
+    private static final AtomicReferenceFieldUpdater<GatewayContext, AdaptiveThrottle> THROTTLE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewayContext.class, AdaptiveThrottle.class, "throttle");
+    private static final AtomicReferenceFieldUpdater<GatewayContext, UpstreamMetrics> UPSTREAM_METRICS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewayContext.class, UpstreamMetrics.class, "upstreamMetrics");
+    private static final IllegalStateException ALREADY_RESPONDED =
+            new IllegalStateException("Response already written");
+
+    //认证过滤器写入的用户ID
+    public static final String ATTR_USER_ID = "userId";
+    //认证过滤器写入的API Key（如JwtAuthFilter的claim.{claim}: apiKey）
+    public static final String ATTR_API_KEY = "apiKey";
+    //JwtAuthFilter写入的全部JWT claims（Map<String, Object>）
+    public static final String ATTR_JWT_CLAIMS = "jwtClaims";
+
+
     private ChannelHandlerContext ctx;
     private FullHttpRequest request;
     private FullHttpResponse response;
@@ -23,6 +75,69 @@ public class GatewayContext {
     private Map<String, Object> attributes = new HashMap<>();
     private boolean terminated = false;
     private boolean forwarded = false;
+    //请求开始时间（System.nanoTime）
+    private final long startNanos = System.nanoTime();
+    //请求截止时间（System.nanoTime），0表示使用后端响应超时
+    private long deadlineNanos;
+    //请求优先级
+    private RequestPriority priority = RequestPriority.NORMAL;
+    //响应过滤器链，后端响应写回前执行，为空表示未配置
+    private ResponseFilterChain responseFilterChain;
+    //后台请求（如缓存后台刷新），响应不写回客户端
+    private boolean detached = false;
+    //响应写出前的回调，如写入响应缓存
+    private List<Consumer<FullHttpResponse>> responseListeners;
+    //写回客户端时追加的响应头（如限流状态），不进入响应缓存
+    private HttpHeaders extraResponseHeaders;
+    //已获得许可的熔断器，后端调用结束（响应、超时、连接失败）时记录一次结果
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CircuitBreaker circuitBreaker;
+    //已占用名额的舱壁，最终响应写出时释放
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Bulkhead bulkhead;
+    //已占用名额的自适应并发限制器，后端调用结束时记录RTT样本并释放
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+    //自适应节流器，后端调用结束时记录后端是否接受了请求
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile AdaptiveThrottle throttle;
+    //请求发出时间（System.nanoTime），不含等待连接的时间，0表示尚未发出
+    private long requestSentNanos;
+    //最近成功响应存储与key，后端熔断或超时时用于降级返回
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private LastKnownGoodStore lastKnownGoodStore;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String lastKnownGoodKey;
+    //路由指标，最终响应写出时记录状态与耗时，后台请求不记录
+    private RouteMetrics routeMetrics;
+    //后端服务指标，后端调用结束时记录一次结果与耗时
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile UpstreamMetrics upstreamMetrics;
+    //后端响应状态码，0表示尚未收到响应
+    private int upstreamStatus;
+    //转发的后端实例地址
+    private String upstreamUrl;
+    //后端耗时（从请求写出到调用结束），-1表示未调用后端或请求未写出
+    private long upstreamNanos = -1;
+    //过滤器链耗时
+    private long filterNanos;
+    //访问日志，最终响应写出时记录一条，未启用时为null
+    private AccessLogger accessLogger;
+    //后端调用开始时间（System.nanoTime），包含等待连接的时间
+    private long upstreamStartNanos;
+    //链路追踪，未采样时为null
+    private RequestTrace trace;
+    //响应是否已写出，后端响应、超时、降级可能在不同线程中竞争写出
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile int responded;
 
     public GatewayContext(ChannelHandlerContext ctx, FullHttpRequest request) {
         this.ctx = ctx;
@@ -37,10 +152,276 @@ public class GatewayContext {
         return request.method();
     }
 
+    /**
+     * 获取用户ID，优先使用认证过滤器写入的用户ID，未经认证的路由再从user-id/X-User-ID请求头获取
+     * 已通过JWT认证但令牌中没有用户ID时返回null，不使用客户端可伪造的请求头
+     */
+    public String getUserId() {
+        Object userId = attributes.get(ATTR_USER_ID);
+        if (userId != null) {
+            return userId.toString();
+        }
+        if (attributes.containsKey(ATTR_JWT_CLAIMS)) {
+            return null;
+        }
+        userId = request.headers().get("user-id");
+        return userId != null ? (String) userId : request.headers().get("X-User-ID");
+    }
+
     public HttpHeaders getHeaders() {
         return request.headers();
     }
 
+    /**
+     * 添加响应回调，回调中不得释放或修改响应内容
+     */
+    public void addResponseListener(Consumer<FullHttpResponse> listener) {
+        if (responseListeners == null) {
+            responseListeners = new ArrayList<>(2);
+        }
+        responseListeners.add(listener);
+    }
+
+    /**
+     * 添加写回客户端时追加的响应头，对后端响应、缓存响应与网关错误响应都生效
+     */
+    public void addResponseHeader(CharSequence name, Object value) {
+        if (extraResponseHeaders == null) {
+            extraResponseHeaders = new DefaultHttpHeaders(false);
+        }
+        extraResponseHeaders.add(name, value);
+    }
+
+    /**
+     * 启用最近成功响应降级
+     */
+    public void enableLastKnownGood(LastKnownGoodStore store, String key) {
+        this.lastKnownGoodStore = store;
+        this.lastKnownGoodKey = key;
+    }
+
+    /**
+     * 返回最近成功响应
+     * @return 路由未启用或没有可用响应时返回false
+     */
+    public boolean serveLastKnownGood() {
+        return lastKnownGoodStore != null && lastKnownGoodStore.serve(this, lastKnownGoodKey);
+    }
+
+    /**
+     * 开始一次受熔断器保护的后端调用，调用方已通过tryAcquirePermission获得许可
+     */
+    public void startUpstreamCall(CircuitBreaker circuitBreaker) {
+        this.upstreamStartNanos = System.nanoTime();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 记录后端调用结果（含真实耗时），重试、超时与响应竞争时只记录第一次
+     * @param error 为null表示成功
+     */
+    public void completeUpstreamCall(Throwable error) {
+        if (trace != null) {
+            trace.completeUpstream(upstreamStatus, error);
+        }
+        completeUpstreamMetrics(error);
+        completeThrottle(!isOverloadSignal(error));
+        completeConcurrencyLimit(error);
+        CircuitBreaker breaker = CIRCUIT_BREAKER_UPDATER.getAndSet(this, null);
+        if (breaker == null) {
+            return;
+        }
+        long duration = System.nanoTime() - upstreamStartNanos;
+        if (error == null) {
+            breaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+        } else {
+            breaker.onError(duration, TimeUnit.NANOSECONDS, error);
+        }
+    }
+
+    /**
+     * 调用未到达后端（如网关自身过载拒绝），归还许可且不记录结果
+     */
+    public void abandonUpstreamCall() {
+        UPSTREAM_METRICS_UPDATER.set(this, null);
+        THROTTLE_UPDATER.set(this, null);
+        releaseConcurrencyLimit();
+        CircuitBreaker breaker = CIRCUIT_BREAKER_UPDATER.getAndSet(this, null);
+        if (breaker != null) {
+            breaker.releasePermission();
+        }
+    }
+
+    /**
+     * 持有舱壁名额直到最终响应写出（后端响应、超时、降级都经过writeResponse），重试期间不释放
+     */
+    public void holdBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * 持有自适应并发限制名额，后端调用结束时记录RTT样本，未到达后端时只释放
+     */
+    public void holdConcurrencyLimit(AdaptiveConcurrencyLimiter limiter) {
+        this.requestSentNanos = 0;
+        this.concurrencyLimiter = limiter;
+    }
+
+    /**
+     * 标记请求已写往后端，RTT从此时开始计算
+     */
+    public void markRequestSent() {
+        this.requestSentNanos = System.nanoTime();
+    }
+
+    /**
+     * 对请求启用自适应节流，后端调用结束时记录一次结果，未到达后端时不记录
+     */
+    public void holdThrottle(AdaptiveThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * 记录后端响应状态：429/503表示后端拒绝了请求，熔断器不把429视为失败，由此单独记录
+     */
+    public void recordUpstreamStatus(HttpResponseStatus status) {
+        int code = status.code();
+        this.upstreamStatus = code;
+        if (code == 429 || code == 503) {
+            completeThrottle(false);
+        }
+    }
+
+    /**
+     * 对后端调用记录服务指标，重试期间只在最终结果时记录
+     */
+    public void holdUpstreamMetrics(UpstreamMetrics metrics) {
+        this.upstreamStatus = 0;
+        this.upstreamMetrics = metrics;
+    }
+
+    /**
+     * 后端响应按响应状态记录，超时等网关生成的错误按对应状态记录，连接失败等记录为error；
+     * 请求未写出时不记录耗时
+     */
+    private void completeUpstreamMetrics(Throwable error) {
+        UpstreamMetrics metrics = UPSTREAM_METRICS_UPDATER.getAndSet(this, null);
+        if (metrics == null) {
+            return;
+        }
+        int status = upstreamStatus;
+        if (status == 0 && error instanceof ResilienceException) {
+            status = ((ResilienceException) error).getStatus().code();
+        }
+        long sent = requestSentNanos;
+        upstreamNanos = sent == 0 ? -1 : System.nanoTime() - sent;
+        metrics.recordCall(status, upstreamNanos);
+    }
+
+    private void completeThrottle(boolean accepted) {
+        AdaptiveThrottle held = THROTTLE_UPDATER.getAndSet(this, null);
+        if (held != null) {
+            held.record(accepted);
+        }
+    }
+
+    private void completeConcurrencyLimit(Throwable error) {
+        AdaptiveConcurrencyLimiter limiter = CONCURRENCY_LIMITER_UPDATER.getAndSet(this, null);
+        if (limiter == null) {
+            return;
+        }
+        long sent = requestSentNanos;
+        if (sent == 0) {
+            limiter.release();
+        } else {
+            limiter.onSample(System.nanoTime() - sent, isOverloadSignal(error));
+        }
+    }
+
+    /**
+     * 超时、连接失败与502/503/504视为后端过载信号，其他5xx按正常RTT样本记录
+     */
+    private static boolean isOverloadSignal(Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        if (!(error instanceof ResilienceException)) {
+            return true;
+        }
+        int code = ((ResilienceException) error).getStatus().code();
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    private void releaseConcurrencyLimit() {
+        AdaptiveConcurrencyLimiter limiter = CONCURRENCY_LIMITER_UPDATER.getAndSet(this, null);
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    private void releaseBulkhead() {
+        Bulkhead held = BULKHEAD_UPDATER.getAndSet(this, null);
+        if (held != null) {
+            held.release();
+        }
+    }
+
+    public boolean isResponded() {
+        return responded == 1;
+    }
+
+    /**
+     * 写出最终响应，同一请求只生效一次，之后再写出的响应直接释放
+     * 已转发的请求在此释放原始请求；后台请求只执行回调，不写回客户端
+     * @param response 响应
+     * @param closeConnection 写出后是否关闭客户端连接
+     * @return 写出结果，重复写出时返回失败的future
+     */
+    public ChannelFuture writeResponse(FullHttpResponse response, boolean closeConnection) {
+        if (!RESPONDED_UPDATER.compareAndSet(this, 0, 1)) {
+            ReferenceCountUtil.safeRelease(response);
+            return ctx.newFailedFuture(ALREADY_RESPONDED);
+        }
+        this.terminated = true;
+        if (routeMetrics != null && !detached) {
+            routeMetrics.recordResponse(response.status().code(), System.nanoTime() - startNanos);
+        }
+        if (accessLogger != null && !detached) {
+            accessLogger.log(this, response, closeConnection);
+        }
+        releaseBulkhead();
+        releaseConcurrencyLimit();
+        THROTTLE_UPDATER.set(this, null);
+        if (responseListeners != null) {
+            for (Consumer<FullHttpResponse> listener : responseListeners) {
+                try {
+                    listener.accept(response);
+                } catch (Exception e) {
+                    log.warn("Response listener failed", e);
+                }
+            }
+        }
+        if (forwarded) {
+            ReferenceCountUtil.safeRelease(request);
+        }
+        if (detached) {
+            ReferenceCountUtil.safeRelease(response);
+            return ctx.newSucceededFuture();
+        }
+        if (extraResponseHeaders != null) {
+            response.headers().add(extraResponseHeaders);
+        }
+        int status = response.status().code();
+        ChannelFuture writeFuture = ctx.writeAndFlush(response);
+        if (trace != null) {
+            trace.finishOnWrite(writeFuture, status);
+        }
+        if (closeConnection) {
+            writeFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+        return writeFuture;
+    }
+
     public void setResponse(FullHttpResponse response) {
         this.response = response;
         ctx.writeAndFlush(response);
@@ -49,7 +430,7 @@ public class GatewayContext {
 
     public void setResponseAndClose(FullHttpResponse response) {
         this.response = response;
-        ctx.writeAndFlush(response).addListener(io.netty.channel.ChannelFutureListener.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
         this.terminated = true;
     }
 }
@@ -1,6 +1,9 @@
 package com.wss.bronze.gateway.core;
 
+import com.wss.bronze.gateway.core.client.HttpClient;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.metrics.EventLoopMonitor;
+import com.wss.bronze.gateway.core.resilience.LoadShedder;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
 import io.netty.channel.epoll.Epoll;
@@ -42,6 +45,15 @@ public class GatewayServer implements ApplicationListener<ApplicationReadyEvent>
     @Autowired
     private GatewayProperties properties;
 
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private LoadShedder loadShedder;
+
+    @Autowired
+    private EventLoopMonitor eventLoopMonitor;
+
     private volatile EventLoopGroup bossGroup;
     private volatile EventLoopGroup workerGroup;
     private volatile ChannelFuture serverChannelFuture;
@@ -64,6 +76,9 @@ public class GatewayServer implements ApplicationListener<ApplicationReadyEvent>
         try {
             log.info("Starting gateway server on port: {}", properties.getPort());
 
+            // 开始接收请求前预热后端连接池，避免首批请求集中建连
+            httpClient.prewarm(properties.getRoutes());
+
             // 创建 GatewayServerHandler 实例（单例，提高性能）
             if (gatewayServerHandler == null) {
                 gatewayServerHandler = new GatewayServerHandler();
@@ -86,6 +101,12 @@ public class GatewayServer implements ApplicationListener<ApplicationReadyEvent>
                 workerGroup = new NioEventLoopGroup(workerThreads, workerThreadFactory);
             }
 
+            // 事件循环调度延迟与阻塞检测；过载检测，按优先级拒绝请求
+            eventLoopMonitor.monitor(EventLoopMonitor.BOSS, bossGroup);
+            eventLoopMonitor.monitor(EventLoopMonitor.WORKER, workerGroup);
+            eventLoopMonitor.monitor(EventLoopMonitor.CLIENT, httpClient.getEventLoopGroup());
+            loadShedder.start();
+
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
                     .channel(isEpollAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
@@ -1,26 +1,47 @@
 package com.wss.bronze.gateway.core;
 
+import com.wss.bronze.gateway.core.accesslog.AccessLogger;
+import com.wss.bronze.gateway.core.acl.CidrTrie;
+import com.wss.bronze.gateway.core.acl.ClientIpResolver;
+import com.wss.bronze.gateway.core.cache.CacheEntry;
+import com.wss.bronze.gateway.core.cache.LastKnownGoodStore;
+import com.wss.bronze.gateway.core.cache.RequestCoalescer;
+import com.wss.bronze.gateway.core.cache.ResponseCache;
 import com.wss.bronze.gateway.core.client.HttpClient;
 import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
 import com.wss.bronze.gateway.core.enums.LoadBalancerTypeEnums;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
 import com.wss.bronze.gateway.core.filter.FilterChainFactory;
 import com.wss.bronze.gateway.core.filter.FilterException;
 import com.wss.bronze.gateway.core.loadbalancer.LoadBalancer;
 import com.wss.bronze.gateway.core.loadbalancer.RoundRobinLoadBalancer;
 import com.wss.bronze.gateway.core.loadbalancer.WeightedLoadBalancer;
+import com.wss.bronze.gateway.core.metrics.EventLoopMonitor;
+import com.wss.bronze.gateway.core.metrics.GatewayMetrics;
 import com.wss.bronze.gateway.core.resilience.CircuitBreakerDecorator;
+import com.wss.bronze.gateway.core.resilience.CircuitBreakerManager;
+import com.wss.bronze.gateway.core.resilience.LoadShedder;
 import com.wss.bronze.gateway.core.router.Router;
+import com.wss.bronze.gateway.core.tracing.RequestTrace;
+import com.wss.bronze.gateway.core.tracing.Tracer;
 import com.wss.bronze.gateway.core.utils.GwUtils;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 
@@ -46,6 +67,18 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
     private volatile FilterChainFactory filterChainFactory;
     private volatile HttpClient httpClient;
     private volatile CircuitBreakerDecorator circuitBreakerDecorator;
+    private volatile CircuitBreakerManager circuitBreakerManager;
+    private volatile ResponseCache responseCache;
+    private volatile RequestCoalescer requestCoalescer;
+    private volatile LastKnownGoodStore lastKnownGoodStore;
+    private volatile ClientIpResolver clientIpResolver;
+    // 灰度IP范围按配置缓存，配置对象相同时复用
+    private final Map<GatewayProperties.GrayReleaseConfig.IpBased, CidrTrie<Boolean>> grayIpRanges =
+            new ConcurrentHashMap<>();
+    private volatile LoadShedder loadShedder;
+    private volatile GatewayMetrics gatewayMetrics;
+    private volatile Tracer tracer;
+    private volatile AccessLogger accessLogger;
 
     // 依赖初始化状态标记
     private volatile boolean dependenciesInitialized = false;
@@ -86,13 +119,34 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
             weightedLoadBalancer = ApplicationContextHolder.getBean(WeightedLoadBalancer.class);
             filterChainFactory = ApplicationContextHolder.getBean(FilterChainFactory.class);
             httpClient = ApplicationContextHolder.getBean(HttpClient.class);
+            clientIpResolver = ApplicationContextHolder.getBean(ClientIpResolver.class);
+            loadShedder = ApplicationContextHolder.getBean(LoadShedder.class);
+            gatewayMetrics = ApplicationContextHolder.getBean(GatewayMetrics.class);
+            tracer = ApplicationContextHolder.getBean(Tracer.class);
+            accessLogger = ApplicationContextHolder.getBean(AccessLogger.class);
 
             // 可选依赖
             try {
                 circuitBreakerDecorator = ApplicationContextHolder.getBean(CircuitBreakerDecorator.class);
+                circuitBreakerManager = ApplicationContextHolder.getBean(CircuitBreakerManager.class);
             } catch (Exception ignored) {
                 log.debug("CircuitBreakerDecorator not found, circuit breaker disabled");
             }
+            try {
+                responseCache = ApplicationContextHolder.getBean(ResponseCache.class);
+            } catch (Exception ignored) {
+                log.debug("ResponseCache not found, response cache disabled");
+            }
+            try {
+                lastKnownGoodStore = ApplicationContextHolder.getBean(LastKnownGoodStore.class);
+            } catch (Exception ignored) {
+                log.debug("LastKnownGoodStore not found, stale-on-error disabled");
+            }
+            try {
+                requestCoalescer = ApplicationContextHolder.getBean(RequestCoalescer.class);
+            } catch (Exception ignored) {
+                log.debug("RequestCoalescer not found, request coalescing disabled");
+            }
 
             log.info("GatewayServerHandler dependencies initialized successfully");
         } catch (Exception e) {
@@ -106,68 +160,283 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
         // 性能计数器
         long requestId = requestCounter.incrementAndGet();
 
-        // 可写状态检查
-        if (!ctx.channel().isWritable()) {
-            handleChannelNotWritable(ctx, msg, requestId);
-            return;
-        }
-
         // 确保依赖已初始化
         ensureDependenciesInitialized();
 
         if (!(msg instanceof FullHttpRequest)) {
+            if (!ctx.channel().isWritable()) {
+                handleChannelNotWritable(ctx, msg, requestId);
+                return;
+            }
             super.channelRead(ctx, msg);
             return;
         }
 
         FullHttpRequest fullRequest = (FullHttpRequest) msg;
         GatewayContext context = new GatewayContext(ctx, fullRequest);
+        RequestTrace trace = tracer.start(fullRequest.headers(), context.getStartNanos());
+        context.setTrace(trace);
+        if (accessLogger.isEnabled()) {
+            context.setAccessLogger(accessLogger);
+        }
 
+        // 异步过滤器挂起时，请求的释放由回调负责
+        boolean suspended = false;
         try {
-            // 执行过滤器
-            try {
-                filterChainFactory.executePreFilters(context);
-            } catch (FilterException e) {
-                handleFilterException(ctx, e, requestId);
-                return;
-            }
-
             // 路由选择
+            long routeStartNanos = trace != null ? System.nanoTime() : 0;
             GatewayProperties.RouteDefinition route = router.route(context);
-            if (route == null) {
-                handleRouteNotFound(ctx, requestId);
+            if (route != null) {
+                context.setRoute(route);
+            }
+            if (trace != null) {
+                trace.span("route", routeStartNanos, System.nanoTime(), null);
+                trace.setAttribute("http.method", fullRequest.method().name());
+                trace.setAttribute("http.target", fullRequest.uri());
+                trace.setAttribute("route", route != null ? route.getId() : null);
+            }
+            context.setRouteMetrics(gatewayMetrics.route(route != null ? route.getId() : null));
+            EventLoopMonitor.mark(route != null ? route.getId() : null, null);
+            context.setPriority(loadShedder.classify(context,
+                    route != null ? route.getPriority() : RequestPriority.NORMAL));
+
+            // 过载时先拒绝低优先级请求；客户端连接不可写时只保留核心请求
+            if (loadShedder.shouldShed(context.getPriority())) {
+                handleLoadShed(context, requestId);
+                return;
+            }
+            if (!ctx.channel().isWritable() && context.getPriority() != RequestPriority.CRITICAL) {
+                handleChannelNotWritable(context, requestId);
                 return;
             }
 
-            // 负载均衡选择 + 灰度配置
-            GatewayProperties.Instance instance = chooseInstance(context,route);
-            if (instance == null) {
-                handleNoInstanceAvailable(ctx, requestId);
+            // 执行过滤器（全局 + 路由过滤器，未匹配路由时只执行全局过滤器）
+            long filterStartNanos = System.nanoTime();
+            CompletableFuture<Void> filtered;
+            try {
+                filtered = filterChainFactory.getFilterChain(route).execute(context);
+            } catch (FilterException e) {
+                recordFilters(context, filterStartNanos, e);
+                handleFilterException(context, e, requestId);
                 return;
             }
 
-            // 转发请求到后端服务
-            forwardRequest(context, instance, requestId);
+            if (!filtered.isDone()) {
+                // 异步或阻塞过滤器未完成，完成后在当前事件循环中继续处理
+                suspended = true;
+                filtered.whenComplete((ignored, error) -> {
+                    recordFilters(context, filterStartNanos, error);
+                    resumeAfterFilters(context, error, requestId);
+                });
+                return;
+            }
+            recordFilters(context, filterStartNanos, null);
+            processRequest(context, requestId);
 
         } catch (Exception e) {
-            handleError(ctx, e, requestId);
+            handleError(context, e, requestId);
         } finally {
+            EventLoopMonitor.mark(null, null);
             // 确保请求对象被释放（在未转发的情况下）
             // 注意：如果请求已转发，HttpClient会负责释放
             // 这里不需要主动释放，避免重复释放
-            if (!context.isForwarded()) {
+            if (!suspended && !context.isForwarded()) {
                 ReferenceCountUtil.safeRelease(fullRequest);
             }
         }
     }
 
+    /**
+     * 记录过滤器链耗时，采样的请求同时记录过滤器span
+     */
+    private void recordFilters(GatewayContext context, long filterStartNanos, Throwable error) {
+        long now = System.nanoTime();
+        context.setFilterNanos(now - filterStartNanos);
+        context.getRouteMetrics().recordFilters(now - filterStartNanos);
+        if (context.getTrace() != null) {
+            context.getTrace().span("filters", filterStartNanos, now, error);
+        }
+    }
+
+    /**
+     * 异步过滤器链完成后继续处理请求（在请求所属的事件循环中执行）
+     */
+    private void resumeAfterFilters(GatewayContext context, Throwable error, long requestId) {
+        EventLoopMonitor.mark(context.getRoute() != null ? context.getRoute().getId() : null, null);
+        try {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                handleFilterException(context, cause instanceof FilterException ? (FilterException) cause
+                        : new FilterException(cause.getMessage()), requestId);
+                return;
+            }
+            processRequest(context, requestId);
+        } catch (Exception e) {
+            handleError(context, e, requestId);
+        } finally {
+            EventLoopMonitor.mark(null, null);
+            if (!context.isForwarded()) {
+                ReferenceCountUtil.safeRelease(context.getRequest());
+            }
+        }
+    }
+
+    /**
+     * 过滤器通过后：缓存、请求合并、负载均衡并转发
+     */
+    private void processRequest(GatewayContext context, long requestId) {
+        GatewayProperties.RouteDefinition route = context.getRoute();
+        if (route == null) {
+            handleRouteNotFound(context, requestId);
+            return;
+        }
+
+        // 响应缓存命中时直接返回，不获取后端连接
+        String cacheKey = null;
+        if (responseCache != null && route.getCache().isEnabled()) {
+            cacheKey = responseCache.cacheKey(context);
+            if (cacheKey != null && serveFromCache(context, route, cacheKey, requestId)) {
+                return;
+            }
+        }
+
+        // 合并相同的并发请求，跟随者等待领导者的后端响应
+        if (requestCoalescer != null && route.isCoalescing() && requestCoalescer.join(context)) {
+            log.debug("Request {} coalesced", requestId);
+            return;
+        }
+        if (cacheKey != null) {
+            // 只有实际转发的请求写入缓存，合并的跟随者不重复写入
+            String key = cacheKey;
+            context.addResponseListener(response -> responseCache.store(key, route.getCache(), response));
+        }
+
+        // 保存最近一次成功响应，后端熔断或超时时降级返回
+        String lastKnownGoodKey = lastKnownGoodStore != null ? lastKnownGoodStore.key(context) : null;
+        if (lastKnownGoodKey != null) {
+            context.enableLastKnownGood(lastKnownGoodStore, lastKnownGoodKey);
+            context.addResponseListener(response ->
+                    lastKnownGoodStore.store(lastKnownGoodKey, route.getLastKnownGood(), response));
+        }
+
+        // 负载均衡选择 + 灰度配置
+        GatewayProperties.Instance instance = chooseInstance(context,route);
+        if (instance == null) {
+            handleNoInstanceAvailable(context, requestId);
+            return;
+        }
+
+        // 转发请求到后端服务
+        forwardRequest(context, instance, requestId);
+    }
+
+    /**
+     * 尝试从响应缓存返回
+     * 过期但仍在stale-while-revalidate时间内的条目照常返回，同时在后台刷新
+     * @return 是否已从缓存返回
+     */
+    private boolean serveFromCache(GatewayContext context, GatewayProperties.RouteDefinition route,
+                                   String key, long requestId) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry = responseCache.lookup(key, now);
+        FullHttpResponse cached = entry != null ? entry.toResponse(now) : null;
+        if (cached == null) {
+            return false;
+        }
+
+        boolean fresh = entry.isFresh(now);
+        cached.headers().set(ResponseCache.X_CACHE, fresh ? "HIT" : "STALE");
+        boolean keepAlive = HttpUtil.isKeepAlive(context.getRequest());
+        HttpUtil.setKeepAlive(cached, keepAlive);
+        if (!fresh && entry.tryStartRevalidation()) {
+            revalidate(context, route, key, entry, requestId);
+        }
+        context.writeResponse(cached, !keepAlive);
+        if (log.isDebugEnabled()) {
+            log.debug("Request {} served from cache ({})", requestId, fresh ? "fresh" : "stale");
+        }
+        return true;
+    }
+
+    /**
+     * 后台刷新缓存条目，响应只写入缓存不返回客户端
+     */
+    private void revalidate(GatewayContext context, GatewayProperties.RouteDefinition route,
+                            String key, CacheEntry entry, long requestId) {
+        GatewayContext revalidation = new GatewayContext(context.getCtx(), context.getRequest().retainedDuplicate());
+        revalidation.setDetached(true);
+        revalidation.setRoute(route);
+        revalidation.setPriority(RequestPriority.LOW);
+        revalidation.addResponseListener(response -> {
+            entry.finishRevalidation();
+            responseCache.store(key, route.getCache(), response);
+        });
+        GatewayProperties.Instance instance = chooseInstance(revalidation, route);
+        if (instance == null) {
+            entry.finishRevalidation();
+            ReferenceCountUtil.safeRelease(revalidation.getRequest());
+            return;
+        }
+        forwardRequest(revalidation, instance, requestId);
+    }
+
     /**
      * 基于负载均衡器选择实例
      */
     private GatewayProperties.Instance chooseInstanceByLoadBalancer(GatewayProperties.RouteDefinition route) {
         String loadBalancerType = route.getLoadBalancerType();
         LoadBalancer loadBalancer = getLoadBalancer(loadBalancerType);
-        return loadBalancer.choose(route.getInstances(), route.getId());
+        return chooseAvailable(loadBalancer, route.getInstances(), route.getId());
+    }
+
+    /**
+     * 负载均衡选择并跳过已摘除与熔断中的实例
+     * 先筛选出可用实例再由负载均衡器选择，每个请求只推进一次轮询位置；
+     * 全部熔断时返回一个未摘除的实例，由熔断器拒绝并走降级处理；全部摘除时返回null
+     */
+    private GatewayProperties.Instance chooseAvailable(LoadBalancer loadBalancer,
+                                                       List<GatewayProperties.Instance> instances, String key) {
+        if (instances == null || instances.isEmpty()) {
+            return null;
+        }
+        List<GatewayProperties.Instance> candidates = availableInstances(instances);
+        if (!candidates.isEmpty()) {
+            return loadBalancer.choose(candidates, key);
+        }
+        log.debug("No available instance of {}, all drained or circuit broken", key);
+        for (GatewayProperties.Instance instance : instances) {
+            if (instance.isHealthy()) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 可用实例，全部可用时直接返回原列表，不创建新列表
+     */
+    private List<GatewayProperties.Instance> availableInstances(List<GatewayProperties.Instance> instances) {
+        int size = instances.size();
+        for (int i = 0; i < size; i++) {
+            if (isAvailable(instances.get(i))) {
+                continue;
+            }
+            List<GatewayProperties.Instance> available = new ArrayList<>(size - 1);
+            available.addAll(instances.subList(0, i));
+            for (int j = i + 1; j < size; j++) {
+                if (isAvailable(instances.get(j))) {
+                    available.add(instances.get(j));
+                }
+            }
+            return available;
+        }
+        return instances;
+    }
+
+    private boolean isAvailable(GatewayProperties.Instance instance) {
+        CircuitBreakerManager manager = circuitBreakerManager;
+        return instance.isHealthy() && (manager == null || manager.isAvailable(instance.getServiceId()));
     }
 
     /**
@@ -186,7 +455,7 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
         // 2. 基于用户ID的灰度策略
         if (grayReleaseConfig.getUserIdBased() != null) {
             GatewayProperties.GrayReleaseConfig.UserIdBased userIdBased = grayReleaseConfig.getUserIdBased();
-            String userId = getUserIdFromContext(context);
+            String userId = context.getUserId();
             if (userId != null) {
                 // 基于用户ID哈希值进行流量分配
                 int hash = userId.hashCode();
@@ -200,8 +469,10 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
         // 3. 基于IP的灰度策略
         if (grayReleaseConfig.getIpBased() != null) {
             GatewayProperties.GrayReleaseConfig.IpBased ipBased = grayReleaseConfig.getIpBased();
-            String clientIp = getClientIp(context);
-            if (clientIp != null && ipBased.getIpRanges().stream().anyMatch(range -> isIpInRange(clientIp, range))) {
+            byte[] clientAddress = clientIpResolver.resolveAddress(context);
+            if (clientAddress != null && ipBased.getIpRanges() != null
+                    && grayIpRanges.computeIfAbsent(ipBased, GatewayServerHandler::buildIpRanges)
+                    .lookup(clientAddress) != null) {
                 return true;
             }
         }
@@ -220,48 +491,31 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
     }
 
     /**
-     * 从上下文中获取用户ID
-     */
-    private String getUserIdFromContext(GatewayContext context) {
-        // 尝试从常见头部获取用户ID
-        String userId = context.getRequest().headers().get("user-id");
-        if (userId != null) {
-            return userId;
-        }
-
-        userId = context.getRequest().headers().get("X-User-ID");
-        if (userId != null) {
-            return userId;
-        }
-
-        // 可以扩展从token、cookie等获取用户ID的逻辑
-        return null;
-    }
-
-    /**
-     * 获取客户端IP
+     * 灰度IP范围：CIDR或单个地址（IPv4/IPv6），* 匹配全部；兼容以点结尾的IPv4前缀写法，如 192.168.1.
+     * 无效的范围记录日志后忽略
      */
-    private String getClientIp(GatewayContext context) {
-        String xForwardedFor = context.getRequest().headers().get("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = context.getRequest().headers().get("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+    private static CidrTrie<Boolean> buildIpRanges(GatewayProperties.GrayReleaseConfig.IpBased ipBased) {
+        CidrTrie.Builder<Boolean> builder = CidrTrie.builder();
+        for (String range : ipBased.getIpRanges()) {
+            String text = range.trim();
+            try {
+                if ("*".equals(text)) {
+                    builder.add("0.0.0.0/0", Boolean.TRUE).add("::/0", Boolean.TRUE);
+                } else if (text.endsWith(".")) {
+                    String[] octets = text.substring(0, text.length() - 1).split("\\.");
+                    StringBuilder cidr = new StringBuilder(text);
+                    for (int i = octets.length; i < 4; i++) {
+                        cidr.append(i > octets.length ? ".0" : "0");
+                    }
+                    builder.add(cidr.append('/').append(octets.length * 8).toString(), Boolean.TRUE);
+                } else {
+                    builder.add(text, Boolean.TRUE);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignore invalid gray release ip range: {}", range);
+            }
         }
-
-        // 从ChannelHandlerContext获取远程地址
-        return context.getCtx().channel().remoteAddress().toString().replaceFirst("/", "");
-    }
-
-    /**
-     * 判断IP是否在指定范围内（简化实现）
-     */
-    private boolean isIpInRange(String ip, String range) {
-        // 简化实现，实际可以支持CIDR格式等
-        return ip.startsWith(range) || "*".equals(range) || ip.equals(range);
+        return builder.build();
     }
 
 
@@ -283,14 +537,18 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
                         .filter(instance -> Boolean.TRUE.equals(instance.getGray()))
                         .collect(java.util.stream.Collectors.toList());
 
-                log.debug("Gray user matched, routing to gray instances. Count: {}", candidateInstances.size());
+                if (log.isDebugEnabled()) {
+                    log.debug("Gray user matched, routing to gray instances. Count: {}", candidateInstances.size());
+                }
             } else {
                 // 普通用户访问普通实例
                 candidateInstances = route.getInstances().stream()
                         .filter(instance -> !Boolean.TRUE.equals(instance.getGray()))
                         .collect(java.util.stream.Collectors.toList());
 
-                log.debug("Normal user, routing to normal instances. Count: {}", candidateInstances.size());
+                if (log.isDebugEnabled()) {
+                    log.debug("Normal user, routing to normal instances. Count: {}", candidateInstances.size());
+                }
             }
 
             // 如果筛选后没有可用实例，则回退到全部实例
@@ -302,7 +560,8 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
             // 在候选实例中使用负载均衡选择
             String loadBalancerType = route.getLoadBalancerType();
             LoadBalancer loadBalancer = getLoadBalancer(loadBalancerType);
-            return loadBalancer.choose(candidateInstances, route.getId());
+            // 灰度与普通实例分别轮询，互不影响
+            return chooseAvailable(loadBalancer, candidateInstances, route.getId() + (isInGrayGroup ? "#gray" : "#normal"));
 
         } catch (Exception e) {
             log.error("Error in gray release instance selection, fallback to normal selection", e);
@@ -353,6 +612,12 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
         try {
             // 标记请求已转发
             context.setForwarded(true);
+            context.setResponseFilterChain(filterChainFactory.getResponseFilterChain(context.getRoute()));
+            context.holdUpstreamMetrics(gatewayMetrics.upstream(instance));
+            context.setUpstreamUrl(instance.getUrl());
+            if (context.getTrace() != null) {
+                context.getTrace().setAttribute("upstream.service", instance.getServiceId());
+            }
 
             if (circuitBreakerDecorator == null) {
                 httpClient.forward(context, instance.getUrl(), false, instance.getServiceId(), null, null);
@@ -365,12 +630,15 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
                 );
             }
 
-            log.debug("Request {} forwarded to service {} at {}", requestId, instance.getServiceId(), instance.getUrl());
+            // 请求路径上的调试日志先判断级别，避免装箱与参数数组分配
+            if (log.isDebugEnabled()) {
+                log.debug("Request {} forwarded to service {} at {}", requestId, instance.getServiceId(), instance.getUrl());
+            }
         } catch (Exception e) {
             errorCounter.incrementAndGet();
             log.error("Service request exception for request {}", requestId, e);
-            GwUtils.sendResponse(context.getCtx(), HttpResponseStatus.INTERNAL_SERVER_ERROR,
-                    "Service request exception: " + e.getMessage(), true);
+            GwUtils.sendResponse(context, HttpResponseStatus.INTERNAL_SERVER_ERROR,
+                    "Service request exception: " + e.getMessage());
         }
     }
 
@@ -384,41 +652,60 @@ public class GatewayServerHandler extends ChannelInboundHandlerAdapter {
         ReferenceCountUtil.safeRelease(msg);
     }
 
+    /**
+     * 客户端连接不可写时拒绝非核心请求并关闭连接
+     */
+    private void handleChannelNotWritable(GatewayContext context, long requestId) {
+        errorCounter.incrementAndGet();
+        log.warn("Gateway channel not writable for request {}, dropping {} request", requestId, context.getPriority());
+        GwUtils.sendResponse(context, HttpResponseStatus.SERVICE_UNAVAILABLE, "Service busy");
+    }
+
+    /**
+     * 过载降级拒绝
+     */
+    private void handleLoadShed(GatewayContext context, long requestId) {
+        errorCounter.incrementAndGet();
+        log.debug("Request {} shed under overload, priority {}", requestId, context.getPriority());
+        context.addResponseHeader(HttpHeaderNames.RETRY_AFTER, "1");
+        GwUtils.sendResponse(context, HttpResponseStatus.SERVICE_UNAVAILABLE, "Server overloaded");
+    }
+
     /**
      * 处理过滤器异常
      */
-    private void handleFilterException(ChannelHandlerContext ctx, FilterException e, long requestId) {
+    private void handleFilterException(GatewayContext context, FilterException e, long requestId) {
         errorCounter.incrementAndGet();
         log.debug("Filter exception for request {}: {}", requestId, e.getMessage());
-        GwUtils.sendResponse(ctx, e.getStatus(), e.getMessage(), true);
+        GwUtils.sendResponse(context, e.getStatus(), e.getMessage());
     }
 
     /**
      * 处理路由未找到
      */
-    private void handleRouteNotFound(ChannelHandlerContext ctx, long requestId) {
+    private void handleRouteNotFound(GatewayContext context, long requestId) {
         errorCounter.incrementAndGet();
         log.debug("No route found for request {}", requestId);
-        GwUtils.sendResponse(ctx, HttpResponseStatus.NOT_FOUND, "No route found", true);
+        GwUtils.sendResponse(context, HttpResponseStatus.NOT_FOUND, "No route found");
     }
 
     /**
      * 处理无可用实例
      */
-    private void handleNoInstanceAvailable(ChannelHandlerContext ctx, long requestId) {
+    private void handleNoInstanceAvailable(GatewayContext context, long requestId) {
         errorCounter.incrementAndGet();
         log.debug("No available instance for request {}", requestId);
-        GwUtils.sendResponse(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE, "No available instance", true);
+        GwUtils.sendResponse(context, HttpResponseStatus.SERVICE_UNAVAILABLE, "No available instance");
     }
 
     /**
-     * 处理一般错误
+     * 处理一般错误，经过GatewayContext写出，保证释放限流许可并执行响应回调（如完成合并请求）
+     * 已经写出响应的请求不再重复写出
      */
-    private void handleError(ChannelHandlerContext ctx, Exception e, long requestId) {
+    private void handleError(GatewayContext context, Exception e, long requestId) {
         errorCounter.incrementAndGet();
         log.error("Gateway process error for request {}", requestId, e);
-        GwUtils.sendResponse(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR,
-                "Gateway error: " + e.getMessage(), true);
+        GwUtils.sendResponse(context, HttpResponseStatus.INTERNAL_SERVER_ERROR, "Gateway error: " + e.getMessage());
     }
 
     @Override
@@ -0,0 +1,63 @@
+package com.wss.bronze.gateway.core.accesslog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 把二进制访问日志转换为JSON，每条记录一行
+ * 用法：java -cp bronze-gateway-core.jar com.wss.bronze.gateway.core.accesslog.AccessLogDecoder access-xxx.bin [...]
+ * 可以读取正在写入的文件，读到未写入的记录即结束
+ *
+ * @author wss
+ */
+public final class AccessLogDecoder {
+
+    private AccessLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AccessLogDecoder <file>...");
+            System.exit(1);
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (String file : args) {
+            decode(Paths.get(file), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * 转换一个文件
+     * @return 记录数
+     */
+    public static long decode(Path path, Writer out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < AccessLogRecord.FILE_HEADER_SIZE
+                || buffer.getInt(0) != AccessLogRecord.FILE_MAGIC) {
+            throw new IOException("Not an access log file: " + path);
+        }
+        short version = buffer.getShort(4);
+        int recordSize = buffer.getShort(6);
+        if (version != AccessLogRecord.FILE_VERSION || recordSize != AccessLogRecord.SIZE) {
+            throw new IOException("Unsupported access log version " + version + " in " + path);
+        }
+        long count = 0;
+        for (int at = AccessLogRecord.FILE_HEADER_SIZE; at + recordSize <= buffer.limit(); at += recordSize) {
+            if (!AccessLogRecord.isPresent(buffer, at)) {
+                break;
+            }
+            out.write(AccessLogRecord.toJson(buffer, at));
+            out.write('\n');
+            count++;
+        }
+        return count;
+    }
+}
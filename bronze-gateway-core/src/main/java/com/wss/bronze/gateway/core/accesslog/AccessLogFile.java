@@ -0,0 +1,88 @@
+package com.wss.bronze.gateway.core.accesslog;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的访问日志文件，创建时按最大长度映射，关闭时刷盘、解除映射并截断到实际长度
+ * 只在访问日志写线程中使用
+ *
+ * @author wss
+ */
+final class AccessLogFile {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long createdMillis;
+    private int records;
+
+    private AccessLogFile(Path path, FileChannel channel, MappedByteBuffer buffer, long createdMillis) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.createdMillis = createdMillis;
+    }
+
+    static AccessLogFile create(Path path, long maxBytes) throws IOException {
+        long size = Math.max(maxBytes, AccessLogRecord.FILE_HEADER_SIZE + AccessLogRecord.SIZE);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            long now = System.currentTimeMillis();
+            buffer.putInt(AccessLogRecord.FILE_MAGIC)
+                    .putShort(AccessLogRecord.FILE_VERSION)
+                    .putShort((short) AccessLogRecord.SIZE)
+                    .putLong(now);
+            return new AccessLogFile(path, channel, buffer, now);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * 是否还能写入一条记录
+     */
+    boolean hasRoom() {
+        return buffer.remaining() >= AccessLogRecord.SIZE;
+    }
+
+    void recordWritten() {
+        records++;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    void close() throws IOException {
+        int length = buffer.position();
+        try {
+            buffer.force();
+            // 立即解除映射，否则要等GC回收MappedByteBuffer
+            PlatformDependent.freeDirectBuffer(buffer);
+            channel.truncate(length);
+        } finally {
+            channel.close();
+        }
+    }
+}
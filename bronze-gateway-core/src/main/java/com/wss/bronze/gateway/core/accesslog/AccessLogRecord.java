@@ -0,0 +1,152 @@
+package com.wss.bronze.gateway.core.accesslog;
+
+import com.wss.bronze.gateway.core.utils.JsonWriter;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+/**
+ * 访问日志记录的二进制格式，定长256字节，字段按固定偏移读写（ByteBuffer绝对位置，默认大端）
+ * 字符串字段按ASCII截断写入，不足部分补0，非ASCII字符写为'?'（URI本身应为ASCII编码）
+ *
+ * 文件格式：16字节文件头 magic(int) version(short) recordSize(short) createdMillis(long)，之后连续存放记录；
+ * 文件在写满或切换时截断到实际长度，异常退出时文件尾部为全0，读取时遇到startMillis为0的记录即结束
+ *
+ * @author wss
+ */
+public final class AccessLogRecord {
+
+    public static final int FILE_MAGIC = 0x4757414C;
+    public static final short FILE_VERSION = 1;
+    public static final int FILE_HEADER_SIZE = 16;
+    public static final int SIZE = 256;
+
+    // 请求开始时间（毫秒时间戳）
+    static final int START_MILLIS = 0;
+    // 请求总耗时、过滤器链耗时、后端耗时（微秒），后端耗时-1表示未调用后端
+    static final int TOTAL_MICROS = 8;
+    static final int FILTER_MICROS = 12;
+    static final int UPSTREAM_MICROS = 16;
+    // 响应状态、后端响应状态（0表示没有后端响应）
+    static final int STATUS = 20;
+    static final int UPSTREAM_STATUS = 22;
+    // 请求体与响应体字节数
+    static final int REQUEST_BYTES = 24;
+    static final int RESPONSE_BYTES = 28;
+    static final int METHOD = 32;
+    static final int FLAGS = 33;
+    // 客户端地址长度（4或16，0表示未知）与地址
+    static final int CLIENT_IP_LENGTH = 34;
+    static final int CLIENT_IP = 36;
+    static final int ROUTE = 64;
+    static final int ROUTE_WIDTH = 32;
+    static final int INSTANCE = 96;
+    static final int INSTANCE_WIDTH = 64;
+    // 采样请求的traceId，未采样时为空
+    static final int TRACE_ID = 160;
+    static final int TRACE_ID_WIDTH = 32;
+    static final int PATH = 192;
+    static final int PATH_WIDTH = 64;
+
+    // 响应写出后关闭客户端连接
+    static final int FLAG_CLOSE = 0x01;
+
+    // 请求方法编码，0表示其他方法；不引用Netty的HttpMethod，AccessLogDecoder运行时不需要初始化Netty
+    private static final String[] METHODS = {null, "GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS",
+            "TRACE", "CONNECT"};
+
+    private AccessLogRecord() {
+    }
+
+    static byte methodCode(String method) {
+        for (int i = 1; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+
+    static int toMicros(long nanos) {
+        return nanos < 0 ? -1 : (int) Math.min(nanos / 1000, Integer.MAX_VALUE);
+    }
+
+    static void putAscii(ByteBuffer buffer, int offset, int width, String value) {
+        int length = value != null ? Math.min(value.length(), width) : 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buffer.put(offset + i, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        for (int i = length; i < width; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+    }
+
+    static void putAddress(ByteBuffer buffer, int offset, byte[] address) {
+        int length = address != null && address.length <= 16 ? address.length : 0;
+        buffer.put(offset + CLIENT_IP_LENGTH, (byte) length);
+        for (int i = 0; i < 16; i++) {
+            buffer.put(offset + CLIENT_IP + i, i < length ? address[i] : 0);
+        }
+    }
+
+    private static String getAscii(ByteBuffer buffer, int offset, int width) {
+        StringBuilder value = new StringBuilder(width);
+        for (int i = 0; i < width; i++) {
+            byte b = buffer.get(offset + i);
+            if (b == 0) {
+                break;
+            }
+            value.append((char) b);
+        }
+        return value.length() > 0 ? value.toString() : null;
+    }
+
+    private static String getAddress(ByteBuffer buffer, int offset) {
+        int length = buffer.get(offset + CLIENT_IP_LENGTH);
+        if (length != 4 && length != 16) {
+            return null;
+        }
+        byte[] address = new byte[length];
+        for (int i = 0; i < length; i++) {
+            address[i] = buffer.get(offset + CLIENT_IP + i);
+        }
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录是否已写入，文件尾部未写入的空间为全0
+     */
+    static boolean isPresent(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + START_MILLIS) != 0;
+    }
+
+    /**
+     * 把一条记录转换为一行JSON
+     */
+    static String toJson(ByteBuffer buffer, int offset) {
+        int method = buffer.get(offset + METHOD);
+        return new JsonWriter().beginObject()
+                .field("startMillis", buffer.getLong(offset + START_MILLIS))
+                .field("method", method > 0 && method < METHODS.length ? METHODS[method] : null)
+                .field("path", getAscii(buffer, offset + PATH, PATH_WIDTH))
+                .field("route", getAscii(buffer, offset + ROUTE, ROUTE_WIDTH))
+                .field("instance", getAscii(buffer, offset + INSTANCE, INSTANCE_WIDTH))
+                .field("status", buffer.getShort(offset + STATUS))
+                .field("upstreamStatus", buffer.getShort(offset + UPSTREAM_STATUS))
+                .field("totalMicros", buffer.getInt(offset + TOTAL_MICROS))
+                .field("filterMicros", buffer.getInt(offset + FILTER_MICROS))
+                .field("upstreamMicros", buffer.getInt(offset + UPSTREAM_MICROS))
+                .field("requestBytes", buffer.getInt(offset + REQUEST_BYTES))
+                .field("responseBytes", buffer.getInt(offset + RESPONSE_BYTES))
+                .field("clientIp", getAddress(buffer, offset))
+                .field("traceId", getAscii(buffer, offset + TRACE_ID, TRACE_ID_WIDTH))
+                .field("close", (buffer.get(offset + FLAGS) & FLAG_CLOSE) != 0)
+                .endObject().toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.wss.bronze.gateway.core.accesslog;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多生产者单消费者的定长记录环形缓冲区，启动时一次性分配堆外内存，之后不再分配
+ * 每个槽位有一个序号：等于槽位的写入序号时可写，等于写入序号+1时已发布可读，消费后设为下一圈的写入序号
+ * 生产者CAS获取槽位后直接在缓冲区中写记录，写完发布；缓冲区满时立即返回失败，不等待
+ *
+ * @author wss
+ */
+final class AccessLogRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final int recordSize;
+    private final ByteBuffer buffer;
+    // 消费者读取用的视图，只在消费线程中使用
+    private final ByteBuffer view;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 只在消费线程中访问
+    private long head;
+
+    AccessLogRingBuffer(int capacity, int recordSize) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.recordSize = recordSize;
+        this.buffer = ByteBuffer.allocateDirect(size * recordSize);
+        this.view = buffer.duplicate();
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 获取一个可写槽位，之后必须调用publish
+     * @return 写入序号，缓冲区已满时返回-1
+     */
+    long claim() {
+        while (true) {
+            long current = tail.get();
+            long sequence = sequences.get((int) (current & mask));
+            if (sequence == current) {
+                if (tail.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            } else if (sequence < current) {
+                // 上一圈的记录还未被消费
+                return -1;
+            }
+            // 槽位已被其他生产者获取，重新读取tail
+        }
+    }
+
+    /**
+     * 槽位在缓冲区中的起始偏移
+     */
+    int offset(long sequence) {
+        return (int) (sequence & mask) * recordSize;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void publish(long sequence) {
+        sequences.lazySet((int) (sequence & mask), sequence + 1);
+    }
+
+    /**
+     * 下一条记录是否已发布，只在消费线程中调用
+     */
+    boolean hasNext() {
+        return sequences.get((int) (head & mask)) == head + 1;
+    }
+
+    /**
+     * 把下一条已发布的记录复制到target，只在消费线程中调用
+     * @return 没有已发布的记录时返回false
+     */
+    boolean poll(ByteBuffer target) {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return false;
+        }
+        int at = index * recordSize;
+        // 转为Buffer调用，兼容Java 8运行时
+        ((Buffer) view).limit(at + recordSize);
+        ((Buffer) view).position(at);
+        target.put(view);
+        sequences.lazySet(index, head + capacity);
+        head++;
+        return true;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,244 @@
+package com.wss.bronze.gateway.core.accesslog;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.utils.GwUtils;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 二进制访问日志
+ * 1. 最终响应写出时，事件循环线程把定长记录直接写入预分配的环形缓冲区，不分配内存、不加锁；缓冲区满时丢弃并计数，从不阻塞
+ * 2. 后台写线程批量把记录复制到内存映射文件，按大小或时间切换文件，只保留最近的maxFiles个文件
+ * 3. 文件格式见AccessLogRecord，使用AccessLogDecoder转换为JSON
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class AccessLogger implements DisposableBean {
+
+    private static final String FILE_PREFIX = "access-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private volatile boolean enabled;
+    private volatile boolean running;
+    private AccessLogRingBuffer ring;
+    private Thread writer;
+    private Path directory;
+
+    // 以下字段只在写线程中访问
+    private AccessLogFile file;
+    private SimpleDateFormat fileNameFormat;
+
+    private final LongAdder droppedRecords = new LongAdder();
+    private volatile long writtenRecords;
+    private volatile long rotatedFiles;
+
+    @PostConstruct
+    public void init() throws IOException {
+        GatewayProperties.AccessLog config = properties.getAccessLog();
+        if (!config.isEnabled()) {
+            return;
+        }
+        this.directory = Paths.get(config.getDirectory());
+        Files.createDirectories(directory);
+        this.fileNameFormat = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS");
+        this.ring = new AccessLogRingBuffer(Math.max(config.getBufferRecords(), 2), AccessLogRecord.SIZE);
+        this.running = true;
+        this.writer = new Thread(this::runWriter, "gateway-access-log");
+        writer.setDaemon(true);
+        writer.start();
+        this.enabled = true;
+        log.info("Access log enabled, directory: {}, buffer: {} records, maxFileBytes: {}",
+                directory.toAbsolutePath(), ring.capacity(), config.getMaxFileBytes());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次响应，在GatewayContext.writeResponse中响应写出前调用
+     */
+    public void log(GatewayContext context, FullHttpResponse response, boolean closeConnection) {
+        long sequence = ring.claim();
+        if (sequence < 0) {
+            droppedRecords.increment();
+            return;
+        }
+        ByteBuffer buffer = ring.buffer();
+        int at = ring.offset(sequence);
+        try {
+            FullHttpRequest request = context.getRequest();
+            long totalNanos = System.nanoTime() - context.getStartNanos();
+            buffer.putLong(at + AccessLogRecord.START_MILLIS,
+                    System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            buffer.putInt(at + AccessLogRecord.TOTAL_MICROS, AccessLogRecord.toMicros(totalNanos));
+            buffer.putInt(at + AccessLogRecord.FILTER_MICROS, AccessLogRecord.toMicros(context.getFilterNanos()));
+            buffer.putInt(at + AccessLogRecord.UPSTREAM_MICROS, AccessLogRecord.toMicros(context.getUpstreamNanos()));
+            buffer.putShort(at + AccessLogRecord.STATUS, (short) response.status().code());
+            buffer.putShort(at + AccessLogRecord.UPSTREAM_STATUS, (short) context.getUpstreamStatus());
+            buffer.putInt(at + AccessLogRecord.REQUEST_BYTES, request.content().readableBytes());
+            buffer.putInt(at + AccessLogRecord.RESPONSE_BYTES, response.content().readableBytes());
+            buffer.put(at + AccessLogRecord.METHOD, AccessLogRecord.methodCode(request.method().name()));
+            buffer.put(at + AccessLogRecord.FLAGS, (byte) (closeConnection ? AccessLogRecord.FLAG_CLOSE : 0));
+            AccessLogRecord.putAddress(buffer, at, GwUtils.getRemoteAddress(context.getCtx()));
+            AccessLogRecord.putAscii(buffer, at + AccessLogRecord.ROUTE, AccessLogRecord.ROUTE_WIDTH,
+                    context.getRoute() != null ? context.getRoute().getId() : null);
+            AccessLogRecord.putAscii(buffer, at + AccessLogRecord.INSTANCE, AccessLogRecord.INSTANCE_WIDTH,
+                    context.getUpstreamUrl());
+            AccessLogRecord.putAscii(buffer, at + AccessLogRecord.TRACE_ID, AccessLogRecord.TRACE_ID_WIDTH,
+                    context.getTrace() != null ? context.getTrace().getTraceId() : null);
+            AccessLogRecord.putAscii(buffer, at + AccessLogRecord.PATH, AccessLogRecord.PATH_WIDTH, request.uri());
+        } finally {
+            // 已获取的槽位必须发布，否则写线程会停在这里
+            ring.publish(sequence);
+        }
+    }
+
+    private void runWriter() {
+        GatewayProperties.AccessLog config = properties.getAccessLog();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getWriterIdleMs(), 1));
+        while (true) {
+            // 先读取停止标记再写出，保证停止前发布的记录都已写出
+            boolean stopping = !running;
+            try {
+                if (drain(config) == 0) {
+                    if (stopping) {
+                        break;
+                    }
+                    rotateIfDue(config);
+                    LockSupport.parkNanos(idleNanos);
+                }
+            } catch (Exception e) {
+                log.warn("Access log writer failed: {}", e.getMessage());
+                closeFile();
+                if (stopping) {
+                    break;
+                }
+                // 磁盘异常时缓冲区写满后由生产者丢弃记录
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * 写出缓冲区中全部已发布的记录
+     * @return 写出的记录数
+     */
+    private int drain(GatewayProperties.AccessLog config) throws IOException {
+        int count = 0;
+        while (ring.hasNext()) {
+            if (file == null || !file.hasRoom()) {
+                rotate(config);
+            }
+            ring.poll(file.buffer());
+            file.recordWritten();
+            count++;
+        }
+        if (count > 0) {
+            writtenRecords += count;
+        }
+        return count;
+    }
+
+    private void rotateIfDue(GatewayProperties.AccessLog config) throws IOException {
+        if (file != null && file.getRecords() > 0 && System.currentTimeMillis() - file.getCreatedMillis()
+                >= TimeUnit.MINUTES.toMillis(config.getRotateIntervalMinutes())) {
+            closeFile();
+            deleteOldFiles(config.getMaxFiles());
+        }
+    }
+
+    private void rotate(GatewayProperties.AccessLog config) throws IOException {
+        closeFile();
+        Path path = directory.resolve(FILE_PREFIX + fileNameFormat.format(new Date()) + FILE_SUFFIX);
+        file = AccessLogFile.create(path, config.getMaxFileBytes());
+        rotatedFiles++;
+        deleteOldFiles(config.getMaxFiles());
+    }
+
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Failed to close access log file {}", file.getPath(), e);
+        }
+        file = null;
+    }
+
+    /**
+     * 按文件名（创建时间）保留最近的maxFiles个文件
+     */
+    private void deleteOldFiles(int maxFiles) throws IOException {
+        if (maxFiles <= 0) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        }
+        if (files.size() <= maxFiles) {
+            return;
+        }
+        Collections.sort(files);
+        for (Path path : files.subList(0, files.size() - maxFiles)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+
+    public long getRotatedFiles() {
+        return rotatedFiles;
+    }
+
+    /**
+     * 停止写线程，缓冲区中剩余的记录写出后关闭文件
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        enabled = false;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
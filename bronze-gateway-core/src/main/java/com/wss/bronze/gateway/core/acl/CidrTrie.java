@@ -0,0 +1,255 @@
+package com.wss.bronze.gateway.core.acl;
+
+import io.netty.util.NetUtil;
+
+/**
+ * 压缩（路径压缩）二叉前缀树，IPv4与IPv6分别一棵树，按最长前缀匹配查询
+ * 只有一个子节点且无值的中间节点会被合并，查询最多比较32/128位，与CIDR条目数量无关
+ * 构建完成后不可修改，更新时整体替换（见IpAcl），查询无锁
+ *
+ * @author wss
+ */
+public final class CidrTrie<V> {
+
+    private final Node<V> ipv4Root;
+    private final Node<V> ipv6Root;
+    private final int size;
+
+    private CidrTrie(Node<V> ipv4Root, Node<V> ipv6Root, int size) {
+        this.ipv4Root = ipv4Root;
+        this.ipv6Root = ipv6Root;
+        this.size = size;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 最长前缀匹配
+     * @param address 4字节或16字节地址
+     * @return 未匹配时返回null
+     */
+    public V lookup(byte[] address) {
+        Node<V> node = address.length == 4 ? ipv4Root : ipv6Root;
+        int bits = address.length * 8;
+        int checked = 0;
+        V best = null;
+        while (node != null) {
+            if (!matches(node.prefix, address, checked, node.length)) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == bits) {
+                break;
+            }
+            checked = node.length;
+            node = bit(address, node.length) == 0 ? node.zero : node.one;
+        }
+        return best;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 比较[from, to)范围内的位
+     */
+    private static boolean matches(byte[] prefix, byte[] address, int from, int to) {
+        for (int i = from; i < to; ) {
+            int byteIndex = i >>> 3;
+            int start = i & 7;
+            int end = Math.min(8, to - (byteIndex << 3));
+            int mask = (0xff >>> start) & (0xff << (8 - end));
+            if (((prefix[byteIndex] ^ address[byteIndex]) & mask) != 0) {
+                return false;
+            }
+            i = (byteIndex + 1) << 3;
+        }
+        return true;
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * 解析IP地址（不做DNS解析），IPv4映射的IPv6地址转换为IPv4
+     * @return 无效地址返回null
+     */
+    public static byte[] parseAddress(String ip) {
+        byte[] address = NetUtil.createByteArrayFromIpAddressString(ip);
+        return address != null ? normalize(address) : null;
+    }
+
+    static byte[] normalize(byte[] address) {
+        if (address.length != 16) {
+            return address;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return address;
+            }
+        }
+        if (address[10] != (byte) 0xff || address[11] != (byte) 0xff) {
+            return address;
+        }
+        return new byte[]{address[12], address[13], address[14], address[15]};
+    }
+
+    private static final class Node<V> {
+        // 前缀（length之后的位为0）
+        private final byte[] prefix;
+        private final int length;
+        private V value;
+        private Node<V> zero;
+        private Node<V> one;
+
+        private Node(byte[] prefix, int length, V value) {
+            this.prefix = prefix;
+            this.length = length;
+            this.value = value;
+        }
+
+        private void setChild(int bit, Node<V> child) {
+            if (bit == 0) {
+                zero = child;
+            } else {
+                one = child;
+            }
+        }
+    }
+
+    /**
+     * 构建器，非线程安全；同一前缀重复添加时后添加的值覆盖先添加的值
+     */
+    public static final class Builder<V> {
+        private Node<V> ipv4Root;
+        private Node<V> ipv6Root;
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * 添加CIDR，如 10.0.0.0/8、2001:db8::/32，不带前缀长度时为单个地址
+         */
+        public Builder<V> add(String cidr, V value) {
+            String text = cidr.trim();
+            int slash = text.indexOf('/');
+            byte[] address = parseAddress(slash < 0 ? text : text.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid CIDR: " + cidr);
+            }
+            int length = address.length * 8;
+            if (slash >= 0) {
+                try {
+                    length = Integer.parseInt(text.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid CIDR: " + cidr);
+                }
+                if (length < 0 || length > address.length * 8) {
+                    throw new IllegalArgumentException("Invalid CIDR: " + cidr);
+                }
+            }
+            return add(address, length, value);
+        }
+
+        public Builder<V> add(byte[] address, int length, V value) {
+            byte[] prefix = mask(address, length);
+            if (prefix.length == 4) {
+                ipv4Root = insert(ipv4Root, prefix, length, value);
+            } else {
+                ipv6Root = insert(ipv6Root, prefix, length, value);
+            }
+            return this;
+        }
+
+        private Node<V> insert(Node<V> root, byte[] prefix, int length, V value) {
+            Node<V> node = new Node<>(prefix, length, value);
+            if (root == null) {
+                size++;
+                return node;
+            }
+            Node<V> parent = null;
+            Node<V> current = root;
+            for (;;) {
+                int common = commonPrefix(current.prefix, prefix, Math.min(current.length, length));
+                if (common < current.length) {
+                    Node<V> replacement;
+                    if (common == length) {
+                        // 新前缀是当前节点的祖先
+                        node.setChild(bit(current.prefix, length), current);
+                        replacement = node;
+                    } else {
+                        replacement = new Node<>(mask(prefix, common), common, null);
+                        replacement.setChild(bit(current.prefix, common), current);
+                        replacement.setChild(bit(prefix, common), node);
+                    }
+                    size++;
+                    if (parent == null) {
+                        return replacement;
+                    }
+                    parent.setChild(bit(prefix, parent.length), replacement);
+                    return root;
+                }
+                if (current.length == length) {
+                    if (current.value == null) {
+                        size++;
+                    }
+                    current.value = value;
+                    return root;
+                }
+                int next = bit(prefix, current.length);
+                Node<V> child = next == 0 ? current.zero : current.one;
+                if (child == null) {
+                    current.setChild(next, node);
+                    size++;
+                    return root;
+                }
+                parent = current;
+                current = child;
+            }
+        }
+
+        private static int commonPrefix(byte[] a, byte[] b, int max) {
+            int i = 0;
+            while (i < max) {
+                int diff = (a[i >>> 3] ^ b[i >>> 3]) & 0xff;
+                if (diff == 0 && (i & 7) == 0 && i + 8 <= max) {
+                    i += 8;
+                    continue;
+                }
+                if (bit(a, i) != bit(b, i)) {
+                    return i;
+                }
+                i++;
+            }
+            return max;
+        }
+
+        private static byte[] mask(byte[] address, int length) {
+            byte[] prefix = address.clone();
+            for (int i = 0; i < prefix.length; i++) {
+                int remaining = length - i * 8;
+                if (remaining <= 0) {
+                    prefix[i] = 0;
+                } else if (remaining < 8) {
+                    prefix[i] &= (byte) (0xff << (8 - remaining));
+                }
+            }
+            return prefix;
+        }
+
+        public CidrTrie<V> build() {
+            CidrTrie<V> trie = new CidrTrie<>(ipv4Root, ipv6Root, size);
+            ipv4Root = null;
+            ipv6Root = null;
+            size = 0;
+            return trie;
+        }
+    }
+}
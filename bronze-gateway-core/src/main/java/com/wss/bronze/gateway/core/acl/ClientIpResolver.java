@@ -0,0 +1,114 @@
+package com.wss.bronze.gateway.core.acl;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.utils.GwUtils;
+import io.netty.handler.codec.http.HttpHeaders;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 客户端IP解析
+ * 连接来自受信任代理（gateway.trusted-proxies）时，从右向左遍历X-Forwarded-For，跳过受信任代理，
+ * 第一个不受信任的地址即为客户端IP；连接不是来自受信任代理时忽略X-Forwarded-For，防止伪造
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class ClientIpResolver {
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private CidrTrie<Boolean> trustedProxies;
+
+    @PostConstruct
+    public void init() {
+        CidrTrie.Builder<Boolean> builder = CidrTrie.builder();
+        for (String cidr : properties.getTrustedProxies()) {
+            builder.add(cidr, Boolean.TRUE);
+        }
+        trustedProxies = builder.build();
+        log.info("ClientIpResolver initialized with {} trusted proxies", trustedProxies.size());
+    }
+
+    /**
+     * 客户端地址字节
+     * @return 无法确定时返回null
+     */
+    public byte[] resolveAddress(GatewayContext context) {
+        byte[] remote = GwUtils.getRemoteAddress(context.getCtx());
+        if (remote == null || !isTrusted(remote)) {
+            return remote;
+        }
+        String forwarded = forwardedClient(context.getHeaders());
+        return forwarded != null ? CidrTrie.parseAddress(forwarded) : remote;
+    }
+
+    /**
+     * 客户端IP字符串
+     */
+    public String resolveIp(GatewayContext context) {
+        byte[] remote = GwUtils.getRemoteAddress(context.getCtx());
+        if (remote != null && isTrusted(remote)) {
+            String forwarded = forwardedClient(context.getHeaders());
+            if (forwarded != null) {
+                return forwarded;
+            }
+        }
+        return GwUtils.getRemoteIp(context.getCtx());
+    }
+
+    private boolean isTrusted(byte[] address) {
+        return trustedProxies.size() > 0 && trustedProxies.lookup(address) != null;
+    }
+
+    /**
+     * 从右向左查找第一个不受信任的地址，全部受信任时取最左侧地址；遇到无法解析的地址时停止，使用已确认的最后一跳
+     * @return 没有可用地址时返回null
+     */
+    private String forwardedClient(HttpHeaders headers) {
+        List<String> values = headers.getAll(X_FORWARDED_FOR);
+        String candidate = null;
+        for (int i = values.size() - 1; i >= 0; i--) {
+            String value = values.get(i);
+            int end = value.length();
+            while (end > 0) {
+                int start = value.lastIndexOf(',', end - 1) + 1;
+                String ip = stripPort(value.substring(start, end).trim());
+                end = start - 1;
+                byte[] address = CidrTrie.parseAddress(ip);
+                if (address == null) {
+                    return candidate;
+                }
+                candidate = ip;
+                if (!isTrusted(address)) {
+                    return candidate;
+                }
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * 去掉端口与IPv6的方括号，如 [2001:db8::1]:443、1.2.3.4:5678
+     */
+    private static String stripPort(String ip) {
+        if (ip.startsWith("[")) {
+            int close = ip.indexOf(']');
+            return close > 0 ? ip.substring(1, close) : ip;
+        }
+        int colon = ip.indexOf(':');
+        if (colon > 0 && colon == ip.lastIndexOf(':')) {
+            return ip.substring(0, colon);
+        }
+        return ip;
+    }
+}
@@ -0,0 +1,68 @@
+package com.wss.bronze.gateway.core.acl;
+
+import java.util.List;
+
+/**
+ * IP访问控制列表，按最长前缀匹配决定放行或拒绝，更具体的CIDR优先（如拒绝10.0.0.0/8但放行10.1.2.0/24）
+ * 同一CIDR同时出现在allow与deny中时拒绝优先
+ * 规则整体替换（update），替换对后续请求立即生效，查询无锁
+ *
+ * @author wss
+ */
+public final class IpAcl {
+
+    private final String name;
+    private volatile Rules rules;
+
+    IpAcl(String name, Rules rules) {
+        this.name = name;
+        this.rules = rules;
+    }
+
+    public boolean isAllowed(byte[] address) {
+        Rules current = rules;
+        Boolean allowed = current.trie.lookup(address);
+        return allowed != null ? allowed : current.defaultAllow;
+    }
+
+    /**
+     * 热替换规则
+     * @param defaultAllow 未匹配任何规则时是否放行，为null时：存在allow规则则拒绝，否则放行
+     */
+    public void update(List<String> allow, List<String> deny, Boolean defaultAllow) {
+        rules(Rules.compile(allow, deny, defaultAllow));
+    }
+
+    void rules(Rules rules) {
+        this.rules = rules;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return rules.trie.size();
+    }
+
+    static final class Rules {
+        private final CidrTrie<Boolean> trie;
+        private final boolean defaultAllow;
+
+        private Rules(CidrTrie<Boolean> trie, boolean defaultAllow) {
+            this.trie = trie;
+            this.defaultAllow = defaultAllow;
+        }
+
+        static Rules compile(List<String> allow, List<String> deny, Boolean defaultAllow) {
+            CidrTrie.Builder<Boolean> builder = CidrTrie.builder();
+            for (String cidr : allow) {
+                builder.add(cidr, Boolean.TRUE);
+            }
+            for (String cidr : deny) {
+                builder.add(cidr, Boolean.FALSE);
+            }
+            return new Rules(builder.build(), defaultAllow != null ? defaultAllow : allow.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.wss.bronze.gateway.core.acl;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IP访问控制列表注册中心
+ * 规则来自配置与文件，文件修改后按间隔自动重新加载；也可通过get(name).update(...)在运行时热替换
+ * 同名ACL重新注册时替换之前的ACL并停止其文件监听
+ * 文件格式：每行一条，allow CIDR / deny CIDR，只写CIDR时视为deny，#开头为注释
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class IpAclRegistry implements DisposableBean {
+
+    private final Map<String, IpAcl> acls = new ConcurrentHashMap<>();
+    // ACL的规则文件监听任务
+    private final Map<IpAcl, ScheduledFuture<?>> watchers = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 创建并注册ACL，规则无效时抛出IllegalArgumentException
+     * @param file 规则文件，可为null
+     * @param reloadSeconds 规则文件检查间隔，小于等于0时不自动重新加载
+     */
+    public IpAcl register(String name, List<String> allow, List<String> deny, String file,
+                          Boolean defaultAllow, long reloadSeconds) {
+        IpAcl acl;
+        if (file == null) {
+            acl = new IpAcl(name, IpAcl.Rules.compile(allow, deny, defaultAllow));
+        } else {
+            Path path = Paths.get(file);
+            acl = new IpAcl(name, load(path, allow, deny, defaultAllow));
+            if (reloadSeconds > 0) {
+                watch(acl, path, allow, deny, defaultAllow, reloadSeconds);
+            }
+        }
+        IpAcl previous = acls.put(name, acl);
+        if (previous != null) {
+            cancelWatcher(previous);
+            log.info("IP ACL {} replaced", name);
+        }
+        log.info("IP ACL {} registered with {} rules", name, acl.size());
+        return acl;
+    }
+
+    /**
+     * 注销ACL并停止文件监听，已被同名ACL替换时只停止其文件监听
+     */
+    public void deregister(IpAcl acl) {
+        acls.remove(acl.getName(), acl);
+        cancelWatcher(acl);
+    }
+
+    private void cancelWatcher(IpAcl acl) {
+        ScheduledFuture<?> watcher = watchers.remove(acl);
+        if (watcher != null) {
+            watcher.cancel(false);
+        }
+    }
+
+    public IpAcl get(String name) {
+        return acls.get(name);
+    }
+
+    private static IpAcl.Rules load(Path path, List<String> allow, List<String> deny, Boolean defaultAllow) {
+        List<String> allowRules = new ArrayList<>(allow);
+        List<String> denyRules = new ArrayList<>(deny);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to read ACL file " + path + ": " + e.getMessage());
+        }
+        for (String raw : lines) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("allow ")) {
+                allowRules.add(line.substring("allow ".length()));
+            } else if (line.startsWith("deny ")) {
+                denyRules.add(line.substring("deny ".length()));
+            } else {
+                denyRules.add(line);
+            }
+        }
+        return IpAcl.Rules.compile(allowRules, denyRules, defaultAllow);
+    }
+
+    private void watch(IpAcl acl, Path path, List<String> allow, List<String> deny,
+                       Boolean defaultAllow, long reloadSeconds) {
+        long[] lastModified = {lastModified(path)};
+        ScheduledFuture<?> watcher = scheduler().scheduleWithFixedDelay(() -> {
+            long modified = lastModified(path);
+            if (modified == lastModified[0]) {
+                return;
+            }
+            try {
+                acl.rules(load(path, allow, deny, defaultAllow));
+                lastModified[0] = modified;
+                log.info("IP ACL {} reloaded from {} with {} rules", acl.getName(), path, acl.size());
+            } catch (Exception e) {
+                log.error("Failed to reload IP ACL {} from {}, keep previous rules: {}",
+                        acl.getName(), path, e.getMessage());
+            }
+        }, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        watchers.put(acl, watcher);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("gateway-acl", true));
+        }
+        return scheduler;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
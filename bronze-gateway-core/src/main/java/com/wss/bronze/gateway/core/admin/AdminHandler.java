@@ -0,0 +1,583 @@
+package com.wss.bronze.gateway.core.admin;
+
+import com.wss.bronze.gateway.core.GatewayServer;
+import com.wss.bronze.gateway.core.cache.LastKnownGoodStore;
+import com.wss.bronze.gateway.core.cache.RequestCoalescer;
+import com.wss.bronze.gateway.core.cache.ResponseCache;
+import com.wss.bronze.gateway.core.client.GatewayChannelPool;
+import com.wss.bronze.gateway.core.client.HttpClient;
+import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
+import com.wss.bronze.gateway.core.filter.FilterChainFactory;
+import com.wss.bronze.gateway.core.loadbalancer.RoundRobinLoadBalancer;
+import com.wss.bronze.gateway.core.loadbalancer.WeightedLoadBalancer;
+import com.wss.bronze.gateway.core.metrics.EventLoopMonitor;
+import com.wss.bronze.gateway.core.metrics.GatewayMetrics;
+import com.wss.bronze.gateway.core.metrics.LatencyHistogram;
+import com.wss.bronze.gateway.core.metrics.RouteMetrics;
+import com.wss.bronze.gateway.core.resilience.AdaptiveConcurrencyLimiter;
+import com.wss.bronze.gateway.core.resilience.AdaptiveThrottle;
+import com.wss.bronze.gateway.core.resilience.Bulkhead;
+import com.wss.bronze.gateway.core.resilience.CircuitBreakerManager;
+import com.wss.bronze.gateway.core.resilience.LoadShedder;
+import com.wss.bronze.gateway.core.router.PropertiesRouter;
+import com.wss.bronze.gateway.core.router.Router;
+import com.wss.bronze.gateway.core.utils.JsonWriter;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.CharsetUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 管理端口请求处理，全部在管理事件循环中执行
+ * GET  /admin/routes            路由表与过滤器链
+ * GET  /admin/instances         实例、摘除状态、熔断状态与负载均衡位置
+ * GET  /admin/pools             连接池占用与获取连接耗时
+ * GET  /admin/breakers          熔断器状态
+ * GET  /admin/metrics           请求、过载、舱壁、并发限制、节流、缓存统计
+ * GET  /admin/config            路由配置版本
+ * GET  /admin/eventloops        事件循环调度延迟、阻塞次数与最近一次阻塞调用栈
+ * GET  /metrics                 Prometheus文本格式指标
+ * POST /admin/instances/drain?serviceId=xx[&drain=false]   摘除/恢复实例
+ * POST /admin/breakers/reset?serviceId=xx                  重置熔断器
+ * POST /admin/routes/reload                                重新加载路由
+ * 未配置token时只允许GET，POST等修改操作返回403
+ *
+ * @author wss
+ */
+@Slf4j
+@ChannelHandler.Sharable
+class AdminHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=UTF-8";
+
+    private final GatewayProperties properties;
+    private final Environment environment;
+
+    AdminHandler(GatewayProperties properties, Environment environment) {
+        this.properties = properties;
+        this.environment = environment;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        String token = properties.getAdmin().getToken();
+        if (token == null || token.isEmpty()) {
+            if (!HttpMethod.GET.equals(request.method())) {
+                send(ctx, keepAlive, HttpResponseStatus.FORBIDDEN, JSON, error("Admin token required"));
+                return;
+            }
+        } else if (!authorized(request, token)) {
+            send(ctx, keepAlive, HttpResponseStatus.UNAUTHORIZED, JSON, error("Unauthorized"));
+            return;
+        }
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        String path = decoder.path();
+        boolean post = HttpMethod.POST.equals(request.method());
+        try {
+            if (post) {
+                handlePost(ctx, keepAlive, path, decoder.parameters());
+            } else if (HttpMethod.GET.equals(request.method())) {
+                handleGet(ctx, keepAlive, path);
+            } else {
+                send(ctx, keepAlive, HttpResponseStatus.METHOD_NOT_ALLOWED, JSON, error("Method not allowed"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(ctx, keepAlive, HttpResponseStatus.BAD_REQUEST, JSON, error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Admin request {} {} failed", request.method(), path, e);
+            send(ctx, keepAlive, HttpResponseStatus.INTERNAL_SERVER_ERROR, JSON, error(String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void handleGet(ChannelHandlerContext ctx, boolean keepAlive, String path) {
+        String body;
+        switch (path) {
+            case "/metrics":
+                send(ctx, keepAlive, HttpResponseStatus.OK, PROMETHEUS_TEXT, bean(GatewayMetrics.class).scrape());
+                return;
+            case "/admin/routes":
+                body = routes();
+                break;
+            case "/admin/instances":
+                body = instances();
+                break;
+            case "/admin/pools":
+                body = pools();
+                break;
+            case "/admin/breakers":
+                body = breakers();
+                break;
+            case "/admin/metrics":
+                body = metrics();
+                break;
+            case "/admin/config":
+                body = config();
+                break;
+            case "/admin/eventloops":
+                body = eventLoops();
+                break;
+            default:
+                send(ctx, keepAlive, HttpResponseStatus.NOT_FOUND, JSON, error("Not found"));
+                return;
+        }
+        send(ctx, keepAlive, HttpResponseStatus.OK, JSON, body);
+    }
+
+    private void handlePost(ChannelHandlerContext ctx, boolean keepAlive, String path,
+                            Map<String, List<String>> parameters) throws Exception {
+        String body;
+        switch (path) {
+            case "/admin/instances/drain":
+                body = drain(requiredParameter(parameters, "serviceId"),
+                        !"false".equalsIgnoreCase(parameter(parameters, "drain")));
+                break;
+            case "/admin/breakers/reset":
+                body = resetBreaker(requiredParameter(parameters, "serviceId"));
+                break;
+            case "/admin/routes/reload":
+                body = reloadRoutes();
+                break;
+            default:
+                send(ctx, keepAlive, HttpResponseStatus.NOT_FOUND, JSON, error("Not found"));
+                return;
+        }
+        send(ctx, keepAlive, HttpResponseStatus.OK, JSON, body);
+    }
+
+    private String routes() {
+        FilterChainFactory filterChainFactory = bean(FilterChainFactory.class);
+        JsonWriter json = new JsonWriter().beginObject().name("routes").beginArray();
+        for (GatewayProperties.RouteDefinition route : currentRoutes()) {
+            json.beginObject()
+                    .field("id", route.getId())
+                    .field("path", route.getPath())
+                    .field("loadBalancerType", route.getLoadBalancerType())
+                    .field("priority", String.valueOf(route.getPriority()))
+                    .field("cache", route.getCache().isEnabled())
+                    .field("coalescing", route.isCoalescing())
+                    .field("lastKnownGood", route.getLastKnownGood().isEnabled())
+                    .field("grayRelease", route.getGrayReleaseConfig() != null
+                            && route.getGrayReleaseConfig().isEnabled())
+                    .field("instances", route.getInstances().size());
+            json.name("filters").beginArray();
+            for (String name : filterChainFactory.getFilterChain(route).getNames()) {
+                json.value(name);
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String instances() {
+        CircuitBreakerManager breakers = bean(CircuitBreakerManager.class);
+        HttpClient httpClient = bean(HttpClient.class);
+        RoundRobinLoadBalancer roundRobin = bean(RoundRobinLoadBalancer.class);
+        JsonWriter json = new JsonWriter().beginObject().name("routes").beginArray();
+        for (GatewayProperties.RouteDefinition route : currentRoutes()) {
+            json.beginObject()
+                    .field("route", route.getId())
+                    .field("loadBalancerType", route.getLoadBalancerType())
+                    .field("roundRobinPosition", roundRobin.getCurrentPosition(route.getId()));
+            json.name("instances").beginArray();
+            for (GatewayProperties.Instance instance : route.getInstances()) {
+                String serviceId = instance.getServiceId();
+                json.beginObject()
+                        .field("serviceId", serviceId)
+                        .field("url", instance.getUrl())
+                        .field("weight", instance.getWeight())
+                        .field("gray", Boolean.TRUE.equals(instance.getGray()))
+                        .field("drained", !instance.isHealthy());
+                if (breakers != null) {
+                    json.field("circuitBreaker", breakers.getCircuitBreaker(serviceId).getState().name())
+                            .field("available", instance.isHealthy() && breakers.isAvailable(serviceId));
+                }
+                Bulkhead bulkhead = httpClient.getBulkheadRegistry().get(serviceId);
+                if (bulkhead != null) {
+                    json.field("inFlight", bulkhead.getInFlight());
+                }
+                AdaptiveConcurrencyLimiter limiter = httpClient.getConcurrencyLimiterRegistry().get(serviceId);
+                if (limiter != null) {
+                    json.field("concurrencyLimit", limiter.getLimit());
+                }
+                json.endObject();
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String pools() {
+        JsonWriter json = new JsonWriter().beginObject().name("pools").beginArray();
+        for (Map.Entry<String, GatewayChannelPool> entry : bean(HttpClient.class).getChannelPools().entrySet()) {
+            GatewayChannelPool pool = entry.getValue();
+            LatencyHistogram acquireWait = pool.acquireWaitHistogram();
+            json.beginObject()
+                    .field("pool", entry.getKey())
+                    .field("acquired", pool.acquiredChannelCount())
+                    .field("pending", pool.pendingAcquireCount())
+                    .field("limit", pool.connectionLimit())
+                    .field("shed", pool.shedCount())
+                    .field("acquireWaitP50Us", acquireWait.getValueAtPercentile(50))
+                    .field("acquireWaitP99Us", acquireWait.getValueAtPercentile(99))
+                    .field("queueDepthP99", pool.queueDepthHistogram().getValueAtPercentile(99))
+                    .endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String breakers() {
+        CircuitBreakerManager manager = bean(CircuitBreakerManager.class);
+        JsonWriter json = new JsonWriter().beginObject().field("enabled", manager != null).name("breakers").beginArray();
+        if (manager != null) {
+            for (Map.Entry<String, CircuitBreaker> entry : manager.getAllCircuitBreakers().entrySet()) {
+                CircuitBreaker.Metrics metrics = entry.getValue().getMetrics();
+                json.beginObject()
+                        .field("serviceId", entry.getKey())
+                        .field("state", entry.getValue().getState().name())
+                        .field("available", manager.isAvailable(entry.getKey()))
+                        .field("failureRate", metrics.getFailureRate())
+                        .field("slowCallRate", metrics.getSlowCallRate())
+                        .field("bufferedCalls", metrics.getNumberOfBufferedCalls())
+                        .field("failedCalls", metrics.getNumberOfFailedCalls())
+                        .field("slowCalls", metrics.getNumberOfSlowCalls())
+                        .field("notPermittedCalls", metrics.getNumberOfNotPermittedCalls())
+                        .endObject();
+            }
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String metrics() {
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("server", bean(GatewayServer.class).getServerStats());
+
+        json.name("routes").beginArray();
+        for (RouteMetrics route : bean(GatewayMetrics.class).getRoutes()) {
+            LatencyHistogram duration = route.getDuration();
+            json.beginObject()
+                    .field("route", route.getRoute())
+                    .field("requests", duration.getCount())
+                    .field("errors5xx", route.getResponseCount(5))
+                    .field("p50Us", duration.getValueAtPercentile(50))
+                    .field("p99Us", duration.getValueAtPercentile(99))
+                    .field("filterP99Us", route.getFilterDuration().getValueAtPercentile(99))
+                    .endObject();
+        }
+        json.endArray();
+
+        LoadShedder loadShedder = bean(LoadShedder.class);
+        json.name("loadShedding").beginObject()
+                .field("enabled", properties.getLoadShedding().isEnabled())
+                .field("level", loadShedder.getLevel())
+                .field("pressure", loadShedder.getPressure())
+                .field("eventLoopLagUs", loadShedder.getMaxEventLoopLagNanos() / 1000);
+        json.name("shed").beginObject();
+        for (RequestPriority priority : RequestPriority.values()) {
+            json.field(priority.name(), loadShedder.getShedCount(priority));
+        }
+        json.endObject().endObject();
+
+        HttpClient httpClient = bean(HttpClient.class);
+        json.name("bulkheads").beginArray();
+        for (Bulkhead bulkhead : httpClient.getBulkheadRegistry().getAll()) {
+            json.beginObject()
+                    .field("serviceId", bulkhead.getName())
+                    .field("inFlight", bulkhead.getInFlight())
+                    .field("peakInFlight", bulkhead.getPeakInFlight())
+                    .field("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls())
+                    .field("rejected", bulkhead.getRejectedCount())
+                    .endObject();
+        }
+        json.endArray();
+        json.name("concurrencyLimits").beginArray();
+        for (AdaptiveConcurrencyLimiter limiter : httpClient.getConcurrencyLimiterRegistry().getAll()) {
+            json.beginObject()
+                    .field("serviceId", limiter.getName())
+                    .field("limit", limiter.getLimit())
+                    .field("inFlight", limiter.getInFlight())
+                    .field("baselineRttUs", limiter.getBaselineRttMicros())
+                    .field("rejected", limiter.getRejectedCount())
+                    .endObject();
+        }
+        json.endArray();
+        json.name("throttles").beginArray();
+        for (AdaptiveThrottle throttle : httpClient.getThrottleRegistry().getAll()) {
+            json.beginObject()
+                    .field("serviceId", throttle.getName())
+                    .field("rejectProbability", throttle.getRejectProbability())
+                    .field("throttled", throttle.getThrottledCount())
+                    .endObject();
+        }
+        json.endArray();
+
+        ResponseCache cache = bean(ResponseCache.class);
+        if (cache != null) {
+            json.name("cache").beginObject()
+                    .field("entries", cache.getEntryCount())
+                    .field("weightedSize", cache.getWeightedSize())
+                    .field("hits", cache.getHitCount())
+                    .field("staleHits", cache.getStaleHitCount())
+                    .field("misses", cache.getMissCount())
+                    .field("evictions", cache.getEvictionCount())
+                    .endObject();
+        }
+        RequestCoalescer coalescer = bean(RequestCoalescer.class);
+        if (coalescer != null) {
+            json.name("coalescer").beginObject()
+                    .field("inFlight", coalescer.getInFlightCount())
+                    .field("coalesced", coalescer.getCoalescedCount())
+                    .field("timedOut", coalescer.getTimedOutCount())
+                    .endObject();
+        }
+        LastKnownGoodStore lastKnownGood = bean(LastKnownGoodStore.class);
+        if (lastKnownGood != null) {
+            json.name("lastKnownGood").beginObject()
+                    .field("entries", lastKnownGood.getEntryCount())
+                    .field("usedBytes", lastKnownGood.getUsedBytes())
+                    .field("served", lastKnownGood.getServedCount())
+                    .field("evictions", lastKnownGood.getEvictionCount())
+                    .endObject();
+        }
+        return json.endObject().toString();
+    }
+
+    private String config() {
+        PropertiesRouter router = propertiesRouter();
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("routeCount", currentRoutes().size())
+                .field("port", properties.getPort())
+                .field("routesFile", properties.getAdmin().getRoutesFile());
+        if (router != null) {
+            json.field("version", router.getVersion())
+                    .field("loadedAt", Instant.ofEpochMilli(router.getLoadedAtMillis()).toString());
+        }
+        return json.endObject().toString();
+    }
+
+    private String eventLoops() {
+        JsonWriter json = new JsonWriter().beginObject().name("loops").beginArray();
+        for (EventLoopMonitor.LoopProbe probe : bean(EventLoopMonitor.class).getProbes()) {
+            LatencyHistogram lag = probe.getLag();
+            json.beginObject()
+                    .field("group", probe.getGroup())
+                    .field("loop", probe.getName())
+                    .field("currentLagUs", probe.getCurrentLagNanos() / 1000)
+                    .field("lagP50Us", lag.getValueAtPercentile(50))
+                    .field("lagP99Us", lag.getValueAtPercentile(99))
+                    .field("lagMaxUs", lag.getMax())
+                    .field("blocked", probe.getBlockedCount())
+                    .field("route", probe.getRoute())
+                    .field("filter", probe.getFilter())
+                    .field("lastBlockedStack", probe.getLastBlockedStack())
+                    .endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    /**
+     * 摘除实例：不再分配新请求，已转发的请求正常完成
+     */
+    private String drain(String serviceId, boolean drain) {
+        int matched = 0;
+        for (GatewayProperties.RouteDefinition route : currentRoutes()) {
+            for (GatewayProperties.Instance instance : route.getInstances()) {
+                if (serviceId.equals(instance.getServiceId())) {
+                    instance.setHealthy(!drain);
+                    matched++;
+                }
+            }
+        }
+        if (matched == 0) {
+            throw new IllegalArgumentException("Instance not found: " + serviceId);
+        }
+        log.warn("Instance {} {} by admin", serviceId, drain ? "drained" : "restored");
+        return new JsonWriter().beginObject()
+                .field("serviceId", serviceId)
+                .field("drained", drain)
+                .field("matched", matched)
+                .endObject().toString();
+    }
+
+    private String resetBreaker(String serviceId) {
+        CircuitBreakerManager manager = bean(CircuitBreakerManager.class);
+        if (manager == null) {
+            throw new IllegalArgumentException("Circuit breaker is not enabled");
+        }
+        CircuitBreaker breaker = manager.getAllCircuitBreakers().get(serviceId);
+        if (breaker == null) {
+            throw new IllegalArgumentException("Circuit breaker not found: " + serviceId);
+        }
+        breaker.reset();
+        log.warn("Circuit breaker {} reset by admin", serviceId);
+        return new JsonWriter().beginObject()
+                .field("serviceId", serviceId)
+                .field("state", breaker.getState().name())
+                .endObject().toString();
+    }
+
+    /**
+     * 重新加载路由：先编译新路由的过滤器链，再替换路由表，最后清理按路由缓存的负载均衡状态
+     * 重新加载后实例的摘除状态以新配置为准
+     */
+    private String reloadRoutes() throws Exception {
+        PropertiesRouter router = propertiesRouter();
+        if (router == null) {
+            throw new IllegalArgumentException("Route reload requires PropertiesRouter");
+        }
+        List<GatewayProperties.RouteDefinition> oldRoutes = router.getRoutes();
+        List<GatewayProperties.RouteDefinition> routes = loadRoutes();
+        validate(routes);
+
+        bean(FilterChainFactory.class).compile(routes);
+        long version = router.reload(routes);
+
+        RoundRobinLoadBalancer roundRobin = bean(RoundRobinLoadBalancer.class);
+        WeightedLoadBalancer weighted = bean(WeightedLoadBalancer.class);
+        Set<String> routeIds = new HashSet<>();
+        for (GatewayProperties.RouteDefinition route : oldRoutes) {
+            routeIds.add(route.getId());
+        }
+        for (GatewayProperties.RouteDefinition route : routes) {
+            routeIds.add(route.getId());
+        }
+        for (String routeId : routeIds) {
+            roundRobin.removeServicePosition(routeId);
+            weighted.removeServiceWeight(routeId);
+        }
+        return new JsonWriter().beginObject()
+                .field("version", version)
+                .field("routeCount", routes.size())
+                .endObject().toString();
+    }
+
+    private List<GatewayProperties.RouteDefinition> loadRoutes() throws Exception {
+        String file = properties.getAdmin().getRoutesFile();
+        Binder binder;
+        if (file == null || file.isEmpty()) {
+            binder = Binder.get(environment);
+        } else {
+            List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                    .load("admin-routes", new FileSystemResource(file));
+            binder = new Binder(ConfigurationPropertySources.from(sources));
+        }
+        return binder.bind("gateway.routes", Bindable.listOf(GatewayProperties.RouteDefinition.class))
+                .orElseThrow(() -> new IllegalArgumentException("No gateway.routes found"));
+    }
+
+    private static void validate(List<GatewayProperties.RouteDefinition> routes) {
+        Set<String> ids = new HashSet<>();
+        for (GatewayProperties.RouteDefinition route : routes) {
+            if (route.getId() == null || route.getId().isEmpty()) {
+                throw new IllegalArgumentException("Route id is required");
+            }
+            if (!ids.add(route.getId())) {
+                throw new IllegalArgumentException("Duplicate route id: " + route.getId());
+            }
+            if (route.getPath() == null || route.getPath().isEmpty()) {
+                throw new IllegalArgumentException("Route path is required: " + route.getId());
+            }
+            for (GatewayProperties.Instance instance : route.getInstances()) {
+                if (instance.getServiceId() == null || instance.getUrl() == null) {
+                    throw new IllegalArgumentException("Instance serviceId and url are required: " + route.getId());
+                }
+            }
+        }
+    }
+
+    private List<GatewayProperties.RouteDefinition> currentRoutes() {
+        PropertiesRouter router = propertiesRouter();
+        return router != null ? router.getRoutes() : properties.getRoutes();
+    }
+
+    private static PropertiesRouter propertiesRouter() {
+        Router router = bean(Router.class);
+        return router instanceof PropertiesRouter ? (PropertiesRouter) router : null;
+    }
+
+    private static boolean authorized(FullHttpRequest request, String token) {
+        String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+        return authorization != null && MessageDigest.isEqual(
+                authorization.getBytes(StandardCharsets.UTF_8),
+                ("Bearer " + token).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String parameter(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private static String requiredParameter(Map<String, List<String>> parameters, String name) {
+        String value = parameter(parameters, name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static String error(String message) {
+        return new JsonWriter().beginObject().field("error", message).endObject().toString();
+    }
+
+    private static void send(ChannelHandlerContext ctx, boolean keepAlive, HttpResponseStatus status,
+                             String contentType, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        HttpUtil.setKeepAlive(response, keepAlive);
+        if (keepAlive) {
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("Admin connection error: {}", cause.getMessage());
+        ctx.close();
+    }
+
+    /**
+     * 可选组件，未注册时返回null
+     */
+    private static <T> T bean(Class<T> type) {
+        try {
+            return ApplicationContextHolder.getBean(type);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.wss.bronze.gateway.core.admin;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理端口
+ * 使用独立的单线程事件循环（accept与IO共用），管理请求再慢也不会占用数据面的boss/worker线程
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class AdminServer implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    // 管理请求体很小，只有重新加载等少量POST请求
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+
+    @Autowired
+    private GatewayProperties properties;
+    @Autowired
+    private Environment environment;
+
+    private volatile EventLoopGroup group;
+    private volatile ChannelFuture bindFuture;
+
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        GatewayProperties.Admin config = properties.getAdmin();
+        if (!config.isEnabled() || group != null) {
+            return;
+        }
+        group = new NioEventLoopGroup(1, new DefaultThreadFactory("gateway-admin", true));
+        AdminHandler handler = new AdminHandler(properties, environment);
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                                .addLast("http-codec", new HttpServerCodec())
+                                .addLast("http-aggregator", new HttpObjectAggregator(MAX_CONTENT_LENGTH))
+                                .addLast("admin-handler", handler);
+                    }
+                });
+        bindFuture = bootstrap.bind(config.getBindHost(), config.getPort());
+        bindFuture.addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                log.info("Admin server started on {}:{}", config.getBindHost(), config.getPort());
+                if (config.getToken() == null || config.getToken().isEmpty()) {
+                    log.warn("Admin token not configured, admin server is read-only");
+                }
+            } else {
+                log.error("Failed to start admin server on {}:{}", config.getBindHost(), config.getPort(),
+                        future.cause());
+            }
+        });
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (bindFuture != null && bindFuture.channel().isOpen()) {
+            bindFuture.channel().close().syncUninterruptibly();
+        }
+        if (group != null) {
+            group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        bindFuture = null;
+        group = null;
+    }
+}
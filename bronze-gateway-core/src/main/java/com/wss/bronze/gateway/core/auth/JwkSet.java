@@ -0,0 +1,169 @@
+package com.wss.bronze.gateway.core.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.json.JsonParserFactory;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 不可变的JWKS公钥集合，支持RSA与EC P-256公钥
+ * 公钥声明了alg时只用于验证该算法签名的令牌
+ *
+ * @author wss
+ */
+@Slf4j
+public final class JwkSet {
+
+    static final JwkSet EMPTY = new JwkSet(Collections.emptyMap(), Collections.emptyList());
+
+    private static final ECParameterSpec P256 = p256();
+
+    private final Map<String, Jwk> keysById;
+    private final List<Jwk> keys;
+
+    private JwkSet(Map<String, Jwk> keysById, List<Jwk> keys) {
+        this.keysById = keysById;
+        this.keys = keys;
+    }
+
+    /**
+     * 解析JWKS JSON，无法识别的公钥跳过
+     * 与上一次加载相同的公钥复用原对象，验证结果缓存按对象判断签发公钥是否仍有效（未被轮换移除）
+     */
+    @SuppressWarnings("unchecked")
+    static JwkSet parse(String json, JwkSet previous) {
+        Map<String, Object> root = JsonParserFactory.getJsonParser().parseMap(json);
+        Object keysValue = root.get("keys");
+        if (!(keysValue instanceof List)) {
+            throw new IllegalArgumentException("JWKS has no keys");
+        }
+        Map<String, Jwk> keysById = new HashMap<>();
+        List<Jwk> keys = new ArrayList<>();
+        for (Object value : (List<Object>) keysValue) {
+            if (!(value instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> jwk = (Map<String, Object>) value;
+            if ("enc".equals(jwk.get("use"))) {
+                continue;
+            }
+            try {
+                Jwk key = toJwk(jwk);
+                if (key == null) {
+                    continue;
+                }
+                key = previous.reuse(key);
+                keys.add(key);
+                if (key.kid != null) {
+                    keysById.put(key.kid, key);
+                }
+            } catch (Exception e) {
+                log.warn("Skip invalid JWK {}: {}", jwk.get("kid"), e.getMessage());
+            }
+        }
+        return new JwkSet(keysById, keys);
+    }
+
+    private Jwk reuse(Jwk key) {
+        for (Jwk existing : keys) {
+            if (Objects.equals(existing.kid, key.kid) && existing.kty.equals(key.kty)
+                    && Objects.equals(existing.alg, key.alg)
+                    && Arrays.equals(existing.publicKey.getEncoded(), key.publicKey.getEncoded())) {
+                return existing;
+            }
+        }
+        return key;
+    }
+
+    private static Jwk toJwk(Map<String, Object> jwk) throws Exception {
+        String kty = (String) jwk.get("kty");
+        String kid = (String) jwk.get("kid");
+        String alg = (String) jwk.get("alg");
+        if ("RSA".equals(kty)) {
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(unsigned((String) jwk.get("n")), unsigned((String) jwk.get("e")));
+            return new Jwk(kid, kty, alg, KeyFactory.getInstance("RSA").generatePublic(spec));
+        }
+        if ("EC".equals(kty) && "P-256".equals(jwk.get("crv"))) {
+            ECPoint point = new ECPoint(unsigned((String) jwk.get("x")), unsigned((String) jwk.get("y")));
+            return new Jwk(kid, kty, alg, KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, P256)));
+        }
+        return null;
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        if (base64Url == null) {
+            throw new IllegalArgumentException("Missing key parameter");
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    private static ECParameterSpec p256() {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("EC P-256 is not supported", e);
+        }
+    }
+
+    /**
+     * 查找验证alg签名的公钥，JWT未指定kid时使用唯一的可用公钥
+     * 公钥类型必须与alg一致；公钥声明了alg时必须与令牌的alg相同
+     */
+    Jwk find(String kid, String alg) {
+        if (kid != null) {
+            Jwk jwk = keysById.get(kid);
+            return jwk != null && jwk.accepts(alg) ? jwk : null;
+        }
+        Jwk found = null;
+        for (Jwk jwk : keys) {
+            if (jwk.accepts(alg)) {
+                if (found != null) {
+                    return null;
+                }
+                found = jwk;
+            }
+        }
+        return found;
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    static final class Jwk {
+        final String kid;
+        final String kty;
+        // JWK声明的算法，可为null
+        final String alg;
+        final PublicKey publicKey;
+
+        Jwk(String kid, String kty, String alg, PublicKey publicKey) {
+            this.kid = kid;
+            this.kty = kty;
+            this.alg = alg;
+            this.publicKey = publicKey;
+        }
+
+        boolean accepts(String tokenAlg) {
+            return kty.equals(tokenAlg.startsWith("RS") ? "RSA" : "EC") && (alg == null || alg.equals(tokenAlg));
+        }
+    }
+}
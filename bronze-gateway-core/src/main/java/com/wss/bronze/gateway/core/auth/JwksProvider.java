@@ -0,0 +1,134 @@
+package com.wss.bronze.gateway.core.auth;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JWKS公钥集合加载
+ * 支持本地文件与http(s)地址，同一地址只加载一份；后台线程定时刷新，出现未知kid时提前刷新（有最小间隔）
+ * 加载在后台线程中阻塞执行，请求路径只读取当前的公钥集合
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class JwksProvider implements DisposableBean {
+
+    // 未知kid触发刷新的最小间隔
+    private static final long MIN_REFRESH_INTERVAL_MILLIS = 30_000L;
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("gateway-jwks", true));
+
+    /**
+     * 获取公钥来源，首次获取时同步加载一次
+     * @param location 文件路径或http(s)地址
+     */
+    public Source get(String location, long refreshSeconds) {
+        return sources.computeIfAbsent(location, key -> {
+            Source source = new Source(key);
+            source.load();
+            long interval = Math.max(refreshSeconds, 10);
+            scheduler.scheduleWithFixedDelay(source::load, interval, interval, TimeUnit.SECONDS);
+            return source;
+        });
+    }
+
+    private String read(String location) throws Exception {
+        if (!location.startsWith("http://") && !location.startsWith("https://")) {
+            String path = location.startsWith("file:") ? location.substring("file:".length()) : location;
+            return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(location).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/json");
+        try (InputStream in = connection.getInputStream()) {
+            if (connection.getResponseCode() != 200) {
+                throw new IllegalStateException("HTTP " + connection.getResponseCode());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一个JWKS地址，加载失败时保留上一次成功加载的公钥
+     */
+    public final class Source {
+        private final String location;
+        private volatile JwkSet keySet = JwkSet.EMPTY;
+        private volatile long lastLoadMillis;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Source(String location) {
+            this.location = location;
+        }
+
+        public JwkSet current() {
+            return keySet;
+        }
+
+        /**
+         * 遇到未知kid时异步刷新
+         */
+        public void requestRefresh() {
+            if (System.currentTimeMillis() - lastLoadMillis < MIN_REFRESH_INTERVAL_MILLIS
+                    || !refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                scheduler.execute(() -> {
+                    try {
+                        load();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (Exception e) {
+                refreshing.set(false);
+            }
+        }
+
+        private void load() {
+            lastLoadMillis = System.currentTimeMillis();
+            try {
+                JwkSet loaded = JwkSet.parse(read(location), keySet);
+                keySet = loaded;
+                log.debug("JWKS loaded from {}, keys: {}", location, loaded.size());
+            } catch (Exception e) {
+                log.error("Failed to load JWKS from {}: {}", location, e.getMessage());
+            }
+        }
+    }
+}
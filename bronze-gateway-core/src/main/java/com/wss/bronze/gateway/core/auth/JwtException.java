@@ -0,0 +1,16 @@
+package com.wss.bronze.gateway.core.auth;
+
+/**
+ * JWT校验失败，消息会返回给客户端，不包含令牌内容
+ * 无效令牌可能被大量重放，不填充堆栈
+ *
+ * @author wss
+ */
+public class JwtException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JwtException(String msg) {
+        super(msg, null, false, false);
+    }
+}
@@ -0,0 +1,191 @@
+package com.wss.bronze.gateway.core.auth;
+
+import org.springframework.boot.json.JsonParserFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JWT验证：RS256/ES256签名、exp/nbf/iss/aud校验
+ * 验证通过的令牌按SHA-256缓存到过期，相同令牌再次出现时只需一次摘要计算与一次Map查询
+ * 线程安全，可在事件循环中调用
+ *
+ * @author wss
+ */
+public final class JwtVerifier {
+
+    private final JwksProvider.Source keySource;
+    private final Set<String> algorithms;
+    private final String issuer;
+    private final String audience;
+    private final long clockSkewSeconds;
+    private final VerifiedTokenCache cache;
+
+    /**
+     * @param algorithms 允许的签名算法，支持RS256、ES256
+     * @param issuer 期望的iss，为null时不校验
+     * @param audience 期望包含的aud，为null时不校验
+     */
+    public JwtVerifier(JwksProvider.Source keySource, Set<String> algorithms, String issuer, String audience,
+                       long clockSkewSeconds, int cacheMaxEntries) {
+        this.keySource = keySource;
+        this.algorithms = algorithms;
+        this.issuer = issuer;
+        this.audience = audience;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.cache = new VerifiedTokenCache(cacheMaxEntries);
+    }
+
+    public VerifiedToken verify(String token, long nowSeconds) {
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash(token);
+        VerifiedToken cached = cache.get(hash);
+        if (cached != null) {
+            if (nowSeconds - clockSkewSeconds < cached.expiresAtSeconds
+                    && keySource.current().find(cached.key.kid, cached.alg) == cached.key) {
+                return cached;
+            }
+            cache.remove(hash);
+        }
+        VerifiedToken verified = verifyUncached(token, nowSeconds);
+        cache.put(hash, verified, nowSeconds - clockSkewSeconds);
+        return verified;
+    }
+
+    private VerifiedToken verifyUncached(String token, long nowSeconds) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new JwtException("Malformed token");
+        }
+        Map<String, Object> header = parseJson(token.substring(0, firstDot));
+        Object alg = header.get("alg");
+        if (!(alg instanceof String) || !algorithms.contains(alg)) {
+            throw new JwtException("Unsupported token algorithm");
+        }
+        Object kid = header.get("kid");
+        JwkSet.Jwk key = keySource.current().find(kid instanceof String ? (String) kid : null, (String) alg);
+        if (key == null) {
+            keySource.requestRefresh();
+            throw new JwtException("Unknown signing key");
+        }
+
+        byte[] signature = decode(token.substring(secondDot + 1));
+        if (!verifySignature((String) alg, key, token.substring(0, secondDot), signature)) {
+            throw new JwtException("Invalid token signature");
+        }
+
+        Map<String, Object> claims = parseJson(token.substring(firstDot + 1, secondDot));
+        long exp = numericClaim(claims, "exp");
+        if (exp < 0) {
+            throw new JwtException("Token has no exp");
+        }
+        if (nowSeconds - clockSkewSeconds >= exp) {
+            throw new JwtException("Token expired");
+        }
+        long nbf = numericClaim(claims, "nbf");
+        if (nbf >= 0 && nowSeconds + clockSkewSeconds < nbf) {
+            throw new JwtException("Token not yet valid");
+        }
+        if (issuer != null && !issuer.equals(claims.get("iss"))) {
+            throw new JwtException("Invalid token issuer");
+        }
+        if (audience != null && !containsAudience(claims.get("aud"))) {
+            throw new JwtException("Invalid token audience");
+        }
+        return new VerifiedToken(Collections.unmodifiableMap(claims), exp, key, (String) alg);
+    }
+
+    private static boolean verifySignature(String alg, JwkSet.Jwk key, String signingInput, byte[] signature) {
+        try {
+            Signature verifier;
+            if ("RS256".equals(alg)) {
+                verifier = Signature.getInstance("SHA256withRSA");
+            } else if ("ES256".equals(alg)) {
+                if (signature.length != 64) {
+                    return false;
+                }
+                verifier = Signature.getInstance("SHA256withECDSA");
+                signature = toDer(signature);
+            } else {
+                return false;
+            }
+            verifier.initVerify(key.publicKey);
+            verifier.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return verifier.verify(signature);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * JWS的ECDSA签名为 r||s 定长格式，JDK（Java 8）需要DER格式
+     */
+    private static byte[] toDer(byte[] raw) {
+        byte[] r = integerBytes(raw, 0);
+        byte[] s = integerBytes(raw, 32);
+        byte[] der = new byte[6 + r.length + s.length];
+        der[0] = 0x30;
+        der[1] = (byte) (4 + r.length + s.length);
+        der[2] = 0x02;
+        der[3] = (byte) r.length;
+        System.arraycopy(r, 0, der, 4, r.length);
+        der[4 + r.length] = 0x02;
+        der[5 + r.length] = (byte) s.length;
+        System.arraycopy(s, 0, der, 6 + r.length, s.length);
+        return der;
+    }
+
+    /**
+     * 去掉前导0，最高位为1时补0，得到DER INTEGER的最短编码
+     */
+    private static byte[] integerBytes(byte[] raw, int offset) {
+        int start = offset;
+        int end = offset + 32;
+        while (start < end - 1 && raw[start] == 0) {
+            start++;
+        }
+        boolean pad = (raw[start] & 0x80) != 0;
+        byte[] value = new byte[end - start + (pad ? 1 : 0)];
+        System.arraycopy(raw, start, value, pad ? 1 : 0, end - start);
+        return value;
+    }
+
+    private boolean containsAudience(Object aud) {
+        if (aud instanceof String) {
+            return audience.equals(aud);
+        }
+        return aud instanceof Collection && ((Collection<?>) aud).contains(audience);
+    }
+
+    private static long numericClaim(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+
+    private static Map<String, Object> parseJson(String base64Url) {
+        try {
+            return JsonParserFactory.getJsonParser().parseMap(new String(decode(base64Url), StandardCharsets.UTF_8));
+        } catch (JwtException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JwtException("Malformed token");
+        }
+    }
+
+    private static byte[] decode(String base64Url) {
+        try {
+            return Base64.getUrlDecoder().decode(base64Url);
+        } catch (IllegalArgumentException e) {
+            throw new JwtException("Malformed token");
+        }
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.wss.bronze.gateway.core.auth;
+
+import java.util.Map;
+
+/**
+ * 验证通过的JWT
+ *
+ * @author wss
+ */
+public final class VerifiedToken {
+
+    private final Map<String, Object> claims;
+    final long expiresAtSeconds;
+    // 签发公钥，公钥被轮换移除后缓存的验证结果失效
+    final JwkSet.Jwk key;
+    // 令牌的签名算法
+    final String alg;
+
+    VerifiedToken(Map<String, Object> claims, long expiresAtSeconds, JwkSet.Jwk key, String alg) {
+        this.claims = claims;
+        this.expiresAtSeconds = expiresAtSeconds;
+        this.key = key;
+        this.alg = alg;
+    }
+
+    /**
+     * 不可修改的claims
+     */
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public long getExpiresAtSeconds() {
+        return expiresAtSeconds;
+    }
+}
@@ -0,0 +1,110 @@
+package com.wss.bronze.gateway.core.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已验证令牌缓存，key为令牌的SHA-256，不保存令牌原文；条目在令牌过期后失效
+ * 容量有上限：定期及写满时回收过期条目，仍然写满时不再缓存新令牌（只影响性能，不影响正确性）
+ *
+ * @author wss
+ */
+final class VerifiedTokenCache {
+
+    // 每插入多少个条目顺带回收一次过期条目
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxEntries;
+    private final Map<TokenHash, VerifiedToken> entries;
+    private final AtomicInteger insertions = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.entries = new ConcurrentHashMap<>(Math.min(this.maxEntries, 1 << 16));
+    }
+
+    static TokenHash hash(String token) {
+        MessageDigest digest = SHA256.get();
+        byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenHash(bytes);
+    }
+
+    VerifiedToken get(TokenHash hash) {
+        return entries.get(hash);
+    }
+
+    void put(TokenHash hash, VerifiedToken token, long nowSeconds) {
+        if ((insertions.incrementAndGet() & (SWEEP_INTERVAL - 1)) == 0 || entries.size() >= maxEntries) {
+            sweep(nowSeconds);
+        }
+        if (entries.size() < maxEntries) {
+            entries.put(hash, token);
+        }
+    }
+
+    void remove(TokenHash hash) {
+        entries.remove(hash);
+    }
+
+    private void sweep(long nowSeconds) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<VerifiedToken> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAtSeconds <= nowSeconds) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * SHA-256摘要，取前4个字节作为哈希值，比较全部字节
+     */
+    static final class TokenHash {
+        private final byte[] digest;
+        private final int hashCode;
+
+        private TokenHash(byte[] digest) {
+            this.digest = digest;
+            int h = 0;
+            for (int i = 0; i < 4; i++) {
+                h = (h << 8) | (digest[i] & 0xff);
+            }
+            this.hashCode = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TokenHash && MessageDigest.isEqual(digest, ((TokenHash) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
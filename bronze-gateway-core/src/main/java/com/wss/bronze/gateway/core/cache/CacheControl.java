@@ -0,0 +1,92 @@
+package com.wss.bronze.gateway.core.cache;
+
+import java.util.List;
+
+/**
+ * Cache-Control指令解析，只解析网关作为共享缓存关心的指令
+ *
+ * @author wss
+ */
+final class CacheControl {
+
+    boolean noStore;
+    boolean noCache;
+    boolean privateDirective;
+    // 未设置时为-1
+    long maxAgeSeconds = -1;
+    long sMaxAgeSeconds = -1;
+    long staleWhileRevalidateSeconds = 0;
+
+    static CacheControl parse(List<String> values) {
+        CacheControl cacheControl = new CacheControl();
+        for (String value : values) {
+            int start = 0;
+            int length = value.length();
+            while (start < length) {
+                int end = value.indexOf(',', start);
+                if (end < 0) {
+                    end = length;
+                }
+                cacheControl.apply(value.substring(start, end).trim());
+                start = end + 1;
+            }
+        }
+        return cacheControl;
+    }
+
+    private void apply(String directive) {
+        if (directive.isEmpty()) {
+            return;
+        }
+        int eq = directive.indexOf('=');
+        String name = (eq < 0 ? directive : directive.substring(0, eq)).trim().toLowerCase();
+        String argument = eq < 0 ? null : unquote(directive.substring(eq + 1).trim());
+        switch (name) {
+            case "no-store":
+                noStore = true;
+                break;
+            case "no-cache":
+                noCache = true;
+                break;
+            case "private":
+                privateDirective = true;
+                break;
+            case "max-age":
+                maxAgeSeconds = parseSeconds(argument);
+                break;
+            case "s-maxage":
+                sMaxAgeSeconds = parseSeconds(argument);
+                break;
+            case "stale-while-revalidate":
+                staleWhileRevalidateSeconds = Math.max(0L, parseSeconds(argument));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 共享缓存的新鲜期，s-maxage优先于max-age，未声明时为-1
+     */
+    long freshnessSeconds() {
+        return sMaxAgeSeconds >= 0 ? sMaxAgeSeconds : maxAgeSeconds;
+    }
+
+    private static String unquote(String argument) {
+        if (argument.length() >= 2 && argument.charAt(0) == '"' && argument.charAt(argument.length() - 1) == '"') {
+            return argument.substring(1, argument.length() - 1);
+        }
+        return argument;
+    }
+
+    private static long parseSeconds(String argument) {
+        if (argument == null || argument.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
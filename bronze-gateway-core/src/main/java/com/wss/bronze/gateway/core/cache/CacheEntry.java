@@ -0,0 +1,117 @@
+package com.wss.bronze.gateway.core.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 响应缓存条目，响应体保存在池化的堆外内存中
+ * 命中时通过retainedDuplicate共享同一块内存，不拷贝响应体；条目被淘汰后，已发出的响应写完才真正释放内存
+ * 条目自身的引用计数保护响应体：缓存持有1个引用，命中时先tryRetain再retainedDuplicate，
+ * 计数归零后才释放响应体，避免并发淘汰释放后retain到已被池回收、分配给其他请求的内存
+ *
+ * @author wss
+ */
+public final class CacheEntry {
+
+    private final HttpResponseStatus status;
+    private final HttpHeaders headers;
+    private final ByteBuf body;
+    private final long storedAtMillis;
+    private final long freshUntilMillis;
+    private final long staleUntilMillis;
+    private final long weight;
+    // 同一条目同时只允许一个后台刷新
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    // 条目引用计数，初始为缓存持有的1个引用
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    CacheEntry(HttpResponseStatus status, HttpHeaders headers, ByteBuf body,
+               long storedAtMillis, long freshUntilMillis, long staleUntilMillis, long weight) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.storedAtMillis = storedAtMillis;
+        this.freshUntilMillis = freshUntilMillis;
+        this.staleUntilMillis = staleUntilMillis;
+        this.weight = weight;
+    }
+
+    public boolean isFresh(long nowMillis) {
+        return nowMillis < freshUntilMillis;
+    }
+
+    /**
+     * 是否已超过stale-while-revalidate允许的时间
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= staleUntilMillis;
+    }
+
+    /**
+     * 构建返回给客户端的响应
+     * @return 条目已被并发淘汰释放时返回null，按未命中处理
+     */
+    public FullHttpResponse toResponse(long nowMillis) {
+        if (!tryRetain()) {
+            return null;
+        }
+        ByteBuf content;
+        try {
+            content = body.retainedDuplicate();
+        } finally {
+            release();
+        }
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content,
+                headers.copy(), EmptyHttpHeaders.INSTANCE);
+        response.headers().set(HttpHeaderNames.AGE, Math.max(0L, (nowMillis - storedAtMillis) / 1000));
+        return response;
+    }
+
+    /**
+     * 抢占后台刷新，返回false表示已有刷新在进行
+     */
+    public boolean tryStartRevalidation() {
+        return revalidating.compareAndSet(false, true);
+    }
+
+    public void finishRevalidation() {
+        revalidating.set(false);
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    /**
+     * 计数大于0时加1，已归零（响应体已释放）时返回false
+     */
+    boolean tryRetain() {
+        for (;;) {
+            int count = refCnt.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (refCnt.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 减少引用计数，归零时释放响应体；缓存删除条目时调用一次
+     */
+    void release() {
+        if (refCnt.decrementAndGet() == 0) {
+            body.release();
+        }
+    }
+}
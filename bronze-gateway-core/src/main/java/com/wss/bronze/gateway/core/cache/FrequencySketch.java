@@ -0,0 +1,84 @@
+package com.wss.bronze.gateway.core.cache;
+
+/**
+ * 访问频率统计（Count-Min Sketch）
+ * 每个计数器4位，最大计到15；累计次数达到采样上限后所有计数减半，使历史热点逐渐老化
+ * 非线程安全，由调用方加锁
+ *
+ * @author wss
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int expectedEntries) {
+        int length = tableSizeFor(Math.max(expectedEntries, 16));
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    /**
+     * 估算访问频率，取各行计数的最小值
+     */
+    int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            int index = (int) (h >>> 32) & tableMask;
+            int offset = ((int) h & 15) << 2;
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * 访问频率加一
+     */
+    void increment(int hashCode) {
+        int hash = spread(hashCode);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            int index = (int) (h >>> 32) & tableMask;
+            int offset = ((int) h & 15) << 2;
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = 1;
+        while (size < n && size < (1 << 30)) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
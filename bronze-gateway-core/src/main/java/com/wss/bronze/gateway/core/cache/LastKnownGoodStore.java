@@ -0,0 +1,268 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.AsciiString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最近成功响应存储（last-known-good），后端熔断或超时时由降级处理返回
+ * 1. 按路由开启，每个key（与响应缓存相同的规则）只保存最近一次2xx响应；
+ *    与响应缓存一样不保存Cache-Control为no-store/no-cache/private的响应，
+ *    带Cookie或Authorization的请求只有在key包含该请求头时才保存
+ * 2. 响应体拷贝到池化的堆外内存，总量严格不超过maxMemoryBytes，超出时淘汰最早写入的条目
+ * 3. 同一key在minRefreshMs内不重复拷贝；锁竞争时放弃本次写入，成功路径不等待
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class LastKnownGoodStore implements DisposableBean {
+
+    public static final String WARNING_REVALIDATION_FAILED = "111 - \"Revalidation Failed\"";
+    // 每个条目除响应体外的固定开销估算
+    private static final int ENTRY_OVERHEAD = 128;
+    // HTTP/1.0的Keep-Alive响应头，逐跳头不保存
+    private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+
+    @Autowired
+    private GatewayProperties properties;
+
+    // 按写入顺序排列，最早写入的最先淘汰
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private long usedBytes;
+
+    private final LongAdder storeCount = new LongAdder();
+    private final LongAdder servedCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 计算key
+     * @return 路由未开启或请求不适用时返回null
+     */
+    public String key(GatewayContext context) {
+        GatewayProperties.RouteLastKnownGood config = context.getRoute().getLastKnownGood();
+        if (config == null || !config.isEnabled() || !HttpMethod.GET.equals(context.getMethod())) {
+            return null;
+        }
+        // 带认证信息的请求只有在按Authorization/Cookie区分时才保存，避免把用户私有响应返回给其他用户
+        HttpHeaders headers = context.getHeaders();
+        if (headers.contains(HttpHeaderNames.AUTHORIZATION) && !isVaried(config, HttpHeaderNames.AUTHORIZATION)
+                || headers.contains(HttpHeaderNames.COOKIE) && !isVaried(config, HttpHeaderNames.COOKIE)) {
+            return null;
+        }
+        return ResponseCache.requestKey(context, config.getVaryHeaders()).toString();
+    }
+
+    private static boolean isVaried(GatewayProperties.RouteLastKnownGood config, AsciiString header) {
+        for (String name : config.getVaryHeaders()) {
+            if (header.contentEqualsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 保存2xx响应，在写出响应前调用，不修改、不释放传入的响应
+     */
+    public void store(String key, GatewayProperties.RouteLastKnownGood config, FullHttpResponse response) {
+        int code = response.status().code();
+        HttpHeaders headers = response.headers();
+        // 降级返回的响应带有Warning，不再写回存储
+        if (code < 200 || code >= 300 || headers.contains(HttpHeaderNames.WARNING)
+                || headers.contains(HttpHeaderNames.SET_COOKIE)) {
+            return;
+        }
+        CacheControl cacheControl = CacheControl.parse(headers.getAll(HttpHeaderNames.CACHE_CONTROL));
+        if (cacheControl.noStore || cacheControl.noCache || cacheControl.privateDirective) {
+            return;
+        }
+        ByteBuf content = response.content();
+        int length = content.readableBytes();
+        if (length > config.getMaxEntryBytes()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry previous = peek(key);
+        if (previous != null && now - previous.storedAtMillis < properties.getLastKnownGood().getMinRefreshMs()) {
+            return;
+        }
+
+        HttpHeaders storedHeaders = headers.copy();
+        storedHeaders.remove(HttpHeaderNames.CONNECTION);
+        storedHeaders.remove(KEEP_ALIVE);
+        storedHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        storedHeaders.remove(HttpHeaderNames.AGE);
+        storedHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, length);
+        long weight = length + ENTRY_OVERHEAD + key.length();
+        for (Map.Entry<String, String> header : storedHeaders) {
+            weight += header.getKey().length() + header.getValue().length() + 4;
+        }
+        long maxMemoryBytes = properties.getLastKnownGood().getMaxMemoryBytes();
+        if (weight > maxMemoryBytes) {
+            return;
+        }
+
+        ByteBuf body = allocator.directBuffer(length, length);
+        body.writeBytes(content, content.readerIndex(), length);
+        Entry entry = new Entry(response.status(), storedHeaders, body, now, config.getMaxStaleSeconds() * 1000L, weight);
+        if (!lock.tryLock()) {
+            body.release();
+            return;
+        }
+        List<Entry> released = new ArrayList<>(2);
+        try {
+            Entry replaced = entries.remove(key);
+            if (replaced != null) {
+                usedBytes -= replaced.weight;
+                released.add(replaced);
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (usedBytes + weight > maxMemoryBytes && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                usedBytes -= evicted.weight;
+                released.add(evicted);
+                evictionCount.increment();
+            }
+            entries.put(key, entry);
+            usedBytes += weight;
+        } finally {
+            lock.unlock();
+        }
+        storeCount.increment();
+        for (Entry releasedEntry : released) {
+            releasedEntry.body.release();
+        }
+    }
+
+    private Entry peek(String key) {
+        if (!lock.tryLock()) {
+            return null;
+        }
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 返回key对应的最近成功响应，带Warning与Age响应头
+     * @return 没有可用的响应时返回false，由调用方继续原有的错误处理
+     */
+    public boolean serve(GatewayContext context, String key) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        ByteBuf content;
+        // 在锁内retain：store从表中移除条目后才释放响应体，锁内取到的条目响应体一定未释放
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry == null || now - entry.storedAtMillis > entry.maxStaleMillis) {
+                return false;
+            }
+            content = entry.body.retainedDuplicate();
+        } finally {
+            lock.unlock();
+        }
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, entry.status, content,
+                entry.headers.copy(), EmptyHttpHeaders.INSTANCE);
+        response.headers().set(HttpHeaderNames.AGE, Math.max(0L, (now - entry.storedAtMillis) / 1000));
+        response.headers().set(HttpHeaderNames.WARNING, WARNING_REVALIDATION_FAILED);
+        boolean keepAlive = HttpUtil.isKeepAlive(context.getRequest());
+        HttpUtil.setKeepAlive(response, keepAlive);
+        servedCount.increment();
+        context.writeResponse(response, !keepAlive);
+        return true;
+    }
+
+    public int getEntryCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getStoreCount() {
+        return storeCount.sum();
+    }
+
+    public long getServedCount() {
+        return servedCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            for (Entry entry : entries.values()) {
+                entry.body.release();
+            }
+            entries.clear();
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final HttpResponseStatus status;
+        private final HttpHeaders headers;
+        private final ByteBuf body;
+        private final long storedAtMillis;
+        private final long maxStaleMillis;
+        private final long weight;
+
+        private Entry(HttpResponseStatus status, HttpHeaders headers, ByteBuf body,
+                      long storedAtMillis, long maxStaleMillis, long weight) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.storedAtMillis = storedAtMillis;
+            this.maxStaleMillis = maxStaleMillis;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.utils.GwUtils;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求合并（single-flight）
+ * 同一时刻相同的GET/HEAD请求只有第一个（领导者）转发到后端，其余请求（跟随者）等待领导者的响应
+ * 领导者的响应写出时，通过retainedDuplicate共享响应体分发给所有跟随者，不拷贝响应体
+ * 请求key包含Authorization与Cookie，不同用户的请求不会合并
+ * 领导者的失败响应（超时、降级、网关异常等）同样分发给跟随者
+ * 跟随者在自己的请求截止时间到达时仍未收到响应则返回504，同时移除该次调用，之后的相同请求重新转发
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+
+    /**
+     * 加入进行中的后端调用
+     * 领导者的所有结束路径都必须经过GatewayContext.writeResponse，由响应回调完成本次调用
+     * @return true表示已作为跟随者加入，调用方不再转发；false表示成为领导者或不可合并，调用方照常转发
+     */
+    public boolean join(GatewayContext context) {
+        HttpMethod method = context.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return false;
+        }
+        String key = coalescingKey(context);
+        Flight flight = new Flight(key);
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            context.addResponseListener(flight::complete);
+            return false;
+        }
+        if (existing.addFollower(context)) {
+            coalescedCount.increment();
+            return true;
+        }
+        // 领导者已响应、正在分发，单独转发
+        return false;
+    }
+
+    private static String coalescingKey(GatewayContext context) {
+        HttpHeaders headers = context.getHeaders();
+        List<String> varyHeaders = context.getRoute().getCache() != null
+                ? context.getRoute().getCache().getVaryHeaders() : new ArrayList<>();
+        return ResponseCache.requestKey(context, varyHeaders)
+                .append("\nauthorization:").append(headers.get(HttpHeaderNames.AUTHORIZATION, ""))
+                .append("\ncookie:").append(headers.get(HttpHeaderNames.COOKIE, ""))
+                .toString();
+    }
+
+    /**
+     * 跟随者的等待截止时间，与HttpClient的请求截止时间一致
+     */
+    private long deadlineNanos(GatewayContext context) {
+        if (context.getDeadlineNanos() != 0L) {
+            return context.getDeadlineNanos();
+        }
+        return context.getStartNanos() + TimeUnit.MILLISECONDS.toNanos(properties.getBackendResponseTimeoutMs());
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.sum();
+    }
+
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * 一次进行中的后端调用
+     */
+    private final class Flight {
+        private final String key;
+        private List<Follower> followers = new ArrayList<>();
+        private boolean completed;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        private synchronized boolean addFollower(GatewayContext context) {
+            if (completed) {
+                return false;
+            }
+            // 跟随者不转发，请求会在网关处理器中释放，这里提前记录keep-alive
+            Follower follower = new Follower(context, HttpUtil.isKeepAlive(context.getRequest()));
+            followers.add(follower);
+            long timeoutNanos = Math.max(0L, deadlineNanos(context) - System.nanoTime());
+            follower.timeout = context.getCtx().executor().schedule(() -> expire(follower),
+                    timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        }
+
+        /**
+         * 跟随者等待超时：领导者的截止时间早于跟随者，此时仍未响应说明领导者已无法完成，
+         * 移除本次调用，其余跟随者按各自的截止时间超时
+         */
+        private void expire(Follower follower) {
+            synchronized (this) {
+                if (completed || !followers.remove(follower)) {
+                    return;
+                }
+            }
+            flights.remove(key, this);
+            timedOutCount.increment();
+            log.warn("Coalesced request timed out waiting for in-flight request");
+            GwUtils.sendTimeoutError(follower.context);
+        }
+
+        /**
+         * 领导者响应写出前回调，不修改、不释放领导者的响应
+         */
+        private void complete(FullHttpResponse response) {
+            List<Follower> waiting;
+            synchronized (this) {
+                completed = true;
+                waiting = followers;
+                followers = null;
+            }
+            flights.remove(key, this);
+            for (Follower follower : waiting) {
+                follower.timeout.cancel(false);
+                try {
+                    FullHttpResponse duplicate = new DefaultFullHttpResponse(response.protocolVersion(),
+                            response.status(), response.content().retainedDuplicate(),
+                            response.headers().copy(), response.trailingHeaders().copy());
+                    HttpUtil.setKeepAlive(duplicate, follower.keepAlive);
+                    follower.context.writeResponse(duplicate, !follower.keepAlive);
+                } catch (Exception e) {
+                    log.warn("Failed to fan out coalesced response", e);
+                }
+            }
+        }
+    }
+
+    private static final class Follower {
+        private final GatewayContext context;
+        private final boolean keepAlive;
+        private ScheduledFuture<?> timeout;
+
+        private Follower(GatewayContext context, boolean keepAlive) {
+            this.context = context;
+            this.keepAlive = keepAlive;
+        }
+    }
+}
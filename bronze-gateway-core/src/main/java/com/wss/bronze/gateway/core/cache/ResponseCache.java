@@ -0,0 +1,309 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.AsciiString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 网关响应缓存
+ * 1. 按路由开启，缓存key为 方法 + Host + 路径 + 查询参数 + 路由配置的Vary请求头
+ * 2. 遵循后端响应的Cache-Control：no-store/no-cache/private不缓存，s-maxage优先于max-age，支持stale-while-revalidate
+ * 3. 响应体拷贝到池化的堆外内存，按内存上限使用W-TinyLFU淘汰
+ * 4. 查询无锁；访问记录在锁竞争时直接丢弃，不阻塞事件循环
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class ResponseCache implements DisposableBean {
+
+    public static final String X_CACHE = "X-Cache";
+
+    // 共享缓存默认可缓存的状态码
+    private static final Set<Integer> CACHEABLE_STATUS = new HashSet<>(
+            Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+    // 每个条目除响应体外的固定开销估算
+    private static final int ENTRY_OVERHEAD = 128;
+    // HTTP/1.0的Keep-Alive响应头，逐跳头不缓存
+    private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private TinyLfuPolicy policy;
+    private long maxMemoryBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        GatewayProperties.Cache config = properties.getCache();
+        this.maxMemoryBytes = config.getMaxMemoryBytes();
+        this.policy = new TinyLfuPolicy(maxMemoryBytes, config.getExpectedEntries());
+        log.info("ResponseCache initialized with maxMemoryBytes: {}", maxMemoryBytes);
+    }
+
+    /**
+     * 计算缓存key
+     * @return 路由未开启缓存或请求不可缓存时返回null
+     */
+    public String cacheKey(GatewayContext context) {
+        GatewayProperties.RouteCache config = context.getRoute().getCache();
+        if (config == null || !config.isEnabled() || !HttpMethod.GET.equals(context.getMethod())) {
+            return null;
+        }
+        HttpHeaders headers = context.getHeaders();
+        if (headers.contains(HttpHeaderNames.CACHE_CONTROL)) {
+            CacheControl requestCacheControl = CacheControl.parse(headers.getAll(HttpHeaderNames.CACHE_CONTROL));
+            if (requestCacheControl.noStore || requestCacheControl.noCache) {
+                return null;
+            }
+        }
+        // 带认证信息的请求只有在按Authorization区分缓存时才可缓存，避免把用户私有响应返回给其他用户
+        if (headers.contains(HttpHeaderNames.AUTHORIZATION)
+                && !containsIgnoreCase(config.getVaryHeaders(), HttpHeaderNames.AUTHORIZATION.toString())) {
+            return null;
+        }
+
+        return requestKey(context, config.getVaryHeaders()).toString();
+    }
+
+    /**
+     * 请求key：方法 + Host + 路径 + 查询参数 + 指定请求头
+     */
+    static StringBuilder requestKey(GatewayContext context, List<String> varyHeaders) {
+        HttpHeaders headers = context.getHeaders();
+        StringBuilder key = new StringBuilder(64)
+                .append(context.getMethod().name()).append(' ')
+                .append(headers.get(HttpHeaderNames.HOST, "")).append(context.getPath());
+        for (String name : varyHeaders) {
+            key.append('\n').append(name).append(':').append(headers.get(name, ""));
+        }
+        return key;
+    }
+
+    /**
+     * 查询缓存，超过stale-while-revalidate时间的条目视为未命中并删除
+     */
+    public CacheEntry lookup(String key, long nowMillis) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (entry.isExpired(nowMillis)) {
+            invalidate(key, entry);
+            missCount.increment();
+            return null;
+        }
+        if (entry.isFresh(nowMillis)) {
+            hitCount.increment();
+        } else {
+            staleHitCount.increment();
+        }
+        if (lock.tryLock()) {
+            try {
+                policy.onAccess(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 保存后端响应，不可缓存的响应直接忽略
+     * 在后端连接的事件循环中调用，不修改、不释放传入的响应
+     */
+    public void store(String key, GatewayProperties.RouteCache config, FullHttpResponse response) {
+        if (!CACHEABLE_STATUS.contains(response.status().code())) {
+            return;
+        }
+        HttpHeaders headers = response.headers();
+        // 带Warning的响应（如降级返回的最近成功响应）不缓存
+        if (headers.contains(HttpHeaderNames.SET_COOKIE) || headers.contains(HttpHeaderNames.WARNING)
+                || !isVaryCovered(headers, config)) {
+            return;
+        }
+        CacheControl cacheControl = CacheControl.parse(headers.getAll(HttpHeaderNames.CACHE_CONTROL));
+        if (cacheControl.noStore || cacheControl.noCache || cacheControl.privateDirective) {
+            return;
+        }
+        long freshnessSeconds = cacheControl.freshnessSeconds() - headers.getInt(HttpHeaderNames.AGE, 0);
+        if (freshnessSeconds <= 0) {
+            return;
+        }
+        ByteBuf content = response.content();
+        int length = content.readableBytes();
+        if (length > config.getMaxEntryBytes()) {
+            return;
+        }
+
+        HttpHeaders storedHeaders = headers.copy();
+        storedHeaders.remove(HttpHeaderNames.CONNECTION);
+        storedHeaders.remove(KEEP_ALIVE);
+        storedHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        storedHeaders.remove(HttpHeaderNames.AGE);
+        storedHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, length);
+        long weight = length + ENTRY_OVERHEAD + headersWeight(storedHeaders);
+        if (weight > maxMemoryBytes) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long freshUntil = now + freshnessSeconds * 1000L;
+        long staleUntil = freshUntil + cacheControl.staleWhileRevalidateSeconds * 1000L;
+        ByteBuf body = allocator.directBuffer(length, length);
+        body.writeBytes(content, content.readerIndex(), length);
+        CacheEntry entry = new CacheEntry(response.status(), storedHeaders, body, now, freshUntil, staleUntil, weight);
+
+        List<CacheEntry> released = new ArrayList<>(2);
+        List<String> evicted = new ArrayList<>(2);
+        lock.lock();
+        try {
+            CacheEntry previous = entries.put(key, entry);
+            if (previous != null) {
+                policy.onRemove(key);
+                released.add(previous);
+            }
+            policy.onInsert(key, weight, evicted);
+            for (String evictedKey : evicted) {
+                CacheEntry evictedEntry = entries.remove(evictedKey);
+                if (evictedEntry != null) {
+                    released.add(evictedEntry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        evictionCount.add(evicted.size());
+        for (CacheEntry releasedEntry : released) {
+            releasedEntry.release();
+        }
+    }
+
+    /**
+     * 删除指定条目（仅当仍是同一条目时）
+     */
+    private void invalidate(String key, CacheEntry entry) {
+        boolean removed;
+        lock.lock();
+        try {
+            removed = entries.remove(key, entry);
+            if (removed) {
+                policy.onRemove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            entry.release();
+        }
+    }
+
+    /**
+     * 后端响应Vary中的请求头都参与了缓存key时才可缓存，Vary: * 不缓存
+     */
+    private static boolean isVaryCovered(HttpHeaders headers, GatewayProperties.RouteCache config) {
+        for (String vary : headers.getAll(HttpHeaderNames.VARY)) {
+            for (String name : vary.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if ("*".equals(trimmed) || !containsIgnoreCase(config.getVaryHeaders(), trimmed)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String target) {
+        for (String value : values) {
+            if (value.equalsIgnoreCase(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long headersWeight(HttpHeaders headers) {
+        long weight = 0;
+        for (Map.Entry<String, String> header : headers) {
+            weight += header.getKey().length() + header.getValue().length() + 4;
+        }
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getStaleHitCount() {
+        return staleHitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return policy.weightedSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                policy.onRemove(entry.getKey());
+                entry.getValue().release();
+            }
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.wss.bronze.gateway.core.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * W-TinyLFU淘汰策略，按字节数计算容量
+ * 1. 新条目先进入占总容量1%的LRU窗口，吸收突发的新访问
+ * 2. 窗口淘汰的条目作为候选者与主区probation段最久未访问的条目比较访问频率，频率更高者留下
+ * 3. 主区为分段LRU：probation段再次被访问的条目晋升到protected段（占主区80%）
+ * 非线程安全，由ResponseCache加锁
+ *
+ * @author wss
+ */
+final class TinyLfuPolicy {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    // LinkedHashMap按插入顺序排列，移动到队尾即为删除后重新插入
+    private final LinkedHashMap<String, Node> window = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Node> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Node> protectedSegment = new LinkedHashMap<>();
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    TinyLfuPolicy(long maximumWeight, int expectedEntries) {
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1L, maximumWeight / 100);
+        this.mainMaximum = maximumWeight - windowMaximum;
+        this.protectedMaximum = mainMaximum * 8 / 10;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    /**
+     * 记录新条目
+     * @param evicted 被淘汰的key（可能包含新条目自身）
+     */
+    void onInsert(String key, long weight, List<String> evicted) {
+        sketch.increment(key.hashCode());
+        Node node = new Node(key, weight);
+        nodes.put(key, node);
+        window.put(key, node);
+        windowWeight += weight;
+
+        while (windowWeight > windowMaximum && !window.isEmpty()) {
+            Node candidate = removeFirst(window);
+            windowWeight -= candidate.weight;
+            admit(candidate, evicted);
+        }
+        while (weightedSize() > maximumWeight) {
+            Node victim = first(probation);
+            if (victim == null) {
+                victim = first(protectedSegment);
+            }
+            if (victim == null) {
+                victim = first(window);
+            }
+            if (victim == null) {
+                break;
+            }
+            evict(victim, evicted);
+        }
+    }
+
+    /**
+     * 窗口淘汰的候选者进入主区，主区已满时与probation段队首比较访问频率
+     */
+    private void admit(Node candidate, List<String> evicted) {
+        int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+        while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+            Node victim = first(probation);
+            if (victim == null) {
+                victim = first(protectedSegment);
+            }
+            if (victim == null) {
+                break;
+            }
+            if (candidateFrequency > sketch.frequency(victim.key.hashCode())) {
+                evict(victim, evicted);
+            } else {
+                nodes.remove(candidate.key);
+                evicted.add(candidate.key);
+                return;
+            }
+        }
+        candidate.segment = PROBATION;
+        probation.put(candidate.key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    /**
+     * 记录访问
+     */
+    void onAccess(String key) {
+        sketch.increment(key.hashCode());
+        Node node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(key);
+                window.put(key, node);
+                break;
+            case PROBATION:
+                probation.remove(key);
+                probationWeight -= node.weight;
+                node.segment = PROTECTED;
+                protectedSegment.put(key, node);
+                protectedWeight += node.weight;
+                // protected段超限时，最久未访问的条目降级回probation段
+                while (protectedWeight > protectedMaximum && protectedSegment.size() > 1) {
+                    Node demoted = removeFirst(protectedSegment);
+                    protectedWeight -= demoted.weight;
+                    demoted.segment = PROBATION;
+                    probation.put(demoted.key, demoted);
+                    probationWeight += demoted.weight;
+                }
+                break;
+            default:
+                protectedSegment.remove(key);
+                protectedSegment.put(key, node);
+                break;
+        }
+    }
+
+    /**
+     * 条目被主动删除（过期、替换）
+     */
+    void onRemove(String key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return;
+        }
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(key);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(key);
+                probationWeight -= node.weight;
+                break;
+            default:
+                protectedSegment.remove(key);
+                protectedWeight -= node.weight;
+                break;
+        }
+    }
+
+    long weightedSize() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    private void evict(Node node, List<String> evicted) {
+        onRemove(node.key);
+        evicted.add(node.key);
+    }
+
+    private static Node first(LinkedHashMap<String, Node> segment) {
+        Iterator<Node> iterator = segment.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static Node removeFirst(LinkedHashMap<String, Node> segment) {
+        Iterator<Node> iterator = segment.values().iterator();
+        Node node = iterator.next();
+        iterator.remove();
+        return node;
+    }
+
+    private static final class Node {
+        private final String key;
+        private final long weight;
+        private int segment = WINDOW;
+
+        private Node(String key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+}
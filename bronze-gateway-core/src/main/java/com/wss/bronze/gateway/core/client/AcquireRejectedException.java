@@ -0,0 +1,23 @@
+package com.wss.bronze.gateway.core.client;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import lombok.Getter;
+
+/**
+ * 获取后端连接被连接池拒绝（等待队列已满、超过请求截止时间或被更高优先级请求挤出）
+ * 属于预期内的过载保护，不记录堆栈，避免高压下的额外开销
+ *
+ * @author wss
+ */
+@Getter
+public class AcquireRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HttpResponseStatus status;
+
+    public AcquireRejectedException(HttpResponseStatus status, String msg) {
+        super(msg, null, false, false);
+        this.status = status;
+    }
+}
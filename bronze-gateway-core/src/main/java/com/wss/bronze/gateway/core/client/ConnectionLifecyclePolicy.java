@@ -0,0 +1,119 @@
+package com.wss.bronze.gateway.core.client;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后端连接生命周期策略
+ * 1. 最大存活时间：到期的连接不再分配，正在使用的连接在当前响应写完归还时回收
+ * 2. 最大请求数：达到上限的连接归还时回收，使L4负载均衡后的后端重新均衡
+ * 3. 空闲回收：由HttpClientIdleStateHandler按idleTimeoutMs关闭池中空闲连接
+ * 4. DNS变化：后端地址不在最新解析结果中的连接视为过期
+ * 作为连接池的健康检查器使用，获取和归还时都只做一次属性读取与比较
+ *
+ * @author wss
+ */
+public class ConnectionLifecyclePolicy implements ChannelHealthChecker {
+
+    private static final AttributeKey<ConnectionStats> CONNECTION_STATS_KEY =
+            AttributeKey.valueOf("connectionStats");
+
+    private final long maxLifetimeNanos;
+    private final int maxRequestsPerConnection;
+    private final long idleTimeoutMs;
+    // 主机当前有效的地址，null表示未启用DNS刷新
+    private volatile Set<InetAddress> activeAddresses;
+
+    public ConnectionLifecyclePolicy(GatewayProperties.ConnectionPolicy policy) {
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(policy.getMaxLifetimeMs(), 0L));
+        this.maxRequestsPerConnection = Math.max(policy.getMaxRequestsPerConnection(), 0);
+        this.idleTimeoutMs = policy.getIdleTimeoutMs();
+    }
+
+    /**
+     * 连接创建时记录到期时间，加入最多10%的随机抖动，避免同批预热的连接同时过期
+     */
+    public void onCreated(Channel channel) {
+        long expireAtNanos = Long.MAX_VALUE;
+        if (maxLifetimeNanos > 0) {
+            long jitter = ThreadLocalRandom.current().nextLong(maxLifetimeNanos / 10 + 1);
+            expireAtNanos = System.nanoTime() + maxLifetimeNanos - jitter;
+        }
+        channel.attr(CONNECTION_STATS_KEY).set(new ConnectionStats(expireAtNanos));
+    }
+
+    /**
+     * 连接被分配给请求时累加请求数
+     */
+    public void onAcquired(Channel channel) {
+        ConnectionStats stats = channel.attr(CONNECTION_STATS_KEY).get();
+        if (stats != null) {
+            stats.requests++;
+        }
+    }
+
+    /**
+     * 连接是否应当退役
+     */
+    public boolean shouldRetire(Channel channel) {
+        ConnectionStats stats = channel.attr(CONNECTION_STATS_KEY).get();
+        if (stats == null) {
+            return false;
+        }
+        if (maxRequestsPerConnection > 0 && stats.requests >= maxRequestsPerConnection) {
+            return true;
+        }
+        if (maxLifetimeNanos > 0 && System.nanoTime() - stats.expireAtNanos >= 0) {
+            return true;
+        }
+        return isStaleAddress(channel);
+    }
+
+    private boolean isStaleAddress(Channel channel) {
+        Set<InetAddress> addresses = activeAddresses;
+        if (addresses == null) {
+            return false;
+        }
+        SocketAddress remoteAddress = channel.remoteAddress();
+        return remoteAddress instanceof InetSocketAddress
+                && !addresses.contains(((InetSocketAddress) remoteAddress).getAddress());
+    }
+
+    /**
+     * DNS解析结果变化时更新有效地址
+     */
+    public void setActiveAddresses(Set<InetAddress> activeAddresses) {
+        this.activeAddresses = activeAddresses;
+    }
+
+    @Override
+    public Future<Boolean> isHealthy(Channel channel) {
+        return channel.eventLoop().newSucceededFuture(channel.isActive() && !shouldRetire(channel));
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    /**
+     * 连接统计，只在连接所属的事件循环中读写
+     */
+    private static final class ConnectionStats {
+        private final long expireAtNanos;
+        private int requests;
+
+        private ConnectionStats(long expireAtNanos) {
+            this.expireAtNanos = expireAtNanos;
+        }
+    }
+}
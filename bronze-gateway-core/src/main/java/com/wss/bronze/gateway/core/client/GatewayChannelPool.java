@@ -0,0 +1,655 @@
+package com.wss.bronze.gateway.core.client;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
+import com.wss.bronze.gateway.core.metrics.LatencyHistogram;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 网关后端连接池
+ * 在SimpleChannelPool基础上实现：
+ * 1. 连接数上限与有界等待队列，等待者按截止时间排序，超过请求截止时间的直接拒绝，不再超限新建连接
+ * 2. 按请求优先级分队列，高优先级先获取连接，队列满时挤出低优先级等待者
+ * 3. 过载（等待数超过lifoThreshold）时同优先级内后进先出，优先保证新请求的延迟
+ * 4. 启动预热，提前建立最小连接数
+ * 5. 自适应连接上限，根据获取连接等待时间和利用率在[min,max]之间扩缩容
+ * 6. 记录等待队列深度与获取连接等待时间直方图
+ * 7. 归还时未通过健康检查的连接（到期、达到最大请求数、地址过期）直接关闭
+ * 所有计数状态只在executor线程中修改，无需加锁
+ *
+ * @author wss
+ */
+@Slf4j
+public class GatewayChannelPool extends SimpleChannelPool {
+
+    private static final IllegalStateException POOL_CLOSED =
+            new IllegalStateException("GatewayChannelPool was closed");
+
+    // 归还时通过健康检查并放回池中的连接标记，在channelReleased中读取并清除
+    private static final AttributeKey<Boolean> OFFERED_KEY = AttributeKey.valueOf("gatewayPoolOffered");
+
+    // 自适应模式下的初始连接上限
+    private static final int ADAPTIVE_INITIAL_LIMIT = 32;
+
+    private final EventExecutor executor;
+    private final String name;
+    private final int minConnections;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final long acquireTimeoutNanos;
+    private final long acquireWaitThresholdNanos;
+    private final double highUtilization;
+    private final double lowUtilization;
+    private final int lifoThreshold;
+
+    // 按优先级划分的等待队列，下标为RequestPriority.ordinal()
+    private final WaiterQueue[] waiterQueues;
+    private final Runnable sweepTask = this::sweepExpiredWaiters;
+    private ScheduledFuture<?> sweepFuture;
+    private long sweepAtNanos;
+    private ScheduledFuture<?> adaptiveFuture;
+
+    // 获取连接等待时间（微秒）与入队时的队列深度
+    private final LatencyHistogram acquireWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram queueDepthHistogram = new LatencyHistogram();
+    private volatile long shedCount;
+
+    // 当前连接上限，非自适应模式下恒等于maxConnections
+    private volatile int connectionLimit;
+    private volatile int acquiredChannelCount;
+    private volatile int pendingAcquireCount;
+    private boolean closed;
+
+    // 自适应统计窗口（仅executor线程访问）
+    private long windowWaitNanos;
+    private long windowWaitCount;
+    private int windowPeakAcquired;
+
+    public GatewayChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, ChannelHealthChecker healthChecker,
+                              String name, int maxConnections, int maxPendingAcquires, long acquireTimeoutMs,
+                              GatewayProperties.Pool poolConfig) {
+        // 归还时做健康检查，后进先出优先复用热连接
+        super(bootstrap, new RetiringPoolHandler(handler), healthChecker, true, true);
+        this.executor = bootstrap.config().group().next();
+        this.name = name;
+        this.maxConnections = maxConnections;
+        this.minConnections = Math.min(Math.max(poolConfig.getMinConnectionsPerHost(), 0), maxConnections);
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        this.acquireWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(poolConfig.getAcquireWaitThresholdMs());
+        this.highUtilization = poolConfig.getHighUtilization();
+        this.lowUtilization = poolConfig.getLowUtilization();
+        this.lifoThreshold = poolConfig.getLifoThreshold();
+        this.waiterQueues = new WaiterQueue[RequestPriority.values().length];
+        for (int i = 0; i < waiterQueues.length; i++) {
+            waiterQueues[i] = new WaiterQueue();
+        }
+
+        if (poolConfig.isAdaptiveEnabled()) {
+            this.connectionLimit = Math.max(minConnections, Math.min(maxConnections, ADAPTIVE_INITIAL_LIMIT));
+            long interval = Math.max(poolConfig.getAdaptiveIntervalMs(), 100L);
+            this.adaptiveFuture = executor.scheduleAtFixedRate(this::adjustConnectionLimit,
+                    interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.connectionLimit = maxConnections;
+        }
+    }
+
+    @Override
+    public Future<Channel> acquire(final Promise<Channel> promise) {
+        return acquire(promise, System.nanoTime() + acquireTimeoutNanos, RequestPriority.NORMAL);
+    }
+
+    /**
+     * 按请求截止时间与优先级获取连接
+     * @param deadlineNanos 请求截止时间（System.nanoTime()时间轴）
+     * @param priority 请求优先级
+     */
+    public Future<Channel> acquire(long deadlineNanos, RequestPriority priority) {
+        return acquire(bootstrap().config().group().next().<Channel>newPromise(), deadlineNanos, priority);
+    }
+
+    private Future<Channel> acquire(final Promise<Channel> promise, final long deadlineNanos, final RequestPriority priority) {
+        final long startNanos = System.nanoTime();
+        if (executor.inEventLoop()) {
+            acquire0(promise, startNanos, deadlineNanos, priority);
+        } else {
+            executor.execute(() -> acquire0(promise, startNanos, deadlineNanos, priority));
+        }
+        return promise;
+    }
+
+    private void acquire0(Promise<Channel> promise, long startNanos, long deadlineNanos, RequestPriority priority) {
+        if (closed) {
+            promise.setFailure(POOL_CLOSED);
+            return;
+        }
+        if (acquiredChannelCount < connectionLimit) {
+            acquired(startNanos);
+            doAcquire(promise);
+            return;
+        }
+
+        // 等待截止时间取请求截止时间与获取连接超时中较早者
+        long expireNanos = startNanos + acquireTimeoutNanos;
+        if (deadlineNanos - expireNanos < 0) {
+            expireNanos = deadlineNanos;
+        }
+        if (expireNanos - System.nanoTime() <= 0) {
+            shed(promise, HttpResponseStatus.GATEWAY_TIMEOUT, "Request deadline exceeded before acquiring connection");
+            return;
+        }
+        if (pendingAcquireCount >= maxPendingAcquires && !evictLowerPriority(priority)) {
+            shed(promise, HttpResponseStatus.SERVICE_UNAVAILABLE, "Too many outstanding acquire operations");
+            return;
+        }
+
+        PendingAcquire waiter = new PendingAcquire(promise, startNanos, expireNanos);
+        waiterQueues[priority.ordinal()].insert(waiter);
+        pendingAcquireCount++;
+        queueDepthHistogram.record(pendingAcquireCount);
+        scheduleSweep(expireNanos);
+    }
+
+    private void doAcquire(final Promise<Channel> promise) {
+        Promise<Channel> p = executor.newPromise();
+        p.addListener((FutureListener<Channel>) future -> {
+            if (closed) {
+                if (future.isSuccess()) {
+                    future.getNow().close();
+                }
+                promise.setFailure(POOL_CLOSED);
+                return;
+            }
+            if (future.isSuccess()) {
+                if (!promise.trySuccess(future.getNow())) {
+                    // 调用方已取消，归还连接
+                    release(future.getNow());
+                }
+            } else {
+                decrementAndRunTaskQueue();
+                promise.tryFailure(future.cause());
+            }
+        });
+        super.acquire(p);
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        Promise<Void> p = executor.newPromise();
+        super.release(channel, p.addListener((FutureListener<Void>) future -> {
+            if (closed) {
+                channel.close();
+                promise.setFailure(POOL_CLOSED);
+                return;
+            }
+            if (future.isSuccess()) {
+                decrementAndRunTaskQueue();
+                promise.setSuccess(null);
+            } else {
+                // 非本池获取的连接不计数
+                if (!(future.cause() instanceof IllegalArgumentException)) {
+                    decrementAndRunTaskQueue();
+                }
+                promise.setFailure(future.cause());
+            }
+        }));
+        return promise;
+    }
+
+    /**
+     * 只在归还流程中调用（放回池中后紧接着调用channelReleased），evictIdle放回连接时直接调用父类方法
+     */
+    @Override
+    protected boolean offerChannel(Channel channel) {
+        channel.attr(OFFERED_KEY).set(Boolean.TRUE);
+        return super.offerChannel(channel);
+    }
+
+    private void acquired(long startNanos) {
+        acquiredChannelCount++;
+        long waitNanos = System.nanoTime() - startNanos;
+        windowWaitNanos += waitNanos;
+        windowWaitCount++;
+        acquireWaitHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        if (acquiredChannelCount > windowPeakAcquired) {
+            windowPeakAcquired = acquiredChannelCount;
+        }
+    }
+
+    private void decrementAndRunTaskQueue() {
+        if (acquiredChannelCount > 0) {
+            acquiredChannelCount--;
+        }
+        runTaskQueue();
+    }
+
+    private void runTaskQueue() {
+        while (acquiredChannelCount < connectionLimit) {
+            PendingAcquire waiter = pollNextWaiter();
+            if (waiter == null) {
+                break;
+            }
+            pendingAcquireCount--;
+            if (waiter.promise.isDone()) {
+                // 调用方已取消
+                continue;
+            }
+            if (waiter.expireNanos - System.nanoTime() <= 0) {
+                shed(waiter.promise, HttpResponseStatus.GATEWAY_TIMEOUT, "Request deadline exceeded while waiting for connection");
+                continue;
+            }
+            acquired(waiter.startNanos);
+            doAcquire(waiter.promise);
+        }
+    }
+
+    /**
+     * 按优先级从高到低取下一个等待者
+     * 正常情况下取截止时间最早的，过载时取最新入队的（后进先出）
+     */
+    private PendingAcquire pollNextWaiter() {
+        boolean lifo = lifoThreshold > 0 && pendingAcquireCount > lifoThreshold;
+        for (WaiterQueue queue : waiterQueues) {
+            if (queue.size > 0) {
+                return lifo ? queue.pollLast() : queue.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 队列已满时挤出一个优先级更低的等待者（选择其中截止时间最早的）
+     */
+    private boolean evictLowerPriority(RequestPriority priority) {
+        for (int i = waiterQueues.length - 1; i > priority.ordinal(); i--) {
+            if (waiterQueues[i].size > 0) {
+                PendingAcquire victim = waiterQueues[i].pollFirst();
+                pendingAcquireCount--;
+                shed(victim.promise, HttpResponseStatus.SERVICE_UNAVAILABLE, "Evicted by higher priority request");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void shed(Promise<Channel> promise, HttpResponseStatus status, String reason) {
+        shedCount++;
+        promise.tryFailure(new AcquireRejectedException(status, reason + " (" + name + ")"));
+    }
+
+    /**
+     * 只保留一个清理定时任务，触发时间为所有等待者中最早的截止时间
+     */
+    private void scheduleSweep(long expireNanos) {
+        if (sweepFuture != null) {
+            if (sweepAtNanos - expireNanos <= 0) {
+                return;
+            }
+            sweepFuture.cancel(false);
+        }
+        sweepAtNanos = expireNanos;
+        sweepFuture = executor.schedule(sweepTask, Math.max(0L, expireNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 拒绝所有已超过截止时间的等待者，队列按截止时间有序，只需检查队头
+     */
+    private void sweepExpiredWaiters() {
+        sweepFuture = null;
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long nextExpire = 0L;
+        boolean hasNext = false;
+        for (WaiterQueue queue : waiterQueues) {
+            while (queue.head != null && queue.head.expireNanos - now <= 0) {
+                PendingAcquire waiter = queue.pollFirst();
+                pendingAcquireCount--;
+                shed(waiter.promise, HttpResponseStatus.GATEWAY_TIMEOUT, "Request deadline exceeded while waiting for connection");
+            }
+            if (queue.head != null && (!hasNext || queue.head.expireNanos - nextExpire < 0)) {
+                nextExpire = queue.head.expireNanos;
+                hasNext = true;
+            }
+        }
+        if (hasNext) {
+            scheduleSweep(nextExpire);
+        }
+    }
+
+    /**
+     * 根据上一周期的等待时间和利用率调整连接上限
+     * 扩容按倍数快速增长，缩容每次最多减少1/4且不低于周期内的峰值占用
+     */
+    private void adjustConnectionLimit() {
+        if (closed) {
+            return;
+        }
+        int limit = connectionLimit;
+        long avgWaitNanos = windowWaitCount > 0 ? windowWaitNanos / windowWaitCount : 0L;
+        double utilization = limit > 0 ? (double) windowPeakAcquired / limit : 1.0;
+
+        int newLimit = limit;
+        if (limit < maxConnections
+                && (avgWaitNanos > acquireWaitThresholdNanos || (pendingAcquireCount > 0 && utilization >= highUtilization))) {
+            newLimit = Math.min(maxConnections, Math.max(limit + 1, limit * 2));
+        } else if (limit > minConnections && pendingAcquireCount == 0 && utilization < lowUtilization) {
+            int floor = Math.max(Math.max(minConnections, 1), windowPeakAcquired);
+            newLimit = Math.max(floor, limit - Math.max(1, limit / 4));
+        }
+
+        windowWaitNanos = 0L;
+        windowWaitCount = 0L;
+        windowPeakAcquired = acquiredChannelCount;
+
+        if (newLimit != limit) {
+            connectionLimit = newLimit;
+            log.debug("Pool {} connection limit adjusted {} -> {} (avgWait={}us, utilization={})",
+                    name, limit, newLimit, TimeUnit.NANOSECONDS.toMicros(avgWaitNanos), String.format("%.2f", utilization));
+            if (newLimit > limit) {
+                runTaskQueue();
+            } else {
+                trimIdleChannels(limit - newLimit);
+            }
+        }
+    }
+
+    /**
+     * 缩容时关闭多余的空闲连接
+     */
+    private void trimIdleChannels(int count) {
+        for (int i = 0; i < count; i++) {
+            Channel channel = pollChannel();
+            if (channel == null) {
+                break;
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * 回收满足条件的空闲连接（如DNS变化后指向旧地址的连接），其余空闲连接放回池中
+     * 正在使用的连接由健康检查在归还时回收
+     */
+    public void evictIdle(Predicate<Channel> predicate) {
+        List<Channel> retained = new ArrayList<>();
+        int evicted = 0;
+        Channel channel;
+        while ((channel = pollChannel()) != null) {
+            if (predicate.test(channel)) {
+                channel.close();
+                evicted++;
+            } else {
+                retained.add(channel);
+            }
+        }
+        for (Channel ch : retained) {
+            if (!super.offerChannel(ch)) {
+                ch.close();
+            }
+        }
+        if (evicted > 0) {
+            log.info("Pool {} evicted {} idle connections", name, evicted);
+        }
+    }
+
+    /**
+     * 预热连接池：并发建立count个连接后全部归还到池中
+     */
+    public Future<Void> prewarm(int count) {
+        final Promise<Void> promise = GlobalEventExecutor.INSTANCE.newPromise();
+        final int total = Math.min(count, connectionLimit);
+        if (total <= 0) {
+            return promise.setSuccess(null);
+        }
+        final List<Channel> channels = new ArrayList<>(total);
+        final AtomicInteger remaining = new AtomicInteger(total);
+        final AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < total; i++) {
+            acquire().addListener((FutureListener<Channel>) future -> {
+                if (future.isSuccess()) {
+                    synchronized (channels) {
+                        channels.add(future.getNow());
+                    }
+                } else {
+                    failed.incrementAndGet();
+                    log.debug("Prewarm connection failed for pool {}", name, future.cause());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    synchronized (channels) {
+                        for (Channel channel : channels) {
+                            release(channel);
+                        }
+                    }
+                    if (failed.get() == 0) {
+                        promise.trySuccess(null);
+                    } else {
+                        promise.tryFailure(new IllegalStateException(
+                                failed.get() + "/" + total + " prewarm connections failed for " + name));
+                    }
+                }
+            });
+        }
+        return promise;
+    }
+
+    public int acquiredChannelCount() {
+        return acquiredChannelCount;
+    }
+
+    public int pendingAcquireCount() {
+        return pendingAcquireCount;
+    }
+
+    public int connectionLimit() {
+        return connectionLimit;
+    }
+
+    public long shedCount() {
+        return shedCount;
+    }
+
+    public LatencyHistogram acquireWaitHistogram() {
+        return acquireWaitHistogram;
+    }
+
+    public LatencyHistogram queueDepthHistogram() {
+        return queueDepthHistogram;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeAsync().await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Future<Void> closeAsync() {
+        if (executor.inEventLoop()) {
+            return close0();
+        }
+        final Promise<Void> closeComplete = executor.newPromise();
+        executor.execute(() -> close0().addListener((FutureListener<Void>) f -> {
+            if (f.isSuccess()) {
+                closeComplete.setSuccess(null);
+            } else {
+                closeComplete.setFailure(f.cause());
+            }
+        }));
+        return closeComplete;
+    }
+
+    private Future<Void> close0() {
+        if (!closed) {
+            closed = true;
+            if (adaptiveFuture != null) {
+                adaptiveFuture.cancel(false);
+            }
+            if (sweepFuture != null) {
+                sweepFuture.cancel(false);
+                sweepFuture = null;
+            }
+            for (WaiterQueue queue : waiterQueues) {
+                PendingAcquire waiter;
+                while ((waiter = queue.pollFirst()) != null) {
+                    waiter.promise.tryFailure(POOL_CLOSED);
+                }
+            }
+            acquiredChannelCount = 0;
+            pendingAcquireCount = 0;
+            // SimpleChannelPool.close会阻塞等待连接关闭，不能在事件循环中执行
+            return GlobalEventExecutor.INSTANCE.submit(() -> {
+                GatewayChannelPool.super.close();
+                return null;
+            });
+        }
+        return GlobalEventExecutor.INSTANCE.newSucceededFuture(null);
+    }
+
+    /**
+     * 等待获取连接的请求，同时作为等待队列的链表节点，避免额外分配
+     */
+    private static final class PendingAcquire {
+        private final Promise<Channel> promise;
+        private final long startNanos;
+        private final long expireNanos;
+        private PendingAcquire prev;
+        private PendingAcquire next;
+
+        private PendingAcquire(Promise<Channel> promise, long startNanos, long expireNanos) {
+            this.promise = promise;
+            this.startNanos = startNanos;
+            this.expireNanos = expireNanos;
+        }
+    }
+
+    /**
+     * 按截止时间升序的双向链表
+     * 截止时间基本随入队时间递增，从队尾向前查找插入位置通常为O(1)
+     */
+    private static final class WaiterQueue {
+        private PendingAcquire head;
+        private PendingAcquire tail;
+        private int size;
+
+        private void insert(PendingAcquire waiter) {
+            PendingAcquire p = tail;
+            while (p != null && p.expireNanos - waiter.expireNanos > 0) {
+                p = p.prev;
+            }
+            if (p == null) {
+                waiter.next = head;
+                if (head != null) {
+                    head.prev = waiter;
+                } else {
+                    tail = waiter;
+                }
+                head = waiter;
+            } else {
+                waiter.prev = p;
+                waiter.next = p.next;
+                if (p.next != null) {
+                    p.next.prev = waiter;
+                } else {
+                    tail = waiter;
+                }
+                p.next = waiter;
+            }
+            size++;
+        }
+
+        private PendingAcquire pollFirst() {
+            PendingAcquire waiter = head;
+            if (waiter != null) {
+                unlink(waiter);
+            }
+            return waiter;
+        }
+
+        private PendingAcquire pollLast() {
+            PendingAcquire waiter = tail;
+            if (waiter != null) {
+                unlink(waiter);
+            }
+            return waiter;
+        }
+
+        private void unlink(PendingAcquire waiter) {
+            if (waiter.prev != null) {
+                waiter.prev.next = waiter.next;
+            } else {
+                head = waiter.next;
+            }
+            if (waiter.next != null) {
+                waiter.next.prev = waiter.prev;
+            } else {
+                tail = waiter.prev;
+            }
+            waiter.prev = null;
+            waiter.next = null;
+            size--;
+        }
+    }
+
+    /**
+     * SimpleChannelPool对归还时健康检查失败的连接只调用channelReleased而不关闭，此时连接计数已经减少，
+     * 不关闭连接会使实际连接数超过上限，并且连接一直占用到后端关闭为止
+     */
+    private static final class RetiringPoolHandler implements ChannelPoolHandler {
+
+        private final ChannelPoolHandler delegate;
+
+        private RetiringPoolHandler(ChannelPoolHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void channelReleased(Channel ch) throws Exception {
+            Boolean offered = ch.attr(OFFERED_KEY).getAndSet(null);
+            delegate.channelReleased(ch);
+            if (offered == null) {
+                ch.close();
+            }
+        }
+
+        @Override
+        public void channelAcquired(Channel ch) throws Exception {
+            delegate.channelAcquired(ch);
+        }
+
+        @Override
+        public void channelCreated(Channel ch) throws Exception {
+            delegate.channelCreated(ch);
+        }
+    }
+
+}
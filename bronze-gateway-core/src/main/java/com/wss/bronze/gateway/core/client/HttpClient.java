@@ -3,11 +3,17 @@ package com.wss.bronze.gateway.core.client;
 import com.wss.bronze.gateway.core.GatewayContext;
 import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.resilience.AdaptiveConcurrencyLimiter;
+import com.wss.bronze.gateway.core.resilience.AdaptiveConcurrencyLimiterRegistry;
+import com.wss.bronze.gateway.core.resilience.AdaptiveThrottle;
+import com.wss.bronze.gateway.core.resilience.AdaptiveThrottleRegistry;
+import com.wss.bronze.gateway.core.resilience.Bulkhead;
+import com.wss.bronze.gateway.core.resilience.BulkheadRegistry;
 import com.wss.bronze.gateway.core.resilience.CircuitBreakerManager;
 import com.wss.bronze.gateway.core.resilience.FallbackHandler;
 import com.wss.bronze.gateway.core.resilience.ResilienceException;
+import com.wss.bronze.gateway.core.tracing.RequestTrace;
 import com.wss.bronze.gateway.core.utils.GwUtils;
-import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
@@ -15,15 +21,15 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.channel.pool.ChannelPoolHandler;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.annotation.DependsOn;
@@ -34,10 +40,12 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -53,7 +61,7 @@ public class HttpClient implements DisposableBean {
     // 定义通道属性键
     public static final AttributeKey<GatewayContext> GATEWAY_CONTEXT_KEY =
             AttributeKey.valueOf("gatewayContext");
-    public static final AttributeKey<FixedChannelPool> CHANNEL_POOL_KEY =
+    public static final AttributeKey<GatewayChannelPool> CHANNEL_POOL_KEY =
             AttributeKey.valueOf("channelPool");
 
     private final EventLoopGroup group;
@@ -62,7 +70,7 @@ public class HttpClient implements DisposableBean {
     private final long connectTimeoutMs;
     private final int maxRetries;
     // 连接池映射，按 host:port 维度缓存
-    private final Map<String, FixedChannelPool> channelPoolMap = new ConcurrentHashMap<>();
+    private final Map<String, GatewayChannelPool> channelPoolMap = new ConcurrentHashMap<>();
     // 每个主机的最大并发连接数（如果没有配置，使用合理默认值）
     private final int maxConnectionsPerHost;
     private final int maxPendingAcquires;
@@ -70,6 +78,16 @@ public class HttpClient implements DisposableBean {
     // URI缓存，避免重复解析
     private final Map<String, URI> uriCache = new ConcurrentHashMap<>();
 
+    // 异步DNS解析，未启用时为null
+    private final UpstreamDnsResolver dnsResolver;
+
+    // 按服务的舱壁隔离
+    private final BulkheadRegistry bulkheadRegistry;
+    // 按服务的自适应并发限制
+    private final AdaptiveConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+    // 按服务的客户端自适应节流
+    private final AdaptiveThrottleRegistry throttleRegistry;
+
     public HttpClient() {
         this.properties = ApplicationContextHolder.getBean(GatewayProperties.class);
         // 根据CPU核心数优化EventLoopGroup线程数
@@ -81,6 +99,10 @@ public class HttpClient implements DisposableBean {
         this.maxConnectionsPerHost = properties.getMaxConnectionsPerHost() > 0 ? properties.getMaxConnectionsPerHost() : 500;
         // 增加等待队列大小
         this.maxPendingAcquires = properties.getMaxPendingAcquires() > 0 ? properties.getMaxPendingAcquires() : 20000;
+        this.dnsResolver = properties.getDns().isEnabled() ? new UpstreamDnsResolver(group, properties.getDns()) : null;
+        this.bulkheadRegistry = new BulkheadRegistry(properties.getResilience().getBulkhead());
+        this.concurrencyLimiterRegistry = new AdaptiveConcurrencyLimiterRegistry(properties.getResilience().getAdaptiveLimit());
+        this.throttleRegistry = new AdaptiveThrottleRegistry(properties.getResilience().getAdaptiveThrottle());
 
         // 新增内存分配优化配置
         System.setProperty("io.netty.allocator.numHeapArenas", "64");
@@ -99,6 +121,18 @@ public class HttpClient implements DisposableBean {
                         String serviceId, CircuitBreakerManager circuitBreakerManager,
                         FallbackHandler fallbackHandler) {
         try {
+            String rejectReason = isThrottled(context, serviceId) ? "Adaptively throttled"
+                    : !tryEnterBulkhead(context, serviceId) ? "Bulkhead full"
+                    : !tryEnterConcurrencyLimit(context, serviceId) ? "Concurrency limit exceeded" : null;
+            if (rejectReason != null) {
+                // 不占用熔断器许可，也不进入连接池等待队列
+                if (resilienceFlag && fallbackHandler != null) {
+                    fallbackHandler.handleFallback(context, serviceId, rejectReason);
+                } else {
+                    GwUtils.sendResponse(context, HttpResponseStatus.SERVICE_UNAVAILABLE, "Service busy");
+                }
+                return;
+            }
             if (resilienceFlag && circuitBreakerManager != null) {
                 executeWithCircuitBreaker(context, url, serviceId, circuitBreakerManager, fallbackHandler);
             } else {
@@ -110,27 +144,84 @@ public class HttpClient implements DisposableBean {
         }
     }
 
+    /**
+     * 后端近期大量拒绝请求时按比例在本地拒绝；放行的请求在后端调用结束时记录结果
+     */
+    private boolean isThrottled(GatewayContext context, String serviceId) {
+        AdaptiveThrottle throttle = throttleRegistry.get(serviceId);
+        if (throttle == null) {
+            return false;
+        }
+        if (throttle.shouldThrottle()) {
+            log.debug("Request to service {} throttled locally, rejectProbability={}",
+                    serviceId, throttle.getRejectProbability());
+            return true;
+        }
+        context.holdThrottle(throttle);
+        return false;
+    }
+
+    public AdaptiveThrottleRegistry getThrottleRegistry() {
+        return throttleRegistry;
+    }
+
+    /**
+     * 占用服务的舱壁名额，名额在最终响应写出时由GatewayContext释放
+     * @return 舱壁已满时返回false
+     */
+    private boolean tryEnterBulkhead(GatewayContext context, String serviceId) {
+        Bulkhead bulkhead = bulkheadRegistry.get(serviceId);
+        if (bulkhead == null) {
+            return true;
+        }
+        if (!bulkhead.tryAcquire()) {
+            log.debug("Bulkhead full for service: {}, inFlight={}", serviceId, bulkhead.getInFlight());
+            return false;
+        }
+        context.holdBulkhead(bulkhead);
+        return true;
+    }
+
+    /**
+     * 占用服务的自适应并发限制名额，后端调用结束时由GatewayContext记录RTT并释放
+     * @return 超出当前并发限制时返回false
+     */
+    private boolean tryEnterConcurrencyLimit(GatewayContext context, String serviceId) {
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiterRegistry.get(serviceId);
+        if (limiter == null) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            log.debug("Concurrency limit exceeded for service: {}, limit={}", serviceId, limiter.getLimit());
+            return false;
+        }
+        context.holdConcurrencyLimit(limiter);
+        return true;
+    }
+
+    public AdaptiveConcurrencyLimiterRegistry getConcurrencyLimiterRegistry() {
+        return concurrencyLimiterRegistry;
+    }
+
+    public BulkheadRegistry getBulkheadRegistry() {
+        return bulkheadRegistry;
+    }
+
     /**
      * 使用熔断器执行请求
+     * 转发是异步的，这里只获取许可；调用结果（含真实耗时）在后端响应、超时或连接失败时由GatewayContext记录
      */
     private void executeWithCircuitBreaker(GatewayContext context, String url,
                                            String serviceId, CircuitBreakerManager circuitBreakerManager,
                                            FallbackHandler fallbackHandler) {
         CircuitBreaker circuitBreaker = circuitBreakerManager.getCircuitBreaker(serviceId);
-
-        try {
-            Supplier<Void> supplier = CircuitBreaker.decorateSupplier(circuitBreaker, () -> {
-                executeRequest(context, url, 0, true, circuitBreaker, fallbackHandler, serviceId);
-                return null;
-            });
-            supplier.get();
-        } catch (CallNotPermittedException e) {
-            log.warn("Circuit breaker is open for service: {}", serviceId);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.debug("Circuit breaker is open for service: {}", serviceId);
             fallbackHandler.handleFallback(context, serviceId, "Call not permitted by circuit breaker");
-        } catch (Exception e) {
-            log.error("Service call failed for service: {}", serviceId, e);
-            fallbackHandler.handleFallback(context, serviceId, "Service call failed: " + e.getMessage());
+            return;
         }
+        context.startUpstreamCall(circuitBreaker);
+        executeRequest(context, url, 0, true, circuitBreaker, fallbackHandler, serviceId);
     }
 
     /**
@@ -142,9 +233,14 @@ public class HttpClient implements DisposableBean {
             String host = uri.getHost();
             int port = getPort(uri);
 
-            // 从连接池获取连接
-            FixedChannelPool pool = getOrCreatePool(host, port);
-            pool.acquire().addListener((FutureListener<Channel>) acquireFuture -> {
+            // 从连接池获取连接，等待队列按请求截止时间与优先级排序
+            GatewayChannelPool pool = getOrCreatePool(host, port);
+            RequestTrace trace = context.getTrace();
+            long acquireStartNanos = trace != null ? System.nanoTime() : 0;
+            pool.acquire(getDeadlineNanos(context), context.getPriority()).addListener((FutureListener<Channel>) acquireFuture -> {
+                if (trace != null) {
+                    trace.span("pool.acquire", acquireStartNanos, System.nanoTime(), acquireFuture.cause());
+                }
                 if (!acquireFuture.isSuccess()) {
                     //连接失败
                     log.error("Failed to acquire channel from pool for {}:{}", host, port, acquireFuture.cause());
@@ -183,34 +279,36 @@ public class HttpClient implements DisposableBean {
         }
     }
 
-    private void doResilienceNum(GatewayContext context, CircuitBreaker circuitBreaker, FallbackHandler fallbackHandler, String serviceId, String msg) {
-        try {
-            // 执行HTTP调用，让熔断器自动处理权限检查和状态管理
-            Supplier<Void> supplier = CircuitBreaker.decorateSupplier(
-                    circuitBreaker, () -> {
-                        throw new ResilienceException(msg);
-                    }
-            );
-            supplier.get();
-        } catch (CallNotPermittedException e) {
-            log.warn("CircuitBreakerDecorator Circuit breaker is open for service: {}", serviceId);
-            fallbackHandler.handleFallback(context, serviceId, "Call not permitted by circuit breaker");
-        } catch (Exception e) {
-            log.error("CircuitBreakerDecorator Service call failed for service: {}", serviceId, e);
-            fallbackHandler.handleFallback(context, serviceId, "Service call failed: " + e.getMessage());
-        }
+    /**
+     * 后端调用最终失败：记录熔断器结果后降级
+     */
+    private void failUpstreamCall(GatewayContext context, FallbackHandler fallbackHandler, String serviceId,
+                                  String msg, Throwable error) {
+        context.completeUpstreamCall(error);
+        fallbackHandler.handleFallback(context, serviceId, msg);
     }
 
     /**
      * 处理请求错误，支持重试
      */
     private void handleRequestError(GatewayContext context, String url, int retryCount, boolean resilienceFlag, CircuitBreaker circuitBreaker, FallbackHandler fallbackHandler, String serviceId, Throwable error) {
+        if (error instanceof AcquireRejectedException) {
+            // 网关自身过载拒绝，请求未到达后端，不计入熔断器；重试只会加重过载，直接降级或拒绝
+            context.abandonUpstreamCall();
+            if (!resilienceFlag) {
+                GwUtils.sendResponse(context, ((AcquireRejectedException) error).getStatus(), error.getMessage());
+            } else {
+                fallbackHandler.handleFallback(context, serviceId, "Gateway overloaded: " + error.getMessage());
+            }
+            return;
+        }
         if (maxRetries <= 0) {
             if (!resilienceFlag) {
+                context.completeUpstreamCall(error);
                 GwUtils.sendResponse(context, HttpResponseStatus.BAD_GATEWAY,
                         "Service unavailable: " + error.getMessage());
             } else {
-                doResilienceNum(context, circuitBreaker, fallbackHandler, serviceId, "Service unavailable: " + error.getMessage());
+                failUpstreamCall(context, fallbackHandler, serviceId, "Service unavailable: " + error.getMessage(), error);
             }
             return;
         }
@@ -225,43 +323,55 @@ public class HttpClient implements DisposableBean {
         } else {
             log.error("Max retries exceeded for request to: {}", url);
             if (!resilienceFlag) {
+                context.completeUpstreamCall(error);
                 GwUtils.sendResponse(context, HttpResponseStatus.BAD_GATEWAY,
                         "Service unavailable after " + maxRetries + " retries: " + error.getMessage());
             } else {
-                doResilienceNum(context, circuitBreaker, fallbackHandler, serviceId, "Service unavailable after " + maxRetries + " retries: " + error.getMessage());
+                failUpstreamCall(context, fallbackHandler, serviceId,
+                        "Service unavailable after " + maxRetries + " retries: " + error.getMessage(), error);
             }
         }
     }
 
     /**
      * 发送HTTP请求
+     * 响应超时按请求截止时间计算，每个请求一个定时器，后端响应后由HttpClientHandler取消
      */
     private void sendRequest(Channel channel, GatewayContext context, String url, URI uri) {
         try {
             FullHttpRequest request = buildRequest(context, url, uri);
 
+            // 设置响应超时，只有连接上仍是当前请求时才超时处理；超时后响应可能迟到，关闭连接不再复用
+            long timeoutNanos = Math.max(0L, getDeadlineNanos(context) - System.nanoTime());
+            ScheduledFuture<?> timeoutFuture = channel.eventLoop().schedule(() -> {
+                if (channel.attr(GATEWAY_CONTEXT_KEY).compareAndSet(context, null)) {
+                    log.warn("Request timeout for: {}", url);
+                    context.completeUpstreamCall(new ResilienceException(HttpResponseStatus.GATEWAY_TIMEOUT,
+                            "Upstream response timeout"));
+                    if (!context.serveLastKnownGood()) {
+                        GwUtils.sendTimeoutError(context);
+                    }
+                    channel.close();
+                }
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+            channel.attr(HttpClientHandler.BACKEND_TIMEOUT_FUTURE_KEY).set(timeoutFuture);
+
             // 发送请求
+            context.markRequestSent();
             channel.writeAndFlush(request).addListener((ChannelFutureListener) writeFuture -> {
-                if (!writeFuture.isSuccess()) {
+                if (!writeFuture.isSuccess() && channel.attr(GATEWAY_CONTEXT_KEY).compareAndSet(context, null)) {
                     log.error("Failed to write request to backend: {}", url, writeFuture.cause());
+                    timeoutFuture.cancel(false);
+                    context.completeUpstreamCall(writeFuture.cause());
                     GwUtils.sendResponse(context, HttpResponseStatus.BAD_GATEWAY,
                             "Backend write failed: " + writeFuture.cause().getMessage());
-                    releaseChannel(channel);
+                    channel.close();
                 }
             });
 
-            // 设置响应超时
-            channel.eventLoop().schedule(() -> {
-                if (channel.isActive()) {
-                    log.warn("Request timeout for: {}", url);
-                    GwUtils.sendResponse(context, HttpResponseStatus.GATEWAY_TIMEOUT,
-                            "Request timeout");
-                    releaseChannel(channel);
-                }
-            }, properties.getBackendResponseTimeoutMs(), TimeUnit.MILLISECONDS);
-
         } catch (Exception e) {
             log.error("Error building or sending request to: {}", url, e);
+            context.abandonUpstreamCall();
             GwUtils.sendResponse(context, HttpResponseStatus.INTERNAL_SERVER_ERROR,
                     "Internal error: " + e.getMessage());
             releaseChannel(channel);
@@ -280,7 +390,7 @@ public class HttpClient implements DisposableBean {
             // 清理通道属性
             channel.attr(GATEWAY_CONTEXT_KEY).set(null);
 
-            FixedChannelPool pool = channel.attr(CHANNEL_POOL_KEY).getAndSet(null);
+            GatewayChannelPool pool = channel.attr(CHANNEL_POOL_KEY).getAndSet(null);
             if (pool != null && channel.isActive()) {
                 pool.release(channel);
             } else {
@@ -317,6 +427,11 @@ public class HttpClient implements DisposableBean {
         request.headers().set("X-Request-Timeout",
                 String.valueOf(properties.getBackendResponseTimeoutMs()));
 
+        // 采样的请求以后端调用span作为后端的父span；未采样时上游的traceparent随请求头原样转发
+        if (context.getTrace() != null) {
+            context.getTrace().injectUpstream(request.headers(), newUri);
+        }
+
         return request;
     }
 
@@ -361,7 +476,7 @@ public class HttpClient implements DisposableBean {
     /**
      * 创建或获取指定 host:port 的连接池
      */
-    private FixedChannelPool getOrCreatePool(String host, int port) {
+    private GatewayChannelPool getOrCreatePool(String host, int port) {
         String key = host + ":" + port;
         return channelPoolMap.computeIfAbsent(key, k -> {
             Bootstrap bootstrap = createBootstrap(host, port);
@@ -372,6 +487,8 @@ public class HttpClient implements DisposableBean {
             bootstrap.option(ChannelOption.SO_KEEPALIVE, true)
                     .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMs()); // 缩短连接超时
 //            bootstrap.option(ChannelOption.TCP_NODELAY, true);
+            ConnectionLifecyclePolicy lifecyclePolicy = new ConnectionLifecyclePolicy(
+                    properties.getPool().getHostPolicies().getOrDefault(key, properties.getPool().getConnectionPolicy()));
             ChannelPoolHandler poolHandler = new ChannelPoolHandler() {
                 @Override
                 public void channelReleased(Channel ch) {
@@ -386,7 +503,9 @@ public class HttpClient implements DisposableBean {
                     if (!ch.isActive()) {
                         log.warn("Acquired inactive channel, closing it");
                         ch.close();
+                        return;
                     }
+                    lifecyclePolicy.onAcquired(ch);
                 }
 
                 @Override
@@ -394,10 +513,10 @@ public class HttpClient implements DisposableBean {
                     SocketChannel sc = (SocketChannel) ch;
                     HttpClientHandler httpClientHandler = new HttpClientHandler();
                     httpClientHandler.setCLIENT_WRITE_TIMEOUT_MS(properties.getClientWriteTimeoutMs());
-                    httpClientHandler.setBACKEND_RESPONSE_TIMEOUT_MS(properties.getBackendResponseTimeoutMs());
+                    lifecyclePolicy.onCreated(ch);
 
                     sc.pipeline()
-                            .addLast(new HttpClientIdleStateHandler())
+                            .addLast(new HttpClientIdleStateHandler(lifecyclePolicy.getIdleTimeoutMs()))
                             .addLast(new HttpClientCodec())
                             .addLast(new HttpObjectAggregator(properties.getMaxContentLength()))
                             .addLast(httpClientHandler);
@@ -405,7 +524,7 @@ public class HttpClient implements DisposableBean {
                     // 添加连接关闭监听器，确保连接被正确释放
                     ch.closeFuture().addListener((ChannelFutureListener) cf -> {
                         try {
-                            FixedChannelPool pool = ch.attr(CHANNEL_POOL_KEY).get();
+                            GatewayChannelPool pool = ch.attr(CHANNEL_POOL_KEY).get();
                             if (pool != null) {
                                 pool.release(ch);
                             }
@@ -415,26 +534,38 @@ public class HttpClient implements DisposableBean {
                     });
                 }
             };
-            return new FixedChannelPool(
+            GatewayChannelPool pool = new GatewayChannelPool(
                     bootstrap,
                     poolHandler,
-                    ChannelHealthChecker.ACTIVE,
-                    FixedChannelPool.AcquireTimeoutAction.NEW,
-                    connectTimeoutMs,
+                    // 健康检查同时执行连接生命周期策略，到期连接在获取和归还时被回收
+                    lifecyclePolicy,
+                    key,
                     maxConnectionsPerHost,
                     maxPendingAcquires,
-                    true,
-                    //关闭公平锁，提升并发性能
-                    false
+                    connectTimeoutMs,
+                    properties.getPool()
             );
+            if (dnsResolver != null) {
+                // 地址变化后，指向旧地址的空闲连接立即回收，使用中的连接在归还时回收
+                dnsResolver.watch(host, addresses -> {
+                    lifecyclePolicy.setActiveAddresses(addresses);
+                    pool.evictIdle(lifecyclePolicy::shouldRetire);
+                });
+            }
+            return pool;
         });
     }
 
     /**
      * 创建Bootstrap（不再在此处附加业务处理器，由连接池处理器完成）
+     * 启用异步DNS时使用未解析地址，每次建连由解析器在事件循环中异步解析
      */
     private Bootstrap createBootstrap(String host, int port) {
-        return new Bootstrap()
+        Bootstrap bootstrap = new Bootstrap();
+        if (dnsResolver != null) {
+            bootstrap.resolver(dnsResolver.resolverGroup());
+        }
+        return bootstrap
                 .group(group)
                 .channel(NioSocketChannel.class)
                 .option(ChannelOption.SO_KEEPALIVE, true)
@@ -444,7 +575,19 @@ public class HttpClient implements DisposableBean {
                 .option(ChannelOption.SO_LINGER, 0)
                 .option(ChannelOption.SO_RCVBUF, 65536)
                 .option(ChannelOption.SO_SNDBUF, 65536)
-                .remoteAddress(new InetSocketAddress(host, port));
+                .remoteAddress(dnsResolver != null
+                        ? InetSocketAddress.createUnresolved(host, port)
+                        : new InetSocketAddress(host, port));
+    }
+
+    /**
+     * 获取请求截止时间，未显式设置时按后端响应超时计算
+     */
+    private long getDeadlineNanos(GatewayContext context) {
+        if (context.getDeadlineNanos() != 0L) {
+            return context.getDeadlineNanos();
+        }
+        return context.getStartNanos() + TimeUnit.MILLISECONDS.toNanos(properties.getBackendResponseTimeoutMs());
     }
 
     /**
@@ -463,6 +606,7 @@ public class HttpClient implements DisposableBean {
      */
     private void handleError(GatewayContext context, Exception e, boolean resilienceFlag,
                              String serviceId, FallbackHandler fallbackHandler) {
+        context.abandonUpstreamCall();
         if (resilienceFlag && fallbackHandler != null) {
             fallbackHandler.handleFallback(context, serviceId, "Request failed: " + e.getMessage());
         } else {
@@ -471,15 +615,107 @@ public class HttpClient implements DisposableBean {
         }
     }
 
+    /**
+     * 连接池预热：在网关开始接收请求前，为每个实例所在主机建立最小连接数
+     * 预热失败或超时只记录日志，不影响网关启动
+     */
+    public void prewarm(List<GatewayProperties.RouteDefinition> routes) {
+        int minConnections = properties.getPool().getMinConnectionsPerHost();
+        if (minConnections <= 0 || routes == null || routes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Future<Void>> prewarmFutures = new LinkedHashMap<>();
+        for (GatewayProperties.RouteDefinition route : routes) {
+            for (GatewayProperties.Instance instance : route.getInstances()) {
+                try {
+                    URI uri = getCachedURI(instance.getUrl());
+                    String host = uri.getHost();
+                    int port = getPort(uri);
+                    prewarmFutures.computeIfAbsent(host + ":" + port,
+                            k -> getOrCreatePool(host, port).prewarm(minConnections));
+                } catch (Exception e) {
+                    log.warn("Skip prewarm for instance {}: {}", instance.getServiceId(), e.getMessage());
+                }
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getPool().getPrewarmTimeoutMs());
+        for (Map.Entry<String, Future<Void>> entry : prewarmFutures.entrySet()) {
+            long remainingNanos = Math.max(0L, deadline - System.nanoTime());
+            Future<Void> future = entry.getValue();
+            if (!future.awaitUninterruptibly(remainingNanos, TimeUnit.NANOSECONDS)) {
+                log.warn("Prewarm timed out for pool {}", entry.getKey());
+            } else if (!future.isSuccess()) {
+                log.warn("Prewarm incomplete for pool {}: {}", entry.getKey(), future.cause().getMessage());
+            }
+        }
+        log.info("Connection pools prewarmed: {} hosts, {} connections per host", prewarmFutures.size(), minConnections);
+    }
+
+    /**
+     * 各连接池中等待获取连接数占maxPendingAcquires比例的最大值，用于过载检测
+     */
+    public double getPendingAcquireRatio() {
+        int maxPending = 0;
+        for (GatewayChannelPool pool : channelPoolMap.values()) {
+            maxPending = Math.max(maxPending, pool.pendingAcquireCount());
+        }
+        return (double) maxPending / maxPendingAcquires;
+    }
+
+    /**
+     * 后端连接使用的事件循环
+     */
+    public EventLoopGroup getEventLoopGroup() {
+        return group;
+    }
+
+    /**
+     * 各后端地址的连接池（只读视图）
+     */
+    public Map<String, GatewayChannelPool> getChannelPools() {
+        return Collections.unmodifiableMap(channelPoolMap);
+    }
+
     /**
      * 获取连接池状态信息
      */
     public void logPoolStatus() {
-        for (Map.Entry<String, FixedChannelPool> entry : channelPoolMap.entrySet()) {
-            FixedChannelPool pool = entry.getValue();
-            log.info("Pool {}: acquired={}",
+        for (Map.Entry<String, GatewayChannelPool> entry : channelPoolMap.entrySet()) {
+            GatewayChannelPool pool = entry.getValue();
+            log.info("Pool {}: acquired={}, pending={}, limit={}, shed={}, acquireWait p50={}us p99={}us, queueDepth p99={}",
                     entry.getKey(),
-                    pool.acquiredChannelCount());
+                    pool.acquiredChannelCount(),
+                    pool.pendingAcquireCount(),
+                    pool.connectionLimit(),
+                    pool.shedCount(),
+                    pool.acquireWaitHistogram().getValueAtPercentile(50),
+                    pool.acquireWaitHistogram().getValueAtPercentile(99),
+                    pool.queueDepthHistogram().getValueAtPercentile(99));
+        }
+        for (Bulkhead bulkhead : bulkheadRegistry.getAll()) {
+            log.info("Bulkhead {}: inFlight={}, max={}, saturation={}, peak={}, rejected={}",
+                    bulkhead.getName(),
+                    bulkhead.getInFlight(),
+                    bulkhead.getMaxConcurrentCalls(),
+                    String.format("%.2f", bulkhead.getSaturation()),
+                    bulkhead.getPeakInFlight(),
+                    bulkhead.getRejectedCount());
+        }
+        for (AdaptiveThrottle throttle : throttleRegistry.getAll()) {
+            log.info("Adaptive throttle {}: rejectProbability={}, throttled={}",
+                    throttle.getName(),
+                    String.format("%.3f", throttle.getRejectProbability()),
+                    throttle.getThrottledCount());
+        }
+        for (AdaptiveConcurrencyLimiter limiter : concurrencyLimiterRegistry.getAll()) {
+            log.info("Concurrency limit {}: limit={}, inFlight={}, baselineRtt={}us, rejected={}",
+                    limiter.getName(),
+                    limiter.getLimit(),
+                    limiter.getInFlight(),
+                    limiter.getBaselineRttMicros(),
+                    limiter.getRejectedCount());
         }
     }
 
@@ -499,6 +735,10 @@ public class HttpClient implements DisposableBean {
         });
         channelPoolMap.clear();
 
+        if (dnsResolver != null) {
+            dnsResolver.close();
+        }
+
         // 清理URI缓存
 //        uriCache.clear();
 
@@ -1,12 +1,14 @@
 package com.wss.bronze.gateway.core.client;
 
 import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.filter.ResponseFilterChain;
+import com.wss.bronze.gateway.core.resilience.ResilienceException;
 import com.wss.bronze.gateway.core.utils.GwUtils;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.ScheduledFuture;
@@ -29,33 +31,14 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
 
-    private long BACKEND_RESPONSE_TIMEOUT_MS = 5000L;
     private long CLIENT_WRITE_TIMEOUT_MS = 5000L;
 
-    private static final AttributeKey<ScheduledFuture<?>> BACKEND_TIMEOUT_FUTURE_KEY =
+    // 当前请求的后端响应超时定时器，由HttpClient.sendRequest设置
+    static final AttributeKey<ScheduledFuture<?>> BACKEND_TIMEOUT_FUTURE_KEY =
             AttributeKey.valueOf("backendTimeoutFuture");
     private static final AttributeKey<ScheduledFuture<?>> CLIENT_WRITE_TIMEOUT_FUTURE_KEY =
             AttributeKey.valueOf("clientWriteTimeoutFuture");
 
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        // 使用更高效的超时处理，避免创建不必要的定时任务
-        ScheduledFuture<?> timeoutFuture = ctx.executor().schedule(() -> {
-            GatewayContext gatewayContext = ctx.channel().attr(HttpClient.GATEWAY_CONTEXT_KEY).getAndSet(null);
-            if (gatewayContext != null) {
-                log.warn("Backend response timeout ({} ms)", BACKEND_RESPONSE_TIMEOUT_MS);
-                GwUtils.sendError(gatewayContext, "Upstream response timeout");
-                // 安全关闭客户端连接
-                safeCloseClientConnection(gatewayContext);
-            }
-            // 确保后端连接被关闭
-            ctx.close();
-        }, BACKEND_RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-
-        ctx.channel().attr(BACKEND_TIMEOUT_FUTURE_KEY).set(timeoutFuture);
-        super.channelActive(ctx);
-    }
-
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse backendResponse) throws Exception {
         // 获取并移除网关上下文，防止重复使用
@@ -71,12 +54,24 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpRespo
             return;
         }
 
+        // 记录熔断器与自适应节流结果，5xx视为后端失败，429/503视为后端拒绝
+        HttpResponseStatus status = backendResponse.status();
+        gatewayContext.recordUpstreamStatus(status);
+        gatewayContext.completeUpstreamCall(status.code() >= 500
+                ? new ResilienceException(status, "Upstream responded " + status.code()) : null);
+
         try {
             // 增加引用计数而不是复制，避免不必要的内存拷贝
             FullHttpResponse response = backendResponse.retain();
 
-            // 异步写回客户端并添加监听器处理连接释放
-            ChannelFuture writeFuture = gatewayContext.getCtx().writeAndFlush(response);
+            // 响应过滤器，默认只修改响应头，响应体不拷贝
+            ResponseFilterChain responseFilterChain = gatewayContext.getResponseFilterChain();
+            if (responseFilterChain != null) {
+                response = responseFilterChain.apply(gatewayContext, response);
+            }
+
+            // 异步写回客户端并添加监听器处理连接释放（写出前执行响应回调，如写入响应缓存）
+            ChannelFuture writeFuture = gatewayContext.writeResponse(response, false);
 
             // 添加写入超时保护
             addWriteTimeoutProtection(ctx, writeFuture);
@@ -113,6 +108,7 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpRespo
         // 获取网关上下文并发送错误响应
         GatewayContext gatewayContext = ctx.channel().attr(HttpClient.GATEWAY_CONTEXT_KEY).getAndSet(null);
         if (gatewayContext != null) {
+            gatewayContext.completeUpstreamCall(cause);
             GwUtils.sendError(gatewayContext, cause.getMessage());
             safeCloseClientConnection(gatewayContext);
         }
@@ -126,10 +122,12 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpRespo
         // 清理所有定时器，防止内存泄漏
         cleanupAllTimeouts(ctx);
 
-        // 确保网关上下文被清理
+        // 确保网关上下文被清理，后端在响应前断开时返回502，使等待合并响应的请求也能结束
         GatewayContext gatewayContext = ctx.channel().attr(HttpClient.GATEWAY_CONTEXT_KEY).getAndSet(null);
         if (gatewayContext != null) {
-            safeCloseClientConnection(gatewayContext);
+            gatewayContext.completeUpstreamCall(
+                    new ResilienceException(HttpResponseStatus.BAD_GATEWAY, "Upstream connection closed"));
+            GwUtils.sendResponse(gatewayContext, HttpResponseStatus.BAD_GATEWAY, "Upstream connection closed");
         }
 
         super.channelInactive(ctx);
@@ -177,6 +175,10 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpRespo
      */
     private void safeCloseClientConnection(GatewayContext gatewayContext) {
         try {
+            // 后台请求不持有客户端连接
+            if (gatewayContext.isDetached()) {
+                return;
+            }
             if (gatewayContext.getCtx() != null && gatewayContext.getCtx().channel().isActive()) {
                 gatewayContext.getCtx().close();
             }
@@ -191,7 +193,7 @@ public class HttpClientHandler extends SimpleChannelInboundHandler<FullHttpRespo
     private void releaseChannelToPool(ChannelHandlerContext ctx) {
         try {
             // 获取连接池并释放连接
-            FixedChannelPool pool = ctx.channel().attr(HttpClient.CHANNEL_POOL_KEY).getAndSet(null);
+            GatewayChannelPool pool = ctx.channel().attr(HttpClient.CHANNEL_POOL_KEY).getAndSet(null);
             if (pool != null && ctx.channel().isActive()) {
                 pool.release(ctx.channel());
             } else {
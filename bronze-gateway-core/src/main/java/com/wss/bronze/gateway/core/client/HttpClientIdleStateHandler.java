@@ -1,7 +1,5 @@
 package com.wss.bronze.gateway.core.client;
 
-import com.wss.bronze.gateway.core.GatewayContext;
-import com.wss.bronze.gateway.core.utils.GwUtils;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
@@ -12,35 +10,31 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * @author wss
- * 空闲状态检测处理器，用于处理连接超时
+ * 空闲状态检测处理器，用于回收池中的空闲连接
+ * 空闲超时应小于后端keep-alive超时，避免复用已被后端关闭的连接
  */
 @Slf4j
 public class HttpClientIdleStateHandler extends IdleStateHandler {
 
-    public HttpClientIdleStateHandler() {
-        // 30秒读写空闲检测
-        super(0, 0, 30, TimeUnit.SECONDS);
+    public HttpClientIdleStateHandler(long idleTimeoutMs) {
+        // 读写空闲检测
+        super(0, 0, idleTimeoutMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
     protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
         try {
             if (evt.state() == IdleState.ALL_IDLE) {
-                // 获取网关上下文
-                GatewayContext gatewayContext = ctx.channel().attr(HttpClient.GATEWAY_CONTEXT_KEY).get();
-
-                if (gatewayContext != null) {
-                    log.warn("Connection timeout to backend service");
-                    GwUtils.sendTimeoutError(gatewayContext);
+                // 请求进行中的连接由后端响应超时处理，这里只回收池中的空闲连接
+                if (ctx.channel().attr(HttpClient.GATEWAY_CONTEXT_KEY).get() != null) {
+                    return;
                 }
-
-                // 关闭连接
+                log.debug("Evicting idle backend connection {}", ctx.channel());
                 ctx.close();
             }
         } finally {
             // 确保其他处理器仍能收到 Idle 事件做各自清理
             ctx.fireUserEventTriggered(evt);
-            // 或者调用：super.channelIdle(ctx, evt);
         }
     }
 
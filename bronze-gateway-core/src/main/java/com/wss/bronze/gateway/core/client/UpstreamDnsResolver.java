@@ -0,0 +1,157 @@
+package com.wss.bronze.gateway.core.client;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.RoundRobinDnsAddressResolverGroup;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 后端主机异步DNS解析
+ * 1. 建连时在事件循环内异步解析，不阻塞线程，解析结果按记录TTL缓存
+ * 2. 同一主机的多个A/AAAA记录轮询使用
+ * 3. 后台按refreshIntervalMs重新解析已使用的主机（缓存未过期时直接命中缓存，因此实际刷新频率由TTL决定），
+ *    地址集合变化时通知监听者，由连接池回收指向旧地址的连接
+ * nameServers可指向本地的DNS桩服务，便于测试
+ *
+ * @author wss
+ */
+@Slf4j
+public class UpstreamDnsResolver {
+
+    private final DefaultDnsCache dnsCache;
+    private final AddressResolverGroup<InetSocketAddress> resolverGroup;
+    private final DnsNameResolver refreshResolver;
+    private final ScheduledFuture<?> refreshFuture;
+
+    // 被监听的主机 -> 最近一次解析到的地址
+    private final Map<String, WatchedHost> watchedHosts = new ConcurrentHashMap<>();
+
+    public UpstreamDnsResolver(EventLoopGroup group, GatewayProperties.Dns dnsConfig) {
+        this(group, dnsConfig, buildNameServerProvider(dnsConfig.getNameServers()));
+    }
+
+    public UpstreamDnsResolver(EventLoopGroup group, GatewayProperties.Dns dnsConfig,
+                               DnsServerAddressStreamProvider nameServerProvider) {
+        this.dnsCache = new DefaultDnsCache(dnsConfig.getMinTtlSeconds(), dnsConfig.getMaxTtlSeconds(),
+                dnsConfig.getNegativeTtlSeconds());
+        DnsNameResolverBuilder builder = new DnsNameResolverBuilder()
+                .channelType(NioDatagramChannel.class)
+                .nameServerProvider(nameServerProvider)
+                .resolveCache(dnsCache)
+                .queryTimeoutMillis(dnsConfig.getQueryTimeoutMs());
+        this.resolverGroup = new RoundRobinDnsAddressResolverGroup(builder);
+        EventLoop refreshLoop = group.next();
+        this.refreshResolver = builder.copy().eventLoop(refreshLoop).build();
+
+        long interval = Math.max(dnsConfig.getRefreshIntervalMs(), 1000L);
+        this.refreshFuture = refreshLoop.scheduleWithFixedDelay(this::refreshAll,
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static DnsServerAddressStreamProvider buildNameServerProvider(List<String> nameServers) {
+        if (nameServers == null || nameServers.isEmpty()) {
+            return DnsServerAddressStreamProviders.platformDefault();
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>(nameServers.size());
+        for (String nameServer : nameServers) {
+            int idx = nameServer.lastIndexOf(':');
+            if (idx > 0 && nameServer.indexOf(':') == idx) {
+                addresses.add(new InetSocketAddress(nameServer.substring(0, idx), Integer.parseInt(nameServer.substring(idx + 1))));
+            } else {
+                addresses.add(new InetSocketAddress(nameServer, 53));
+            }
+        }
+        return new SequentialDnsServerAddressStreamProvider(addresses);
+    }
+
+    /**
+     * 供Bootstrap使用的解析器组
+     */
+    public AddressResolverGroup<InetSocketAddress> resolverGroup() {
+        return resolverGroup;
+    }
+
+    /**
+     * 监听主机的地址变化，IP字面量无需监听
+     * @param host 主机名
+     * @param listener 地址集合变化时回调（在DNS事件循环中执行）
+     */
+    public void watch(String host, Consumer<Set<InetAddress>> listener) {
+        if (NetUtil.isValidIpV4Address(host) || NetUtil.isValidIpV6Address(host)) {
+            return;
+        }
+        watchedHosts.computeIfAbsent(host, WatchedHost::new).listeners.add(listener);
+    }
+
+    private void refreshAll() {
+        for (WatchedHost watchedHost : watchedHosts.values()) {
+            refreshResolver.resolveAll(watchedHost.host).addListener((FutureListener<List<InetAddress>>) future -> {
+                if (!future.isSuccess()) {
+                    // 解析失败时保留旧地址，不回收连接
+                    log.warn("DNS refresh failed for {}: {}", watchedHost.host, future.cause().getMessage());
+                    return;
+                }
+                watchedHost.update(new HashSet<>(future.getNow()));
+            });
+        }
+    }
+
+    public void close() {
+        refreshFuture.cancel(false);
+        refreshResolver.close();
+        resolverGroup.close();
+        dnsCache.clear();
+    }
+
+    /**
+     * 被监听的主机
+     */
+    private static final class WatchedHost {
+        private final String host;
+        private final List<Consumer<Set<InetAddress>>> listeners = new CopyOnWriteArrayList<>();
+        private Set<InetAddress> addresses;
+
+        private WatchedHost(String host) {
+            this.host = host;
+        }
+
+        private void update(Set<InetAddress> newAddresses) {
+            if (newAddresses.equals(addresses)) {
+                return;
+            }
+            Set<InetAddress> previous = addresses;
+            addresses = Collections.unmodifiableSet(newAddresses);
+            if (previous != null) {
+                log.info("DNS addresses changed for {}: {} -> {}", host, previous, newAddresses);
+            }
+            for (Consumer<Set<InetAddress>> listener : listeners) {
+                listener.accept(addresses);
+            }
+        }
+    }
+}
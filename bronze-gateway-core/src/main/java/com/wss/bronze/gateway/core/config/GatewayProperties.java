@@ -1,6 +1,7 @@
 package com.wss.bronze.gateway.core.config;
 
 import com.wss.bronze.gateway.core.enums.LoadBalancerTypeEnums;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -48,8 +49,23 @@ public class GatewayProperties {
     private int cpuMaxThreadCount = 64;
 
     private Resilience resilience = new Resilience();
+    private Pool pool = new Pool();
+    private Dns dns = new Dns();
+    private Cache cache = new Cache();
+    private LastKnownGood lastKnownGood = new LastKnownGood();
+    private FilterExecutor filterExecutor = new FilterExecutor();
+    private ClusterRateLimit clusterRateLimit = new ClusterRateLimit();
+    private LoadShedding loadShedding = new LoadShedding();
+    private Admin admin = new Admin();
+    private EventLoopMonitoring eventLoopMonitoring = new EventLoopMonitoring();
+    private Tracing tracing = new Tracing();
+    private AccessLog accessLog = new AccessLog();
+    // 受信任的反向代理（CIDR），只有来自这些地址的连接才使用X-Forwarded-For确定客户端IP
+    private List<String> trustedProxies = new ArrayList<>();
     private List<RouteDefinition> routes = new ArrayList<>();
     private List<FilterDefinition> filters = new ArrayList<>();
+    //全局响应过滤器，名称与ResponseFilter的bean名称匹配
+    private List<FilterDefinition> responseFilters = new ArrayList<>();
 
     @Data
     public static class RouteDefinition {
@@ -59,12 +75,22 @@ public class GatewayProperties {
         private String path;
         //负载均衡类型 roundRobinLoadBalancer轮询 / WeightedLoadBalancer权重
         private String loadBalancerType = LoadBalancerTypeEnums.ROUND_ROBIN.getKey();
+        //请求优先级，连接池等待时高优先级先获取连接
+        private RequestPriority priority = RequestPriority.NORMAL;
+        //响应缓存配置，默认不缓存
+        private RouteCache cache = new RouteCache();
+        //相同的并发GET/HEAD请求合并为一次后端调用
+        private boolean coalescing = false;
+        //后端失败时返回最近一次成功响应，默认关闭
+        private RouteLastKnownGood lastKnownGood = new RouteLastKnownGood();
 
         //灰度发布配置
         private GrayReleaseConfig grayReleaseConfig = null;
 
         //过滤器
         private List<FilterDefinition> filters = new ArrayList<>();
+        //响应过滤器，与全局响应过滤器同名时覆盖全局配置
+        private List<FilterDefinition> responseFilters = new ArrayList<>();
         //服务实例
         private List<Instance> instances = new ArrayList<>();
     }
@@ -85,7 +111,8 @@ public class GatewayProperties {
         private String url;
         //权重，目前系统默认轮询策略
         private int weight = 1;
-        private boolean healthy = true;
+        // false表示实例已摘除（drain），不再分配新请求，可通过管理端口修改
+        private volatile boolean healthy = true;
         // 是否为灰度实例
         private Boolean gray = false;
     }
@@ -162,6 +189,313 @@ public class GatewayProperties {
         private int minimumNumberOfCalls = 10;
         // 滑动窗口大小
         private int slidingWindowSize = 5;
+        // 舱壁隔离配置
+        private BulkheadConfig bulkhead = new BulkheadConfig();
+
+        /**
+         * 舱壁隔离：按服务限制同时在途的后端请求数，防止单个慢服务占满连接与等待队列
+         */
+        @Data
+        public static class BulkheadConfig {
+            private boolean enabled = false;
+            // 每个服务默认的最大在途请求数，小于等于0表示不限制
+            private int maxConcurrentCalls = 200;
+            // 按服务覆盖的最大在途请求数，key为serviceId
+            private Map<String, Integer> services = new HashMap<>();
+        }
+
+        // 自适应并发限制配置
+        private AdaptiveLimitConfig adaptiveLimit = new AdaptiveLimitConfig();
+
+        /**
+         * 自适应并发限制：按服务根据后端RTT估算并发上限，超出的请求直接返回503或走降级处理
+         */
+        @Data
+        public static class AdaptiveLimitConfig {
+            private boolean enabled = false;
+            // 初始并发限制
+            private int initialLimit = 20;
+            private int minLimit = 5;
+            private int maxLimit = 1000;
+            // 新限制的平滑系数，越大调整越快
+            private double smoothing = 0.2;
+            // 窗口RTT超过基准RTT该倍数时才开始收缩限制
+            private double rttTolerance = 1.5;
+            // 出现超时、连接失败或后端过载时的乘性减小系数
+            private double backoffRatio = 0.9;
+            // 每隔多少个窗口重新探测基准RTT，探测窗口内并发限制临时降到minLimit
+            private int probeIntervalWindows = 300;
+            // 采样窗口时长
+            private long windowMs = 200L;
+            // 窗口内最少样本数，样本不足时延长窗口
+            private int minWindowSamples = 10;
+        }
+
+        // 客户端自适应节流配置
+        private AdaptiveThrottleConfig adaptiveThrottle = new AdaptiveThrottleConfig();
+
+        /**
+         * 客户端自适应节流：后端大量返回429/503或超时时，按比例在本地拒绝请求
+         */
+        @Data
+        public static class AdaptiveThrottleConfig {
+            private boolean enabled = false;
+            // 倍数k，越小越早开始节流，Google SRE建议2
+            private double k = 2.0;
+            // 统计窗口
+            private int windowSeconds = 60;
+            // 最大本地拒绝概率，保留部分请求探测后端是否恢复
+            private double maxRejectProbability = 0.9;
+        }
+    }
+
+    /**
+     * 后端连接池配置
+     */
+    @Data
+    public static class Pool {
+        // 每个主机的最小连接数，启动时按该值预热，0表示不预热
+        private int minConnectionsPerHost = 0;
+        // 预热最长等待时间，超时后网关照常启动
+        private long prewarmTimeoutMs = 10000L;
+        // 是否开启自适应连接数，关闭时连接上限固定为maxConnectionsPerHost
+        private boolean adaptiveEnabled = false;
+        // 自适应调整周期
+        private long adaptiveIntervalMs = 1000L;
+        // 周期内平均获取连接等待时间超过该值时扩容
+        private long acquireWaitThresholdMs = 5L;
+        // 连接利用率高于该值且有等待者时扩容
+        private double highUtilization = 0.8;
+        // 连接利用率低于该值时缩容
+        private double lowUtilization = 0.3;
+        // 等待获取连接的请求数超过该值时切换为后进先出，0表示始终按截止时间先后分配
+        private int lifoThreshold = 0;
+        // 默认连接生命周期策略
+        private ConnectionPolicy connectionPolicy = new ConnectionPolicy();
+        // 按主机覆盖的连接生命周期策略，key为host:port
+        private Map<String, ConnectionPolicy> hostPolicies = new HashMap<>();
+    }
+
+    /**
+     * 后端主机DNS解析配置
+     */
+    @Data
+    public static class Dns {
+        // 是否使用异步DNS解析，默认关闭，使用JDK同步解析且不刷新
+        private boolean enabled = false;
+        // DNS服务器列表，格式 ip:port，为空时使用系统配置
+        private List<String> nameServers = new ArrayList<>();
+        // 缓存TTL下限（秒），默认遵循DNS记录TTL
+        private int minTtlSeconds = 0;
+        // 缓存TTL上限（秒）
+        private int maxTtlSeconds = Integer.MAX_VALUE;
+        // 解析失败结果缓存时间（秒）
+        private int negativeTtlSeconds = 5;
+        // 后台刷新周期，地址变化后回收指向旧地址的连接
+        private long refreshIntervalMs = 5000L;
+        // 单次查询超时
+        private long queryTimeoutMs = 2000L;
+    }
+
+    /**
+     * 响应缓存全局配置
+     */
+    @Data
+    public static class Cache {
+        // 缓存占用的堆外内存上限（字节）
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+        // 预估缓存条目数，用于访问频率统计的容量
+        private int expectedEntries = 10000;
+    }
+
+    /**
+     * 最近成功响应存储配置
+     */
+    @Data
+    public static class LastKnownGood {
+        // 存储占用的堆外内存上限（字节），超出时淘汰最早写入的条目
+        private long maxMemoryBytes = 32L * 1024 * 1024;
+        // 同一key的响应在该时间内不重复拷贝，降低成功路径的开销
+        private long minRefreshMs = 1000L;
+    }
+
+    /**
+     * 阻塞过滤器线程池配置
+     */
+    @Data
+    public static class FilterExecutor {
+        // 平台线程数（未使用虚拟线程时）
+        private int threads = 64;
+        // 同时执行与排队的阻塞过滤器调用上限，超过时直接返回503
+        private int maxPending = 10000;
+        // Java 21+ 时使用虚拟线程
+        private boolean virtualThreads = true;
+        // 单个异步/阻塞过滤器的最长执行时间（含排队），超时返回504，0表示不限制
+        private long stageTimeoutMs = 5000L;
+    }
+
+    /**
+     * 集群限流同步配置，节点间通过UDP交换各限流key的用量增量
+     */
+    @Data
+    public static class ClusterRateLimit {
+        private boolean enabled = false;
+        // 默认只监听本机，跨主机同步时需要改为内网地址并设置secret
+        private String bindHost = "127.0.0.1";
+        private int port = 7946;
+        // 其他网关节点的同步地址 host:port，可包含本节点（按节点ID忽略自己的消息）
+        private List<String> peers = new ArrayList<>();
+        // 同步间隔，越短集群总量越接近配额
+        private long syncIntervalMs = 100;
+        // 单个UDP包的最大字节数，避免IP分片
+        private int maxPacketBytes = 1400;
+        // 共享密钥，设置后消息使用HMAC-SHA256签名，签名错误的消息丢弃；监听非回环地址时必须设置
+        private String secret;
+        // 允许的节点间时钟偏差，发送时间超出该范围的消息视为重放丢弃
+        private long maxClockSkewMs = 5000;
+    }
+
+    /**
+     * 过载时按优先级降级配置
+     * 事件循环延迟、连接池等待队列占比、直接内存占比中任一超过阈值即视为过载，
+     * 压力为阈值的1倍/1.5倍/2倍时依次拒绝LOW/NORMAL/HIGH请求，CRITICAL请求不会被拒绝
+     */
+    @Data
+    public static class LoadShedding {
+        private boolean enabled = false;
+        // 过载检测间隔
+        private long sampleIntervalMs = 20;
+        // worker事件循环调度延迟阈值
+        private long eventLoopLagThresholdMs = 50;
+        // 连接池等待获取连接数占maxPendingAcquires的比例阈值
+        private double pendingAcquireThreshold = 0.5;
+        // 直接内存使用比例阈值
+        private double directMemoryThreshold = 0.85;
+        // 压力下降后每降低一级需要持续的时间，防止频繁切换
+        private long cooldownMs = 1000;
+        // 请求可通过该请求头降低自身优先级（如埋点上报标记为LOW），不能提高，为空时不使用
+        private String priorityHeader = "X-Request-Priority";
+        // apiKey所在请求头
+        private String apiKeyHeader = "X-API-Key";
+        // 按apiKey指定优先级，覆盖路由优先级
+        private Map<String, RequestPriority> apiKeyPriorities = new HashMap<>();
+    }
+
+    /**
+     * 事件循环监控：周期性向每个boss/worker/后端客户端事件循环提交空任务，测量调度延迟；
+     * 事件循环被阻塞超过阈值时采样该线程的调用栈（全局限频），定位阻塞事件循环的过滤器或路由
+     * 启用过载保护（loadShedding）时总是检测worker事件循环
+     */
+    @Data
+    public static class EventLoopMonitoring {
+        private boolean enabled = true;
+        // 探测间隔
+        private long sampleIntervalMs = 20;
+        // 调度延迟超过该值视为阻塞
+        private long blockedThresholdMs = 200;
+        // 两次调用栈采样的最小间隔，所有事件循环共用
+        private long stackSampleIntervalMs = 10000;
+        // 调用栈最大输出帧数
+        private int stackDepth = 40;
+    }
+
+    /**
+     * 链路追踪：W3C traceparent/tracestate，请求进入时头部采样，采样的请求记录网关各阶段span并批量导出
+     */
+    @Data
+    public static class Tracing {
+        private boolean enabled = false;
+        // 网关作为链路起点时的采样比例
+        private double sampleRatio = 0.01;
+        // 上游已做采样决定时沿用上游traceparent的sampled标志
+        private boolean parentBased = true;
+        // 每秒最多采样的请求数，对沿用上游决定的请求同样生效，0表示不限制
+        private int maxTracesPerSecond = 100;
+        // 导出方式：file / memory / none（只传播traceparent），注册了SpanExporter bean时使用该bean
+        private String exporter = "file";
+        // file导出的文件，每个span一行JSON
+        private String file = "logs/gateway-spans.jsonl";
+        // memory导出保留的最多span数
+        private int memoryCapacity = 10000;
+        // 等待导出的span队列长度，满时丢弃
+        private int queueSize = 8192;
+        private int batchSize = 512;
+        private long exportIntervalMs = 1000;
+    }
+
+    /**
+     * 二进制访问日志：事件循环线程把定长记录写入环形缓冲区（满时丢弃并计数），后台线程写入内存映射文件并按大小或时间切换
+     * 使用AccessLogDecoder把文件转换为JSON
+     */
+    @Data
+    public static class AccessLog {
+        private boolean enabled = false;
+        private String directory = "logs/access";
+        // 环形缓冲区容纳的记录数，向上取2的幂，每条记录256字节
+        private int bufferRecords = 16384;
+        // 单个文件的最大字节数，写满后切换新文件
+        private long maxFileBytes = 64L * 1024 * 1024;
+        // 按时间切换文件的间隔
+        private long rotateIntervalMinutes = 60;
+        // 保留的文件数，0表示不删除
+        private int maxFiles = 24;
+        // 缓冲区为空时写线程的休眠间隔
+        private long writerIdleMs = 10;
+    }
+
+    /**
+     * 管理端口配置，运行时查看路由、连接池、熔断器、指标，以及摘除实例、重置熔断器、重新加载路由
+     * 管理端口使用独立的单线程事件循环，不占用数据面线程；默认只监听本机地址
+     */
+    @Data
+    public static class Admin {
+        // 默认关闭，需要时显式开启
+        private boolean enabled = false;
+        private String bindHost = "127.0.0.1";
+        private int port = 9901;
+        // 不为空时所有请求需携带 Authorization: Bearer <token>；为空时只允许GET，拒绝POST等修改操作
+        private String token;
+        // 重新加载路由时读取的yml文件（与application.yml格式相同，读取gateway.routes），为空时从当前Environment重新绑定
+        private String routesFile;
+    }
+
+    /**
+     * 路由级响应缓存配置
+     */
+    @Data
+    public static class RouteCache {
+        private boolean enabled = false;
+        // 参与缓存key的请求头，后端响应Vary中的请求头必须都在此列表中才会被缓存
+        private List<String> varyHeaders = new ArrayList<>();
+        // 单个响应体超过该值时不缓存
+        private int maxEntryBytes = 1024 * 1024;
+    }
+
+    /**
+     * 路由级最近成功响应配置：熔断或后端超时时返回该key最近一次2xx响应，并带Warning与Age响应头
+     */
+    @Data
+    public static class RouteLastKnownGood {
+        private boolean enabled = false;
+        // 参与key的请求头，与响应缓存相同
+        private List<String> varyHeaders = new ArrayList<>();
+        // 单个响应体超过该值时不保存
+        private int maxEntryBytes = 256 * 1024;
+        // 超过该时间的响应不再返回
+        private long maxStaleSeconds = 86400L;
+    }
+
+    /**
+     * 后端连接生命周期策略
+     */
+    @Data
+    public static class ConnectionPolicy {
+        // 连接最大存活时间，0表示不限制，到期后在当前响应结束时回收
+        private long maxLifetimeMs = 0L;
+        // 单个连接最多承载的请求数，0表示不限制
+        private int maxRequestsPerConnection = 0;
+        // 空闲连接回收时间，应小于后端keep-alive超时
+        private long idleTimeoutMs = 15000L;
     }
 
 }
@@ -0,0 +1,25 @@
+package com.wss.bronze.gateway.core.enums;
+
+/**
+ * 请求优先级，数值越小优先级越高
+ */
+public enum RequestPriority {
+    // 核心交易流量，最后被拒绝
+    CRITICAL("核心"),
+    // 重要流量
+    HIGH("高"),
+    // 默认优先级
+    NORMAL("普通"),
+    // 可丢弃流量，如埋点、分析上报，过载时最先被拒绝
+    LOW("低");
+
+    private final String description;
+
+    RequestPriority(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,33 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步过滤器
+ * 返回的CompletionStage以FilterException异常结束表示拒绝请求
+ * 无论在哪个线程完成，过滤器链都会回到请求所属的事件循环继续执行
+ *
+ * @author wss
+ */
+public interface AsyncFilter extends Filter {
+
+    CompletionStage<Void> doFilterAsync(GatewayContext ctx, Object... args);
+
+    /**
+     * 同步调用时等待异步结果，仅为兼容同步调用方，过滤器链不会调用该方法
+     */
+    @Override
+    default void doFilter(GatewayContext ctx, Object... args) throws Exception {
+        try {
+            doFilterAsync(ctx, args).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
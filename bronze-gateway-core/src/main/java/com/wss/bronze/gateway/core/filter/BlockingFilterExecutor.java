@@ -0,0 +1,97 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞过滤器线程池
+ * Java 21+ 且开启虚拟线程时每个任务一个虚拟线程，否则使用固定大小的平台线程池
+ * 同时执行与排队的任务数受maxPending限制，超过时立即拒绝，避免慢依赖拖垮网关
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class BlockingFilterExecutor implements Executor, DisposableBean {
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private ExecutorService delegate;
+    private Semaphore permits;
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() {
+        GatewayProperties.FilterExecutor config = properties.getFilterExecutor();
+        this.permits = new Semaphore(Math.max(config.getMaxPending(), 1));
+        if (config.isVirtualThreads()) {
+            this.delegate = newVirtualThreadExecutor();
+        }
+        this.virtualThreads = delegate != null;
+        if (delegate == null) {
+            int threads = Math.max(config.getThreads(), 1);
+            this.delegate = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new DefaultThreadFactory("Gateway-Filter", true));
+        }
+        log.info("BlockingFilterExecutor initialized, virtualThreads: {}, maxPending: {}",
+                virtualThreads, config.getMaxPending());
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，保持Java 8编译兼容
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn("Failed to create virtual thread executor, fallback to platform threads", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Blocking filter executor is full");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void destroy() {
+        delegate.shutdown();
+    }
+}
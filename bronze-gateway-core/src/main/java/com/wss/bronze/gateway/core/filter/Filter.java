@@ -3,6 +3,8 @@ package com.wss.bronze.gateway.core.filter;
 
 import com.wss.bronze.gateway.core.GatewayContext;
 
+import java.util.Map;
+
 /**
  * @author wss
  */
@@ -10,4 +12,29 @@ public interface Filter {
     void doFilter(GatewayContext ctx, Object... args) throws Exception;
     int getOrder();
     String getName();
+
+    /**
+     * 绑定过滤器参数，返回值作为每次调用doFilter的args
+     * 全局过滤器只绑定一次并由所有路由共享，路由覆盖的过滤器按路由绑定；重新编译时参数未变化的绑定直接复用
+     * 可在此解析配置、创建状态（如限流器），避免每个请求重复解析
+     * 默认将配置参数原样传入，即args[0]为Map&lt;String, String&gt;
+     * @param args FilterDefinition.args
+     */
+    default Object[] bindArgs(Map<String, String> args) {
+        return new Object[]{args};
+    }
+
+    /**
+     * 绑定结果不再被任何过滤器链使用时调用，释放bindArgs注册的资源（如文件监听、集群同步）
+     * @param args bindArgs的返回值
+     */
+    default void unbindArgs(Object[] args) {
+    }
+
+    /**
+     * 是否包含阻塞调用（如同步调用鉴权服务、读取Redis），为true时在阻塞过滤器线程池中执行，不占用事件循环
+     */
+    default boolean isBlocking() {
+        return false;
+    }
 }
@@ -0,0 +1,202 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.metrics.EventLoopMonitor;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译后的过滤器链，过滤器实例与参数在启动时绑定，运行期只读
+ * 同步过滤器直接在事件循环中执行；遇到异步过滤器或阻塞过滤器时挂起，
+ * 完成后回到请求所属的事件循环继续执行后续过滤器，全部为同步过滤器时不创建任何future
+ * 每个异步/阻塞阶段在事件循环上设置超时，超时后以504结束过滤器链，之后该阶段的结果被忽略；
+ * 尚未开始执行的阻塞过滤器不再执行，已在执行的阻塞调用不会被中断
+ *
+ * @author wss
+ */
+@Slf4j
+public final class FilterChain {
+
+    public static final FilterChain EMPTY = new FilterChain(new String[0], new Filter[0], new Object[0][], null, 0);
+
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final String[] names;
+    private final Filter[] filters;
+    private final Object[][] args;
+    private final boolean[] blocking;
+    private final Executor blockingExecutor;
+    // 异步/阻塞阶段超时，0表示不限制
+    private final long stageTimeoutMs;
+
+    FilterChain(String[] names, Filter[] filters, Object[][] args, Executor blockingExecutor, long stageTimeoutMs) {
+        this.names = names;
+        this.filters = filters;
+        this.args = args;
+        this.blockingExecutor = blockingExecutor;
+        this.stageTimeoutMs = stageTimeoutMs;
+        this.blocking = new boolean[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            blocking[i] = filters[i].isBlocking() && blockingExecutor != null;
+        }
+    }
+
+    /**
+     * 按顺序执行过滤器
+     * @return 过滤器链的执行结果；全部同步完成时返回已完成的future，
+     * 否则返回在请求所属事件循环中完成的future，拒绝或阶段超时时以FilterException异常结束
+     * @throws FilterException 同步执行阶段过滤器拒绝请求或执行异常
+     */
+    public CompletableFuture<Void> execute(GatewayContext ctx) {
+        return execute(ctx, 0, null);
+    }
+
+    private CompletableFuture<Void> execute(GatewayContext ctx, int from, CompletableFuture<Void> result) {
+        for (int i = from; i < filters.length; i++) {
+            Filter filter = filters[i];
+            if (!blocking[i] && !(filter instanceof AsyncFilter)) {
+                runFilter(i, ctx);
+                continue;
+            }
+            CompletableFuture<Void> promise = result != null ? result : new CompletableFuture<>();
+            EventExecutor eventLoop = ctx.getCtx().executor();
+            String name = names[i];
+            int next = i + 1;
+            CompletableFuture<Void> offloaded = blocking[i] ? offload(i, ctx) : null;
+            CompletionStage<Void> stage = offloaded != null ? offloaded : startAsync(i, ctx);
+            ScheduledFuture<?> timeout = stageTimeoutMs > 0
+                    ? eventLoop.schedule(() -> timeout(name, offloaded, promise), stageTimeoutMs, TimeUnit.MILLISECONDS)
+                    : null;
+            stage.whenComplete((ignored, error) -> {
+                if (eventLoop.inEventLoop()) {
+                    resume(ctx, next, name, error, promise, timeout);
+                } else {
+                    eventLoop.execute(() -> resume(ctx, next, name, error, promise, timeout));
+                }
+            });
+            return promise;
+        }
+        if (result != null) {
+            result.complete(null);
+            return result;
+        }
+        return COMPLETED;
+    }
+
+    private void resume(GatewayContext ctx, int next, String name, Throwable error,
+                        CompletableFuture<Void> promise, ScheduledFuture<?> timeout) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        // 已超时，忽略该阶段的结果
+        if (promise.isDone()) {
+            return;
+        }
+        if (error != null) {
+            promise.completeExceptionally(toFilterException(name, error));
+            return;
+        }
+        try {
+            execute(ctx, next, promise);
+        } catch (FilterException e) {
+            promise.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 阶段超时，在事件循环中执行；阻塞过滤器尚未开始执行时取消
+     */
+    private static void timeout(String name, CompletableFuture<Void> offloaded, CompletableFuture<Void> promise) {
+        if (promise.completeExceptionally(new FilterException(HttpResponseStatus.GATEWAY_TIMEOUT,
+                "Filter '" + name + "' timed out", false))) {
+            log.warn("Filter '{}' timed out", name);
+            if (offloaded != null) {
+                offloaded.cancel(false);
+            }
+        }
+    }
+
+    private void runFilter(int index, GatewayContext ctx) {
+        String route = ctx.getRoute() != null ? ctx.getRoute().getId() : null;
+        EventLoopMonitor.mark(route, names[index]);
+        try {
+            filters[index].doFilter(ctx, args[index]);
+        } catch (Exception e) {
+            throw toFilterException(names[index], e);
+        } finally {
+            EventLoopMonitor.mark(route, null);
+        }
+    }
+
+    private CompletionStage<Void> startAsync(int index, GatewayContext ctx) {
+        try {
+            CompletionStage<Void> stage = ((AsyncFilter) filters[index]).doFilterAsync(ctx, args[index]);
+            return stage != null ? stage : COMPLETED;
+        } catch (Exception e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 阻塞过滤器在线程池中执行，线程池已满时直接拒绝请求
+     */
+    private CompletableFuture<Void> offload(int index, GatewayContext ctx) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            blockingExecutor.execute(() -> {
+                // 排队期间已超时
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    if (filters[index] instanceof AsyncFilter) {
+                        startAsync(index, ctx).whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                future.completeExceptionally(error);
+                            } else {
+                                future.complete(null);
+                            }
+                        });
+                    } else {
+                        filters[index].doFilter(ctx, args[index]);
+                        future.complete(null);
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new FilterException(HttpResponseStatus.SERVICE_UNAVAILABLE, "Filter executor busy"));
+        }
+        return future;
+    }
+
+    private static FilterException toFilterException(String name, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof FilterException) {
+            log.debug("Filter '{}' rejected request: {}", name, cause.getMessage());
+            return (FilterException) cause;
+        }
+        log.error("Unexpected error in filter '{}'", name, cause);
+        return new FilterException("Filter '" + name + "' execution failed: " + cause.getMessage());
+    }
+
+    public int size() {
+        return filters.length;
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+}
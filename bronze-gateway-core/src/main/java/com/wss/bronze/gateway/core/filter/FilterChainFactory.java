@@ -4,70 +4,338 @@ import com.wss.bronze.gateway.core.GatewayContext;
 import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+/**
+ * 过滤器链工厂
+ * 所有单例初始化完成后，按路由把全局过滤器与路由过滤器编译为不可变的过滤器链：
+ * 1. 路由过滤器与全局过滤器同名时，使用路由的配置（参数、顺序）
+ * 2. 按FilterDefinition.order排序，顺序相同时保持配置顺序
+ * 3. 过滤器bean与参数在编译时解析绑定，请求处理时不再查找bean、排序；
+ *    全局过滤器只绑定一次，由所有路由的过滤器链共享（如全局限流器只有一个实例），
+ *    重新编译时参数未变化的过滤器复用上次的绑定结果，不再使用的绑定结果通过unbindArgs释放
+ * 4. 阻塞过滤器（isBlocking）在BlockingFilterExecutor中执行，AsyncFilter异步执行，完成后回到事件循环
+ * 5. 响应过滤器（filters.responseFilters / route.responseFilters）以同样方式编译为ResponseFilterChain
+ *
+ * @author wss
+ */
 @Slf4j
 @Component
-public class FilterChainFactory {
+public class FilterChainFactory implements SmartInitializingSingleton {
 
-    public void executePreFilters(GatewayContext ctx) {
-        try {
-            GatewayProperties properties = getGatewayProperties();
-            if (properties == null || properties.getFilters() == null || properties.getFilters().isEmpty()) {
-                log.debug("No filters configured, skipping filter execution");
-                return;
-            }
+    private static final ResponseFilterChain EMPTY_RESPONSE_CHAIN =
+            new ResponseFilterChain(new String[0], new ResponseFilter[0], new Object[0][]);
 
-            List<GatewayProperties.FilterDefinition> filterDefinitions = sortFilterDefinitions(properties);
-            log.debug("Executing {} pre-filters in order", filterDefinitions.size());
+    @Autowired
+    private GatewayProperties properties;
+    @Autowired
+    private BlockingFilterExecutor blockingFilterExecutor;
 
-            executeFilters(ctx, filterDefinitions);
-            log.debug("Pre-filter execution completed successfully");
+    private volatile FilterChain globalChain = FilterChain.EMPTY;
+    private volatile Map<String, FilterChain> routeChains = Collections.emptyMap();
+    private volatile ResponseFilterChain globalResponseChain = EMPTY_RESPONSE_CHAIN;
+    private volatile Map<String, ResponseFilterChain> routeResponseChains = Collections.emptyMap();
+    // 最近一次编译时配置中的路由ID
+    private Set<String> compiledRouteIds = Collections.emptySet();
+    // 最近一次编译的参数绑定结果
+    private Map<BindingKey, Binding<Filter>> bindings = Collections.emptyMap();
+    private Map<BindingKey, Binding<ResponseFilter>> responseBindings = Collections.emptyMap();
 
-        } catch (FilterException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected error during filter chain execution", e);
-            throw new FilterException("Filter chain execution failed: " + e.getMessage());
-        }
+    @Override
+    public void afterSingletonsInstantiated() {
+        compile();
     }
 
-    private GatewayProperties getGatewayProperties() {
+    /**
+     * 编译全部过滤器链，配置变化后可重新调用
+     */
+    public void compile() {
+        compile(properties.getRoutes());
+    }
+
+    /**
+     * 按给定路由编译过滤器链，用于重新加载路由：先编译新路由的过滤器链再替换路由表
+     * 上一版本中被删除的路由保留过滤器链到下一次编译，替换路由表前已匹配到旧路由的请求仍执行该路由的过滤器
+     */
+    public synchronized void compile(List<GatewayProperties.RouteDefinition> routes) {
+        List<GatewayProperties.FilterDefinition> globalFilters = nullToEmpty(properties.getFilters());
+        List<GatewayProperties.FilterDefinition> globalResponseFilters = nullToEmpty(properties.getResponseFilters());
+        Map<BindingKey, Binding<Filter>> newBindings = new HashMap<>();
+        Map<BindingKey, Binding<ResponseFilter>> newResponseBindings = new HashMap<>();
+        ChainCompiler compiler = new ChainCompiler(globalFilters, globalResponseFilters, newBindings, newResponseBindings);
+
+        Map<String, FilterChain> chains = new HashMap<>();
+        Map<String, ResponseFilterChain> responseChains = new HashMap<>();
+        Set<String> routeIds = new HashSet<>();
+        FilterChain global;
+        ResponseFilterChain globalResponse;
         try {
-            return ApplicationContextHolder.getBean(GatewayProperties.class);
-        } catch (Exception e) {
-            log.error("Failed to retrieve GatewayProperties bean", e);
-            throw new FilterException("Gateway configuration unavailable");
+            global = compiler.compileChain(null, merge(globalFilters, Collections.emptyList()));
+            globalResponse = compiler.compileResponseChain(null, merge(globalResponseFilters, Collections.emptyList()));
+            if (routes != null) {
+                for (GatewayProperties.RouteDefinition route : routes) {
+                    routeIds.add(route.getId());
+                    List<GatewayProperties.FilterDefinition> routeFilters = nullToEmpty(route.getFilters());
+                    FilterChain chain = routeFilters.isEmpty() ? global
+                            : compiler.compileChain(route.getId(), merge(globalFilters, routeFilters));
+                    chains.put(route.getId(), chain);
+
+                    List<GatewayProperties.FilterDefinition> routeResponseFilters = nullToEmpty(route.getResponseFilters());
+                    ResponseFilterChain responseChain = routeResponseFilters.isEmpty() ? globalResponse
+                            : compiler.compileResponseChain(route.getId(), merge(globalResponseFilters, routeResponseFilters));
+                    responseChains.put(route.getId(), responseChain);
+                    log.info("Filter chain compiled for route {}: pre=[{}], response=[{}]", route.getId(),
+                            String.join(",", chain.getNames()), String.join(",", responseChain.getNames()));
+                }
+            }
+        } catch (RuntimeException e) {
+            // 编译失败时保留当前过滤器链，释放本次新建的绑定
+            release(newBindings, bindings);
+            throw e;
+        }
+        for (String removed : compiledRouteIds) {
+            if (!routeIds.contains(removed)) {
+                chains.putIfAbsent(removed, routeChains.get(removed));
+                responseChains.putIfAbsent(removed, routeResponseChains.get(removed));
+                // 保留的过滤器链继续使用原来的路由级绑定，下一次编译时释放
+                retainRouteBindings(removed, bindings, newBindings);
+                retainRouteBindings(removed, responseBindings, newResponseBindings);
+            }
         }
+        release(bindings, newBindings);
+        this.bindings = newBindings;
+        this.responseBindings = newResponseBindings;
+        this.compiledRouteIds = routeIds;
+        this.globalChain = global;
+        this.routeChains = chains;
+        this.globalResponseChain = globalResponse;
+        this.routeResponseChains = responseChains;
     }
 
-    private List<GatewayProperties.FilterDefinition> sortFilterDefinitions(GatewayProperties properties) {
-        return properties.getFilters().stream()
-                .sorted(Comparator.comparingInt(GatewayProperties.FilterDefinition::getOrder))
-                .collect(Collectors.toList());
+    /**
+     * 按名称合并，路由配置覆盖同名全局配置，再按order排序
+     */
+    private static List<GatewayProperties.FilterDefinition> merge(List<GatewayProperties.FilterDefinition> globalFilters,
+                                                                  List<GatewayProperties.FilterDefinition> routeFilters) {
+        Map<String, GatewayProperties.FilterDefinition> merged = new LinkedHashMap<>();
+        for (GatewayProperties.FilterDefinition definition : globalFilters) {
+            merged.put(definition.getName(), definition);
+        }
+        for (GatewayProperties.FilterDefinition definition : routeFilters) {
+            merged.remove(definition.getName());
+            merged.put(definition.getName(), definition);
+        }
+        List<GatewayProperties.FilterDefinition> definitions = new ArrayList<>(merged.values());
+        definitions.sort(Comparator.comparingInt(GatewayProperties.FilterDefinition::getOrder));
+        return definitions;
     }
 
-    private void executeFilters(GatewayContext ctx, List<GatewayProperties.FilterDefinition> filterDefinitions) {
-        for (GatewayProperties.FilterDefinition filterDef : filterDefinitions) {
+    /**
+     * 释放previous中不在current里的绑定（只有前置过滤器需要释放资源）
+     */
+    private static void release(Map<BindingKey, Binding<Filter>> previous, Map<BindingKey, Binding<Filter>> current) {
+        for (Map.Entry<BindingKey, Binding<Filter>> entry : previous.entrySet()) {
+            Binding<Filter> binding = entry.getValue();
+            if (current.get(entry.getKey()) == binding) {
+                continue;
+            }
             try {
-                Filter filter = (Filter) ApplicationContextHolder.getBean(filterDef.getName());
+                binding.filter.unbindArgs(binding.args);
+            } catch (Exception e) {
+                log.warn("Failed to unbind filter {}", entry.getKey().name, e);
+            }
+        }
+    }
+
+    private static <F> void retainRouteBindings(String routeId, Map<BindingKey, Binding<F>> previous,
+                                                Map<BindingKey, Binding<F>> current) {
+        for (Map.Entry<BindingKey, Binding<F>> entry : previous.entrySet()) {
+            if (routeId.equals(entry.getKey().scope)) {
+                current.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 一次编译的上下文：全局过滤器（未被路由覆盖的同一个FilterDefinition）在全局作用域绑定，
+     * 路由覆盖的过滤器在路由作用域绑定；同一作用域、名称、参数的过滤器优先复用上次编译的绑定
+     */
+    private final class ChainCompiler {
+        private final Set<GatewayProperties.FilterDefinition> globalDefinitions =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<BindingKey, Binding<Filter>> newBindings;
+        private final Map<BindingKey, Binding<ResponseFilter>> newResponseBindings;
+
+        private ChainCompiler(List<GatewayProperties.FilterDefinition> globalFilters,
+                              List<GatewayProperties.FilterDefinition> globalResponseFilters,
+                              Map<BindingKey, Binding<Filter>> newBindings,
+                              Map<BindingKey, Binding<ResponseFilter>> newResponseBindings) {
+            this.globalDefinitions.addAll(globalFilters);
+            this.globalDefinitions.addAll(globalResponseFilters);
+            this.newBindings = newBindings;
+            this.newResponseBindings = newResponseBindings;
+        }
+
+        private FilterChain compileChain(String routeId, List<GatewayProperties.FilterDefinition> definitions) {
+            List<String> names = new ArrayList<>(definitions.size());
+            List<Filter> filters = new ArrayList<>(definitions.size());
+            List<Object[]> args = new ArrayList<>(definitions.size());
+            for (GatewayProperties.FilterDefinition definition : definitions) {
+                Filter filter = resolveBean(definition.getName(), Filter.class);
                 if (filter == null) {
-                    log.warn("Filter bean '{}' not found, skipping", filterDef.getName());
                     continue;
                 }
-                log.debug("Executing filter: {}", filterDef.getName());
-                filter.doFilter(ctx);
-            } catch (FilterException e) {
-                log.error("Filter '{}' threw FilterException", filterDef.getName(), e);
-                throw e;
-            } catch (Exception e) {
-                log.error("Unexpected error in filter '{}'", filterDef.getName(), e);
-                throw new FilterException("Filter '" + filterDef.getName() + "' execution failed: " + e.getMessage());
+                names.add(definition.getName());
+                filters.add(filter);
+                args.add(bind(routeId, definition, filter, bindings, newBindings, filter::bindArgs));
+            }
+            return new FilterChain(names.toArray(new String[0]), filters.toArray(new Filter[0]),
+                    args.toArray(new Object[0][]), blockingFilterExecutor,
+                    properties.getFilterExecutor().getStageTimeoutMs());
+        }
+
+        private ResponseFilterChain compileResponseChain(String routeId, List<GatewayProperties.FilterDefinition> definitions) {
+            List<String> names = new ArrayList<>(definitions.size());
+            List<ResponseFilter> filters = new ArrayList<>(definitions.size());
+            List<Object[]> args = new ArrayList<>(definitions.size());
+            for (GatewayProperties.FilterDefinition definition : definitions) {
+                ResponseFilter filter = resolveBean(definition.getName(), ResponseFilter.class);
+                if (filter == null) {
+                    continue;
+                }
+                names.add(definition.getName());
+                filters.add(filter);
+                args.add(bind(routeId, definition, filter, responseBindings, newResponseBindings, filter::bindArgs));
             }
+            return new ResponseFilterChain(names.toArray(new String[0]), filters.toArray(new ResponseFilter[0]),
+                    args.toArray(new Object[0][]));
         }
+
+        private <F> Object[] bind(String routeId, GatewayProperties.FilterDefinition definition, F filter,
+                                  Map<BindingKey, Binding<F>> previous, Map<BindingKey, Binding<F>> current,
+                                  Function<Map<String, String>, Object[]> binder) {
+            Map<String, String> args = copyArgs(definition);
+            BindingKey key = new BindingKey(globalDefinitions.contains(definition) ? null : routeId,
+                    definition.getName(), args);
+            Binding<F> binding = current.get(key);
+            if (binding == null) {
+                binding = previous.get(key);
+                if (binding == null || binding.filter != filter) {
+                    binding = new Binding<>(filter, binder.apply(args));
+                }
+                current.put(key, binding);
+            }
+            return binding.args;
+        }
+    }
+
+    private static Map<String, String> copyArgs(GatewayProperties.FilterDefinition definition) {
+        return definition.getArgs() != null
+                ? Collections.unmodifiableMap(new HashMap<>(definition.getArgs())) : Collections.emptyMap();
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    private static <T> T resolveBean(String name, Class<T> type) {
+        try {
+            Object bean = ApplicationContextHolder.getBean(name);
+            if (type.isInstance(bean)) {
+                return type.cast(bean);
+            }
+            log.warn("Bean '{}' is not a {}, skipping", name, type.getSimpleName());
+        } catch (Exception e) {
+            log.warn("Filter bean '{}' not found, skipping", name);
+        }
+        return null;
+    }
+
+    /**
+     * 绑定作用域：scope为null表示全局过滤器，否则为路由ID
+     */
+    private static final class BindingKey {
+        private final String scope;
+        private final String name;
+        private final Map<String, String> args;
+
+        private BindingKey(String scope, String name, Map<String, String> args) {
+            this.scope = scope;
+            this.name = name;
+            this.args = args;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BindingKey)) {
+                return false;
+            }
+            BindingKey that = (BindingKey) o;
+            return Objects.equals(scope, that.scope) && name.equals(that.name) && args.equals(that.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, name, args);
+        }
+    }
+
+    private static final class Binding<F> {
+        private final F filter;
+        private final Object[] args;
+
+        private Binding(F filter, Object[] args) {
+            this.filter = filter;
+            this.args = args;
+        }
+    }
+
+    /**
+     * 获取路由的过滤器链，未匹配路由时返回全局过滤器链
+     */
+    public FilterChain getFilterChain(GatewayProperties.RouteDefinition route) {
+        if (route == null) {
+            return globalChain;
+        }
+        FilterChain chain = routeChains.get(route.getId());
+        return chain != null ? chain : globalChain;
+    }
+
+    /**
+     * 获取路由的响应过滤器链，未配置时返回null
+     */
+    public ResponseFilterChain getResponseFilterChain(GatewayProperties.RouteDefinition route) {
+        ResponseFilterChain chain = route != null ? routeResponseChains.get(route.getId()) : null;
+        if (chain == null) {
+            chain = globalResponseChain;
+        }
+        return chain.isEmpty() ? null : chain;
+    }
+
+    /**
+     * 执行当前路由的过滤器链
+     * @return 异步过滤器未完成时返回未完成的future
+     */
+    public CompletableFuture<Void> executePreFilters(GatewayContext ctx) {
+        return getFilterChain(ctx.getRoute()).execute(ctx);
     }
 }
@@ -17,6 +17,15 @@ public class FilterException extends RuntimeException{
         this.msg = msg;
     }
 
+    /**
+     * 不填充堆栈，用于限流等高频拒绝场景
+     */
+    public FilterException(HttpResponseStatus status, String msg, boolean writableStackTrace) {
+        super(msg, null, false, writableStackTrace);
+        this.status = status;
+        this.msg = msg;
+    }
+
     public FilterException(String msg) {
         super(msg);
         this.status = HttpResponseStatus.SERVICE_UNAVAILABLE;
@@ -0,0 +1,81 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.acl.ClientIpResolver;
+import com.wss.bronze.gateway.core.acl.IpAcl;
+import com.wss.bronze.gateway.core.acl.IpAclRegistry;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IP访问控制过滤器，按客户端IP（受信任代理时取X-Forwarded-For）最长前缀匹配，拒绝时返回403
+ * 参数：
+ * allow / deny: 逗号分隔的CIDR，支持IPv4与IPv6
+ * file: 规则文件（每行 allow CIDR / deny CIDR），与allow/deny合并
+ * reloadSeconds: 规则文件检查间隔，默认10，0表示不自动重新加载
+ * default: 未匹配时 allow 或 deny，默认：配置了allow则拒绝，否则放行
+ * name: ACL名称，可通过IpAclRegistry.get(name)热替换规则
+ *
+ * @author wss
+ */
+@Component("IpAclFilter")
+public class IpAclFilter implements Filter {
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Autowired
+    private IpAclRegistry ipAclRegistry;
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Override
+    public Object[] bindArgs(Map<String, String> args) {
+        String defaultValue = args.get("default");
+        Boolean defaultAllow = defaultValue == null ? null : "allow".equalsIgnoreCase(defaultValue);
+        String name = args.getOrDefault("name", "IpAclFilter-" + sequence.incrementAndGet());
+        IpAcl acl = ipAclRegistry.register(name, split(args.get("allow")), split(args.get("deny")),
+                args.get("file"), defaultAllow, Long.parseLong(args.getOrDefault("reloadSeconds", "10")));
+        return new Object[]{acl};
+    }
+
+    @Override
+    public void unbindArgs(Object[] args) {
+        ipAclRegistry.deregister((IpAcl) args[0]);
+    }
+
+    private static List<String> split(String value) {
+        List<String> values = new ArrayList<>();
+        if (value != null) {
+            for (String cidr : value.split(",")) {
+                if (!cidr.trim().isEmpty()) {
+                    values.add(cidr.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void doFilter(GatewayContext ctx, Object... args) {
+        byte[] address = clientIpResolver.resolveAddress(ctx);
+        if (address == null || !((IpAcl) args[0]).isAllowed(address)) {
+            throw new FilterException(HttpResponseStatus.FORBIDDEN, "Forbidden", false);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return -110;
+    }
+
+    @Override
+    public String getName() {
+        return "IpAclFilter";
+    }
+}
@@ -0,0 +1,112 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.auth.JwksProvider;
+import com.wss.bronze.gateway.core.auth.JwtException;
+import com.wss.bronze.gateway.core.auth.JwtVerifier;
+import com.wss.bronze.gateway.core.auth.VerifiedToken;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JWT认证过滤器
+ * 参数：
+ * jwksUri: JWKS文件路径或http(s)地址，必填
+ * jwksRefreshSeconds: JWKS刷新间隔，默认300
+ * issuer / audience: 期望的iss与aud，不配置时不校验
+ * algorithms: 允许的签名算法，默认RS256,ES256
+ * clockSkewSeconds: 允许的时钟偏差，默认30
+ * cacheMaxEntries: 已验证令牌缓存上限，默认100000
+ * header: 令牌所在请求头，默认Authorization（Bearer方案）
+ * userIdClaim: 作为用户ID写入GatewayContext.ATTR_USER_ID的claim，默认sub
+ * claim.{claim}: 把claim写入指定的attribute，如 claim.tenant: tenantId
+ * 验证通过后全部claims写入GatewayContext.ATTR_JWT_CLAIMS；验证失败返回401
+ *
+ * @author wss
+ */
+@Component("JwtAuthFilter")
+public class JwtAuthFilter implements Filter {
+
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private JwksProvider jwksProvider;
+
+    @Override
+    public Object[] bindArgs(Map<String, String> args) {
+        String jwksUri = args.get("jwksUri");
+        if (jwksUri == null) {
+            throw new IllegalArgumentException("JwtAuthFilter requires jwksUri");
+        }
+        Set<String> algorithms = new HashSet<>();
+        for (String alg : args.getOrDefault("algorithms", "RS256,ES256").split(",")) {
+            if (!alg.trim().isEmpty()) {
+                algorithms.add(alg.trim());
+            }
+        }
+        JwtVerifier verifier = new JwtVerifier(
+                jwksProvider.get(jwksUri, Long.parseLong(args.getOrDefault("jwksRefreshSeconds", "300"))),
+                algorithms, args.get("issuer"), args.get("audience"),
+                Long.parseLong(args.getOrDefault("clockSkewSeconds", "30")),
+                Integer.parseInt(args.getOrDefault("cacheMaxEntries", "100000")));
+
+        List<String[]> claimMappings = new ArrayList<>();
+        claimMappings.add(new String[]{args.getOrDefault("userIdClaim", "sub"), GatewayContext.ATTR_USER_ID});
+        for (Map.Entry<String, String> entry : args.entrySet()) {
+            if (entry.getKey().startsWith("claim.")) {
+                claimMappings.add(new String[]{entry.getKey().substring("claim.".length()), entry.getValue()});
+            }
+        }
+        return new Object[]{verifier, args.getOrDefault("header", HttpHeaderNames.AUTHORIZATION.toString()),
+                claimMappings.toArray(new String[0][])};
+    }
+
+    @Override
+    public void doFilter(GatewayContext ctx, Object... args) {
+        String value = ctx.getHeaders().get((String) args[1]);
+        if (value == null || !value.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            throw unauthorized(ctx, "Missing bearer token");
+        }
+        String token = value.substring(BEARER.length()).trim();
+
+        VerifiedToken verified;
+        try {
+            verified = ((JwtVerifier) args[0]).verify(token, System.currentTimeMillis() / 1000);
+        } catch (JwtException e) {
+            throw unauthorized(ctx, e.getMessage());
+        }
+
+        Map<String, Object> claims = verified.getClaims();
+        Map<String, Object> attributes = ctx.getAttributes();
+        attributes.put(GatewayContext.ATTR_JWT_CLAIMS, claims);
+        for (String[] mapping : (String[][]) args[2]) {
+            Object claim = claims.get(mapping[0]);
+            if (claim != null) {
+                attributes.put(mapping[1], claim);
+            }
+        }
+    }
+
+    private static FilterException unauthorized(GatewayContext ctx, String msg) {
+        ctx.addResponseHeader(HttpHeaderNames.WWW_AUTHENTICATE, "Bearer");
+        return new FilterException(HttpResponseStatus.UNAUTHORIZED, msg, false);
+    }
+
+    @Override
+    public int getOrder() {
+        return -100;
+    }
+
+    @Override
+    public String getName() {
+        return "JwtAuthFilter";
+    }
+}
@@ -0,0 +1,137 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.acl.ClientIpResolver;
+import com.wss.bronze.gateway.core.ratelimit.ClusterRateLimitSync;
+import com.wss.bronze.gateway.core.ratelimit.GcraRateLimiter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 按key限流过滤器（GCRA），每个路由独立的限流器，在事件循环中无锁判定
+ * 参数：
+ * key: 限流维度，ip | user | route | apiKey | attr:{attribute}，默认ip（受信任代理时取X-Forwarded-For）
+ *   user、apiKey、attr只使用认证过滤器写入的attribute（GatewayContext.ATTR_USER_ID、ATTR_API_KEY），
+ *   不读取客户端可伪造的请求头，缺失时按ip限流；route为同一路由共用一个桶
+ * permitsPerSecond: 持续速率，必填
+ * burst: 突发容量，默认等于permitsPerSecond
+ * maxKeys: 最多跟踪的key数量，默认100000，超出后新key共用一个桶
+ * cluster: 为true时参与集群限流（gateway.cluster-rate-limit），permitsPerSecond/burst为全部节点的总配额
+ * name: 集群限流名称，各节点一致，不同路由的限流需使用不同名称，cluster为true时必填
+ * 响应携带RateLimit-Limit、RateLimit-Remaining、RateLimit-Reset，拒绝时返回429并携带Retry-After
+ *
+ * @author wss
+ */
+@Component("KeyedRateLimitFilter")
+public class KeyedRateLimitFilter implements Filter {
+
+    public static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private static final int DEFAULT_MAX_KEYS = 100000;
+
+    @Autowired
+    private ClusterRateLimitSync clusterRateLimitSync;
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Override
+    public Object[] bindArgs(Map<String, String> args) {
+        String permits = args.get("permitsPerSecond");
+        if (permits == null) {
+            throw new IllegalArgumentException("KeyedRateLimitFilter requires permitsPerSecond");
+        }
+        double permitsPerSecond = Double.parseDouble(permits);
+        int burst = args.containsKey("burst")
+                ? Integer.parseInt(args.get("burst")) : (int) Math.max(1, Math.ceil(permitsPerSecond));
+        int maxKeys = args.containsKey("maxKeys") ? Integer.parseInt(args.get("maxKeys")) : DEFAULT_MAX_KEYS;
+        GcraRateLimiter limiter = new GcraRateLimiter(permitsPerSecond, burst, maxKeys);
+        ClusterRateLimitSync.ClusterLimit clusterLimit = null;
+        if (Boolean.parseBoolean(args.get("cluster"))) {
+            String name = args.get("name");
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("KeyedRateLimitFilter requires name when cluster is true");
+            }
+            clusterLimit = clusterRateLimitSync.register(name, limiter);
+        }
+        return new Object[]{limiter, keyResolver(args.getOrDefault("key", "ip")),
+                String.valueOf(limiter.getBurst()), clusterLimit};
+    }
+
+    @Override
+    public void unbindArgs(Object[] args) {
+        if (args[3] != null) {
+            clusterRateLimitSync.deregister((ClusterRateLimitSync.ClusterLimit) args[3]);
+        }
+    }
+
+    private Function<GatewayContext, String> keyResolver(String key) {
+        if (key.startsWith("attr:")) {
+            String attribute = key.substring("attr:".length());
+            return ctx -> attributeKey(ctx, attribute, "a:");
+        }
+        switch (key) {
+            case "ip":
+                return ctx -> clientIpResolver.resolveIp(ctx);
+            case "route":
+                // 全局过滤器在各路由间共用，按路由ID区分
+                return ctx -> ctx.getRoute() != null ? ctx.getRoute().getId() : "";
+            case "user":
+                return ctx -> attributeKey(ctx, GatewayContext.ATTR_USER_ID, "u:");
+            case "apiKey":
+                return ctx -> attributeKey(ctx, GatewayContext.ATTR_API_KEY, "k:");
+            default:
+                throw new IllegalArgumentException("Unsupported rate limit key: " + key);
+        }
+    }
+
+    private String attributeKey(GatewayContext ctx, String attribute, String prefix) {
+        Object value = ctx.getAttributes().get(attribute);
+        // 加前缀，避免与IP冲突
+        return value != null ? prefix + value : clientIpResolver.resolveIp(ctx);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void doFilter(GatewayContext ctx, Object... args) {
+        GcraRateLimiter limiter = (GcraRateLimiter) args[0];
+        String key = ((Function<GatewayContext, String>) args[1]).apply(ctx);
+        long result = limiter.tryAcquire(key, System.nanoTime());
+
+        ctx.addResponseHeader(RATE_LIMIT_LIMIT, args[2]);
+        if (result >= 0) {
+            if (args[3] != null) {
+                ((ClusterRateLimitSync.ClusterLimit) args[3]).record(key);
+            }
+            ctx.addResponseHeader(RATE_LIMIT_REMAINING, result);
+            ctx.addResponseHeader(RATE_LIMIT_RESET, toSeconds(limiter.resetNanos(result)));
+            return;
+        }
+        long waitSeconds = toSeconds(-(result + 1));
+        ctx.addResponseHeader(RATE_LIMIT_REMAINING, 0);
+        ctx.addResponseHeader(RATE_LIMIT_RESET, waitSeconds);
+        ctx.addResponseHeader(HttpHeaderNames.RETRY_AFTER, waitSeconds);
+        throw new FilterException(HttpResponseStatus.TOO_MANY_REQUESTS, "Too many requests", false);
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public int getOrder() {
+        return -90;
+    }
+
+    @Override
+    public String getName() {
+        return "KeyedRateLimitFilter";
+    }
+}
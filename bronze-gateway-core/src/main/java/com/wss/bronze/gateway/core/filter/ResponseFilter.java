@@ -0,0 +1,53 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponse;
+
+import java.util.Map;
+
+/**
+ * 响应过滤器，在后端响应写回客户端之前执行
+ * 默认只处理状态码与响应头，响应体原样透传、不拷贝；需要改写响应体的过滤器显式声明isBodyFilter
+ * 接口基于响应头（HttpResponse）与响应体分片定义，聚合模式下整个响应体作为最后一个分片调用一次，
+ * 流式转发时可按分片逐块调用
+ * 在后端连接的事件循环中执行，不得阻塞
+ *
+ * @author wss
+ */
+public interface ResponseFilter {
+
+    /**
+     * 处理状态码与响应头
+     */
+    void filterHeaders(GatewayContext ctx, HttpResponse response, Object... args) throws Exception;
+
+    /**
+     * 是否需要处理响应体
+     */
+    default boolean isBodyFilter() {
+        return false;
+    }
+
+    /**
+     * 处理响应体分片
+     * @param content 响应体分片，返回新的ByteBuf时需释放传入的content
+     * @param last 是否为最后一个分片
+     * @return 处理后的分片，可以直接返回content
+     */
+    default ByteBuf filterBody(GatewayContext ctx, ByteBuf content, boolean last, Object... args) throws Exception {
+        return content;
+    }
+
+    int getOrder();
+
+    String getName();
+
+    /**
+     * 绑定过滤器参数，返回值作为每次调用的args；全局过滤器只绑定一次并由所有路由共享
+     * 默认将配置参数原样传入，即args[0]为Map&lt;String, String&gt;
+     */
+    default Object[] bindArgs(Map<String, String> args) {
+        return new Object[]{args};
+    }
+}
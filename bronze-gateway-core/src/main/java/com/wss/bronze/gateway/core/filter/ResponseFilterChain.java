@@ -0,0 +1,68 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * 编译后的响应过滤器链，过滤器实例与参数在启动时绑定，运行期只读
+ * 没有响应体过滤器时只修改响应头，响应体不拷贝
+ *
+ * @author wss
+ */
+public final class ResponseFilterChain {
+
+    private final String[] names;
+    private final ResponseFilter[] filters;
+    private final Object[][] args;
+    private final boolean hasBodyFilter;
+
+    ResponseFilterChain(String[] names, ResponseFilter[] filters, Object[][] args) {
+        this.names = names;
+        this.filters = filters;
+        this.args = args;
+        boolean bodyFilter = false;
+        for (ResponseFilter filter : filters) {
+            bodyFilter |= filter.isBodyFilter();
+        }
+        this.hasBodyFilter = bodyFilter;
+    }
+
+    /**
+     * 执行响应过滤器
+     * @param response 后端响应，调用方持有其引用
+     * @return 处理后的响应，响应体被替换时返回新的响应对象（原响应体已由过滤器释放）
+     */
+    public FullHttpResponse apply(GatewayContext ctx, FullHttpResponse response) throws Exception {
+        for (int i = 0; i < filters.length; i++) {
+            filters[i].filterHeaders(ctx, response, args[i]);
+        }
+        if (!hasBodyFilter) {
+            return response;
+        }
+        ByteBuf original = response.content();
+        ByteBuf content = original;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i].isBodyFilter()) {
+                content = filters[i].filterBody(ctx, content, true, args[i]);
+            }
+        }
+        if (content == original) {
+            return response;
+        }
+        FullHttpResponse replaced = response.replace(content);
+        if (!HttpUtil.isTransferEncodingChunked(replaced)) {
+            HttpUtil.setContentLength(replaced, content.readableBytes());
+        }
+        return replaced;
+    }
+
+    public boolean isEmpty() {
+        return filters.length == 0;
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+}
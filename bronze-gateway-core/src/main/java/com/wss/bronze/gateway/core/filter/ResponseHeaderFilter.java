@@ -0,0 +1,69 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 响应头过滤器，只修改响应头
+ * 参数：
+ * remove: 逗号分隔的待删除响应头，如 Server,X-Powered-By
+ * set.{Header}: 设置（覆盖）响应头
+ * add.{Header}: 追加响应头
+ *
+ * @author wss
+ */
+@Component("ResponseHeaderFilter")
+public class ResponseHeaderFilter implements ResponseFilter {
+
+    @Override
+    public Object[] bindArgs(Map<String, String> args) {
+        List<String> removes = new ArrayList<>();
+        List<String[]> sets = new ArrayList<>();
+        List<String[]> adds = new ArrayList<>();
+        for (Map.Entry<String, String> entry : args.entrySet()) {
+            String key = entry.getKey();
+            if ("remove".equals(key)) {
+                for (String name : entry.getValue().split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        removes.add(name.trim());
+                    }
+                }
+            } else if (key.startsWith("set.")) {
+                sets.add(new String[]{key.substring(4), entry.getValue()});
+            } else if (key.startsWith("add.")) {
+                adds.add(new String[]{key.substring(4), entry.getValue()});
+            }
+        }
+        return new Object[]{removes.toArray(new String[0]), sets.toArray(new String[0][]), adds.toArray(new String[0][])};
+    }
+
+    @Override
+    public void filterHeaders(GatewayContext ctx, HttpResponse response, Object... args) {
+        HttpHeaders headers = response.headers();
+        for (String name : (String[]) args[0]) {
+            headers.remove(name);
+        }
+        for (String[] header : (String[][]) args[1]) {
+            headers.set(header[0], header[1]);
+        }
+        for (String[] header : (String[][]) args[2]) {
+            headers.add(header[0], header[1]);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "ResponseHeaderFilter";
+    }
+}
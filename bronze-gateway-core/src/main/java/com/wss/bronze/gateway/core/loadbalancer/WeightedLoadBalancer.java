@@ -3,6 +3,7 @@ package com.wss.bronze.gateway.core.loadbalancer;
 import com.wss.bronze.gateway.core.config.GatewayProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -11,6 +12,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 权重负载均衡器实现
  * 根据实例的权重值进行负载均衡，权重越高的实例被选中的概率越大
  * 使用加权轮询算法，确保按照权重比例分配请求
+ * 传入的实例列表变化时（如跳过熔断中的实例、路由重新加载）重建该服务的权重轮询器
  *
  * @author wss
  */
@@ -42,8 +44,11 @@ public class WeightedLoadBalancer implements LoadBalancer {
         }
 
         // 获取或创建权重轮询器
-        WeightedRoundRobin weightedRoundRobin = serviceWeightMap.computeIfAbsent(serviceId,
-            k -> new WeightedRoundRobin(instances));
+        WeightedRoundRobin weightedRoundRobin = serviceWeightMap.get(serviceId);
+        if (weightedRoundRobin == null || !weightedRoundRobin.sameInstances(instances)) {
+            weightedRoundRobin = new WeightedRoundRobin(new ArrayList<>(instances));
+            serviceWeightMap.put(serviceId, weightedRoundRobin);
+        }
 
         // 选择下一个实例
         return weightedRoundRobin.next();
@@ -90,6 +95,21 @@ public class WeightedLoadBalancer implements LoadBalancer {
             }
         }
 
+        /**
+         * 与轮询器的实例列表逐个为同一实例
+         */
+        private boolean sameInstances(List<GatewayProperties.Instance> other) {
+            if (other.size() != instances.size()) {
+                return false;
+            }
+            for (int i = 0; i < other.size(); i++) {
+                if (other.get(i) != instances.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         private int gcd(int a, int b) {
             if (b == 0) {
                 return a;
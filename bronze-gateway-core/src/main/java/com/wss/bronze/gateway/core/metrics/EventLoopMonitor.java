@@ -0,0 +1,250 @@
+package com.wss.bronze.gateway.core.metrics;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件循环监控
+ * 1. 后台线程周期性向每个事件循环提交一个空任务，任务开始执行时间与提交时间之差即调度延迟，按事件循环记录直方图
+ * 2. 任务等待超过阈值时视为事件循环被阻塞，采样该事件循环线程的调用栈（全局限频）并记录正在处理的路由与过滤器
+ * 3. 每个事件循环同一时刻最多一个探测任务在队列中，探测任务不重复分配
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class EventLoopMonitor implements DisposableBean {
+
+    public static final String BOSS = "boss";
+    public static final String WORKER = "worker";
+    public static final String CLIENT = "client";
+
+    // 事件循环线程上的探针，用于记录当前正在处理的路由与过滤器
+    private static final FastThreadLocal<LoopProbe> CURRENT = new FastThreadLocal<>();
+
+    @Autowired
+    private GatewayProperties properties;
+
+    private final List<LoopProbe> probes = new CopyOnWriteArrayList<>();
+    private volatile ScheduledExecutorService scheduler;
+    // 最近一次调用栈采样时间，只在监控线程中访问
+    private long lastStackSampleNanos;
+
+    /**
+     * 开始监控一组事件循环，同名分组已存在时替换（如服务器重启后重新创建了事件循环）
+     * @param group 分组名称，如 boss、worker、client
+     */
+    public synchronized void monitor(String group, EventLoopGroup loops) {
+        GatewayProperties.EventLoopMonitoring config = properties.getEventLoopMonitoring();
+        if (!config.isEnabled() && !properties.getLoadShedding().isEnabled()) {
+            return;
+        }
+        probes.removeIf(probe -> probe.group.equals(group));
+        int index = 0;
+        for (EventExecutor executor : loops) {
+            probes.add(new LoopProbe(group, group + "-" + index++, executor));
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new DefaultThreadFactory("gateway-loop-monitor", true));
+            scheduler.scheduleAtFixedRate(this::sample, config.getSampleIntervalMs(), config.getSampleIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+        log.info("Event loop monitor watching {} {} loops", index, group);
+    }
+
+    /**
+     * 记录当前事件循环正在处理的路由与过滤器，阻塞时随调用栈输出；非事件循环线程调用时忽略
+     */
+    public static void mark(String route, String filter) {
+        LoopProbe probe = CURRENT.getIfExists();
+        if (probe != null) {
+            probe.route = route;
+            probe.filter = filter;
+        }
+    }
+
+    private void sample() {
+        try {
+            GatewayProperties.EventLoopMonitoring config = properties.getEventLoopMonitoring();
+            long blockedThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getBlockedThresholdMs());
+            long now = System.nanoTime();
+            for (LoopProbe probe : probes) {
+                long blockedNanos = probe.poll(now);
+                if (blockedNanos >= blockedThresholdNanos && probe.markBlocked()) {
+                    onBlocked(probe, blockedNanos, now, config);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Event loop monitor sample failed", e);
+        }
+    }
+
+    /**
+     * 每次阻塞只处理一次；调用栈采样全局限频，避免GC停顿等同时阻塞所有事件循环时大量采样
+     */
+    private void onBlocked(LoopProbe probe, long blockedNanos, long now, GatewayProperties.EventLoopMonitoring config) {
+        probe.blockedCount++;
+        Thread thread = probe.thread;
+        if (thread == null
+                || now - lastStackSampleNanos < TimeUnit.MILLISECONDS.toNanos(config.getStackSampleIntervalMs())) {
+            log.warn("Event loop {} blocked for {}ms, route={}, filter={}", probe.name,
+                    TimeUnit.NANOSECONDS.toMillis(blockedNanos), probe.route, probe.filter);
+            return;
+        }
+        lastStackSampleNanos = now;
+        StackTraceElement[] stack = thread.getStackTrace();
+        StringBuilder report = new StringBuilder(1024);
+        int depth = Math.min(stack.length, config.getStackDepth());
+        for (int i = 0; i < depth; i++) {
+            report.append("\n\tat ").append(stack[i]);
+        }
+        if (stack.length > depth) {
+            report.append("\n\t... ").append(stack.length - depth).append(" more");
+        }
+        probe.lastBlockedStack = report.toString();
+        log.warn("Event loop {} ({}) blocked for {}ms, route={}, filter={}, stack:{}", probe.name, thread.getName(),
+                TimeUnit.NANOSECONDS.toMillis(blockedNanos), probe.route, probe.filter, probe.lastBlockedStack);
+    }
+
+    /**
+     * 分组内事件循环当前调度延迟的最大值，探测任务仍在等待时为已等待的时间
+     */
+    public long getMaxLagNanos(String group) {
+        long max = 0;
+        for (LoopProbe probe : probes) {
+            if (probe.group.equals(group)) {
+                max = Math.max(max, probe.currentLagNanos);
+            }
+        }
+        return max;
+    }
+
+    public List<LoopProbe> getProbes() {
+        return Collections.unmodifiableList(probes);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 单个事件循环的探针与统计
+     */
+    public static final class LoopProbe implements Runnable {
+        private final String group;
+        private final String name;
+        private final EventExecutor executor;
+        // 调度延迟（微秒）
+        private final LatencyHistogram lag = new LatencyHistogram();
+        // 探测任务提交时间，0表示没有等待执行的探测任务
+        private volatile long submittedNanos;
+        private volatile long currentLagNanos;
+        // 当前等待的探测任务是否已按阻塞处理，只在监控线程中访问
+        private boolean blockedReported;
+        private volatile long blockedCount;
+        private volatile Thread thread;
+        private volatile String route;
+        private volatile String filter;
+        private volatile String lastBlockedStack;
+
+        LoopProbe(String group, String name, EventExecutor executor) {
+            this.group = group;
+            this.name = name;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            long lagNanos = System.nanoTime() - submittedNanos;
+            lag.record(lagNanos / 1000);
+            currentLagNanos = lagNanos;
+            submittedNanos = 0;
+            if (thread == null) {
+                thread = Thread.currentThread();
+                CURRENT.set(this);
+            }
+        }
+
+        /**
+         * 上一个探测任务仍未执行时返回其已等待的时间，不再提交新的探测任务；否则提交探测任务并返回0
+         */
+        long poll(long now) {
+            long submitted = submittedNanos;
+            if (submitted != 0) {
+                long waited = now - submitted;
+                currentLagNanos = Math.max(currentLagNanos, waited);
+                return waited;
+            }
+            if (executor.isShuttingDown()) {
+                return 0;
+            }
+            blockedReported = false;
+            submittedNanos = now;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                submittedNanos = 0;
+            }
+            return 0;
+        }
+
+        boolean markBlocked() {
+            if (blockedReported) {
+                return false;
+            }
+            blockedReported = true;
+            return true;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLag() {
+            return lag;
+        }
+
+        public long getCurrentLagNanos() {
+            return currentLagNanos;
+        }
+
+        public long getBlockedCount() {
+            return blockedCount;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getFilter() {
+            return filter;
+        }
+
+        public String getLastBlockedStack() {
+            return lastBlockedStack;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.wss.bronze.gateway.core.metrics;
+
+import com.wss.bronze.gateway.core.accesslog.AccessLogger;
+import com.wss.bronze.gateway.core.cache.LastKnownGoodStore;
+import com.wss.bronze.gateway.core.cache.RequestCoalescer;
+import com.wss.bronze.gateway.core.cache.ResponseCache;
+import com.wss.bronze.gateway.core.client.GatewayChannelPool;
+import com.wss.bronze.gateway.core.client.HttpClient;
+import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
+import com.wss.bronze.gateway.core.ratelimit.ClusterRateLimitSync;
+import com.wss.bronze.gateway.core.resilience.AdaptiveConcurrencyLimiter;
+import com.wss.bronze.gateway.core.resilience.AdaptiveThrottle;
+import com.wss.bronze.gateway.core.resilience.Bulkhead;
+import com.wss.bronze.gateway.core.resilience.CircuitBreakerManager;
+import com.wss.bronze.gateway.core.resilience.LoadShedder;
+import com.wss.bronze.gateway.core.tracing.Tracer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关指标
+ * 1. 请求路径上只记录计数与耗时：路由与后端服务的指标对象创建后缓存，记录时只做原子自增，不分配内存
+ * 2. 连接池、熔断器、舱壁、并发限制、节流、过载、缓存等组件的状态在导出时读取
+ * 3. scrape()输出Prometheus文本格式
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class GatewayMetrics {
+
+    // 未匹配路由的请求
+    private static final String UNMATCHED_ROUTE = "_unmatched";
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    // serviceId -> 实例地址 -> 指标，两级查找避免在请求路径上拼接key
+    private final Map<String, Map<String, UpstreamMetrics>> upstreams = new ConcurrentHashMap<>();
+
+    public RouteMetrics route(String routeId) {
+        String key = routeId != null ? routeId : UNMATCHED_ROUTE;
+        RouteMetrics metrics = routes.get(key);
+        return metrics != null ? metrics : routes.computeIfAbsent(key, RouteMetrics::new);
+    }
+
+    /**
+     * 后端实例指标，按服务与实例地址区分
+     */
+    public UpstreamMetrics upstream(GatewayProperties.Instance instance) {
+        String serviceId = instance.getServiceId();
+        Map<String, UpstreamMetrics> instances = upstreams.get(serviceId);
+        if (instances == null) {
+            instances = upstreams.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>());
+        }
+        UpstreamMetrics metrics = instances.get(instance.getUrl());
+        return metrics != null ? metrics
+                : instances.computeIfAbsent(instance.getUrl(), url -> new UpstreamMetrics(serviceId, url));
+    }
+
+    public Collection<RouteMetrics> getRoutes() {
+        return routes.values();
+    }
+
+    /**
+     * 导出Prometheus文本格式的全部指标
+     */
+    public String scrape() {
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+        writeRoutes(writer);
+        writeUpstreams(writer);
+        HttpClient httpClient = bean(HttpClient.class);
+        if (httpClient != null) {
+            writePools(writer, httpClient);
+            writeResilience(writer, httpClient);
+        }
+        writeCircuitBreakers(writer);
+        writeEventLoops(writer);
+        writeLoadShedding(writer);
+        writeCaches(writer);
+        writeTracing(writer);
+        writeAccessLog(writer);
+        return writer.toString();
+    }
+
+    private void writeRoutes(PrometheusTextWriter writer) {
+        writer.header("gateway_requests_total", "counter", "Responses written to clients by route and status class");
+        for (RouteMetrics metrics : routes.values()) {
+            for (int i = 0; i < RouteMetrics.STATUS_CLASSES.length; i++) {
+                long count = metrics.getResponseCount(i);
+                if (count > 0) {
+                    writer.sample("gateway_requests_total", count,
+                            "route", metrics.getRoute(), "status", RouteMetrics.STATUS_CLASSES[i]);
+                }
+            }
+        }
+        writer.header("gateway_request_duration_seconds", "summary", "End-to-end request latency by route");
+        for (RouteMetrics metrics : routes.values()) {
+            writer.summary("gateway_request_duration_seconds", metrics.getDuration(), "route", metrics.getRoute());
+        }
+        writer.header("gateway_filter_duration_seconds", "summary", "Request filter chain latency by route");
+        for (RouteMetrics metrics : routes.values()) {
+            writer.summary("gateway_filter_duration_seconds", metrics.getFilterDuration(), "route", metrics.getRoute());
+        }
+    }
+
+    private void writeUpstreams(PrometheusTextWriter writer) {
+        writer.header("gateway_upstream_requests_total", "counter", "Upstream calls by service, instance and outcome");
+        for (Map<String, UpstreamMetrics> instances : upstreams.values()) {
+            for (UpstreamMetrics metrics : instances.values()) {
+                for (int i = 0; i < UpstreamMetrics.OUTCOMES.length; i++) {
+                    long count = metrics.getCallCount(i);
+                    if (count > 0) {
+                        writer.sample("gateway_upstream_requests_total", count, "service", metrics.getService(),
+                                "instance", metrics.getInstance(), "outcome", UpstreamMetrics.OUTCOMES[i]);
+                    }
+                }
+            }
+        }
+        writer.header("gateway_upstream_duration_seconds", "summary", "Upstream latency from request write to response");
+        for (Map<String, UpstreamMetrics> instances : upstreams.values()) {
+            for (UpstreamMetrics metrics : instances.values()) {
+                writer.summary("gateway_upstream_duration_seconds", metrics.getDuration(),
+                        "service", metrics.getService(), "instance", metrics.getInstance());
+            }
+        }
+    }
+
+    private void writePools(PrometheusTextWriter writer, HttpClient httpClient) {
+        Map<String, GatewayChannelPool> pools = httpClient.getChannelPools();
+        writer.header("gateway_pool_acquired_connections", "gauge", "Connections in use per upstream host");
+        for (Map.Entry<String, GatewayChannelPool> entry : pools.entrySet()) {
+            writer.sample("gateway_pool_acquired_connections", entry.getValue().acquiredChannelCount(), "pool", entry.getKey());
+        }
+        writer.header("gateway_pool_pending_acquires", "gauge", "Requests waiting for a connection per upstream host");
+        for (Map.Entry<String, GatewayChannelPool> entry : pools.entrySet()) {
+            writer.sample("gateway_pool_pending_acquires", entry.getValue().pendingAcquireCount(), "pool", entry.getKey());
+        }
+        writer.header("gateway_pool_connection_limit", "gauge", "Current connection limit per upstream host");
+        for (Map.Entry<String, GatewayChannelPool> entry : pools.entrySet()) {
+            writer.sample("gateway_pool_connection_limit", entry.getValue().connectionLimit(), "pool", entry.getKey());
+        }
+        writer.header("gateway_pool_shed_total", "counter", "Acquires rejected by pool overload protection");
+        for (Map.Entry<String, GatewayChannelPool> entry : pools.entrySet()) {
+            writer.sample("gateway_pool_shed_total", entry.getValue().shedCount(), "pool", entry.getKey());
+        }
+        writer.header("gateway_pool_acquire_duration_seconds", "summary", "Time waiting for a pooled connection");
+        for (Map.Entry<String, GatewayChannelPool> entry : pools.entrySet()) {
+            writer.summary("gateway_pool_acquire_duration_seconds", entry.getValue().acquireWaitHistogram(),
+                    "pool", entry.getKey());
+        }
+    }
+
+    private void writeResilience(PrometheusTextWriter writer, HttpClient httpClient) {
+        writer.header("gateway_bulkhead_in_flight", "gauge", "In-flight requests per service bulkhead");
+        for (Bulkhead bulkhead : httpClient.getBulkheadRegistry().getAll()) {
+            writer.sample("gateway_bulkhead_in_flight", bulkhead.getInFlight(), "service", bulkhead.getName());
+        }
+        writer.header("gateway_bulkhead_saturation", "gauge", "In-flight requests divided by the bulkhead limit");
+        for (Bulkhead bulkhead : httpClient.getBulkheadRegistry().getAll()) {
+            writer.sample("gateway_bulkhead_saturation", bulkhead.getSaturation(), "service", bulkhead.getName());
+        }
+        writer.header("gateway_bulkhead_rejected_total", "counter", "Requests rejected by a full bulkhead");
+        for (Bulkhead bulkhead : httpClient.getBulkheadRegistry().getAll()) {
+            writer.sample("gateway_bulkhead_rejected_total", bulkhead.getRejectedCount(), "service", bulkhead.getName());
+        }
+        writer.header("gateway_concurrency_limit", "gauge", "Adaptive concurrency limit per service");
+        for (AdaptiveConcurrencyLimiter limiter : httpClient.getConcurrencyLimiterRegistry().getAll()) {
+            writer.sample("gateway_concurrency_limit", limiter.getLimit(), "service", limiter.getName());
+        }
+        writer.header("gateway_concurrency_in_flight", "gauge", "In-flight requests counted by the adaptive limiter");
+        for (AdaptiveConcurrencyLimiter limiter : httpClient.getConcurrencyLimiterRegistry().getAll()) {
+            writer.sample("gateway_concurrency_in_flight", limiter.getInFlight(), "service", limiter.getName());
+        }
+        writer.header("gateway_concurrency_rejected_total", "counter", "Requests rejected by the adaptive limiter");
+        for (AdaptiveConcurrencyLimiter limiter : httpClient.getConcurrencyLimiterRegistry().getAll()) {
+            writer.sample("gateway_concurrency_rejected_total", limiter.getRejectedCount(), "service", limiter.getName());
+        }
+        writer.header("gateway_throttle_reject_probability", "gauge", "Client-side adaptive throttling probability");
+        for (AdaptiveThrottle throttle : httpClient.getThrottleRegistry().getAll()) {
+            writer.sample("gateway_throttle_reject_probability", throttle.getRejectProbability(), "service", throttle.getName());
+        }
+        writer.header("gateway_throttled_total", "counter", "Requests rejected locally by adaptive throttling");
+        for (AdaptiveThrottle throttle : httpClient.getThrottleRegistry().getAll()) {
+            writer.sample("gateway_throttled_total", throttle.getThrottledCount(), "service", throttle.getName());
+        }
+    }
+
+    private void writeCircuitBreakers(PrometheusTextWriter writer) {
+        CircuitBreakerManager manager = bean(CircuitBreakerManager.class);
+        if (manager == null) {
+            return;
+        }
+        Map<String, CircuitBreaker> breakers = manager.getAllCircuitBreakers();
+        writer.header("gateway_circuit_breaker_state", "gauge", "1 for the current state of each circuit breaker");
+        for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+            CircuitBreaker.State current = entry.getValue().getState();
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                writer.sample("gateway_circuit_breaker_state", state == current ? 1 : 0,
+                        "service", entry.getKey(), "state", state.name());
+            }
+        }
+        writer.header("gateway_circuit_breaker_failure_rate", "gauge", "Failure rate percentage, -1 before minimum calls");
+        for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+            writer.sample("gateway_circuit_breaker_failure_rate", entry.getValue().getMetrics().getFailureRate(),
+                    "service", entry.getKey());
+        }
+    }
+
+    private void writeEventLoops(PrometheusTextWriter writer) {
+        EventLoopMonitor monitor = bean(EventLoopMonitor.class);
+        if (monitor == null) {
+            return;
+        }
+        List<EventLoopMonitor.LoopProbe> probes = monitor.getProbes();
+        writer.header("gateway_event_loop_lag_seconds", "summary", "Event loop scheduling lag of a no-op task");
+        for (EventLoopMonitor.LoopProbe probe : probes) {
+            writer.summary("gateway_event_loop_lag_seconds", probe.getLag(),
+                    "group", probe.getGroup(), "loop", probe.getName());
+        }
+        writer.header("gateway_event_loop_blocked_total", "counter", "Times an event loop was blocked beyond the threshold");
+        for (EventLoopMonitor.LoopProbe probe : probes) {
+            writer.sample("gateway_event_loop_blocked_total", probe.getBlockedCount(),
+                    "group", probe.getGroup(), "loop", probe.getName());
+        }
+    }
+
+    private void writeLoadShedding(PrometheusTextWriter writer) {
+        LoadShedder loadShedder = bean(LoadShedder.class);
+        if (loadShedder == null) {
+            return;
+        }
+        writer.header("gateway_load_shedding_level", "gauge", "Number of priority tiers currently shed");
+        writer.sample("gateway_load_shedding_level", loadShedder.getLevel());
+        writer.header("gateway_load_shed_total", "counter", "Requests shed under overload by priority");
+        for (RequestPriority priority : RequestPriority.values()) {
+            writer.sample("gateway_load_shed_total", loadShedder.getShedCount(priority), "priority", priority.name());
+        }
+    }
+
+    private void writeCaches(PrometheusTextWriter writer) {
+        ResponseCache cache = bean(ResponseCache.class);
+        if (cache != null) {
+            writer.header("gateway_cache_requests_total", "counter", "Response cache lookups by result");
+            writer.sample("gateway_cache_requests_total", cache.getHitCount(), "result", "hit");
+            writer.sample("gateway_cache_requests_total", cache.getStaleHitCount(), "result", "stale");
+            writer.sample("gateway_cache_requests_total", cache.getMissCount(), "result", "miss");
+            writer.header("gateway_cache_evictions_total", "counter", "Response cache evictions");
+            writer.sample("gateway_cache_evictions_total", cache.getEvictionCount());
+            writer.header("gateway_cache_entries", "gauge", "Response cache entries");
+            writer.sample("gateway_cache_entries", cache.getEntryCount());
+        }
+        RequestCoalescer coalescer = bean(RequestCoalescer.class);
+        if (coalescer != null) {
+            writer.header("gateway_coalesced_requests_total", "counter", "Requests served by joining an in-flight request");
+            writer.sample("gateway_coalesced_requests_total", coalescer.getCoalescedCount());
+            writer.header("gateway_coalesced_timeouts_total", "counter", "Coalesced requests that timed out waiting for the in-flight request");
+            writer.sample("gateway_coalesced_timeouts_total", coalescer.getTimedOutCount());
+        }
+        LastKnownGoodStore lastKnownGood = bean(LastKnownGoodStore.class);
+        if (lastKnownGood != null) {
+            writer.header("gateway_last_known_good_served_total", "counter", "Stale responses served on upstream failure");
+            writer.sample("gateway_last_known_good_served_total", lastKnownGood.getServedCount());
+            writer.header("gateway_last_known_good_bytes", "gauge", "Off-heap bytes held by the last-known-good store");
+            writer.sample("gateway_last_known_good_bytes", lastKnownGood.getUsedBytes());
+        }
+        ClusterRateLimitSync cluster = bean(ClusterRateLimitSync.class);
+        if (cluster != null) {
+            writer.header("gateway_rate_limit_sync_packets_total", "counter", "Cluster rate limit sync packets");
+            writer.sample("gateway_rate_limit_sync_packets_total", cluster.getSentPackets(), "direction", "sent");
+            writer.sample("gateway_rate_limit_sync_packets_total", cluster.getReceivedPackets(), "direction", "received");
+            writer.sample("gateway_rate_limit_sync_packets_total", cluster.getDroppedPackets(), "direction", "dropped");
+            writer.sample("gateway_rate_limit_sync_packets_total", cluster.getRejectedPackets(), "direction", "rejected");
+        }
+    }
+
+    private void writeTracing(PrometheusTextWriter writer) {
+        Tracer tracer = bean(Tracer.class);
+        if (tracer == null || !tracer.isEnabled()) {
+            return;
+        }
+        writer.header("gateway_traces_sampled_total", "counter", "Requests sampled for tracing");
+        writer.sample("gateway_traces_sampled_total", tracer.getSampledTraces());
+        writer.header("gateway_spans_total", "counter", "Finished spans by export result");
+        writer.sample("gateway_spans_total", tracer.getExportedSpans(), "result", "exported");
+        writer.sample("gateway_spans_total", tracer.getDroppedSpans(), "result", "dropped");
+        writer.sample("gateway_spans_total", tracer.getFailedSpans(), "result", "failed");
+    }
+
+    private void writeAccessLog(PrometheusTextWriter writer) {
+        AccessLogger accessLogger = bean(AccessLogger.class);
+        if (accessLogger == null || !accessLogger.isEnabled()) {
+            return;
+        }
+        writer.header("gateway_access_log_records_total", "counter", "Access log records by result");
+        writer.sample("gateway_access_log_records_total", accessLogger.getWrittenRecords(), "result", "written");
+        writer.sample("gateway_access_log_records_total", accessLogger.getDroppedRecords(), "result", "dropped");
+        writer.header("gateway_access_log_files_total", "counter", "Access log files created");
+        writer.sample("gateway_access_log_files_total", accessLogger.getRotatedFiles());
+    }
+
+    /**
+     * 可选组件，未注册时返回null
+     */
+    private static <T> T bean(Class<T> type) {
+        try {
+            return ApplicationContextHolder.getBean(type);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
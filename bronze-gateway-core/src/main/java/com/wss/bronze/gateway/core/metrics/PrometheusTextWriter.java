@@ -0,0 +1,81 @@
+package com.wss.bronze.gateway.core.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Prometheus文本格式（0.0.4）输出，耗时直方图按summary输出分位数
+ *
+ * @author wss
+ */
+final class PrometheusTextWriter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StringBuilder out = new StringBuilder(8192);
+
+    PrometheusTextWriter header(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels 标签名与标签值交替排列
+     */
+    PrometheusTextWriter sample(String name, double value, String... labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                escape(labels[i + 1]);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == (long) value) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+        return this;
+    }
+
+    /**
+     * 输出微秒直方图为以秒为单位的summary
+     */
+    PrometheusTextWriter summary(String name, LatencyHistogram histogram, String... labels) {
+        String[] quantileLabels = Arrays.copyOf(labels, labels.length + 2);
+        quantileLabels[labels.length] = "quantile";
+        for (double quantile : QUANTILES) {
+            quantileLabels[labels.length + 1] = String.valueOf(quantile);
+            sample(name, histogram.getValueAtPercentile(quantile * 100) / 1e6, quantileLabels);
+        }
+        sample(name + "_sum", histogram.getSum() / 1e6, labels);
+        sample(name + "_count", histogram.getCount(), labels);
+        return this;
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
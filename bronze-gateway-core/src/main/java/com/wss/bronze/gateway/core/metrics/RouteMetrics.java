@@ -0,0 +1,61 @@
+package com.wss.bronze.gateway.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路由级指标：按状态码类别计数，端到端耗时与过滤器耗时（微秒）
+ * 每个路由一个实例，请求路径上只做计数自增，不分配内存
+ *
+ * @author wss
+ */
+public final class RouteMetrics {
+
+    // 下标为 状态码/100，0表示无法识别的状态码
+    static final String[] STATUS_CLASSES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final String route;
+    private final LongAdder[] responses = new LongAdder[STATUS_CLASSES.length];
+    private final LatencyHistogram duration = new LatencyHistogram();
+    private final LatencyHistogram filterDuration = new LatencyHistogram();
+
+    RouteMetrics(String route) {
+        this.route = route;
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次写回客户端的响应
+     * @param durationNanos 从收到请求到写出响应的时间
+     */
+    public void recordResponse(int status, long durationNanos) {
+        responses[statusClass(status)].increment();
+        duration.record(durationNanos / 1000);
+    }
+
+    public void recordFilters(long durationNanos) {
+        filterDuration.record(durationNanos / 1000);
+    }
+
+    static int statusClass(int status) {
+        int statusClass = status / 100;
+        return statusClass >= 1 && statusClass <= 5 ? statusClass : 0;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getResponseCount(int statusClass) {
+        return responses[statusClass].sum();
+    }
+
+    public LatencyHistogram getDuration() {
+        return duration;
+    }
+
+    public LatencyHistogram getFilterDuration() {
+        return filterDuration;
+    }
+}
@@ -0,0 +1,56 @@
+package com.wss.bronze.gateway.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 后端服务（实例）级指标：按响应状态码类别与失败计数，请求发出到响应的耗时（微秒）
+ *
+ * @author wss
+ */
+public final class UpstreamMetrics {
+
+    // 前6个与RouteMetrics.STATUS_CLASSES一致，最后一个为超时、连接失败等未收到响应的调用
+    static final String[] OUTCOMES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx", "error"};
+    private static final int ERROR = OUTCOMES.length - 1;
+
+    private final String service;
+    private final String instance;
+    private final LongAdder[] calls = new LongAdder[OUTCOMES.length];
+    private final LatencyHistogram duration = new LatencyHistogram();
+
+    UpstreamMetrics(String service, String instance) {
+        this.service = service;
+        this.instance = instance;
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次后端调用
+     * @param status 后端响应状态码，未收到响应时为0
+     * @param durationNanos 请求发出到调用结束的时间，请求未发出时小于0，不记录耗时
+     */
+    public void recordCall(int status, long durationNanos) {
+        calls[status > 0 ? RouteMetrics.statusClass(status) : ERROR].increment();
+        if (durationNanos >= 0) {
+            duration.record(durationNanos / 1000);
+        }
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public long getCallCount(int outcome) {
+        return calls[outcome].sum();
+    }
+
+    public LatencyHistogram getDuration() {
+        return duration;
+    }
+}
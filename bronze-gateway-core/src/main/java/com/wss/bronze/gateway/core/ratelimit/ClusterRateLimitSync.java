@@ -0,0 +1,343 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群限流同步
+ * 各节点在本地GCRA上判定，不在请求路径上访问网络；每个同步周期把本节点各key消耗的许可数发送给其他节点，
+ * 其他节点收到后在自己的限流器上扣除（GcraRateLimiter.charge），因此每个节点看到的都是近似的全局用量：
+ * 流量集中在哪个节点，哪个节点就自然分到更多配额，不需要按节点数平分
+ * 超出配额的误差上限约为 节点数 × 速率 × 同步间隔，消息丢失时误差只会偏向放行
+ *
+ * 消息格式：magic(int) nodeId(long) sentMillis(long) sequence(int)
+ * 之后重复 [name(short长度+UTF-8) key(short长度+UTF-8) permits(int)]，配置secret时末尾附加32字节HMAC-SHA256
+ * 接收时丢弃签名错误、发送时间与本机相差超过maxClockSkewMs、或序号不大于该节点上一条消息的消息（防止重放）
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class ClusterRateLimitSync implements DisposableBean {
+
+    private static final int MAGIC = 0x42474C32;
+    private static final int HEADER_BYTES = 24;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 32;
+    // 超过该长度的key不同步，只在本地限流
+    private static final int MAX_KEY_BYTES = 512;
+
+    @Autowired
+    private GatewayProperties properties;
+    // 自定义传输层，未提供时使用UDP
+    @Autowired(required = false)
+    private RateLimitSyncTransport transport;
+
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final Map<String, ClusterLimit> limits = new ConcurrentHashMap<>();
+    // 其他节点最近一条消息的序号，按nodeId区分
+    private final Map<Long, PeerState> peerStates = new ConcurrentHashMap<>();
+    private volatile boolean started;
+    private int maxPacketBytes;
+    private long maxClockSkewMs;
+    // 签名与验签，未配置secret时为null；signMac只在传输层事件循环中使用
+    private Mac signMac;
+    private Mac verifyMac;
+    private int sequence;
+
+    private final LongAdder sentPackets = new LongAdder();
+    private final LongAdder receivedPackets = new LongAdder();
+    private final LongAdder droppedPackets = new LongAdder();
+
+    @PostConstruct
+    public void init() throws Exception {
+        GatewayProperties.ClusterRateLimit config = properties.getClusterRateLimit();
+        if (!config.isEnabled()) {
+            return;
+        }
+        this.maxPacketBytes = Math.max(config.getMaxPacketBytes(), 256);
+        this.maxClockSkewMs = Math.max(config.getMaxClockSkewMs(), 1000L);
+        boolean signed = config.getSecret() != null && !config.getSecret().isEmpty();
+        if (signed) {
+            this.signMac = newMac(config.getSecret());
+            this.verifyMac = newMac(config.getSecret());
+        }
+        if (transport == null) {
+            if (!signed && !InetAddress.getByName(config.getBindHost()).isLoopbackAddress()) {
+                throw new IllegalStateException("Cluster rate limit sync bound to " + config.getBindHost()
+                        + " requires gateway.cluster-rate-limit.secret");
+            }
+            transport = new UdpSyncTransport(config.getBindHost(), config.getPort(), config.getPeers());
+        }
+        transport.start(this::receive);
+        long interval = Math.max(config.getSyncIntervalMs(), 10);
+        transport.eventLoop().scheduleAtFixedRate(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        started = true;
+        log.info("Cluster rate limit sync started, nodeId: {}, interval: {}ms, signed: {}",
+                Long.toHexString(nodeId), interval, signed);
+    }
+
+    private static Mac newMac(String secret) throws Exception {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM));
+        return mac;
+    }
+
+    /**
+     * 注册参与集群同步的限流器，各节点使用相同的name；同名的限流器会替换之前注册的限流器
+     * @return 未开启集群同步时返回null，只在本地限流
+     */
+    public ClusterLimit register(String name, GcraRateLimiter limiter) {
+        if (!properties.getClusterRateLimit().isEnabled()) {
+            return null;
+        }
+        if (ByteBufUtil.utf8Bytes(name) > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Cluster rate limit name too long: " + name);
+        }
+        ClusterLimit limit = new ClusterLimit(name, limiter);
+        if (limits.put(name, limit) != null) {
+            log.info("Cluster rate limit {} replaced", name);
+        }
+        return limit;
+    }
+
+    /**
+     * 注销限流器，已被同名限流器替换时忽略
+     */
+    public void deregister(ClusterLimit limit) {
+        limits.remove(limit.name, limit);
+    }
+
+    /**
+     * 发送本周期的用量增量，在传输层事件循环中执行
+     */
+    private void flush() {
+        if (!started) {
+            return;
+        }
+        ByteBuf packet = null;
+        int macBytes = signMac != null ? MAC_BYTES : 0;
+        try {
+            prunePeerStates();
+            for (ClusterLimit limit : limits.values()) {
+                Map<String, AtomicInteger> deltas = limit.drain();
+                if (deltas.isEmpty()) {
+                    continue;
+                }
+                int nameBytes = ByteBufUtil.utf8Bytes(limit.name);
+                for (Map.Entry<String, AtomicInteger> delta : deltas.entrySet()) {
+                    int keyBytes = ByteBufUtil.utf8Bytes(delta.getKey());
+                    if (keyBytes > MAX_KEY_BYTES) {
+                        continue;
+                    }
+                    int entryBytes = 2 + nameBytes + 2 + keyBytes + 4;
+                    if (packet != null && packet.readableBytes() + entryBytes + macBytes > maxPacketBytes) {
+                        send(packet);
+                        packet = null;
+                    }
+                    if (packet == null) {
+                        packet = PooledByteBufAllocator.DEFAULT.buffer(maxPacketBytes);
+                        packet.writeInt(MAGIC).writeLong(nodeId)
+                                .writeLong(System.currentTimeMillis()).writeInt(++sequence);
+                    }
+                    packet.writeShort(nameBytes);
+                    ByteBufUtil.reserveAndWriteUtf8(packet, limit.name, nameBytes);
+                    packet.writeShort(keyBytes);
+                    ByteBufUtil.reserveAndWriteUtf8(packet, delta.getKey(), keyBytes);
+                    packet.writeInt(delta.getValue().get());
+                }
+            }
+            if (packet != null) {
+                send(packet);
+                packet = null;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to flush cluster rate limit deltas", e);
+        } finally {
+            if (packet != null) {
+                packet.release();
+            }
+        }
+    }
+
+    private void send(ByteBuf packet) {
+        if (signMac != null) {
+            signMac.update(packet.nioBuffer(packet.readerIndex(), packet.readableBytes()));
+            packet.writeBytes(signMac.doFinal());
+        }
+        sentPackets.increment();
+        transport.broadcast(packet);
+    }
+
+    /**
+     * 处理其他节点的用量增量，格式错误、签名错误或重放的消息整体丢弃
+     */
+    private void receive(ByteBuf message) {
+        int macBytes = verifyMac != null ? MAC_BYTES : 0;
+        if (message.readableBytes() < HEADER_BYTES + macBytes || message.getInt(message.readerIndex()) != MAGIC
+                || (verifyMac != null && !verifyAndStrip(message))) {
+            droppedPackets.increment();
+            return;
+        }
+        message.skipBytes(4);
+        long sender = message.readLong();
+        if (sender == nodeId) {
+            return;
+        }
+        if (!acceptSequence(sender, message.readLong(), message.readInt())) {
+            droppedPackets.increment();
+            return;
+        }
+        receivedPackets.increment();
+        long now = System.nanoTime();
+        try {
+            while (message.isReadable()) {
+                String name = message.readCharSequence(message.readUnsignedShort(), CharsetUtil.UTF_8).toString();
+                String key = message.readCharSequence(message.readUnsignedShort(), CharsetUtil.UTF_8).toString();
+                int permits = message.readInt();
+                ClusterLimit limit = limits.get(name);
+                if (limit != null && permits > 0) {
+                    limit.limiter.charge(key, permits, now);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            droppedPackets.increment();
+        }
+    }
+
+    /**
+     * 校验末尾的HMAC，通过后去掉签名部分
+     */
+    private boolean verifyAndStrip(ByteBuf message) {
+        int payloadBytes = message.readableBytes() - MAC_BYTES;
+        byte[] expected;
+        synchronized (verifyMac) {
+            verifyMac.update(message.nioBuffer(message.readerIndex(), payloadBytes));
+            expected = verifyMac.doFinal();
+        }
+        byte[] actual = new byte[MAC_BYTES];
+        message.getBytes(message.readerIndex() + payloadBytes, actual);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return false;
+        }
+        message.writerIndex(message.readerIndex() + payloadBytes);
+        return true;
+    }
+
+    /**
+     * 发送时间超出允许的时钟偏差，或序号不大于该节点上一条消息时拒绝
+     * UDP乱序到达的旧消息同样被丢弃，只会让误差偏向放行
+     */
+    private boolean acceptSequence(long sender, long sentMillis, int sequence) {
+        long now = System.currentTimeMillis();
+        if (Math.abs(now - sentMillis) > maxClockSkewMs) {
+            return false;
+        }
+        PeerState state = peerStates.computeIfAbsent(sender, k -> new PeerState());
+        synchronized (state) {
+            if (state.lastSeenMillis != 0 && sequence - state.lastSequence <= 0) {
+                return false;
+            }
+            state.lastSequence = sequence;
+            state.lastSeenMillis = now;
+        }
+        return true;
+    }
+
+    /**
+     * 清理长时间没有消息的节点（如已重启的节点），此后重放的旧消息已超出时钟偏差窗口
+     */
+    private void prunePeerStates() {
+        long expireBefore = System.currentTimeMillis() - 3 * maxClockSkewMs;
+        for (Iterator<PeerState> it = peerStates.values().iterator(); it.hasNext(); ) {
+            if (it.next().lastSeenMillis < expireBefore) {
+                it.remove();
+            }
+        }
+    }
+
+    public long getSentPackets() {
+        return sentPackets.sum();
+    }
+
+    public long getReceivedPackets() {
+        return receivedPackets.sum();
+    }
+
+    public long getDroppedPackets() {
+        return droppedPackets.sum();
+    }
+
+    public long getRejectedPackets() {
+        return transport != null ? transport.getRejectedPackets() : 0;
+    }
+
+    @Override
+    public void destroy() {
+        started = false;
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private static final class PeerState {
+        private int lastSequence;
+        private long lastSeenMillis;
+    }
+
+    /**
+     * 参与集群同步的限流器，本地放行的请求通过record记录用量
+     */
+    public static final class ClusterLimit {
+        private final String name;
+        private final GcraRateLimiter limiter;
+        private volatile Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+        private ClusterLimit(String name, GcraRateLimiter limiter) {
+            this.name = name;
+            this.limiter = limiter;
+        }
+
+        public void record(String key) {
+            Map<String, AtomicInteger> current = pending;
+            AtomicInteger counter = current.get(key);
+            if (counter == null) {
+                counter = current.computeIfAbsent(key, k -> new AtomicInteger());
+            }
+            counter.incrementAndGet();
+        }
+
+        /**
+         * 取出本周期的增量；与交换并发的少量record可能落在旧表中被忽略，只会让误差偏向放行
+         */
+        private Map<String, AtomicInteger> drain() {
+            Map<String, AtomicInteger> current = pending;
+            if (current.isEmpty()) {
+                return current;
+            }
+            pending = new ConcurrentHashMap<>();
+            return current;
+        }
+    }
+}
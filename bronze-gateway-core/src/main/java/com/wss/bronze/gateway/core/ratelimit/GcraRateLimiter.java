@@ -0,0 +1,190 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按key限流的GCRA（通用信元速率算法，等价于令牌桶）
+ * 每个key只保存一个理论到达时间TAT（System.nanoTime），判定为一次CAS，无锁
+ * TAT不晚于当前时间的key等价于令牌已满，可以直接删除而不影响限流结果，据此回收空闲key；
+ * 回收时先把TAT置为EVICTED再删除，正在判定该key的线程CAS失败后重新查找，不会在已删除的状态上放行
+ * key数量达到上限且无法回收时，新key共用一个溢出桶（fail-closed），避免伪造大量key绕过限流，并计数
+ *
+ * @author wss
+ */
+@Slf4j
+public final class GcraRateLimiter {
+
+    // 每插入多少个新key顺带回收一次空闲key
+    private static final int SWEEP_INTERVAL = 4096;
+    // 集群限流时允许的最大欠账
+    private static final long MAX_DEBT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // key数量达到上限时两次回收的最小间隔，避免每个新key都遍历全部key
+    private static final long FULL_SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 已回收状态的TAT
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int burst;
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, AtomicLong> states;
+    private final AtomicInteger insertions = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong lastFullSweepNanos = new AtomicLong(System.nanoTime() - FULL_SWEEP_INTERVAL_NANOS);
+    // 超出maxKeys的key共用的状态，不参与回收
+    private final AtomicLong overflowState;
+    private final LongAdder overflowCount = new LongAdder();
+
+    /**
+     * @param permitsPerSecond 持续速率
+     * @param burst 突发容量（桶大小），不小于1
+     * @param maxKeys 最多保存的key数量
+     */
+    public GcraRateLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = Math.max(burst, 1);
+        this.burstToleranceNanos = emissionIntervalNanos * this.burst;
+        this.maxKeys = Math.max(maxKeys, 1);
+        this.states = new ConcurrentHashMap<>(Math.min(this.maxKeys, 1 << 16));
+        // 早于任何时间，初始令牌为满
+        this.overflowState = new AtomicLong(EVICTED + 1);
+    }
+
+    /**
+     * 尝试获取一个许可
+     * @return 大于等于0表示放行，值为剩余许可数；小于0表示拒绝，-(返回值+1)为需要等待的纳秒数
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong state = state(key, nowNanos);
+        for (;;) {
+            long tat = state.get();
+            if (tat == EVICTED) {
+                state = state(key, nowNanos);
+                continue;
+            }
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long allowAt = newTat - burstToleranceNanos;
+            if (nowNanos - allowAt < 0) {
+                return -(allowAt - nowNanos) - 1;
+            }
+            if (state.compareAndSet(tat, newTat)) {
+                return (nowNanos - allowAt) / emissionIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * 扣除其他节点已消耗的许可（集群限流），只推进TAT不做判定
+     * 集群整体超额时允许欠账，使各节点在之后的周期少放行；欠账最多1秒，避免异常消息长时间封禁key
+     */
+    public void charge(String key, long permits, long nowNanos) {
+        long cost = permits * emissionIntervalNanos;
+        AtomicLong state = states.get(key);
+        for (;;) {
+            if (state == null) {
+                // 本节点无法跟踪的key不扣除溢出桶，避免其他节点的流量耗尽本节点溢出桶
+                state = newState(key, nowNanos);
+                if (state == null) {
+                    return;
+                }
+            }
+            long tat = state.get();
+            if (tat == EVICTED) {
+                state = states.get(key);
+                continue;
+            }
+            long newTat = Math.max(tat, nowNanos) + cost;
+            long limit = nowNanos + burstToleranceNanos + MAX_DEBT_NANOS;
+            if (newTat - limit > 0) {
+                newTat = limit;
+            }
+            if (newTat - tat <= 0 || state.compareAndSet(tat, newTat)) {
+                return;
+            }
+        }
+    }
+
+    private AtomicLong state(String key, long nowNanos) {
+        AtomicLong state = states.get(key);
+        if (state == null) {
+            state = newState(key, nowNanos);
+            if (state == null) {
+                overflowCount.increment();
+                return overflowState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @return key数量达到上限时返回null
+     */
+    private AtomicLong newState(String key, long nowNanos) {
+        if ((insertions.incrementAndGet() & (SWEEP_INTERVAL - 1)) == 0) {
+            sweep(nowNanos);
+        } else if (states.size() >= maxKeys) {
+            long last = lastFullSweepNanos.get();
+            if (nowNanos - last >= FULL_SWEEP_INTERVAL_NANOS && lastFullSweepNanos.compareAndSet(last, nowNanos)) {
+                sweep(nowNanos);
+            }
+        }
+        if (states.size() >= maxKeys) {
+            return null;
+        }
+        return states.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+    }
+
+    /**
+     * 回收令牌已满的key，同一时刻只有一个线程执行
+     */
+    private void sweep(long nowNanos) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Map.Entry<String, AtomicLong>> iterator = states.entrySet().iterator();
+            while (iterator.hasNext()) {
+                AtomicLong state = iterator.next().getValue();
+                long tat = state.get();
+                // CAS失败说明有线程刚推进了TAT，保留
+                if (tat - nowNanos <= 0 && state.compareAndSet(tat, EVICTED)) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * 令牌从当前剩余数恢复到满所需的纳秒数（近似）
+     */
+    public long resetNanos(long remaining) {
+        return Math.max(0L, (burst - remaining) * emissionIntervalNanos);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getKeyCount() {
+        return states.size();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+}
@@ -0,0 +1,40 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+
+import java.util.function.Consumer;
+
+/**
+ * 集群限流同步传输层，默认实现为UDP广播（UdpSyncTransport），可替换为其他传输方式
+ * 消息不可靠、可乱序，丢失只会让集群总量短暂略高于配额
+ *
+ * @author wss
+ */
+public interface RateLimitSyncTransport {
+
+    /**
+     * 启动传输
+     * @param receiver 收到其他节点的消息时回调，ByteBuf由调用方释放
+     */
+    void start(Consumer<ByteBuf> receiver) throws Exception;
+
+    /**
+     * 把消息发送给所有节点，发送后释放message
+     */
+    void broadcast(ByteBuf message);
+
+    /**
+     * 执行定时同步的事件循环
+     */
+    EventLoop eventLoop();
+
+    /**
+     * 传输层直接丢弃的消息数（如来源不是已配置的节点）
+     */
+    default long getRejectedPackets() {
+        return 0;
+    }
+
+    void close();
+}
@@ -0,0 +1,121 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 基于UDP的同步传输，单线程事件循环，每条消息直接发送给全部peer（节点数较少时比多跳gossip延迟更低）
+ * 只接收来源IP属于已配置peer的消息，其余直接丢弃
+ *
+ * @author wss
+ */
+@Slf4j
+public class UdpSyncTransport implements RateLimitSyncTransport {
+
+    private final String bindHost;
+    private final int port;
+    private final List<InetSocketAddress> peers = new ArrayList<>();
+    // 允许的消息来源，peer主机名在创建时解析
+    private final Set<InetAddress> allowedSenders = new HashSet<>();
+    private final LongAdder rejectedPackets = new LongAdder();
+
+    private EventLoopGroup group;
+    private Channel channel;
+
+    public UdpSyncTransport(String bindHost, int port, List<String> peers) {
+        this.bindHost = bindHost;
+        this.port = port;
+        for (String peer : peers) {
+            int index = peer.lastIndexOf(':');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid peer address: " + peer);
+            }
+            InetSocketAddress address = new InetSocketAddress(peer.substring(0, index),
+                    Integer.parseInt(peer.substring(index + 1)));
+            if (address.isUnresolved()) {
+                throw new IllegalArgumentException("Unresolvable peer address: " + peer);
+            }
+            this.peers.add(address);
+            this.allowedSenders.add(address.getAddress());
+        }
+    }
+
+    @Override
+    public void start(Consumer<ByteBuf> receiver) throws Exception {
+        group = new NioEventLoopGroup(1, new DefaultThreadFactory("gateway-ratelimit-sync", true));
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        if (!allowedSenders.contains(packet.sender().getAddress())) {
+                            rejectedPackets.increment();
+                            log.debug("Dropped rate limit sync packet from unknown sender {}", packet.sender());
+                            return;
+                        }
+                        receiver.accept(packet.content());
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        log.warn("Rate limit sync channel error: {}", cause.getMessage());
+                    }
+                });
+        channel = bootstrap.bind(bindHost, port).sync().channel();
+        log.info("Rate limit sync transport bound on {}:{}, peers: {}", bindHost, port, peers);
+    }
+
+    @Override
+    public void broadcast(ByteBuf message) {
+        try {
+            for (InetSocketAddress peer : peers) {
+                channel.write(new DatagramPacket(message.retainedDuplicate(), peer), channel.voidPromise());
+            }
+            channel.flush();
+        } finally {
+            message.release();
+        }
+    }
+
+    @Override
+    public EventLoop eventLoop() {
+        return channel.eventLoop();
+    }
+
+    @Override
+    public long getRejectedPackets() {
+        return rejectedPackets.sum();
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close();
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限制（Gradient算法），根据后端RTT持续估算服务能承受的并发数
+ * 基准RTT在探测窗口内测得：探测时并发限制临时降到minLimit，后端几乎不排队，窗口平均RTT即为基准，之后周期性重新探测
+ * 每个窗口取平均RTT，gradient = rttTolerance * 基准RTT / 窗口RTT，限制 = limit * gradient + sqrt(limit)：
+ * RTT明显高于基准说明后端开始排队，限制收缩；否则在限制之上保留sqrt(limit)的排队余量继续增长
+ * 窗口内出现超时、连接失败、502/503/504时按backoffRatio乘性减小
+ * 获取与记录只做原子计数，窗口结束时由一个线程CAS抢到后计算新限制
+ *
+ * @author wss
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final AtomicIntegerFieldUpdater<AdaptiveConcurrencyLimiter> IN_FLIGHT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(AdaptiveConcurrencyLimiter.class, "inFlight");
+    private static final AtomicLongFieldUpdater<AdaptiveConcurrencyLimiter> WINDOW_START_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(AdaptiveConcurrencyLimiter.class, "windowStartNanos");
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double MAX_GRADIENT = 2.0;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final int probeIntervalWindows;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private volatile int inFlight;
+    private volatile double limit;
+    private volatile int limitInt;
+    // 基准RTT（纳秒），0表示尚未探测
+    private volatile double baselineRttNanos;
+    // 探测结束后恢复的限制，0表示不在探测中
+    private double limitBeforeProbe;
+    private int windowsSinceProbe;
+
+    // 当前窗口
+    private volatile long windowStartNanos = System.nanoTime();
+    private final AtomicLong windowRttSum = new AtomicLong();
+    private final AtomicLong windowSamples = new AtomicLong();
+    private final AtomicLong windowDrops = new AtomicLong();
+    private volatile int windowMaxInFlight;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String name, GatewayProperties.Resilience.AdaptiveLimitConfig config) {
+        this.name = name;
+        this.minLimit = Math.max(1, config.getMinLimit());
+        this.maxLimit = Math.max(minLimit, config.getMaxLimit());
+        this.smoothing = config.getSmoothing();
+        this.rttTolerance = config.getRttTolerance();
+        this.backoffRatio = config.getBackoffRatio();
+        this.probeIntervalWindows = Math.max(1, config.getProbeIntervalWindows());
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getWindowMs());
+        this.minWindowSamples = config.getMinWindowSamples();
+        // 启动后先探测基准RTT
+        limitBeforeProbe = Math.min(maxLimit, Math.max(minLimit, config.getInitialLimit()));
+        setLimit(minLimit);
+    }
+
+    /**
+     * 尝试占用一个并发名额，成功后必须调用一次onSample或release
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight;
+            if (current >= limitInt) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (IN_FLIGHT_UPDATER.compareAndSet(this, current, current + 1)) {
+                if (current + 1 > windowMaxInFlight) {
+                    // 只用于判断是否受应用本身流量限制，并发更新时允许丢失
+                    windowMaxInFlight = current + 1;
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放名额，不记录样本（如请求未发送到后端）
+     */
+    public void release() {
+        IN_FLIGHT_UPDATER.decrementAndGet(this);
+    }
+
+    /**
+     * 释放名额并记录一次后端调用
+     * @param rttNanos 请求发出到收到响应的时间
+     * @param dropped 是否超时、连接失败或后端过载
+     */
+    public void onSample(long rttNanos, boolean dropped) {
+        IN_FLIGHT_UPDATER.decrementAndGet(this);
+        if (dropped) {
+            windowDrops.incrementAndGet();
+        } else {
+            windowRttSum.addAndGet(rttNanos);
+        }
+        long samples = windowSamples.incrementAndGet();
+        long start = windowStartNanos;
+        long now = System.nanoTime();
+        if (now - start >= windowNanos && samples >= minWindowSamples
+                && WINDOW_START_UPDATER.compareAndSet(this, start, now)) {
+            updateLimit();
+        }
+    }
+
+    /**
+     * 只由抢到窗口的线程调用，探测状态无需同步
+     */
+    private void updateLimit() {
+        long rttSum = windowRttSum.getAndSet(0);
+        long samples = windowSamples.getAndSet(0);
+        long drops = windowDrops.getAndSet(0);
+        int maxInFlight = windowMaxInFlight;
+        windowMaxInFlight = inFlight;
+        double windowRtt = samples > drops ? (double) rttSum / (samples - drops) : 0;
+
+        if (limitBeforeProbe > 0) {
+            if (maxInFlight > minLimit || windowRtt == 0) {
+                // 探测前发出的请求尚未完成，它们的RTT不能作为基准，继续等待
+                return;
+            }
+            baselineRttNanos = windowRtt;
+            setLimit(drops > 0 ? Math.max(minLimit, limitBeforeProbe * backoffRatio) : limitBeforeProbe);
+            limitBeforeProbe = 0;
+            windowsSinceProbe = 0;
+            return;
+        }
+        if (++windowsSinceProbe >= probeIntervalWindows) {
+            // 重新探测基准RTT，后端变慢或变快后基准随之更新
+            limitBeforeProbe = limit;
+            setLimit(minLimit);
+            return;
+        }
+
+        double current = limit;
+        double newLimit;
+        if (drops > 0) {
+            newLimit = current * backoffRatio;
+        } else {
+            // 在途请求不到限制的一半时说明流量本身不足，RTT不能反映限制是否合适
+            if (windowRtt == 0 || maxInFlight < current / 2) {
+                return;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(MAX_GRADIENT, rttTolerance * baselineRttNanos / windowRtt));
+            newLimit = current * gradient + Math.sqrt(current);
+        }
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        setLimit(Math.max(minLimit, Math.min(maxLimit, newLimit)));
+    }
+
+    private void setLimit(double newLimit) {
+        limit = newLimit;
+        limitInt = (int) newLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limitInt;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 基准RTT（微秒）
+     */
+    public long getBaselineRttMicros() {
+        return (long) (baselineRttNanos / 1000);
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,40 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按服务创建自适应并发限制器，未启用时不创建
+ *
+ * @author wss
+ */
+public class AdaptiveConcurrencyLimiterRegistry {
+
+    private final GatewayProperties.Resilience.AdaptiveLimitConfig config;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiterRegistry(GatewayProperties.Resilience.AdaptiveLimitConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取或创建服务的限制器
+     * @return 未启用或无服务ID时返回null
+     */
+    public AdaptiveConcurrencyLimiter get(String serviceId) {
+        if (!config.isEnabled() || serviceId == null) {
+            return null;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.get(serviceId);
+        return limiter != null ? limiter
+                : limiters.computeIfAbsent(serviceId, id -> new AdaptiveConcurrencyLimiter(id, config));
+    }
+
+    public Collection<AdaptiveConcurrencyLimiter> getAll() {
+        return Collections.unmodifiableCollection(limiters.values());
+    }
+}
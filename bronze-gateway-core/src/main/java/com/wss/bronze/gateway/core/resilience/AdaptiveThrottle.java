@@ -0,0 +1,119 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端自适应节流（Google SRE），按最近窗口内的请求数与后端接受数在本地按比例拒绝请求
+ * 拒绝概率 = max(0, (requests - k * accepts) / (requests + 1))
+ * 后端返回429/503、超时或连接失败时不计为接受；本地拒绝的请求也计入requests，后端恢复后拒绝比例随之下降
+ * 计数按秒分桶，拒绝概率每100ms重新计算一次，请求路径上只读取一个volatile字段
+ *
+ * @author wss
+ */
+public final class AdaptiveThrottle {
+
+    private static final AtomicLongFieldUpdater<AdaptiveThrottle> NEXT_UPDATE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(AdaptiveThrottle.class, "nextUpdateNanos");
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final double k;
+    private final double maxRejectProbability;
+    private final int buckets;
+    // 下标为秒数对桶数取模，bucketSeconds记录桶所属的秒，不属于当前窗口的桶视为空
+    private final AtomicLongArray bucketSeconds;
+    private final AtomicLongArray requests;
+    private final AtomicLongArray accepts;
+
+    private volatile double rejectProbability;
+    private volatile long nextUpdateNanos = System.nanoTime();
+    private final LongAdder throttledCount = new LongAdder();
+
+    public AdaptiveThrottle(String name, GatewayProperties.Resilience.AdaptiveThrottleConfig config) {
+        this.name = name;
+        this.k = config.getK();
+        this.maxRejectProbability = config.getMaxRejectProbability();
+        this.buckets = Math.max(1, config.getWindowSeconds());
+        this.bucketSeconds = new AtomicLongArray(buckets);
+        this.requests = new AtomicLongArray(buckets);
+        this.accepts = new AtomicLongArray(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bucketSeconds.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * 是否在本地拒绝请求，拒绝的请求计入requests
+     */
+    public boolean shouldThrottle() {
+        double probability = rejectProbability;
+        if (probability <= 0 || ThreadLocalRandom.current().nextDouble() >= probability) {
+            return false;
+        }
+        throttledCount.increment();
+        record(false);
+        return true;
+    }
+
+    /**
+     * 记录一次请求结果
+     * @param accepted 后端是否接受了请求
+     */
+    public void record(boolean accepted) {
+        long now = System.nanoTime();
+        int index = bucket(now / SECOND_NANOS);
+        requests.incrementAndGet(index);
+        if (accepted) {
+            accepts.incrementAndGet(index);
+        }
+        long next = nextUpdateNanos;
+        if (now - next >= 0 && NEXT_UPDATE_UPDATER.compareAndSet(this, next, now + UPDATE_INTERVAL_NANOS)) {
+            updateProbability(now / SECOND_NANOS);
+        }
+    }
+
+    /**
+     * 定位当前秒的桶，桶属于更早的秒时先清零；并发清零时少量计数可能丢失，不影响比例
+     */
+    private int bucket(long second) {
+        int index = (int) (second % buckets);
+        long owner = bucketSeconds.get(index);
+        if (owner != second && bucketSeconds.compareAndSet(index, owner, second)) {
+            requests.set(index, 0);
+            accepts.set(index, 0);
+        }
+        return index;
+    }
+
+    private void updateProbability(long second) {
+        long totalRequests = 0;
+        long totalAccepts = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (second - bucketSeconds.get(i) < buckets) {
+                totalRequests += requests.get(i);
+                totalAccepts += accepts.get(i);
+            }
+        }
+        double probability = (totalRequests - k * totalAccepts) / (totalRequests + 1);
+        rejectProbability = Math.max(0, Math.min(maxRejectProbability, probability));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getRejectProbability() {
+        return rejectProbability;
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+}
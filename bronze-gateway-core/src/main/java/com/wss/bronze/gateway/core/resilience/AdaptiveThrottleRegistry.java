@@ -0,0 +1,40 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按服务创建自适应节流器，未启用时不创建
+ *
+ * @author wss
+ */
+public class AdaptiveThrottleRegistry {
+
+    private final GatewayProperties.Resilience.AdaptiveThrottleConfig config;
+    private final Map<String, AdaptiveThrottle> throttles = new ConcurrentHashMap<>();
+
+    public AdaptiveThrottleRegistry(GatewayProperties.Resilience.AdaptiveThrottleConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取或创建服务的节流器
+     * @return 未启用或无服务ID时返回null
+     */
+    public AdaptiveThrottle get(String serviceId) {
+        if (!config.isEnabled() || serviceId == null) {
+            return null;
+        }
+        AdaptiveThrottle throttle = throttles.get(serviceId);
+        return throttle != null ? throttle
+                : throttles.computeIfAbsent(serviceId, id -> new AdaptiveThrottle(id, config));
+    }
+
+    public Collection<AdaptiveThrottle> getAll() {
+        return Collections.unmodifiableCollection(throttles.values());
+    }
+}
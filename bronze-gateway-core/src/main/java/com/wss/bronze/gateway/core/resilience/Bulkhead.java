@@ -0,0 +1,84 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 信号量式舱壁，限制一个服务同时在途的请求数
+ * 获取与释放只做CAS计数，不排队不阻塞，满时由调用方立即拒绝
+ *
+ * @author wss
+ */
+public final class Bulkhead {
+
+    private static final AtomicIntegerFieldUpdater<Bulkhead> IN_FLIGHT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Bulkhead.class, "inFlight");
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private volatile int inFlight;
+    private volatile int peakInFlight;
+    private final LongAdder permittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrentCalls) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    /**
+     * 尝试占用一个在途名额，成功后必须调用一次release
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight;
+            if (current >= maxConcurrentCalls) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (IN_FLIGHT_UPDATER.compareAndSet(this, current, current + 1)) {
+                permittedCount.increment();
+                if (current + 1 > peakInFlight) {
+                    // 仅用于监控，并发更新时允许丢失
+                    peakInFlight = current + 1;
+                }
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        IN_FLIGHT_UPDATER.decrementAndGet(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight;
+    }
+
+    /**
+     * 饱和度，在途请求数 / 最大在途请求数
+     */
+    public double getSaturation() {
+        return (double) inFlight / maxConcurrentCalls;
+    }
+
+    public long getPermittedCount() {
+        return permittedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按服务创建舱壁，未启用时不创建
+ *
+ * @author wss
+ */
+public class BulkheadRegistry {
+
+    private final GatewayProperties.Resilience.BulkheadConfig config;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public BulkheadRegistry(GatewayProperties.Resilience.BulkheadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取或创建服务的舱壁
+     * @return 未启用或无服务ID时返回null
+     */
+    public Bulkhead get(String serviceId) {
+        if (!config.isEnabled() || serviceId == null) {
+            return null;
+        }
+        Bulkhead bulkhead = bulkheads.get(serviceId);
+        return bulkhead != null ? bulkhead : bulkheads.computeIfAbsent(serviceId, this::create);
+    }
+
+    private Bulkhead create(String serviceId) {
+        int limit = config.getServices().getOrDefault(serviceId, config.getMaxConcurrentCalls());
+        return new Bulkhead(serviceId, limit > 0 ? limit : Integer.MAX_VALUE);
+    }
+
+    public Collection<Bulkhead> getAll() {
+        return Collections.unmodifiableCollection(bulkheads.values());
+    }
+}
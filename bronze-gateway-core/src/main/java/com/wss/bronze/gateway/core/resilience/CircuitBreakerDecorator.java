@@ -3,14 +3,11 @@ package com.wss.bronze.gateway.core.resilience;
 import com.wss.bronze.gateway.core.GatewayContext;
 import com.wss.bronze.gateway.core.client.HttpClient;
 import com.wss.bronze.gateway.core.enums.CircuitBreakerState;
-import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.function.Supplier;
-
 /**
  * @author wss
  */
@@ -29,30 +26,14 @@ public class CircuitBreakerDecorator {
 
     /**
      * 使用熔断器包装HTTP调用
+     * 熔断器在HttpClient中获取许可，调用结果在后端响应、超时或失败时异步记录，而不是在转发调度完成时
      * @param context 网关上下文
      * @param serviceId 服务ID
      * @param url 目标URL
      */
     public void executeWithCircuitBreaker(GatewayContext context, String serviceId, String url) {
-        CircuitBreaker circuitBreaker = circuitBreakerManager.getCircuitBreaker(serviceId);
-
         try {
-            // 执行HTTP调用，让熔断器自动处理权限检查和状态管理
-            Supplier<Void> supplier = CircuitBreaker.decorateSupplier(
-                circuitBreaker,() -> {
-                    try {
-                        httpClient.forward(context, url,true,serviceId,circuitBreakerManager,fallbackHandler);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Invalid URL: " + url, e);
-                    }
-                    return null;
-                }
-            );
-
-            supplier.get();
-        } catch (CallNotPermittedException e) {
-            log.warn("CircuitBreakerDecorator Circuit breaker is open for service: {}", serviceId);
-            fallbackHandler.handleFallback(context, serviceId, "Call not permitted by circuit breaker");
+            httpClient.forward(context, url, true, serviceId, circuitBreakerManager, fallbackHandler);
         } catch (Exception e) {
             log.error("CircuitBreakerDecorator Service call failed for service: {}", serviceId, e);
             fallbackHandler.handleFallback(context, serviceId, "Service call failed: " + e.getMessage());
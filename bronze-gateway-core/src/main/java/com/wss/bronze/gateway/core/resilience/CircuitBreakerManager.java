@@ -4,20 +4,25 @@ import com.wss.bronze.gateway.core.config.GatewayProperties;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author wss
  */
+@Slf4j
 @Component
 public class CircuitBreakerManager {
 
     private final CircuitBreakerRegistry circuitBreakerRegistry;
     private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Availability> availabilities = new ConcurrentHashMap<>();
+    private final long waitDurationInOpenStateNanos;
 
     public CircuitBreakerManager(GatewayProperties gatewayProperties) {
         // 创建默认的熔断器配置
@@ -27,7 +32,7 @@ public class CircuitBreakerManager {
                 // 慢调用率阈值百分比
                 .slowCallRateThreshold(gatewayProperties.getResilience().getSlowCallRateThreshold())
                 // 慢调用持续时间阈值
-                .slowCallDurationThreshold(Duration.ofSeconds(gatewayProperties.getResilience().getSlowCallRateThreshold()))
+                .slowCallDurationThreshold(Duration.ofSeconds(gatewayProperties.getResilience().getSlowCallDurationThreshold()))
                 // 熔断器开启状态持续时间
                 .waitDurationInOpenState(Duration.ofSeconds(gatewayProperties.getResilience().getWaitDurationInOpenState()))
                 // 半开状态允许的调用次数
@@ -45,6 +50,9 @@ public class CircuitBreakerManager {
                 .build();
 
         this.circuitBreakerRegistry = CircuitBreakerRegistry.of(circuitBreakerConfig);
+        // 固定等待时间，第一次尝试的间隔即配置的waitDurationInOpenState
+        this.waitDurationInOpenStateNanos = TimeUnit.MILLISECONDS.toNanos(
+                circuitBreakerConfig.getWaitIntervalFunctionInOpenState().apply(1));
     }
 
     /**
@@ -53,7 +61,33 @@ public class CircuitBreakerManager {
      * @return 熔断器实例
      */
     public CircuitBreaker getCircuitBreaker(String serviceId) {
-        return circuitBreakers.computeIfAbsent(serviceId, circuitBreakerRegistry::circuitBreaker);
+        return circuitBreakers.computeIfAbsent(serviceId, this::createCircuitBreaker);
+    }
+
+    private CircuitBreaker createCircuitBreaker(String serviceId) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(serviceId);
+        Availability availability = availabilities.computeIfAbsent(serviceId, id -> new Availability());
+        availability.onState(circuitBreaker.getState(), waitDurationInOpenStateNanos);
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> {
+                    availability.onState(event.getStateTransition().getToState(), waitDurationInOpenStateNanos);
+                    log.info("Circuit breaker {}: {}", serviceId, event.getStateTransition());
+                })
+                // 半开状态的探测名额已用完
+                .onCallNotPermitted(event -> availability.onCallNotPermitted(circuitBreaker.getState()));
+        return circuitBreaker;
+    }
+
+    /**
+     * 服务当前是否可能放行请求，供选择实例时跳过已熔断的服务
+     * 只读一个由熔断器状态事件维护的标志，不占用熔断器的调用许可
+     * 熔断开启的等待时间结束后重新视为可用，由下一次请求触发进入半开状态
+     * @param serviceId 服务ID
+     * @return 尚未创建熔断器时返回true
+     */
+    public boolean isAvailable(String serviceId) {
+        Availability availability = availabilities.get(serviceId);
+        return availability == null || availability.isAvailable();
     }
 
     /**
@@ -70,6 +104,7 @@ public class CircuitBreakerManager {
      */
     public void removeCircuitBreaker(String serviceId) {
         circuitBreakers.remove(serviceId);
+        availabilities.remove(serviceId);
     }
 
     /**
@@ -82,4 +117,40 @@ public class CircuitBreakerManager {
             circuitBreaker.reset();
         }
     }
+
+    /**
+     * 熔断器可用标志，不可用时记录恢复时间，到期后无需事件即视为可用
+     */
+    private static final class Availability {
+        // 半开状态探测名额用完后，再次尝试前的等待时间
+        private static final long HALF_OPEN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private volatile boolean blocked;
+        private volatile long blockedUntilNanos;
+
+        void onState(CircuitBreaker.State state, long waitDurationInOpenStateNanos) {
+            if (state == CircuitBreaker.State.OPEN) {
+                block(waitDurationInOpenStateNanos);
+            } else if (state == CircuitBreaker.State.FORCED_OPEN) {
+                block(Long.MAX_VALUE / 2);
+            } else {
+                blocked = false;
+            }
+        }
+
+        void onCallNotPermitted(CircuitBreaker.State state) {
+            if (state == CircuitBreaker.State.HALF_OPEN) {
+                block(HALF_OPEN_RETRY_NANOS);
+            }
+        }
+
+        private void block(long nanos) {
+            blockedUntilNanos = System.nanoTime() + nanos;
+            blocked = true;
+        }
+
+        boolean isAvailable() {
+            return !blocked || System.nanoTime() - blockedUntilNanos >= 0;
+        }
+    }
 }
@@ -47,12 +47,16 @@ public class FallbackHandler {
     }
 
     /**
-     * 默认降级处理器
+     * 默认降级处理器：返回最近成功响应，没有时返回503
      * @param context 网关上下文
      * @param reason 降级原因
      */
     private void handleDefaultFallback(GatewayContext context, String reason) {
-        GwUtils.sendResponse(context.getCtx(), HttpResponseStatus.SERVICE_UNAVAILABLE, "Service temporarily unavailable: " + reason,true);
+        // 路由开启了最近成功响应时优先返回
+        if (context.serveLastKnownGood()) {
+            return;
+        }
+        GwUtils.sendResponse(context, HttpResponseStatus.SERVICE_UNAVAILABLE, "Service temporarily unavailable: " + reason);
     }
 
 
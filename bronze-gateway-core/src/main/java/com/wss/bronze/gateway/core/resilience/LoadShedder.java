@@ -0,0 +1,187 @@
+package com.wss.bronze.gateway.core.resilience;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.client.HttpClient;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.enums.RequestPriority;
+import com.wss.bronze.gateway.core.metrics.EventLoopMonitor;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过载时按优先级拒绝请求
+ * 后台线程周期性读取worker事件循环调度延迟（EventLoopMonitor）、连接池等待队列与直接内存，计算过载级别；
+ * 请求路径上只读取一个volatile字段比较优先级，不加锁不分配内存
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class LoadShedder implements DisposableBean {
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+    // 最高过载级别，CRITICAL请求始终放行
+    private static final int MAX_LEVEL = PRIORITIES.length - 1;
+
+    @Autowired
+    private GatewayProperties properties;
+    @Autowired
+    private HttpClient httpClient;
+    @Autowired
+    private EventLoopMonitor eventLoopMonitor;
+
+    // ordinal大于等于该值的优先级被拒绝，等于PRIORITIES.length时不拒绝
+    private volatile int shedFromOrdinal = PRIORITIES.length;
+    private final LongAdder[] shedCounts = new LongAdder[PRIORITIES.length];
+
+    private volatile ScheduledExecutorService scheduler;
+    private int level;
+    private long levelChangedNanos;
+    private volatile double pressure;
+    private volatile long maxEventLoopLagNanos;
+
+    public LoadShedder() {
+        for (int i = 0; i < shedCounts.length; i++) {
+            shedCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 开始过载检测，由GatewayServer在worker事件循环注册到EventLoopMonitor后调用
+     */
+    public synchronized void start() {
+        GatewayProperties.LoadShedding config = properties.getLoadShedding();
+        if (!config.isEnabled() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("gateway-load-shedder", true));
+        scheduler.scheduleAtFixedRate(this::sample, config.getSampleIntervalMs(), config.getSampleIntervalMs(),
+                TimeUnit.MILLISECONDS);
+        log.info("Load shedding enabled");
+    }
+
+    /**
+     * 请求优先级：路由优先级，apiKey配置的优先级优先；请求头只能降低优先级
+     */
+    public RequestPriority classify(GatewayContext context, RequestPriority routePriority) {
+        GatewayProperties.LoadShedding config = properties.getLoadShedding();
+        RequestPriority priority = routePriority;
+        Map<String, RequestPriority> apiKeyPriorities = config.getApiKeyPriorities();
+        if (!apiKeyPriorities.isEmpty()) {
+            String apiKey = context.getHeaders().get(config.getApiKeyHeader());
+            RequestPriority apiKeyPriority = apiKey != null ? apiKeyPriorities.get(apiKey) : null;
+            if (apiKeyPriority != null) {
+                priority = apiKeyPriority;
+            }
+        }
+        String header = config.getPriorityHeader();
+        if (header != null && !header.isEmpty()) {
+            String value = context.getHeaders().get(header);
+            if (value != null) {
+                for (RequestPriority candidate : PRIORITIES) {
+                    if (candidate.ordinal() > priority.ordinal() && candidate.name().equalsIgnoreCase(value)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return priority;
+    }
+
+    /**
+     * 当前过载级别下是否拒绝该优先级的请求
+     */
+    public boolean shouldShed(RequestPriority priority) {
+        if (priority.ordinal() < shedFromOrdinal) {
+            return false;
+        }
+        shedCounts[priority.ordinal()].increment();
+        return true;
+    }
+
+    private void sample() {
+        try {
+            GatewayProperties.LoadShedding config = properties.getLoadShedding();
+            long now = System.nanoTime();
+            long maxLagNanos = eventLoopMonitor.getMaxLagNanos(EventLoopMonitor.WORKER);
+            maxEventLoopLagNanos = maxLagNanos;
+            double lag = (double) maxLagNanos / TimeUnit.MILLISECONDS.toNanos(config.getEventLoopLagThresholdMs());
+            double pending = httpClient.getPendingAcquireRatio() / config.getPendingAcquireThreshold();
+            double memory = directMemoryRatio() / config.getDirectMemoryThreshold();
+            double current = Math.max(lag, Math.max(pending, memory));
+            pressure = current;
+            updateLevel(current < 1 ? 0 : current < 1.5 ? 1 : current < 2 ? 2 : MAX_LEVEL, now, config);
+        } catch (Exception e) {
+            log.warn("Load shedder sample failed", e);
+        }
+    }
+
+    /**
+     * 过载级别立即升高，逐级降低且每级至少保持cooldownMs
+     */
+    private void updateLevel(int target, long now, GatewayProperties.LoadShedding config) {
+        if (target > level) {
+            setLevel(target, now);
+        } else if (target < level && now - levelChangedNanos >= TimeUnit.MILLISECONDS.toNanos(config.getCooldownMs())) {
+            setLevel(level - 1, now);
+        }
+    }
+
+    private void setLevel(int newLevel, long now) {
+        if (newLevel != level) {
+            log.warn("Load shedding level {} -> {}, pressure={}", level, newLevel, String.format("%.2f", pressure));
+        }
+        level = newLevel;
+        levelChangedNanos = now;
+        shedFromOrdinal = PRIORITIES.length - newLevel;
+    }
+
+    private static double directMemoryRatio() {
+        long max = PlatformDependent.maxDirectMemory();
+        if (max <= 0) {
+            return 0;
+        }
+        long used = PlatformDependent.usedDirectMemory();
+        if (used < 0) {
+            used = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+        }
+        return (double) used / max;
+    }
+
+    public int getLevel() {
+        return PRIORITIES.length - shedFromOrdinal;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    /**
+     * 最近一次采样中worker事件循环调度延迟的最大值
+     */
+    public long getMaxEventLoopLagNanos() {
+        return maxEventLoopLagNanos;
+    }
+
+    public long getShedCount(RequestPriority priority) {
+        return shedCounts[priority.ordinal()].sum();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 基于配置属性的路由实现
@@ -24,7 +25,10 @@ public class PropertiesRouter implements Router {
     @Autowired
     private GatewayProperties properties;
 
-    private List<GatewayProperties.RouteDefinition> sortedRoutes;
+    private volatile List<GatewayProperties.RouteDefinition> sortedRoutes;
+    // 路由配置版本，启动时为1，每次重新加载加1
+    private final AtomicLong version = new AtomicLong(1);
+    private volatile long loadedAtMillis = System.currentTimeMillis();
 
     /**
      * 初始化时对路由进行排序，提高运行时性能
@@ -41,6 +45,19 @@ public class PropertiesRouter implements Router {
         }
     }
 
+    /**
+     * 替换路由表，调用方需先重新编译过滤器链（FilterChainFactory.compile），对后续请求生效
+     * @return 新的配置版本
+     */
+    public long reload(List<GatewayProperties.RouteDefinition> routes) {
+        properties.setRoutes(routes);
+        sortedRoutes = routes;
+        loadedAtMillis = System.currentTimeMillis();
+        long newVersion = version.incrementAndGet();
+        log.info("PropertiesRouter reloaded with {} routes, version {}", routes.size(), newVersion);
+        return newVersion;
+    }
+
     @Override
     public GatewayProperties.RouteDefinition route(GatewayContext ctx) {
         if (ctx == null) {
@@ -119,4 +136,16 @@ public class PropertiesRouter implements Router {
     public int getRouteCount() {
         return sortedRoutes != null ? sortedRoutes.size() : 0;
     }
+
+    public List<GatewayProperties.RouteDefinition> getRoutes() {
+        return sortedRoutes;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
 }
@@ -0,0 +1,83 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import com.wss.bronze.gateway.core.utils.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件导出，每个span一行JSON，追加写入，每批导出后flush
+ *
+ * @author wss
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter {
+
+    private final Path path;
+    private BufferedWriter writer;
+
+    public FileSpanExporter(String file) {
+        this.path = Paths.get(file);
+    }
+
+    @Override
+    public void export(List<Span> spans) throws IOException {
+        BufferedWriter out = writer();
+        for (Span span : spans) {
+            out.write(toJson(span));
+            out.newLine();
+        }
+        out.flush();
+    }
+
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("Exporting spans to {}", path.toAbsolutePath());
+        }
+        return writer;
+    }
+
+    static String toJson(Span span) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("traceId", span.getTraceId())
+                .field("spanId", span.getSpanId())
+                .field("parentSpanId", span.getParentSpanId())
+                .field("name", span.getName())
+                .field("kind", span.getKind().name())
+                .field("startMicros", span.getStartEpochMicros())
+                .field("durationMicros", span.getDurationMicros())
+                .field("error", span.isError());
+        json.name("attributes").beginObject();
+        for (Map.Entry<String, String> entry : span.getAttributes().entrySet()) {
+            json.field(entry.getKey(), entry.getValue());
+        }
+        return json.endObject().endObject().toString();
+    }
+
+    @Override
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Failed to close span file {}", path, e);
+        }
+        writer = null;
+    }
+}
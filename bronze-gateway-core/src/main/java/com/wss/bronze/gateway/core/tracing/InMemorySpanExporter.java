@@ -0,0 +1,52 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存导出，保留最近导出的span，用于测试与本地排查；超出容量时丢弃最早的span
+ *
+ * @author wss
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ArrayDeque<Span> spans;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.spans = new ArrayDeque<>(Math.min(this.capacity, 1024));
+    }
+
+    @Override
+    public synchronized void export(List<Span> batch) {
+        for (Span span : batch) {
+            if (spans.size() == capacity) {
+                spans.pollFirst();
+            }
+            spans.addLast(span);
+        }
+    }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * 某条链路的全部span，按导出顺序
+     */
+    public synchronized List<Span> getSpans(String traceId) {
+        List<Span> result = new ArrayList<>();
+        for (Span span : spans) {
+            if (span.getTraceId().equals(traceId)) {
+                result.add(span);
+            }
+        }
+        return result;
+    }
+
+    public synchronized void reset() {
+        spans.clear();
+    }
+}
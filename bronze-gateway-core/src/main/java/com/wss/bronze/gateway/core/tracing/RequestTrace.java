@@ -0,0 +1,165 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个采样请求的链路：网关的server span及其子span（路由、过滤器、获取连接、后端调用、写回客户端）
+ * 只有采样的请求创建，未采样的请求GatewayContext.trace为null，请求路径上只多一次判空
+ * 子span可能在客户端与后端的事件循环中记录，方法均加锁；响应写出完成时结束server span并整体提交导出
+ *
+ * @author wss
+ */
+public final class RequestTrace {
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    // 上游的span，网关是链路起点时为null
+    private final String parentSpanId;
+    private final String traceState;
+    private final long startNanos;
+    private final long startEpochMicros;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final List<Span> spans = new ArrayList<>(8);
+    // 进行中的后端调用span，没有时为null
+    private String upstreamSpanId;
+    private long upstreamStartNanos;
+    private String upstreamUrl;
+    private boolean finished;
+
+    RequestTrace(Tracer tracer, TraceParent parent, String traceState, long startNanos) {
+        this.tracer = tracer;
+        this.traceId = parent != null ? parent.getTraceId() : TraceParent.newTraceId();
+        this.parentSpanId = parent != null ? parent.getParentSpanId() : null;
+        this.traceState = parent != null ? traceState : null;
+        this.spanId = TraceParent.newSpanId();
+        this.startNanos = startNanos;
+        this.startEpochMicros = System.currentTimeMillis() * 1000 - (System.nanoTime() - startNanos) / 1000;
+    }
+
+    /**
+     * server span的属性，如路由、请求方法、响应状态
+     */
+    public synchronized void setAttribute(String name, String value) {
+        if (!finished && value != null) {
+            attributes.put(name, value);
+        }
+    }
+
+    /**
+     * 记录网关内部阶段的子span
+     * @param error 阶段失败的原因，成功时为null
+     */
+    public synchronized void span(String name, long startNanos, long endNanos, Throwable error) {
+        if (finished) {
+            return;
+        }
+        Map<String, String> spanAttributes = null;
+        if (error != null) {
+            spanAttributes = new HashMap<>(2);
+            spanAttributes.put("error.message", String.valueOf(error.getMessage()));
+        }
+        spans.add(new Span(traceId, TraceParent.newSpanId(), spanId, name, Span.Kind.INTERNAL,
+                toEpochMicros(startNanos), (endNanos - startNanos) / 1000, error != null, spanAttributes));
+    }
+
+    /**
+     * 开始一次后端调用：生成client span并写入发往后端的traceparent；
+     * 上游tracestate原样透传，网关作为链路起点（没有合法的上游traceparent）时去掉tracestate
+     * 重试时上一次未结束的调用按失败结束
+     */
+    public synchronized void injectUpstream(HttpHeaders headers, String url) {
+        if (upstreamSpanId != null) {
+            endUpstream(0, "retried");
+        }
+        upstreamSpanId = TraceParent.newSpanId();
+        upstreamStartNanos = System.nanoTime();
+        upstreamUrl = url;
+        headers.set(TraceParent.TRACEPARENT, TraceParent.format(traceId, upstreamSpanId, true));
+        if (parentSpanId == null) {
+            headers.remove(TraceParent.TRACESTATE);
+        }
+    }
+
+    /**
+     * 结束后端调用span，没有进行中的调用时忽略
+     * @param status 后端响应状态，未收到响应时为0
+     * @param error 调用失败的原因，成功时为null
+     */
+    public synchronized void completeUpstream(int status, Throwable error) {
+        if (upstreamSpanId != null) {
+            endUpstream(status, error != null ? String.valueOf(error.getMessage()) : null);
+        }
+    }
+
+    private void endUpstream(int status, String error) {
+        Map<String, String> spanAttributes = new HashMap<>(4);
+        spanAttributes.put("http.url", upstreamUrl);
+        if (status > 0) {
+            spanAttributes.put("http.status_code", String.valueOf(status));
+        }
+        if (error != null) {
+            spanAttributes.put("error.message", error);
+        }
+        if (!finished) {
+            spans.add(new Span(traceId, upstreamSpanId, spanId, "upstream", Span.Kind.CLIENT,
+                    toEpochMicros(upstreamStartNanos), (System.nanoTime() - upstreamStartNanos) / 1000,
+                    error != null || status >= 500, spanAttributes));
+        }
+        upstreamSpanId = null;
+    }
+
+    /**
+     * 响应写出完成时记录写回客户端的span并结束链路
+     */
+    public void finishOnWrite(ChannelFuture writeFuture, int status) {
+        long writeStartNanos = System.nanoTime();
+        writeFuture.addListener(future -> {
+            span("client.write", writeStartNanos, System.nanoTime(), future.isSuccess() ? null : future.cause());
+            finish(status);
+        });
+    }
+
+    /**
+     * 结束server span并提交导出，之后记录的span全部忽略；仍在进行的后端调用按未完成结束
+     */
+    public void finish(int status) {
+        List<Span> finishedSpans;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            if (upstreamSpanId != null) {
+                endUpstream(0, "unfinished");
+            }
+            attributes.put("http.status_code", String.valueOf(status));
+            if (traceState != null) {
+                attributes.put("tracestate", traceState);
+            }
+            finished = true;
+            spans.add(new Span(traceId, spanId, parentSpanId, "gateway", Span.Kind.SERVER, startEpochMicros,
+                    (System.nanoTime() - startNanos) / 1000, status >= 500, attributes));
+            finishedSpans = spans;
+        }
+        tracer.submit(finishedSpans);
+    }
+
+    private long toEpochMicros(long nanos) {
+        return startEpochMicros + (nanos - startNanos) / 1000;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+}
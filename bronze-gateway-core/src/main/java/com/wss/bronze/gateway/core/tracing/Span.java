@@ -0,0 +1,88 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 已结束的span，创建后只读，由导出线程批量交给SpanExporter
+ *
+ * @author wss
+ */
+public final class Span {
+
+    public enum Kind {
+        // 网关接收的请求
+        SERVER,
+        // 网关发往后端的请求
+        CLIENT,
+        // 网关内部阶段，如路由、过滤器、获取连接、写回客户端
+        INTERNAL
+    }
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Kind kind;
+    private final long startEpochMicros;
+    private final long durationMicros;
+    private final boolean error;
+    private final Map<String, String> attributes;
+
+    Span(String traceId, String spanId, String parentSpanId, String name, Kind kind,
+         long startEpochMicros, long durationMicros, boolean error, Map<String, String> attributes) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startEpochMicros = startEpochMicros;
+        this.durationMicros = durationMicros;
+        this.error = error;
+        this.attributes = attributes != null ? Collections.unmodifiableMap(attributes) : Collections.emptyMap();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * 父span，链路起点的server span为null
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[" + traceId + "/" + spanId + ", " + durationMicros + "us" + (error ? ", error" : "") + "]";
+    }
+}
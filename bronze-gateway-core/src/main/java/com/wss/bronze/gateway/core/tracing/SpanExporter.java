@@ -0,0 +1,24 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import java.util.List;
+
+/**
+ * span导出，只在Tracer的导出线程中调用，实现不需要线程安全
+ * 内置文件（FileSpanExporter）与内存（InMemorySpanExporter）两种实现；
+ * 注册了SpanExporter类型的bean时使用该bean，可对接其他链路追踪系统
+ *
+ * @author wss
+ */
+public interface SpanExporter {
+
+    /**
+     * 导出一批span，抛出异常时这批span计为导出失败，不重试
+     */
+    void export(List<Span> spans) throws Exception;
+
+    /**
+     * 网关关闭时在最后一次导出之后调用
+     */
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,151 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C Trace Context的traceparent请求头：version-traceId-parentId-flags，如
+ * 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+ * 格式不合法时按规范忽略，网关作为新链路的起点
+ *
+ * @author wss
+ */
+public final class TraceParent {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACESTATE = "tracestate";
+
+    private static final int LENGTH = 55;
+    private static final int FLAG_SAMPLED = 0x01;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String traceId;
+    private final String parentSpanId;
+    private final int flags;
+
+    private TraceParent(String traceId, String parentSpanId, int flags) {
+        this.traceId = traceId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+    }
+
+    /**
+     * 解析traceparent
+     * 版本00必须恰好55个字符；更高版本只解析前55个字符，之后必须以'-'分隔；版本ff、全0的traceId或parentId均不合法
+     * @return 不合法时返回null
+     */
+    public static TraceParent parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.length() < LENGTH || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return null;
+        }
+        int version = parseHex(value, 0, 2);
+        if (version < 0 || version == 0xff) {
+            return null;
+        }
+        if (version == 0 ? value.length() != LENGTH : value.length() > LENGTH && value.charAt(LENGTH) != '-') {
+            return null;
+        }
+        if (!isHex(value, 3, 35) || !isHex(value, 36, 52)) {
+            return null;
+        }
+        int flags = parseHex(value, 53, 55);
+        if (flags < 0) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        String parentSpanId = value.substring(36, 52);
+        if (isZero(traceId) || isZero(parentSpanId)) {
+            return null;
+        }
+        return new TraceParent(traceId, parentSpanId, flags);
+    }
+
+    /**
+     * 输出版本00的traceparent
+     */
+    public static String format(String traceId, String spanId, boolean sampled) {
+        return new StringBuilder(LENGTH).append("00-").append(traceId).append('-').append(spanId)
+                .append(sampled ? "-01" : "-00").toString();
+    }
+
+    /**
+     * 随机生成32位十六进制traceId，不为全0
+     */
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low;
+        do {
+            low = random.nextLong();
+        } while (low == 0);
+        char[] chars = new char[32];
+        writeHex(high, chars, 0);
+        writeHex(low, chars, 16);
+        return new String(chars);
+    }
+
+    /**
+     * 随机生成16位十六进制spanId，不为全0
+     */
+    public static String newSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        char[] chars = new char[16];
+        writeHex(id, chars, 0);
+        return new String(chars);
+    }
+
+    private static void writeHex(long value, char[] chars, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+
+    private static int parseHex(String value, int from, int to) {
+        if (!isHex(value, from, to)) {
+            return -1;
+        }
+        return Integer.parseInt(value.substring(from, to), 16);
+    }
+
+    /**
+     * 规范只允许小写十六进制
+     */
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public boolean isSampled() {
+        return (flags & FLAG_SAMPLED) != 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 头部采样：请求进入网关时决定是否采样，之后不再改变
+ * 1. 上游已做采样决定（合法的traceparent）且parentBased时沿用上游的sampled标志，否则按sampleRatio随机采样
+ * 2. 采样的请求再经过每秒上限（GCRA，允许一秒的突发），防止上游全量采样或流量突增时追踪拖慢网关
+ *
+ * @author wss
+ */
+final class TraceSampler {
+
+    private final double sampleRatio;
+    private final boolean parentBased;
+    // 每个采样名额的间隔，0表示不限制
+    private final long intervalNanos;
+    private final long burstNanos;
+    // 理论到达时间
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+    TraceSampler(GatewayProperties.Tracing config) {
+        this.sampleRatio = config.getSampleRatio();
+        this.parentBased = config.isParentBased();
+        int maxPerSecond = config.getMaxTracesPerSecond();
+        this.intervalNanos = maxPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxPerSecond : 0;
+        this.burstNanos = TimeUnit.SECONDS.toNanos(1) - intervalNanos;
+    }
+
+    /**
+     * @param parent 合法的上游traceparent，没有时为null
+     */
+    boolean sample(TraceParent parent) {
+        boolean sampled = parent != null && parentBased ? parent.isSampled()
+                : sampleRatio >= 1 || (sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio);
+        return sampled && tryAcquire();
+    }
+
+    private boolean tryAcquire() {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, now);
+            if (base - now > burstNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
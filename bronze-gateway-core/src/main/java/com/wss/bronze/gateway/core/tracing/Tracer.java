@@ -0,0 +1,175 @@
+package com.wss.bronze.gateway.core.tracing;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 链路追踪
+ * 1. 请求进入时解析W3C traceparent/tracestate并做头部采样，采样的请求创建RequestTrace，未采样的请求不分配任何对象，
+ *    上游的traceparent随请求原样转发给后端
+ * 2. 采样请求结束时span进入有界队列，队列满时丢弃并计数，请求线程不等待导出
+ * 3. 后台线程按批次交给SpanExporter导出
+ *
+ * @author wss
+ */
+@Slf4j
+@Component
+public class Tracer implements DisposableBean {
+
+    @Autowired
+    private GatewayProperties properties;
+    // 自定义导出，未提供时按配置使用文件或内存导出
+    @Autowired(required = false)
+    private SpanExporter exporter;
+
+    private volatile boolean enabled;
+    private TraceSampler sampler;
+    private BlockingQueue<Span> queue;
+    private int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    private final LongAdder sampledTraces = new LongAdder();
+    private final LongAdder exportedSpans = new LongAdder();
+    private final LongAdder droppedSpans = new LongAdder();
+    private final LongAdder failedSpans = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        GatewayProperties.Tracing config = properties.getTracing();
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (exporter == null) {
+            exporter = createExporter(config);
+        }
+        this.sampler = new TraceSampler(config);
+        this.queue = new ArrayBlockingQueue<>(Math.max(config.getQueueSize(), 1));
+        this.batchSize = Math.max(config.getBatchSize(), 1);
+        long interval = Math.max(config.getExportIntervalMs(), 10);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("gateway-span-exporter", true));
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        this.enabled = true;
+        log.info("Tracing enabled, sampleRatio: {}, maxTracesPerSecond: {}, exporter: {}", config.getSampleRatio(),
+                config.getMaxTracesPerSecond(), exporter != null ? exporter.getClass().getSimpleName() : "none");
+    }
+
+    private static SpanExporter createExporter(GatewayProperties.Tracing config) {
+        switch (config.getExporter()) {
+            case "file":
+                return new FileSpanExporter(config.getFile());
+            case "memory":
+                return new InMemorySpanExporter(config.getMemoryCapacity());
+            default:
+                // 不导出，只传播traceparent
+                return null;
+        }
+    }
+
+    /**
+     * 请求进入时调用
+     * @param startNanos 请求开始时间（System.nanoTime）
+     * @return 未启用或未采样时返回null
+     */
+    public RequestTrace start(HttpHeaders headers, long startNanos) {
+        if (!enabled) {
+            return null;
+        }
+        String header = headers.get(TraceParent.TRACEPARENT);
+        TraceParent parent = header != null ? TraceParent.parse(header) : null;
+        if (!sampler.sample(parent)) {
+            return null;
+        }
+        sampledTraces.increment();
+        return new RequestTrace(this, parent, parent != null ? headers.get(TraceParent.TRACESTATE) : null, startNanos);
+    }
+
+    /**
+     * 提交一个请求的全部span，队列满时丢弃
+     */
+    void submit(List<Span> spans) {
+        if (exporter == null) {
+            return;
+        }
+        for (Span span : spans) {
+            if (!queue.offer(span)) {
+                droppedSpans.increment();
+            }
+        }
+    }
+
+    /**
+     * 导出队列中的全部span，每批最多batchSize个
+     */
+    private void flush() {
+        if (exporter == null) {
+            return;
+        }
+        List<Span> batch = new ArrayList<>(Math.min(batchSize, queue.size() + 1));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                exporter.export(batch);
+                exportedSpans.add(batch.size());
+            } catch (Exception e) {
+                failedSpans.add(batch.size());
+                log.warn("Failed to export {} spans: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    public long getSampledTraces() {
+        return sampledTraces.sum();
+    }
+
+    public long getExportedSpans() {
+        return exportedSpans.sum();
+    }
+
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    public long getFailedSpans() {
+        return failedSpans.sum();
+    }
+
+    /**
+     * 停止采样并导出队列中剩余的span
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        enabled = false;
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        if (exporter != null) {
+            exporter.shutdown();
+        }
+    }
+}
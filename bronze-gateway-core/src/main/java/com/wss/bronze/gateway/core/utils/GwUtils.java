@@ -5,13 +5,20 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
+import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
 /**
  * @author wss
  */
 public class GwUtils {
 
+    private static final AttributeKey<String> REMOTE_IP_KEY = AttributeKey.valueOf("remoteIp");
+    private static final AttributeKey<byte[]> REMOTE_ADDRESS_KEY = AttributeKey.valueOf("remoteAddress");
+
     /**
      * 返回响应，默认关闭连接
      * @param context
@@ -19,15 +26,15 @@ public class GwUtils {
      * @param message
      */
     public static void sendResponse(GatewayContext context, HttpResponseStatus status, String message) {
-        sendResponse(context.getCtx(), status, message, true);
+        context.writeResponse(buildResponse(status, message), true);
     }
 
     public static void sendError(GatewayContext context, String message) {
-        sendResponse(context.getCtx(), HttpResponseStatus.INTERNAL_SERVER_ERROR, "Backend error: " + message, true);
+        sendResponse(context, HttpResponseStatus.INTERNAL_SERVER_ERROR, "Backend error: " + message);
     }
 
     public static void sendTimeoutError(GatewayContext context) {
-        sendResponse(context.getCtx(), HttpResponseStatus.GATEWAY_TIMEOUT, "Backend service timeout", true);
+        sendResponse(context, HttpResponseStatus.GATEWAY_TIMEOUT, "Backend service timeout");
     }
 
     /**
@@ -37,17 +44,56 @@ public class GwUtils {
      * @param message
      */
     public static void sendResponse(ChannelHandlerContext ctx, HttpResponseStatus status, String message, boolean closeConnection) {
+        FullHttpResponse response = buildResponse(status, message);
+
+        if (closeConnection) {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    /**
+     * 构建文本响应
+     */
+    public static FullHttpResponse buildResponse(HttpResponseStatus status, String message) {
         FullHttpResponse response = new DefaultFullHttpResponse(
                 HttpVersion.HTTP_1_1, status,
                 Unpooled.copiedBuffer(message, CharsetUtil.UTF_8)
         );
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        return response;
+    }
 
-        if (closeConnection) {
-            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
-        } else {
-            ctx.writeAndFlush(response);
+    /**
+     * 获取客户端连接的对端IP（不解析X-Forwarded-For），在连接上缓存，keep-alive连接只解析一次
+     */
+    public static String getRemoteIp(ChannelHandlerContext ctx) {
+        String remoteIp = ctx.channel().attr(REMOTE_IP_KEY).get();
+        if (remoteIp == null) {
+            SocketAddress address = ctx.channel().remoteAddress();
+            remoteIp = address instanceof InetSocketAddress && ((InetSocketAddress) address).getAddress() != null
+                    ? ((InetSocketAddress) address).getAddress().getHostAddress() : String.valueOf(address);
+            ctx.channel().attr(REMOTE_IP_KEY).set(remoteIp);
+        }
+        return remoteIp;
+    }
+
+    /**
+     * 获取客户端连接的对端地址字节（IPv4为4字节），在连接上缓存，调用方不得修改返回的数组
+     * @return 非IP连接（如测试用的EmbeddedChannel）返回null
+     */
+    public static byte[] getRemoteAddress(ChannelHandlerContext ctx) {
+        byte[] remoteAddress = ctx.channel().attr(REMOTE_ADDRESS_KEY).get();
+        if (remoteAddress == null) {
+            SocketAddress address = ctx.channel().remoteAddress();
+            if (!(address instanceof InetSocketAddress) || ((InetSocketAddress) address).getAddress() == null) {
+                return null;
+            }
+            remoteAddress = ((InetSocketAddress) address).getAddress().getAddress();
+            ctx.channel().attr(REMOTE_ADDRESS_KEY).set(remoteAddress);
         }
+        return remoteAddress;
     }
 
 }
@@ -0,0 +1,146 @@
+package com.wss.bronze.gateway.core.utils;
+
+/**
+ * 极简JSON输出，管理端口响应与span导出使用，避免引入JSON库
+ * 按调用顺序输出，自动处理逗号；不校验嵌套是否匹配，调用方负责成对调用begin/end
+ *
+ * @author wss
+ */
+public final class JsonWriter {
+
+    private final StringBuilder out = new StringBuilder(1024);
+    // 当前层级是否需要在下一个元素前输出逗号
+    private boolean needComma;
+
+    public JsonWriter beginObject() {
+        separator();
+        out.append('{');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        out.append('}');
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separator();
+        out.append('[');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        out.append(']');
+        needComma = true;
+        return this;
+    }
+
+    /**
+     * 输出字段名，之后必须输出一个值、对象或数组
+     */
+    public JsonWriter name(String name) {
+        separator();
+        string(name);
+        out.append(':');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separator();
+        out.append(value);
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(double value) {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(value);
+        }
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separator();
+        out.append(value);
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private void separator() {
+        if (needComma) {
+            out.append(',');
+            needComma = false;
+        }
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
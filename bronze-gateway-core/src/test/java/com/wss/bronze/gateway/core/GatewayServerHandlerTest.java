@@ -0,0 +1,51 @@
+package com.wss.bronze.gateway.core;
+
+import com.wss.bronze.gateway.core.acl.CidrTrie;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class GatewayServerHandlerTest {
+
+    private static CidrTrie<Boolean> ranges(String... ranges) {
+        GatewayProperties.GrayReleaseConfig.IpBased ipBased = new GatewayProperties.GrayReleaseConfig.IpBased();
+        ipBased.setIpRanges(Arrays.asList(ranges));
+        return ReflectionTestUtils.invokeMethod(GatewayServerHandler.class, "buildIpRanges", ipBased);
+    }
+
+    private static boolean matches(CidrTrie<Boolean> trie, String ip) {
+        return trie.lookup(CidrTrie.parseAddress(ip)) != null;
+    }
+
+    @Test
+    void grayIpRangesMatchByCidr() {
+        CidrTrie<Boolean> trie = ranges("10.1.0.0/16", "192.168.1.7", "2001:db8::/32", "not-an-ip");
+
+        assertTrue(matches(trie, "10.1.255.1"));
+        assertTrue(matches(trie, "::ffff:10.1.0.1"));
+        assertTrue(matches(trie, "192.168.1.7"));
+        assertTrue(matches(trie, "2001:db8::1"));
+        // 字符串前缀相同但不在网段内
+        assertFalse(matches(trie, "10.10.0.1"));
+        assertFalse(matches(trie, "192.168.1.70"));
+    }
+
+    @Test
+    void grayIpRangesSupportWildcardAndDottedPrefix() {
+        CidrTrie<Boolean> prefix = ranges("192.168.");
+        assertTrue(matches(prefix, "192.168.3.4"));
+        assertFalse(matches(prefix, "192.169.0.1"));
+
+        CidrTrie<Boolean> all = ranges("*");
+        assertTrue(matches(all, "203.0.113.9"));
+        assertTrue(matches(all, "2001:db8::1"));
+    }
+}
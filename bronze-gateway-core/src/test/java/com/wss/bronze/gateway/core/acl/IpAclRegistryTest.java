@@ -0,0 +1,75 @@
+package com.wss.bronze.gateway.core.acl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class IpAclRegistryTest {
+
+    private final IpAclRegistry registry = new IpAclRegistry();
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<IpAcl, ScheduledFuture<?>> watchers() {
+        return (Map<IpAcl, ScheduledFuture<?>>) ReflectionTestUtils.getField(registry, "watchers");
+    }
+
+    private IpAcl register(Path file) {
+        return registry.register("office", Collections.emptyList(), Collections.emptyList(),
+                file.toString(), null, 60);
+    }
+
+    @Test
+    void replacingAclCancelsPreviousWatcher() throws Exception {
+        Path file = Files.write(dir.resolve("acl.txt"), "deny 10.0.0.0/8".getBytes(StandardCharsets.UTF_8));
+        IpAcl first = register(file);
+        ScheduledFuture<?> firstWatcher = watchers().get(first);
+
+        IpAcl second = register(file);
+
+        assertSame(second, registry.get("office"));
+        assertTrue(firstWatcher.isCancelled());
+        assertEquals(Collections.singleton(second), watchers().keySet());
+
+        // 已被替换的ACL注销时不影响当前ACL
+        registry.deregister(first);
+        assertSame(second, registry.get("office"));
+        assertEquals(1, watchers().size());
+    }
+
+    @Test
+    void deregisterRemovesAclAndWatcher() throws Exception {
+        Path file = Files.write(dir.resolve("acl.txt"), "deny 10.0.0.0/8".getBytes(StandardCharsets.UTF_8));
+        IpAcl acl = register(file);
+        ScheduledFuture<?> watcher = watchers().get(acl);
+
+        registry.deregister(acl);
+
+        assertNull(registry.get("office"));
+        assertTrue(watcher.isCancelled());
+        assertTrue(watchers().isEmpty());
+    }
+}
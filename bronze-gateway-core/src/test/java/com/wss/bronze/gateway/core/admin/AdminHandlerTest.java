@@ -0,0 +1,63 @@
+package com.wss.bronze.gateway.core.admin;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author wss
+ */
+class AdminHandlerTest {
+
+    private final GatewayProperties properties = new GatewayProperties();
+
+    private HttpResponseStatus post(String authorization) {
+        EmbeddedChannel channel = new EmbeddedChannel(new AdminHandler(properties, null));
+        try {
+            // 缺少serviceId，通过认证后返回400，不会修改任何状态
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/admin/breakers/reset");
+            if (authorization != null) {
+                request.headers().set(HttpHeaderNames.AUTHORIZATION, authorization);
+            }
+            channel.writeInbound(request);
+            FullHttpResponse response = channel.readOutbound();
+            try {
+                return response.status();
+            } finally {
+                response.release();
+            }
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void disabledByDefault() {
+        assertFalse(properties.getAdmin().isEnabled());
+    }
+
+    @Test
+    void rejectsPostWithoutConfiguredToken() {
+        assertEquals(HttpResponseStatus.FORBIDDEN, post(null));
+        assertEquals(HttpResponseStatus.FORBIDDEN, post("Bearer anything"));
+    }
+
+    @Test
+    void requiresConfiguredToken() {
+        properties.getAdmin().setToken("secret");
+        assertEquals(HttpResponseStatus.UNAUTHORIZED, post(null));
+        assertEquals(HttpResponseStatus.UNAUTHORIZED, post("Bearer wrong"));
+        assertEquals(HttpResponseStatus.BAD_REQUEST, post("Bearer secret"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.wss.bronze.gateway.core.auth;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 测试用的签名密钥与JWKS文件
+ *
+ * @author wss
+ */
+public final class JwtTestKeys {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private JwtTestKeys() {
+    }
+
+    public static KeyPair rsa() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    public static KeyPair ec() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * @param alg JWK声明的alg，为null时不声明
+     */
+    public static String jwk(String kid, KeyPair keyPair, String alg) {
+        StringBuilder json = new StringBuilder("{\"kid\":\"").append(kid).append('"');
+        if (alg != null) {
+            json.append(",\"alg\":\"").append(alg).append('"');
+        }
+        if (keyPair.getPublic() instanceof RSAPublicKey) {
+            RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+            json.append(",\"kty\":\"RSA\",\"n\":\"").append(unsigned(key.getModulus()))
+                    .append("\",\"e\":\"").append(unsigned(key.getPublicExponent())).append('"');
+        } else {
+            ECPublicKey key = (ECPublicKey) keyPair.getPublic();
+            json.append(",\"kty\":\"EC\",\"crv\":\"P-256\",\"x\":\"").append(unsigned(key.getW().getAffineX()))
+                    .append("\",\"y\":\"").append(unsigned(key.getW().getAffineY())).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    public static Path writeJwks(Path file, List<String> jwks) throws Exception {
+        return Files.write(file, ("{\"keys\":[" + String.join(",", jwks) + "]}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String token(String alg, String kid, PrivateKey key, String claims) throws Exception {
+        String header = "{\"alg\":\"" + alg + "\"" + (kid != null ? ",\"kid\":\"" + kid + "\"" : "") + "}";
+        String signingInput = encode(header) + "." + encode(claims);
+        Signature signer = Signature.getInstance("RS256".equals(alg) ? "SHA256withRSA" : "SHA256withECDSA");
+        signer.initSign(key);
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        byte[] signature = signer.sign();
+        if ("ES256".equals(alg)) {
+            signature = derToRaw(signature);
+        }
+        return signingInput + "." + BASE64_URL.encodeToString(signature);
+    }
+
+    public static String encode(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * JDK输出DER格式的ECDSA签名，JWS使用 r||s 各32字节
+     */
+    static byte[] derToRaw(byte[] der) {
+        int offset = 2;
+        byte[] raw = new byte[64];
+        for (int part = 0; part < 2; part++) {
+            int length = der[offset + 1];
+            int start = offset + 2;
+            int copy = Math.min(length, 32);
+            System.arraycopy(der, start + length - copy, raw, part * 32 + 32 - copy, copy);
+            offset = start + length;
+        }
+        return raw;
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return BASE64_URL.encodeToString(bytes);
+    }
+}
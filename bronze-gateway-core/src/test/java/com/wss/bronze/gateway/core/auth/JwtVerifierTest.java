@@ -0,0 +1,218 @@
+package com.wss.bronze.gateway.core.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author wss
+ */
+class JwtVerifierTest {
+
+    private static final long NOW = 1_700_000_000L;
+    private static final Set<String> ALGORITHMS = new HashSet<>(Arrays.asList("RS256", "ES256"));
+
+    @TempDir
+    Path dir;
+
+    private final JwksProvider provider = new JwksProvider();
+    private KeyPair rsa;
+    private KeyPair ec;
+    private Path jwks;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rsa = JwtTestKeys.rsa();
+        ec = JwtTestKeys.ec();
+        jwks = JwtTestKeys.writeJwks(dir.resolve("jwks.json"),
+                Arrays.asList(JwtTestKeys.jwk("rsa-1", rsa, "RS256"), JwtTestKeys.jwk("ec-1", ec, null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.destroy();
+    }
+
+    private JwksProvider.Source source() {
+        return provider.get(jwks.toString(), 300);
+    }
+
+    private JwtVerifier verifier(Set<String> algorithms, String issuer, String audience) {
+        return new JwtVerifier(source(), algorithms, issuer, audience, 30, 1000);
+    }
+
+    private JwtVerifier verifier() {
+        return verifier(ALGORITHMS, null, null);
+    }
+
+    private static String claims(long exp) {
+        return "{\"sub\":\"alice\",\"exp\":" + exp + "}";
+    }
+
+    private static String tamper(String token) {
+        int dot = token.indexOf('.');
+        String forged = JwtTestKeys.encode("{\"sub\":\"mallory\",\"exp\":" + (NOW + 3600) + "}");
+        return token.substring(0, dot + 1) + forged + token.substring(token.indexOf('.', dot + 1));
+    }
+
+    private static void assertRejected(String message, JwtVerifier verifier, String token, long now) {
+        JwtException e = assertThrows(JwtException.class, () -> verifier.verify(token, now));
+        assertEquals(message, e.getMessage());
+    }
+
+    @Test
+    void acceptsValidRs256Token() throws Exception {
+        VerifiedToken verified = verifier().verify(
+                JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), claims(NOW + 60)), NOW);
+        assertEquals("alice", verified.getClaims().get("sub"));
+        assertEquals(NOW + 60, verified.getExpiresAtSeconds());
+    }
+
+    @Test
+    void acceptsValidEs256Tokens() throws Exception {
+        JwtVerifier verifier = verifier();
+        // 多次签名覆盖r、s有前导0或最高位为1的情况
+        for (int i = 0; i < 32; i++) {
+            String token = JwtTestKeys.token("ES256", "ec-1", ec.getPrivate(), claims(NOW + 60 + i));
+            assertNotNull(verifier.verify(token, NOW));
+        }
+    }
+
+    @Test
+    void rejectsTamperedSignatures() throws Exception {
+        JwtVerifier verifier = verifier();
+        assertRejected("Invalid token signature", verifier,
+                tamper(JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), claims(NOW + 60))), NOW);
+        assertRejected("Invalid token signature", verifier,
+                tamper(JwtTestKeys.token("ES256", "ec-1", ec.getPrivate(), claims(NOW + 60))), NOW);
+        // 用其他密钥签名
+        assertRejected("Invalid token signature", verifier,
+                JwtTestKeys.token("RS256", "rsa-1", JwtTestKeys.rsa().getPrivate(), claims(NOW + 60)), NOW);
+    }
+
+    @Test
+    void convertsRawEcdsaSignatureToDer() {
+        byte[] raw = new byte[64];
+        // r = 1（前导0去掉），s最高位为1（补0）
+        raw[31] = 0x01;
+        raw[32] = (byte) 0x80;
+        raw[63] = 0x02;
+        byte[] der = ReflectionTestUtils.invokeMethod(JwtVerifier.class, "toDer", (Object) raw);
+
+        byte[] s = new byte[33];
+        s[1] = (byte) 0x80;
+        s[32] = 0x02;
+        byte[] expected = new byte[6 + 1 + 33];
+        expected[0] = 0x30;
+        expected[1] = (byte) (4 + 1 + 33);
+        expected[2] = 0x02;
+        expected[3] = 1;
+        expected[4] = 0x01;
+        expected[5] = 0x02;
+        expected[6] = 33;
+        System.arraycopy(s, 0, expected, 7, 33);
+        assertArrayEquals(expected, der);
+    }
+
+    @Test
+    void rejectsAlgorithmsOutsideAllowlist() throws Exception {
+        String unsigned = JwtTestKeys.encode("{\"alg\":\"none\"}") + "." + JwtTestKeys.encode(claims(NOW + 60)) + ".";
+        assertRejected("Unsupported token algorithm", verifier(), unsigned, NOW);
+        String hs256 = JwtTestKeys.encode("{\"alg\":\"HS256\",\"kid\":\"rsa-1\"}") + "."
+                + JwtTestKeys.encode(claims(NOW + 60)) + ".c2ln";
+        assertRejected("Unsupported token algorithm", verifier(), hs256, NOW);
+
+        JwtVerifier rsaOnly = verifier(Collections.singleton("RS256"), null, null);
+        assertRejected("Unsupported token algorithm", rsaOnly,
+                JwtTestKeys.token("ES256", "ec-1", ec.getPrivate(), claims(NOW + 60)), NOW);
+    }
+
+    @Test
+    void rejectsKeyDeclaringAnotherAlgorithm() throws Exception {
+        // ec-2声明只用于ES384，不能验证ES256令牌
+        KeyPair other = JwtTestKeys.ec();
+        JwtTestKeys.writeJwks(jwks, Collections.singletonList(JwtTestKeys.jwk("ec-2", other, "ES384")));
+        assertRejected("Unknown signing key", verifier(),
+                JwtTestKeys.token("ES256", "ec-2", other.getPrivate(), claims(NOW + 60)), NOW);
+    }
+
+    @Test
+    void unknownKidTriggersRefresh() throws Exception {
+        JwtVerifier verifier = verifier();
+        KeyPair rotated = JwtTestKeys.rsa();
+        String token = JwtTestKeys.token("RS256", "rsa-2", rotated.getPrivate(), claims(NOW + 60));
+        JwtTestKeys.writeJwks(jwks, Arrays.asList(JwtTestKeys.jwk("rsa-1", rsa, "RS256"),
+                JwtTestKeys.jwk("rsa-2", rotated, "RS256")));
+        // 跳过刷新最小间隔
+        ReflectionTestUtils.setField(source(), "lastLoadMillis", 0L);
+
+        assertRejected("Unknown signing key", verifier, token, NOW);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (source().current().size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("alice", verifier.verify(token, NOW).getClaims().get("sub"));
+    }
+
+    @Test
+    void checksExpiryAndNotBeforeWithClockSkew() throws Exception {
+        JwtVerifier verifier = verifier();
+        String token = JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), claims(NOW));
+        // 允许30秒偏差
+        assertNotNull(verifier.verify(token, NOW + 29));
+        assertRejected("Token expired", verifier(), token, NOW + 30);
+
+        String notYetValid = JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(),
+                "{\"sub\":\"alice\",\"exp\":" + (NOW + 3600) + ",\"nbf\":" + (NOW + 60) + "}");
+        assertRejected("Token not yet valid", verifier, notYetValid, NOW);
+        assertNotNull(verifier.verify(notYetValid, NOW + 31));
+
+        assertRejected("Token has no exp", verifier,
+                JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), "{\"sub\":\"alice\"}"), NOW);
+    }
+
+    @Test
+    void checksIssuerAndAudience() throws Exception {
+        JwtVerifier verifier = verifier(ALGORITHMS, "https://issuer", "gateway");
+        String valid = JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(),
+                "{\"iss\":\"https://issuer\",\"aud\":[\"other\",\"gateway\"],\"exp\":" + (NOW + 60) + "}");
+        assertNotNull(verifier.verify(valid, NOW));
+
+        assertRejected("Invalid token issuer", verifier, JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(),
+                "{\"iss\":\"https://evil\",\"aud\":\"gateway\",\"exp\":" + (NOW + 60) + "}"), NOW);
+        assertRejected("Invalid token audience", verifier, JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(),
+                "{\"iss\":\"https://issuer\",\"aud\":\"other\",\"exp\":" + (NOW + 60) + "}"), NOW);
+    }
+
+    @Test
+    void cachedTokenRejectedAfterKeyRotatedOut() throws Exception {
+        JwtVerifier verifier = verifier();
+        String token = JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), claims(NOW + 60));
+        VerifiedToken first = verifier.verify(token, NOW);
+        assertSame(first, verifier.verify(token, NOW));
+        assertEquals(1, verifier.getCacheSize());
+
+        JwtTestKeys.writeJwks(jwks, Collections.singletonList(JwtTestKeys.jwk("ec-1", ec, null)));
+        ReflectionTestUtils.invokeMethod(source(), "load");
+
+        assertRejected("Unknown signing key", verifier, token, NOW);
+        assertEquals(0, verifier.getCacheSize());
+    }
+}
@@ -0,0 +1,50 @@
+package com.wss.bronze.gateway.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class CacheControlTest {
+
+    private static CacheControl parse(String... values) {
+        return CacheControl.parse(Arrays.asList(values));
+    }
+
+    @Test
+    void parsesFlagsAcrossHeaderValues() {
+        CacheControl cacheControl = parse("No-Store, private", "no-cache");
+        assertTrue(cacheControl.noStore);
+        assertTrue(cacheControl.privateDirective);
+        assertTrue(cacheControl.noCache);
+
+        CacheControl empty = CacheControl.parse(Collections.emptyList());
+        assertFalse(empty.noStore || empty.noCache || empty.privateDirective);
+        assertEquals(-1, empty.freshnessSeconds());
+    }
+
+    @Test
+    void sharedMaxAgeTakesPrecedence() {
+        assertEquals(60, parse("public, max-age=60").freshnessSeconds());
+        assertEquals(10, parse("max-age=60, s-maxage=10").freshnessSeconds());
+        assertEquals(0, parse("s-maxage=0, max-age=60").freshnessSeconds());
+    }
+
+    @Test
+    void parsesQuotedAndInvalidArguments() {
+        CacheControl cacheControl = parse("max-age=\"30\", stale-while-revalidate=15");
+        assertEquals(30, cacheControl.freshnessSeconds());
+        assertEquals(15, cacheControl.staleWhileRevalidateSeconds);
+
+        CacheControl invalid = parse("max-age=abc, s-maxage, stale-while-revalidate=-5,,");
+        assertEquals(-1, invalid.freshnessSeconds());
+        assertEquals(0, invalid.staleWhileRevalidateSeconds);
+    }
+}
@@ -0,0 +1,46 @@
+package com.wss.bronze.gateway.core.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author wss
+ */
+class CacheEntryTest {
+
+    private static CacheEntry newEntry(String content) {
+        ByteBuf body = PooledByteBufAllocator.DEFAULT.directBuffer();
+        body.writeCharSequence(content, CharsetUtil.UTF_8);
+        long now = System.currentTimeMillis();
+        return new CacheEntry(HttpResponseStatus.OK, new DefaultHttpHeaders(), body, now, now + 60000, now + 60000,
+                body.readableBytes());
+    }
+
+    @Test
+    void releasedEntryIsNotServed() {
+        CacheEntry entry = newEntry("cached");
+        entry.release();
+        assertNull(entry.toResponse(System.currentTimeMillis()));
+    }
+
+    @Test
+    void servedResponseOutlivesEviction() {
+        CacheEntry entry = newEntry("cached");
+        FullHttpResponse response = entry.toResponse(System.currentTimeMillis());
+        assertNotNull(response);
+        entry.release();
+
+        assertEquals("cached", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+        assertNull(entry.toResponse(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.wss.bronze.gateway.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class FrequencySketchTest {
+
+    @Test
+    void countsAndSaturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        assertEquals(0, sketch.frequency(1));
+        for (int i = 1; i <= 20; i++) {
+            sketch.increment(1);
+            assertEquals(Math.min(i, 15), sketch.frequency(1));
+        }
+    }
+
+    @Test
+    void halvesCountersWhenSampleSizeReached() {
+        // 16个计数行，采样上限160
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(1);
+        }
+        int increments = 0;
+        for (int key = 2; sketch.frequency(1) == 15 && increments < 1000; key++, increments++) {
+            sketch.increment(key);
+        }
+
+        assertTrue(increments < 160);
+        assertEquals(7, sketch.frequency(1));
+    }
+}
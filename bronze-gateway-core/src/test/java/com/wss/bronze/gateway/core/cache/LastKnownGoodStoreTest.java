@@ -0,0 +1,163 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class LastKnownGoodStoreTest {
+
+    private LastKnownGoodStore store;
+    private GatewayProperties.RouteDefinition route;
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    @BeforeEach
+    void setUp() {
+        store = new LastKnownGoodStore();
+        ReflectionTestUtils.setField(store, "properties", new GatewayProperties());
+        route = new GatewayProperties.RouteDefinition();
+        route.setId("lkg");
+        route.getLastKnownGood().setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.destroy();
+        channel.finishAndReleaseAll();
+    }
+
+    private GatewayContext newContext(String header, String value) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items");
+        if (header != null) {
+            request.headers().set(header, value);
+        }
+        GatewayContext context = new GatewayContext(channel.pipeline().firstContext(), request);
+        context.setRoute(route);
+        return context;
+    }
+
+    private static FullHttpResponse response(String cacheControl) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("ok", CharsetUtil.UTF_8));
+        if (cacheControl != null) {
+            response.headers().set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+        }
+        return response;
+    }
+
+    private void store(String key, String cacheControl) {
+        FullHttpResponse response = response(cacheControl);
+        try {
+            store.store(key, route.getLastKnownGood(), response);
+        } finally {
+            response.release();
+        }
+    }
+
+    @Test
+    void storesCacheableResponse() {
+        store(store.key(newContext(null, null)), "max-age=60");
+        assertEquals(1, store.getEntryCount());
+    }
+
+    @Test
+    void skipsResponsesThatForbidSharedCaching() {
+        String key = store.key(newContext(null, null));
+        store(key, "private, max-age=60");
+        store(key, "no-store");
+        store(key, "no-cache");
+        assertEquals(0, store.getEntryCount());
+    }
+
+    @Test
+    void skipsCredentialedRequestsUnlessKeyedOnCredentials() {
+        assertNull(store.key(newContext("Cookie", "session=a")));
+        assertNull(store.key(newContext("Authorization", "Bearer a")));
+
+        route.getLastKnownGood().setVaryHeaders(Collections.singletonList("cookie"));
+        String keyA = store.key(newContext("Cookie", "session=a"));
+        String keyB = store.key(newContext("Cookie", "session=b"));
+        assertNotNull(keyA);
+        assertNotNull(keyB);
+        assertNotEquals(keyA, keyB);
+    }
+
+    @Test
+    void concurrentStoreNeverServesReleasedBody() throws Exception {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getLastKnownGood().setMinRefreshMs(0);
+        ReflectionTestUtils.setField(store, "properties", properties);
+        String key = store.key(newContext(null, null));
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 不断替换同一key，被替换的响应体释放后立即被池复用
+            Future<?> writer = executor.submit(() -> {
+                for (int version = 0; running.get(); version++) {
+                    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                            Unpooled.copiedBuffer("v" + version, CharsetUtil.UTF_8));
+                    response.headers().set("X-Version", "v" + version);
+                    try {
+                        store.store(key, route.getLastKnownGood(), response);
+                    } finally {
+                        response.release();
+                    }
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            int served = 0;
+            while (System.nanoTime() < deadline) {
+                EmbeddedChannel serveChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+                GatewayContext context = new GatewayContext(serveChannel.pipeline().firstContext(),
+                        new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items"));
+                context.setRoute(route);
+                if (store.serve(context, key)) {
+                    FullHttpResponse response = serveChannel.readOutbound();
+                    try {
+                        assertEquals(response.headers().get("X-Version"), response.content().toString(CharsetUtil.UTF_8));
+                    } finally {
+                        response.release();
+                    }
+                    served++;
+                }
+                serveChannel.finishAndReleaseAll();
+            }
+            running.set(false);
+            writer.get(5, TimeUnit.SECONDS);
+            assertTrue(served > 0);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import com.wss.bronze.gateway.core.utils.GwUtils;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class RequestCoalescerTest {
+
+    private RequestCoalescer coalescer;
+    private GatewayProperties.RouteDefinition route;
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "properties", new GatewayProperties());
+        route = new GatewayProperties.RouteDefinition();
+        route.setId("coalesced");
+        route.setCoalescing(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private GatewayContext newContext(EmbeddedChannel channel) {
+        GatewayContext context = new GatewayContext(channel.pipeline().firstContext(),
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items"));
+        context.setRoute(route);
+        return context;
+    }
+
+    private EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        channels.add(channel);
+        return channel;
+    }
+
+    @Test
+    void leaderErrorResponseCompletesFollowers() {
+        EmbeddedChannel leaderChannel = newChannel();
+        EmbeddedChannel followerChannel = newChannel();
+        GatewayContext leader = newContext(leaderChannel);
+        GatewayContext follower = newContext(followerChannel);
+
+        assertFalse(coalescer.join(leader));
+        assertTrue(coalescer.join(follower));
+        assertEquals(1, coalescer.getInFlightCount());
+
+        // 领导者处理异常时经GatewayContext写出错误响应
+        GwUtils.sendResponse(leader, HttpResponseStatus.INTERNAL_SERVER_ERROR, "Gateway error");
+
+        FullHttpResponse response = followerChannel.readOutbound();
+        assertNotNull(response);
+        assertEquals(HttpResponseStatus.INTERNAL_SERVER_ERROR, response.status());
+        response.release();
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void followerTimesOutWhenLeaderNeverResponds() throws Exception {
+        EmbeddedChannel followerChannel = newChannel();
+        GatewayContext leader = newContext(newChannel());
+        GatewayContext follower = newContext(followerChannel);
+        follower.setDeadlineNanos(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertFalse(coalescer.join(leader));
+        assertTrue(coalescer.join(follower));
+
+        Thread.sleep(50);
+        followerChannel.runScheduledPendingTasks();
+
+        FullHttpResponse response = followerChannel.readOutbound();
+        assertNotNull(response);
+        assertEquals(HttpResponseStatus.GATEWAY_TIMEOUT, response.status());
+        response.release();
+        assertEquals(1, coalescer.getTimedOutCount());
+        // 超时后移除本次调用，之后的相同请求重新成为领导者
+        assertEquals(0, coalescer.getInFlightCount());
+        assertFalse(coalescer.join(newContext(newChannel())));
+    }
+
+    @Test
+    void completedFollowerDoesNotTimeOut() throws Exception {
+        EmbeddedChannel followerChannel = newChannel();
+        GatewayContext leader = newContext(newChannel());
+        GatewayContext follower = newContext(followerChannel);
+        follower.setDeadlineNanos(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+        assertFalse(coalescer.join(leader));
+        assertTrue(coalescer.join(follower));
+
+        GwUtils.sendResponse(leader, HttpResponseStatus.OK, "ok");
+        Thread.sleep(50);
+        followerChannel.runScheduledPendingTasks();
+
+        FullHttpResponse response = followerChannel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, response.status());
+        response.release();
+        assertNull(followerChannel.readOutbound());
+        assertEquals(0, coalescer.getTimedOutCount());
+    }
+}
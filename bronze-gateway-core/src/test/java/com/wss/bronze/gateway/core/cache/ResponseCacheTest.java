@@ -0,0 +1,158 @@
+package com.wss.bronze.gateway.core.cache;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class ResponseCacheTest {
+
+    private static final String KEY = "GET example.com/items";
+
+    private ResponseCache cache;
+    private GatewayProperties.RouteCache config;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache();
+        ReflectionTestUtils.setField(cache, "properties", new GatewayProperties());
+        cache.init();
+        config = new GatewayProperties.RouteCache();
+        config.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    private static FullHttpResponse response(String body, String cacheControl) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8));
+        if (cacheControl != null) {
+            response.headers().set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+        }
+        return response;
+    }
+
+    private void store(String key, FullHttpResponse response) {
+        try {
+            cache.store(key, config, response);
+        } finally {
+            response.release();
+        }
+    }
+
+    private boolean stores(FullHttpResponse response) {
+        store(KEY, response);
+        CacheEntry entry = cache.lookup(KEY, System.currentTimeMillis());
+        cache.destroy();
+        return entry != null;
+    }
+
+    @Test
+    void storesOnlySharedCacheableResponses() {
+        assertTrue(stores(response("ok", "public, max-age=60")));
+        assertFalse(stores(response("ok", null)));
+        assertFalse(stores(response("ok", "no-store, max-age=60")));
+        assertFalse(stores(response("ok", "no-cache, max-age=60")));
+        assertFalse(stores(response("ok", "private, max-age=60")));
+
+        FullHttpResponse withCookie = response("ok", "max-age=60");
+        withCookie.headers().set(HttpHeaderNames.SET_COOKIE, "session=1");
+        assertFalse(stores(withCookie));
+    }
+
+    @Test
+    void freshnessUsesSharedMaxAgeMinusAge() {
+        assertTrue(stores(response("ok", "max-age=0, s-maxage=60")));
+        assertFalse(stores(response("ok", "max-age=60, s-maxage=0")));
+
+        FullHttpResponse aged = response("ok", "max-age=60");
+        aged.headers().setInt(HttpHeaderNames.AGE, 60);
+        assertFalse(stores(aged));
+
+        store(KEY, response("ok", "max-age=60"));
+        CacheEntry entry = cache.lookup(KEY, System.currentTimeMillis());
+        assertNotNull(entry);
+        assertNull(cache.lookup(KEY, System.currentTimeMillis() + 61000));
+    }
+
+    @Test
+    void storesVaryOnlyWhenCoveredByCacheKey() {
+        FullHttpResponse varied = response("ok", "max-age=60");
+        varied.headers().set(HttpHeaderNames.VARY, "Accept-Encoding");
+        assertFalse(stores(varied));
+
+        config.setVaryHeaders(Collections.singletonList("accept-encoding"));
+        varied = response("ok", "max-age=60");
+        varied.headers().set(HttpHeaderNames.VARY, "Accept-Encoding");
+        assertTrue(stores(varied));
+
+        FullHttpResponse varyAll = response("ok", "max-age=60");
+        varyAll.headers().set(HttpHeaderNames.VARY, "*");
+        assertFalse(stores(varyAll));
+    }
+
+    @Test
+    void concurrentReplaceNeverServesReleasedBody() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 不断替换同一key，被替换的响应体释放后立即被池复用
+            Future<?> writer = executor.submit(() -> {
+                for (int version = 0; running.get(); version++) {
+                    FullHttpResponse response = response("v" + version, "max-age=60");
+                    response.headers().set("X-Version", "v" + version);
+                    store(KEY, response);
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+            int served = 0;
+            while (System.nanoTime() < deadline) {
+                long now = System.currentTimeMillis();
+                CacheEntry entry = cache.lookup(KEY, now);
+                FullHttpResponse response = entry != null ? entry.toResponse(now) : null;
+                if (response == null) {
+                    continue;
+                }
+                try {
+                    assertEquals(response.headers().get("X-Version"), response.content().toString(CharsetUtil.UTF_8));
+                } finally {
+                    response.release();
+                }
+                served++;
+            }
+            running.set(false);
+            writer.get(5, TimeUnit.SECONDS);
+            assertTrue(served > 0);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.wss.bronze.gateway.core.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author wss
+ */
+class TinyLfuPolicyTest {
+
+    // 窗口10字节，主区990字节，每个条目100字节，主区最多9个条目
+    private static final long WEIGHT = 100;
+
+    private TinyLfuPolicy policy;
+    private final List<String> evicted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        policy = new TinyLfuPolicy(1000, 64);
+        for (int i = 0; i < 9; i++) {
+            insert("k" + i);
+        }
+        assertEquals(Collections.emptyList(), evicted);
+        assertEquals(900, policy.weightedSize());
+    }
+
+    private void insert(String key) {
+        policy.onInsert(key, WEIGHT, evicted);
+    }
+
+    @Test
+    void rejectsCandidateNoMoreFrequentThanVictim() {
+        insert("cold");
+
+        assertEquals(Collections.singletonList("cold"), evicted);
+        assertEquals(900, policy.weightedSize());
+    }
+
+    @Test
+    void admitsFrequentCandidateOverProbationVictim() {
+        // 新key之前被访问过（如缓存未命中），频率高于probation段最久未访问的条目
+        policy.onAccess("hot");
+        policy.onAccess("hot");
+        insert("hot");
+
+        assertEquals(Collections.singletonList("k0"), evicted);
+        assertEquals(900, policy.weightedSize());
+    }
+
+    @Test
+    void protectsReaccessedEntries() {
+        // k0再次访问后晋升到protected段，淘汰时先淘汰probation段
+        policy.onAccess("k0");
+        policy.onAccess("hot");
+        policy.onAccess("hot");
+        policy.onAccess("hot");
+        insert("hot");
+
+        assertEquals(Collections.singletonList("k1"), evicted);
+    }
+
+    @Test
+    void removeReleasesWeight() {
+        policy.onRemove("k3");
+        policy.onRemove("missing");
+        assertEquals(800, policy.weightedSize());
+
+        insert("cold");
+        assertEquals(Collections.emptyList(), evicted);
+        assertEquals(900, policy.weightedSize());
+    }
+}
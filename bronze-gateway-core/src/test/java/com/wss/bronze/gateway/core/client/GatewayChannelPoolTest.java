@@ -0,0 +1,107 @@
+package com.wss.bronze.gateway.core.client;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class GatewayChannelPoolTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private GatewayChannelPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        LocalAddress address = new LocalAddress("pool-test-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address).sync().channel();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    private GatewayChannelPool newPool(int maxRequestsPerConnection) {
+        GatewayProperties.ConnectionPolicy config = new GatewayProperties.ConnectionPolicy();
+        config.setMaxRequestsPerConnection(maxRequestsPerConnection);
+        ConnectionLifecyclePolicy policy = new ConnectionLifecyclePolicy(config);
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(server.localAddress());
+        return new GatewayChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                policy.onCreated(ch);
+            }
+
+            @Override
+            public void channelAcquired(Channel ch) {
+                policy.onAcquired(ch);
+            }
+        }, policy, "test", 2, 8, 1000L, new GatewayProperties.Pool());
+    }
+
+    @Test
+    void closesChannelRetiredByRequestCount() throws Exception {
+        pool = newPool(1);
+        Channel channel = pool.acquire().get(1, TimeUnit.SECONDS);
+        assertEquals(1, pool.acquiredChannelCount());
+
+        pool.release(channel).sync();
+
+        assertTrue(channel.closeFuture().await(1, TimeUnit.SECONDS), "retired channel should be closed");
+        assertEquals(0, pool.acquiredChannelCount());
+        Channel next = pool.acquire().get(1, TimeUnit.SECONDS);
+        assertTrue(next != channel && next.isActive());
+    }
+
+    @Test
+    void keepsHealthyChannelPooled() throws Exception {
+        pool = newPool(2);
+        Channel channel = pool.acquire().get(1, TimeUnit.SECONDS);
+        pool.release(channel).sync();
+        assertTrue(channel.isActive());
+
+        // 第二次复用后达到最大请求数，归还时关闭
+        Channel reused = pool.acquire().get(1, TimeUnit.SECONDS);
+        assertSame(channel, reused);
+        pool.release(reused).sync();
+        assertTrue(reused.closeFuture().await(1, TimeUnit.SECONDS));
+        assertFalse(reused.isActive());
+    }
+}
@@ -0,0 +1,164 @@
+package com.wss.bronze.gateway.core.client;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsSection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 使用本地DNS桩服务验证后台刷新与地址变化通知
+ *
+ * @author wss
+ */
+class UpstreamDnsResolverTest {
+
+    private static final String HOST = "upstream.gateway.test";
+
+    private EventLoopGroup group;
+    private Channel dnsServer;
+    private UpstreamDnsResolver resolver;
+    private volatile InetAddress answer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new NioEventLoopGroup(1);
+        answer = InetAddress.getByName("10.0.0.1");
+        dnsServer = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<DatagramChannel>() {
+                    @Override
+                    protected void initChannel(DatagramChannel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(), new DatagramDnsResponseEncoder(),
+                                new StubDnsHandler());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+
+        GatewayProperties.Dns config = new GatewayProperties.Dns();
+        config.setEnabled(true);
+        config.setNameServers(Collections.singletonList(
+                "127.0.0.1:" + ((InetSocketAddress) dnsServer.localAddress()).getPort()));
+        // 不缓存，每次刷新都查询桩服务
+        config.setMaxTtlSeconds(0);
+        config.setRefreshIntervalMs(1000L);
+        resolver = new UpstreamDnsResolver(group, config);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        resolver.close();
+        dnsServer.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void notifiesWatchersWhenAddressesChange() throws Exception {
+        BlockingQueue<Set<InetAddress>> updates = new LinkedBlockingQueue<>();
+        resolver.watch(HOST, updates::add);
+
+        Set<InetAddress> first = updates.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first, "first refresh should publish the resolved addresses");
+        assertEquals(Collections.singleton(InetAddress.getByName("10.0.0.1")), first);
+
+        answer = InetAddress.getByName("10.0.0.2");
+        Set<InetAddress> second = updates.poll(5, TimeUnit.SECONDS);
+        assertNotNull(second, "address change should be published on the next refresh");
+        assertEquals(Collections.singleton(InetAddress.getByName("10.0.0.2")), second);
+    }
+
+    @Test
+    void retiresConnectionsToRemovedAddresses() throws Exception {
+        ConnectionLifecyclePolicy policy = new ConnectionLifecyclePolicy(new GatewayProperties.ConnectionPolicy());
+        BlockingQueue<Set<InetAddress>> updates = new LinkedBlockingQueue<>();
+        resolver.watch(HOST, addresses -> {
+            policy.setActiveAddresses(addresses);
+            updates.add(addresses);
+        });
+        Channel oldConnection = new RemoteChannel(new InetSocketAddress("10.0.0.1", 80));
+        policy.onCreated(oldConnection);
+        assertNotNull(updates.poll(5, TimeUnit.SECONDS));
+        assertFalse(policy.shouldRetire(oldConnection));
+
+        answer = InetAddress.getByName("10.0.0.2");
+        assertNotNull(updates.poll(5, TimeUnit.SECONDS));
+        assertTrue(policy.shouldRetire(oldConnection));
+        Channel newConnection = new RemoteChannel(new InetSocketAddress("10.0.0.2", 80));
+        policy.onCreated(newConnection);
+        assertFalse(policy.shouldRetire(newConnection));
+    }
+
+    @Test
+    void ignoresIpLiterals() throws Exception {
+        BlockingQueue<Set<InetAddress>> updates = new LinkedBlockingQueue<>();
+        resolver.watch("10.0.0.9", updates::add);
+        assertNull(updates.poll(1500, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 对A查询返回当前answer，其他类型返回空应答
+     */
+    private final class StubDnsHandler extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) {
+            DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+            response.addRecord(DnsSection.QUESTION, question);
+            if (DnsRecordType.A.equals(question.type())) {
+                response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(), DnsRecordType.A, 0,
+                        Unpooled.wrappedBuffer(answer.getAddress())));
+            }
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    /**
+     * 指定远端地址的连接
+     */
+    private static final class RemoteChannel extends EmbeddedChannel {
+        private final SocketAddress remoteAddress;
+
+        private RemoteChannel(SocketAddress remoteAddress) {
+            this.remoteAddress = remoteAddress;
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return remoteAddress;
+        }
+    }
+}
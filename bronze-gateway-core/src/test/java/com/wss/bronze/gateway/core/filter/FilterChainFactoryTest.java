@@ -0,0 +1,170 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.config.ApplicationContextHolder;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author wss
+ */
+class FilterChainFactoryTest {
+
+    private final RecordingFilter global = new RecordingFilter("GlobalFilter");
+    private final RecordingFilter local = new RecordingFilter("LocalFilter");
+    private StaticApplicationContext applicationContext;
+    private GatewayProperties properties;
+    private FilterChainFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        applicationContext = new StaticApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton(global.getName(), global);
+        applicationContext.getBeanFactory().registerSingleton(local.getName(), local);
+        applicationContext.refresh();
+        new ApplicationContextHolder().setApplicationContext(applicationContext);
+
+        properties = new GatewayProperties();
+        properties.setFilters(new ArrayList<>(Collections.singletonList(definition(global.getName(), "10"))));
+        factory = new FilterChainFactory();
+        ReflectionTestUtils.setField(factory, "properties", properties);
+        ReflectionTestUtils.setField(factory, "blockingFilterExecutor", new BlockingFilterExecutor());
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationContext.close();
+    }
+
+    private static GatewayProperties.FilterDefinition definition(String name, String limit) {
+        GatewayProperties.FilterDefinition definition = new GatewayProperties.FilterDefinition();
+        definition.setName(name);
+        definition.getArgs().put("limit", limit);
+        return definition;
+    }
+
+    private static GatewayProperties.RouteDefinition route(String id, GatewayProperties.FilterDefinition... filters) {
+        GatewayProperties.RouteDefinition route = new GatewayProperties.RouteDefinition();
+        route.setId(id);
+        route.setFilters(new ArrayList<>(Arrays.asList(filters)));
+        return route;
+    }
+
+    private static Object[] boundArgs(FilterChain chain, String name) {
+        String[] names = chain.getNames();
+        Object[][] args = (Object[][]) ReflectionTestUtils.getField(chain, "args");
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return args[i];
+            }
+        }
+        throw new AssertionError(name + " not in chain");
+    }
+
+    @Test
+    void bindsGlobalFilterOnceForAllRoutes() {
+        GatewayProperties.RouteDefinition a = route("a", definition(local.getName(), "1"));
+        GatewayProperties.RouteDefinition b = route("b", definition(local.getName(), "1"));
+        factory.compile(Arrays.asList(a, b));
+
+        assertEquals(1, global.binds);
+        Object[] shared = boundArgs(factory.getFilterChain(null), global.getName());
+        assertSame(shared, boundArgs(factory.getFilterChain(a), global.getName()));
+        assertSame(shared, boundArgs(factory.getFilterChain(b), global.getName()));
+        // 路由级过滤器按路由绑定
+        assertEquals(2, local.binds);
+        assertNotSame(boundArgs(factory.getFilterChain(a), local.getName()),
+                boundArgs(factory.getFilterChain(b), local.getName()));
+    }
+
+    @Test
+    void routeOverrideIsBoundPerRoute() {
+        GatewayProperties.RouteDefinition a = route("a", definition(global.getName(), "10"));
+        factory.compile(Collections.singletonList(a));
+
+        assertEquals(2, global.binds);
+        assertNotSame(boundArgs(factory.getFilterChain(null), global.getName()),
+                boundArgs(factory.getFilterChain(a), global.getName()));
+    }
+
+    @Test
+    void recompileReusesUnchangedBindingsAndReleasesStaleOnes() {
+        GatewayProperties.RouteDefinition a = route("a", definition(local.getName(), "1"));
+        factory.compile(Collections.singletonList(a));
+        Object[] globalArgs = boundArgs(factory.getFilterChain(a), global.getName());
+
+        factory.compile(Collections.singletonList(route("a", definition(local.getName(), "1"))));
+        assertEquals(1, global.binds);
+        assertEquals(1, local.binds);
+        assertSame(globalArgs, boundArgs(factory.getFilterChain(a), global.getName()));
+
+        properties.setFilters(new ArrayList<>(Collections.singletonList(definition(global.getName(), "20"))));
+        factory.compile(Collections.singletonList(route("a", definition(local.getName(), "2"))));
+        assertEquals(2, global.binds);
+        assertEquals(Collections.singletonList(globalArgs), global.unbound);
+        assertEquals(2, local.binds);
+        assertEquals(1, local.unbound.size());
+    }
+
+    @Test
+    void removedRouteBindingsReleasedOnNextCompile() {
+        GatewayProperties.RouteDefinition a = route("a", definition(local.getName(), "1"));
+        factory.compile(Collections.singletonList(a));
+
+        // 删除的路由保留过滤器链直到下一次编译
+        factory.compile(Collections.emptyList());
+        assertEquals(0, local.unbound.size());
+        factory.compile(Collections.emptyList());
+        assertEquals(1, local.unbound.size());
+        assertEquals(0, global.unbound.size());
+    }
+
+    private static final class RecordingFilter implements Filter {
+        private final String name;
+        private int binds;
+        private final List<Object[]> unbound = new ArrayList<>();
+
+        private RecordingFilter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object[] bindArgs(Map<String, String> args) {
+            binds++;
+            return new Object[]{args};
+        }
+
+        @Override
+        public void unbindArgs(Object[] args) {
+            unbound.add(args);
+        }
+
+        @Override
+        public void doFilter(GatewayContext ctx, Object... args) {
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
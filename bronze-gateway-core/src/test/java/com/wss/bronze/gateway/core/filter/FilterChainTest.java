@@ -0,0 +1,150 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class FilterChainTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    private final GatewayContext context = new GatewayContext(channel.pipeline().firstContext(),
+            new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items"));
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private FilterChain chain(Filter first, Queue<Runnable> blockingTasks, long stageTimeoutMs) {
+        Filter counting = new TestFilter(false);
+        return new FilterChain(new String[]{"First", "Counting"}, new Filter[]{first, counting},
+                new Object[][]{new Object[0], new Object[0]}, blockingTasks::add, stageTimeoutMs);
+    }
+
+    private void expire() throws InterruptedException {
+        Thread.sleep(50);
+        channel.runScheduledPendingTasks();
+    }
+
+    private static void assertTimedOut(CompletableFuture<Void> result) {
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(FilterException.class, e.getCause());
+        assertEquals(HttpResponseStatus.GATEWAY_TIMEOUT, ((FilterException) e.getCause()).getStatus());
+    }
+
+    @Test
+    void asyncStageTimesOutWithGatewayTimeout() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> result = chain(new TestAsyncFilter(pending), new ArrayDeque<>(), 20).execute(context);
+        assertFalse(result.isDone());
+
+        expire();
+        assertTimedOut(result);
+
+        // 超时后完成的阶段被忽略，不再执行后续过滤器
+        pending.complete(null);
+        channel.runPendingTasks();
+        assertEquals(0, invocations.get());
+    }
+
+    @Test
+    void queuedBlockingStageIsSkippedAfterTimeout() throws Exception {
+        Queue<Runnable> blockingTasks = new ArrayDeque<>();
+        CompletableFuture<Void> result = chain(new TestFilter(true), blockingTasks, 20).execute(context);
+
+        expire();
+        assertTimedOut(result);
+
+        blockingTasks.poll().run();
+        channel.runPendingTasks();
+        assertEquals(0, invocations.get());
+    }
+
+    @Test
+    void completedStageCancelsTimeout() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> result = chain(new TestAsyncFilter(pending), new ArrayDeque<>(), 20).execute(context);
+
+        pending.complete(null);
+        channel.runPendingTasks();
+        expire();
+
+        assertTrue(result.isDone());
+        result.get();
+        assertEquals(1, invocations.get());
+    }
+
+    private class TestFilter implements Filter {
+        private final boolean blocking;
+
+        private TestFilter(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public void doFilter(GatewayContext ctx, Object... args) {
+            invocations.incrementAndGet();
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return blocking;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "TestFilter";
+        }
+    }
+
+    private static final class TestAsyncFilter implements AsyncFilter {
+        private final CompletionStage<Void> stage;
+
+        private TestAsyncFilter(CompletionStage<Void> stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public CompletionStage<Void> doFilterAsync(GatewayContext ctx, Object... args) {
+            return stage;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "TestAsyncFilter";
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.auth.JwksProvider;
+import com.wss.bronze.gateway.core.auth.JwtTestKeys;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author wss
+ */
+class JwtAuthFilterTest {
+
+    @TempDir
+    Path dir;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    private final JwksProvider jwksProvider = new JwksProvider();
+    private final JwtAuthFilter filter = new JwtAuthFilter();
+    private KeyPair rsa;
+    private Object[] args;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rsa = JwtTestKeys.rsa();
+        Path jwks = JwtTestKeys.writeJwks(dir.resolve("jwks.json"),
+                Collections.singletonList(JwtTestKeys.jwk("rsa-1", rsa, "RS256")));
+        ReflectionTestUtils.setField(filter, "jwksProvider", jwksProvider);
+        Map<String, String> config = new HashMap<>();
+        config.put("jwksUri", jwks.toString());
+        config.put("claim.tenant", "tenantId");
+        args = filter.bindArgs(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwksProvider.destroy();
+        channel.finishAndReleaseAll();
+    }
+
+    private GatewayContext context(String claims) throws Exception {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items");
+        request.headers().set("X-User-ID", "spoofed");
+        if (claims != null) {
+            long exp = System.currentTimeMillis() / 1000 + 60;
+            request.headers().set(HttpHeaderNames.AUTHORIZATION, "Bearer "
+                    + JwtTestKeys.token("RS256", "rsa-1", rsa.getPrivate(), "{" + claims + "\"exp\":" + exp + "}"));
+        }
+        return new GatewayContext(channel.pipeline().firstContext(), request);
+    }
+
+    @Test
+    void mapsVerifiedClaimsToAttributes() throws Exception {
+        GatewayContext ctx = context("\"sub\":\"alice\",\"tenant\":\"acme\",");
+        filter.doFilter(ctx, args);
+
+        assertEquals("alice", ctx.getUserId());
+        assertEquals("acme", ctx.getAttributes().get("tenantId"));
+    }
+
+    @Test
+    void ignoresUserIdHeaderWhenTokenHasNoSubject() throws Exception {
+        GatewayContext ctx = context("");
+        filter.doFilter(ctx, args);
+
+        assertNull(ctx.getUserId());
+    }
+
+    @Test
+    void rejectsMissingToken() throws Exception {
+        GatewayContext ctx = context(null);
+        FilterException e = assertThrows(FilterException.class, () -> filter.doFilter(ctx, args));
+
+        assertEquals(HttpResponseStatus.UNAUTHORIZED, e.getStatus());
+        HttpHeaders headers = (HttpHeaders) ReflectionTestUtils.getField(ctx, "extraResponseHeaders");
+        assertEquals("Bearer", headers.get(HttpHeaderNames.WWW_AUTHENTICATE));
+    }
+}
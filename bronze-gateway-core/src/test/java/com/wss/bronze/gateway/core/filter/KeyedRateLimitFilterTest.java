@@ -0,0 +1,134 @@
+package com.wss.bronze.gateway.core.filter;
+
+import com.wss.bronze.gateway.core.GatewayContext;
+import com.wss.bronze.gateway.core.acl.ClientIpResolver;
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author wss
+ */
+class KeyedRateLimitFilterTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    private final KeyedRateLimitFilter filter = new KeyedRateLimitFilter();
+
+    @BeforeEach
+    void setUp() {
+        ClientIpResolver clientIpResolver = new ClientIpResolver();
+        ReflectionTestUtils.setField(clientIpResolver, "properties", new GatewayProperties());
+        clientIpResolver.init();
+        ReflectionTestUtils.setField(filter, "clientIpResolver", clientIpResolver);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private Object[] bind(String key, String permitsPerSecond, String burst) {
+        Map<String, String> args = new HashMap<>();
+        args.put("key", key);
+        args.put("permitsPerSecond", permitsPerSecond);
+        args.put("burst", burst);
+        return filter.bindArgs(args);
+    }
+
+    private GatewayContext context(String routeId) {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items");
+        request.headers().set("X-User-ID", "spoofed");
+        GatewayContext ctx = new GatewayContext(channel.pipeline().firstContext(), request);
+        GatewayProperties.RouteDefinition route = new GatewayProperties.RouteDefinition();
+        route.setId(routeId);
+        ctx.setRoute(route);
+        return ctx;
+    }
+
+    private static HttpHeaders headers(GatewayContext ctx) {
+        return (HttpHeaders) ReflectionTestUtils.getField(ctx, "extraResponseHeaders");
+    }
+
+    @Test
+    void setsRateLimitHeadersAndRejectsWithRetryAfter() {
+        // 每秒1个，桶大小2
+        Object[] args = bind("ip", "1", "2");
+        GatewayContext first = context("a");
+        filter.doFilter(first, args);
+        assertEquals("2", headers(first).get(KeyedRateLimitFilter.RATE_LIMIT_LIMIT));
+        assertEquals("1", headers(first).get(KeyedRateLimitFilter.RATE_LIMIT_REMAINING));
+        assertEquals("1", headers(first).get(KeyedRateLimitFilter.RATE_LIMIT_RESET));
+
+        GatewayContext second = context("a");
+        filter.doFilter(second, args);
+        assertEquals("0", headers(second).get(KeyedRateLimitFilter.RATE_LIMIT_REMAINING));
+        assertEquals("2", headers(second).get(KeyedRateLimitFilter.RATE_LIMIT_RESET));
+
+        GatewayContext rejected = context("a");
+        FilterException e = assertThrows(FilterException.class, () -> filter.doFilter(rejected, args));
+        assertEquals(HttpResponseStatus.TOO_MANY_REQUESTS, e.getStatus());
+        assertEquals("0", headers(rejected).get(KeyedRateLimitFilter.RATE_LIMIT_REMAINING));
+        assertEquals("1", headers(rejected).get(HttpHeaderNames.RETRY_AFTER));
+        assertEquals("1", headers(rejected).get(KeyedRateLimitFilter.RATE_LIMIT_RESET));
+    }
+
+    @Test
+    void routeKeySeparatesSharedFilterByRoute() {
+        Object[] args = bind("route", "1", "1");
+        filter.doFilter(context("a"), args);
+        assertThrows(FilterException.class, () -> filter.doFilter(context("a"), args));
+        filter.doFilter(context("b"), args);
+    }
+
+    @Test
+    void userKeyUsesAuthenticatedUserOnly() {
+        Object[] args = bind("user", "1", "1");
+        GatewayContext alice = context("a");
+        alice.getAttributes().put(GatewayContext.ATTR_USER_ID, "alice");
+        filter.doFilter(alice, args);
+
+        GatewayContext bob = context("a");
+        bob.getAttributes().put(GatewayContext.ATTR_USER_ID, "bob");
+        filter.doFilter(bob, args);
+
+        // 未认证请求的X-User-ID头被忽略，按IP限流
+        filter.doFilter(context("a"), args);
+        GatewayContext anonymous = context("a");
+        anonymous.getHeaders().set("X-User-ID", "another");
+        assertThrows(FilterException.class, () -> filter.doFilter(anonymous, args));
+    }
+
+    @Test
+    void apiKeyUsesAuthenticatedAttribute() {
+        Object[] args = bind("apiKey", "1", "1");
+        GatewayContext keyed = context("a");
+        keyed.getAttributes().put(GatewayContext.ATTR_API_KEY, "key-1");
+        filter.doFilter(keyed, args);
+
+        filter.doFilter(context("a"), args);
+        GatewayContext anonymous = context("a");
+        anonymous.getHeaders().set("X-API-Key", "forged");
+        assertThrows(FilterException.class, () -> filter.doFilter(anonymous, args));
+    }
+
+    @Test
+    void rejectsUnsupportedKey() {
+        assertThrows(IllegalArgumentException.class, () -> bind("header:X-Tenant", "1", "1"));
+    }
+}
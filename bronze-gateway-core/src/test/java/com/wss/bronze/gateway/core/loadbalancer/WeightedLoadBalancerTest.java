@@ -0,0 +1,52 @@
+package com.wss.bronze.gateway.core.loadbalancer;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class WeightedLoadBalancerTest {
+
+    private final WeightedLoadBalancer loadBalancer = new WeightedLoadBalancer();
+
+    private static GatewayProperties.Instance instance(String id, int weight) {
+        GatewayProperties.Instance instance = new GatewayProperties.Instance();
+        instance.setServiceId(id);
+        instance.setWeight(weight);
+        return instance;
+    }
+
+    private Map<String, Integer> distribution(List<GatewayProperties.Instance> instances, int requests) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < requests; i++) {
+            counts.merge(loadBalancer.choose(instances, "route").getServiceId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    void choosesOnlyFromCurrentCandidates() {
+        GatewayProperties.Instance a = instance("a", 2);
+        GatewayProperties.Instance b = instance("b", 1);
+        GatewayProperties.Instance c = instance("c", 1);
+        distribution(Arrays.asList(a, b, c), 4);
+
+        // 跳过不可用实例后只在候选实例中选择
+        Map<String, Integer> counts = distribution(Arrays.asList(b, c), 10);
+        assertEquals(2, counts.size());
+        assertEquals(10, counts.get("b") + counts.get("c"));
+
+        // 实例恢复后重新参与选择
+        counts = distribution(Arrays.asList(a, b, c), 40);
+        assertTrue(counts.get("a") > 0);
+    }
+}
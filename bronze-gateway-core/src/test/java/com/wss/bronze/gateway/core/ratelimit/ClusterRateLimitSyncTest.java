@@ -0,0 +1,217 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import com.wss.bronze.gateway.core.config.GatewayProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 使用内存传输层验证集群限流同步的签名与防重放
+ *
+ * @author wss
+ */
+class ClusterRateLimitSyncTest {
+
+    private static final String NAME = "api";
+    private static final String KEY = "client-1";
+
+    private EventLoop eventLoop;
+    private final List<ClusterRateLimitSync> nodes = new ArrayList<>();
+    private final List<InMemoryTransport> transports = new ArrayList<>();
+    // 最近一次广播的消息副本，用于模拟重放
+    private ByteBuf lastMessage;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ClusterRateLimitSync node : nodes) {
+            node.destroy();
+        }
+        if (lastMessage != null) {
+            lastMessage.release();
+        }
+        eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    private ClusterRateLimitSync newNode(String secret, RateLimitSyncTransport transport) throws Exception {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getClusterRateLimit().setEnabled(true);
+        properties.getClusterRateLimit().setSecret(secret);
+        // 测试中手动flush
+        properties.getClusterRateLimit().setSyncIntervalMs(TimeUnit.HOURS.toMillis(1));
+        ClusterRateLimitSync node = new ClusterRateLimitSync();
+        ReflectionTestUtils.setField(node, "properties", properties);
+        ReflectionTestUtils.setField(node, "transport", transport);
+        node.init();
+        nodes.add(node);
+        return node;
+    }
+
+    private ClusterRateLimitSync newNode(String secret) throws Exception {
+        InMemoryTransport transport = new InMemoryTransport();
+        transports.add(transport);
+        return newNode(secret, transport);
+    }
+
+    private static GcraRateLimiter newLimiter() {
+        return new GcraRateLimiter(1, 10, 100);
+    }
+
+    private static void flush(ClusterRateLimitSync node) {
+        ReflectionTestUtils.invokeMethod(node, "flush");
+    }
+
+    @Test
+    void appliesSignedDeltasFromPeers() throws Exception {
+        ClusterRateLimitSync a = newNode("shared-secret");
+        ClusterRateLimitSync b = newNode("shared-secret");
+        ClusterRateLimitSync.ClusterLimit limitA = a.register(NAME, newLimiter());
+        GcraRateLimiter limiterB = newLimiter();
+        b.register(NAME, limiterB);
+
+        for (int i = 0; i < 3; i++) {
+            limitA.record(KEY);
+        }
+        flush(a);
+
+        assertEquals(1, b.getReceivedPackets());
+        assertEquals(0, b.getDroppedPackets());
+        // 桶大小10，其他节点已消耗3个
+        assertEquals(6, limiterB.tryAcquire(KEY, System.nanoTime()));
+    }
+
+    @Test
+    void dropsPacketsSignedWithAnotherSecret() throws Exception {
+        ClusterRateLimitSync a = newNode("attacker-secret");
+        ClusterRateLimitSync b = newNode("shared-secret");
+        ClusterRateLimitSync.ClusterLimit limitA = a.register(NAME, newLimiter());
+        GcraRateLimiter limiterB = newLimiter();
+        b.register(NAME, limiterB);
+
+        limitA.record(KEY);
+        flush(a);
+
+        assertEquals(0, b.getReceivedPackets());
+        assertEquals(1, b.getDroppedPackets());
+        assertEquals(9, limiterB.tryAcquire(KEY, System.nanoTime()));
+    }
+
+    @Test
+    void dropsUnsignedPacketsWhenSecretConfigured() throws Exception {
+        ClusterRateLimitSync a = newNode(null);
+        ClusterRateLimitSync b = newNode("shared-secret");
+        ClusterRateLimitSync.ClusterLimit limitA = a.register(NAME, newLimiter());
+        b.register(NAME, newLimiter());
+
+        limitA.record(KEY);
+        flush(a);
+
+        assertEquals(1, b.getDroppedPackets());
+    }
+
+    @Test
+    void dropsReplayedPackets() throws Exception {
+        ClusterRateLimitSync a = newNode("shared-secret");
+        ClusterRateLimitSync b = newNode("shared-secret");
+        ClusterRateLimitSync.ClusterLimit limitA = a.register(NAME, newLimiter());
+        GcraRateLimiter limiterB = newLimiter();
+        b.register(NAME, limiterB);
+
+        limitA.record(KEY);
+        flush(a);
+        transports.get(1).deliver(lastMessage.retainedDuplicate());
+
+        assertEquals(1, b.getReceivedPackets());
+        assertEquals(1, b.getDroppedPackets());
+        assertEquals(8, limiterB.tryAcquire(KEY, System.nanoTime()));
+    }
+
+    @Test
+    void replacedLimitDeregisterKeepsCurrentLimit() throws Exception {
+        ClusterRateLimitSync a = newNode("shared-secret");
+        ClusterRateLimitSync b = newNode("shared-secret");
+        ClusterRateLimitSync.ClusterLimit limitA = a.register(NAME, newLimiter());
+        ClusterRateLimitSync.ClusterLimit replaced = b.register(NAME, newLimiter());
+        GcraRateLimiter current = newLimiter();
+        b.register(NAME, current);
+        b.deregister(replaced);
+
+        limitA.record(KEY);
+        flush(a);
+
+        assertEquals(8, current.tryAcquire(KEY, System.nanoTime()));
+    }
+
+    @Test
+    void requiresSecretWhenBoundToNonLoopbackAddress() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getClusterRateLimit().setEnabled(true);
+        properties.getClusterRateLimit().setBindHost("0.0.0.0");
+        ClusterRateLimitSync node = new ClusterRateLimitSync();
+        ReflectionTestUtils.setField(node, "properties", properties);
+        assertThrows(IllegalStateException.class, node::init);
+    }
+
+    /**
+     * 同一进程内的传输层，广播时同步投递给其他节点
+     */
+    private final class InMemoryTransport implements RateLimitSyncTransport {
+        private Consumer<ByteBuf> receiver;
+
+        @Override
+        public void start(Consumer<ByteBuf> receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void broadcast(ByteBuf message) {
+            try {
+                if (lastMessage != null) {
+                    lastMessage.release();
+                }
+                lastMessage = Unpooled.copiedBuffer(message);
+                for (InMemoryTransport peer : transports) {
+                    if (peer != this) {
+                        peer.deliver(message.retainedDuplicate());
+                    }
+                }
+            } finally {
+                message.release();
+            }
+        }
+
+        private void deliver(ByteBuf message) {
+            try {
+                receiver.accept(message);
+            } finally {
+                message.release();
+            }
+        }
+
+        @Override
+        public EventLoop eventLoop() {
+            return eventLoop;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author wss
+ */
+class GcraRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long start = System.nanoTime();
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        // 每秒10个，桶大小5
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 5, 100);
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            assertEquals(remaining, limiter.tryAcquire("a", start));
+        }
+        long rejected = limiter.tryAcquire("a", start);
+        assertTrue(rejected < 0);
+        // 下一个许可在100ms后可用
+        assertEquals(SECOND / 10, -(rejected + 1));
+
+        assertEquals(0, limiter.tryAcquire("a", start + SECOND / 10));
+        assertTrue(limiter.tryAcquire("a", start + SECOND / 10) < 0);
+        // 500ms后令牌恢复满桶
+        assertEquals(4, limiter.tryAcquire("a", start + SECOND));
+    }
+
+    @Test
+    void resetNanosCoversMissingPermits() {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 5, 100);
+        assertEquals(0, limiter.resetNanos(5));
+        assertEquals(SECOND / 10, limiter.resetNanos(4));
+        assertEquals(SECOND / 2, limiter.resetNanos(0));
+    }
+
+    @Test
+    void isolatesKeys() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 2, 100);
+        assertEquals(1, limiter.tryAcquire("a", start));
+        assertEquals(0, limiter.tryAcquire("a", start));
+        assertTrue(limiter.tryAcquire("a", start) < 0);
+
+        assertEquals(1, limiter.tryAcquire("b", start));
+        assertEquals(2, limiter.getKeyCount());
+    }
+
+    @Test
+    void sweepsIdleKeysWhenFull() {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 1, 2);
+        limiter.tryAcquire("a", start);
+        limiter.tryAcquire("b", start);
+        assertEquals(2, limiter.getKeyCount());
+
+        // a、b的令牌已恢复，插入新key时回收
+        assertEquals(0, limiter.tryAcquire("c", start + SECOND));
+        assertEquals(1, limiter.getKeyCount());
+        assertEquals(0, limiter.getOverflowCount());
+    }
+
+    @Test
+    void overflowKeysShareOneBucket() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 2, 1);
+        assertEquals(1, limiter.tryAcquire("a", start));
+
+        // 超出maxKeys的key共用一个桶，不能靠伪造新key绕过限流
+        assertEquals(1, limiter.tryAcquire("b", start));
+        assertEquals(0, limiter.tryAcquire("c", start));
+        assertTrue(limiter.tryAcquire("d", start) < 0);
+        assertEquals(1, limiter.getKeyCount());
+        assertEquals(3, limiter.getOverflowCount());
+        // 已跟踪的key不受影响
+        assertEquals(0, limiter.tryAcquire("a", start));
+    }
+
+    @Test
+    void chargeConsumesPermitsWithBoundedDebt() {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 5, 100);
+        limiter.charge("a", 3, start);
+        assertEquals(1, limiter.tryAcquire("a", start));
+
+        // 欠账最多1秒
+        limiter.charge("b", 1000, start);
+        assertTrue(limiter.tryAcquire("b", start + SECOND) < 0);
+        assertEquals(0, limiter.tryAcquire("b", start + SECOND + SECOND / 10));
+    }
+}
@@ -0,0 +1,64 @@
+package com.wss.bronze.gateway.core.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author wss
+ */
+class UdpSyncTransportTest {
+
+    private UdpSyncTransport transport;
+
+    @AfterEach
+    void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private BlockingQueue<Integer> start(String peer) throws Exception {
+        int port = freePort();
+        transport = new UdpSyncTransport("127.0.0.1", port, Collections.singletonList(peer));
+        BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+        transport.start(message -> received.add(message.readableBytes()));
+        try (DatagramSocket sender = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            byte[] payload = new byte[]{1, 2, 3};
+            sender.send(new DatagramPacket(payload, payload.length, new InetSocketAddress("127.0.0.1", port)));
+        }
+        return received;
+    }
+
+    @Test
+    void acceptsPacketsFromConfiguredPeers() throws Exception {
+        BlockingQueue<Integer> received = start("127.0.0.1:7946");
+        assertNotNull(received.poll(2, TimeUnit.SECONDS));
+        assertEquals(0, transport.getRejectedPackets());
+    }
+
+    @Test
+    void dropsPacketsFromUnknownSenders() throws Exception {
+        BlockingQueue<Integer> received = start("192.0.2.10:7946");
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, transport.getRejectedPackets());
+    }
+}
@@ -7,13 +7,23 @@ import com.wss.bronze.gateway.core.filter.FilterException;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 @Component("RateLimitFilter") // 指定Bean名称
 public class RateLimitFilter implements Filter {
 
-    private final RateLimiter rateLimiter = RateLimiter.create(1); // 1000请求/秒
+    /**
+     * 每个路由创建独立的限流器，permitsPerSecond未配置时默认1000请求/秒
+     */
+    @Override
+    public Object[] bindArgs(Map<String, String> args) {
+        double permitsPerSecond = Double.parseDouble(args.getOrDefault("permitsPerSecond", "1000"));
+        return new Object[]{RateLimiter.create(permitsPerSecond)};
+    }
 
     @Override
     public void doFilter(GatewayContext ctx, Object... args) {
+        RateLimiter rateLimiter = (RateLimiter) args[0];
         if (!rateLimiter.tryAcquire()) {
             throw new FilterException(HttpResponseStatus.TOO_MANY_REQUESTS, "Too many requests");
         }